@@ -31,7 +31,9 @@ import com.agrowmart.repository.UserRepository;
 import com.agrowmart.repository.VegetableDetailRepository;
 import com.agrowmart.repository.WomenProductRepository;
 import com.agrowmart.service.CloudinaryService;
+import com.agrowmart.service.CategoryTreeCache;
 import com.agrowmart.service.ProductService;
+import com.agrowmart.service.ShopScheduleCache;
 import com.agrowmart.service.WomenProductService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -52,6 +54,8 @@ public class AdminProductService {
     private final DairyDetailRepository dairyRepo;
     private final MeatDetailRepository meatRepo;
     private final UserRepository userRepository;
+    private final ShopScheduleCache shopSchedules;
+    private final CategoryTreeCache categoryTree;
     
     
     public AdminProductService(
@@ -63,7 +67,9 @@ public class AdminProductService {
         	VegetableDetailRepository vegRepo,DairyDetailRepository dairyRepo,MeatDetailRepository
 
     		meatRepo,
-    		UserRepository userRepository
+    		UserRepository userRepository,
+    		ShopScheduleCache shopSchedules,
+    		CategoryTreeCache categoryTree
             ) {
 
         this.productRepository = productRepository;
@@ -77,6 +83,8 @@ public class AdminProductService {
 
          this.meatRepo=meatRepo;
          this.userRepository=userRepository;
+         this.shopSchedules=shopSchedules;
+         this.categoryTree=categoryTree;
     }
     
 
@@ -134,24 +142,7 @@ public class AdminProductService {
     }
     
     private String determineProductType(Category category) {
-        if (category == null) {
-            return "GENERAL";
-        }
-        Category current = category;
-        while (current != null) {
-            String slug = current.getSlug();
-            if ("vegetable-root".equals(slug)) {
-                return "VEGETABLE";
-            }
-            if ("dairy-root".equals(slug)) {
-                return "DAIRY";
-            }
-            if ("seafoodmeat-root".equals(slug)) {
-                return "MEAT";
-            }
-            current = current.getParent();
-        }
-        return "GENERAL";
+        return categoryTree.productType(category);
     }
     
     @Transactional
@@ -303,7 +294,7 @@ public class AdminProductService {
         ShopSummaryDTO shopDTO = null;
 
         if (shop != null) {
-        	 Boolean open = isShopOpenFromWorkingHours(shop);
+        	 Boolean open = shopSchedules.isOpen(shop);
 
             shopDTO = new ShopSummaryDTO(
                     shop.getId(),                          // Long
@@ -337,94 +328,6 @@ public class AdminProductService {
     
     
     
-    private Boolean isShopOpenFromWorkingHours(Shop shop) {
-        if (shop == null || shop.getWorkingHoursJson() == null || shop.getWorkingHoursJson().trim().isEmpty()) {
-            System.out.println("Shop " + (shop != null ? shop.getId() : "null") + " has no working hours JSON");
-            return false;
-        }
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            List<WorkingHourDTO> hours = mapper.readValue(
-                    shop.getWorkingHoursJson(),
-                    new TypeReference<List<WorkingHourDTO>>() {}
-            );
-
-            if (hours.isEmpty()) {
-                System.out.println("Shop " + shop.getId() + " has empty working hours list");
-                return false;
-            }
-
-            String today = LocalDate.now(ZoneId.of("Asia/Kolkata"))
-                    .getDayOfWeek()
-                    .name();  // MONDAY, TUESDAY, ...
-
-            LocalTime now = LocalTime.now(ZoneId.of("Asia/Kolkata"));
-
-            // Debug info (you can switch to proper logger later)
-            System.out.println("Shop ID: " + shop.getId() +
-                    " | Today: " + today +
-                    " | Current time: " + now);
-
-            System.out.println("Working hours JSON: " + shop.getWorkingHoursJson());
-
-            for (WorkingHourDTO h : hours) {
-                String storedDay = h.getDay();
-                if (storedDay == null || storedDay.trim().isEmpty()) {
-                    continue;
-                }
-
-                String normalizedDay = storedDay.trim().toUpperCase();
-
-                System.out.println("  Checking day: " + storedDay + " → normalized: " + normalizedDay);
-
-                if (today.equals(normalizedDay)) {
-                    String openStr = h.getOpen();
-                    String closeStr = h.getClose();
-
-                    if (openStr == null || closeStr == null || openStr.trim().isEmpty() || closeStr.trim().isEmpty()) {
-                        System.out.println("  Invalid time format for " + normalizedDay);
-                        continue;
-                    }
-
-                    LocalTime openTime = LocalTime.parse(openStr.trim());
-                    LocalTime closeTime = LocalTime.parse(closeStr.trim());
-
-                    System.out.println("  → Found matching day: " + normalizedDay +
-                            " | Open: " + openTime +
-                            " | Close: " + closeTime +
-                            " | Now: " + now);
-
-                    // Normal opening hours (open < close)
-                    if (closeTime.isAfter(openTime)) {
-                        boolean isOpen = !now.isBefore(openTime) && !now.isAfter(closeTime);
-                        System.out.println("  → Normal hours → isOpen = " + isOpen);
-                        return isOpen;
-                    }
-                    // Overnight hours (e.g. 22:00 – 06:00)
-                    else {
-                        boolean isOpen = !now.isBefore(openTime) || !now.isAfter(closeTime);
-                        System.out.println("  → Overnight hours → isOpen = " + isOpen);
-                        return isOpen;
-                    }
-                }
-            }
-
-            System.out.println("No matching day found for shop " + shop.getId() + " (today is " + today + ")");
-            return false;
-
-        } catch (JsonProcessingException e) {
-            System.err.println("Invalid JSON format for shop " + shop.getId() + ": " + e.getMessage());
-            return false;
-        } catch (DateTimeParseException e) {
-            System.err.println("Time parsing error for shop " + shop.getId() + ": " + e.getMessage());
-            return false;
-        } catch (Exception e) {
-            System.err.println("Unexpected error checking shop " + shop.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
     
     
     
@@ -0,0 +1,177 @@
+package com.agrowmart.config;
+
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.Customer;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of authenticated principals (vendor {@code User} / {@code Customer})
+ * so the JWT filter does not hit the DB on every request.
+ *
+ * Bounded LRU with a TTL. Entries are dropped as soon as the user row is updated or
+ * deleted (block, role change, delete – see {@link AuthPrincipalEvictionListener});
+ * other instances pick the change up when their entry expires.
+ *
+ * Concurrent misses for the same account share one load. The cached entity is never handed
+ * out: each request gets its own copy ({@link CachedPrincipal#newPrincipal()}), so a request
+ * that changes or saves its principal cannot leak the change into another request.
+ */
+@Component
+public class AuthPrincipalCache {
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    // Loads in progress; guarded by entries, like the map itself
+    private final Map<String, CompletableFuture<CachedPrincipal>> loading = new LinkedHashMap<>();
+
+    public AuthPrincipalCache(@Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${auth.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** Cached principal, or the loader's result (cached when not null). */
+    public CachedPrincipal get(String userType, Long id, Supplier<CachedPrincipal> loader) {
+        String key = key(userType, id);
+        long now = System.currentTimeMillis();
+
+        CompletableFuture<CachedPrincipal> mine = new CompletableFuture<>();
+        CompletableFuture<CachedPrincipal> other;
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.expiresAt() > now) return e.principal();
+            other = loading.putIfAbsent(key, mine);
+        }
+        if (other != null) return await(other);
+
+        CachedPrincipal loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException ex) {
+            synchronized (entries) {
+                loading.remove(key, mine);
+            }
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+        synchronized (entries) {
+            // Not cached if the account was evicted while it loaded: the row may be older than the change
+            if (loading.remove(key, mine) && loaded != null) {
+                entries.put(key, new Entry(loaded, now + ttlMillis));
+            }
+        }
+        mine.complete(loaded);
+        return loaded;
+    }
+
+    public void evictVendor(Long userId) {
+        evict(key("vendor", userId));
+    }
+
+    public void evictCustomer(Long customerId) {
+        evict(key("customer", customerId));
+    }
+
+    private void evict(String key) {
+        synchronized (entries) {
+            entries.remove(key);
+            loading.remove(key);
+        }
+    }
+
+    private static CachedPrincipal await(CompletableFuture<CachedPrincipal> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private static String key(String userType, Long id) {
+        return userType + ":" + id;
+    }
+
+    /**
+     * One account as cached: id, role and status (an update of any of them evicts the entry)
+     * and the entity as loaded, which only serves as the template for per-request copies.
+     */
+    public static final class CachedPrincipal {
+
+        private final Long id;
+        private final String role;
+        private final String status;
+        private final List<GrantedAuthority> authorities;
+        private final Object entity;
+
+        private CachedPrincipal(Long id, String role, String status, Object entity) {
+            this.id = id;
+            this.role = role;
+            this.status = status;
+            this.authorities = List.of(new SimpleGrantedAuthority(role));
+            this.entity = entity;
+        }
+
+        public static CachedPrincipal of(User user) {
+            return new CachedPrincipal(user.getId(), user.getRole().getName(),
+                    user.getAccountStatus() != null ? user.getAccountStatus().name() : null, copy(user));
+        }
+
+        public static CachedPrincipal of(Customer customer) {
+            return new CachedPrincipal(customer.getId(), "CUSTOMER",
+                    customer.isActive() ? "ACTIVE" : "INACTIVE", copy(customer));
+        }
+
+        public Long id() { return id; }
+        public String role() { return role; }
+        public String status() { return status; }
+        public List<GrantedAuthority> authorities() { return authorities; }
+
+        /** A fresh detached copy for one request; the caller may change it freely. */
+        public Object newPrincipal() {
+            return entity instanceof User user ? copy(user) : copy((Customer) entity);
+        }
+
+        // Field by field through the setters; the shop / address list get their own copies
+        // too, since vendor and customer endpoints change those through the principal
+        private static User copy(User source) {
+            User copy = new User();
+            BeanUtils.copyProperties(source, copy, "shop");
+            Shop shop = source.getShop();
+            if (shop != null) {
+                Shop shopCopy = new Shop();
+                BeanUtils.copyProperties(shop, shopCopy, "user");
+                shopCopy.setUser(copy);
+                copy.setShop(shopCopy);
+            }
+            return copy;
+        }
+
+        private static Customer copy(Customer source) {
+            Customer copy = new Customer();
+            BeanUtils.copyProperties(source, copy, "addresses");
+            copy.setAddresses(new ArrayList<>(source.getAddresses()));
+            return copy;
+        }
+    }
+
+    private record Entry(CachedPrincipal principal, long expiresAt) {}
+}
@@ -0,0 +1,49 @@
+package com.agrowmart.config;
+
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.Customer;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Drops a user's cached principal whenever the row changes (blocked, role changed,
+ * profile edited) or is deleted, so the next request reloads it.
+ */
+@Component
+public class AuthPrincipalEvictionListener {
+
+    private final AuthPrincipalCache cache;
+
+    public AuthPrincipalEvictionListener(AuthPrincipalCache cache) {
+        this.cache = cache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Runnable evict;
+        if (entity instanceof User user) {
+            Long id = user.getId();
+            evict = () -> cache.evictVendor(id);
+        } else if (entity instanceof Customer customer) {
+            Long id = customer.getId();
+            evict = () -> cache.evictCustomer(id);
+        } else {
+            return;
+        }
+
+        evict.run();
+        // Again after commit: a request that reloaded the old row in between must not keep it
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
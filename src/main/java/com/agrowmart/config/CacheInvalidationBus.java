@@ -0,0 +1,76 @@
+package com.agrowmart.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Tells the other instances that a cached region (or one key of it) changed, over a
+ * Redis pub/sub channel.
+ *
+ * Messages are fire-and-forget: an instance that is disconnected when one is sent misses
+ * it, so every cache fed from here must also have a TTL. An instance ignores its own
+ * messages; the publisher has already dropped its local copy.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    static final String CHANNEL = "agrowmart:cache-invalidation";
+    // Key value meaning "the whole region"
+    private static final String ALL = "*";
+
+    private final StringRedisTemplate redis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redis, RedisMessageListenerContainer container) {
+        this.redis = redis;
+        container.addMessageListener(this::onMessage, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Register for changes to a region published by other instances.
+     * The handler gets the changed key, or null when the whole region changed.
+     */
+    public void subscribe(String region, Consumer<String> handler) {
+        handlers.computeIfAbsent(region, r -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /** @param key the changed key, or null for the whole region */
+    public void publish(String region, String key) {
+        try {
+            redis.convertAndSend(CHANNEL, nodeId + "|" + region + "|" + (key != null ? key : ALL));
+        } catch (Exception e) {
+            // The other instances fall back to their TTLs
+            log.warn("Cache invalidation for {} not published: {}", region, e.getMessage());
+        }
+    }
+
+    private void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) return;
+
+        String key = ALL.equals(parts[2]) ? null : parts[2];
+        for (Consumer<String> handler : handlers.getOrDefault(parts[1], List.of())) {
+            try {
+                handler.accept(key);
+            } catch (Exception e) {
+                log.warn("Cache invalidation handler for {} failed: {}", parts[1], e.getMessage());
+            }
+        }
+    }
+}
@@ -6,14 +6,17 @@ import org.springframework.stereotype.Component;
 
 import com.agrowmart.entity.Category;
 import com.agrowmart.repository.CategoryRepository;
+import com.agrowmart.service.CategoryTreeCache;
 
 @Component
 public class CategorySeeder implements CommandLineRunner {
 
     // Correct field name → lowercase 'c'
     private final CategoryRepository categoryRepo;
-    public CategorySeeder(CategoryRepository categoryRepo) {  // ERROR 2
+    private final CategoryTreeCache categoryTree;
+    public CategorySeeder(CategoryRepository categoryRepo, CategoryTreeCache categoryTree) {  // ERROR 2
         this.categoryRepo = categoryRepo;                // Same galat name
+        this.categoryTree = categoryTree;
     }
 
     @Override
@@ -21,6 +24,7 @@ public class CategorySeeder implements CommandLineRunner {
         createRootIfNotExists("vegetable-root", "Vegetables");
         createRootIfNotExists("seafoodmeat-root", "Seafood & Meat");
         createRootIfNotExists("dairy-root", "Dairy Products");
+        categoryTree.rebuild();   // the tree may have been read before the roots existed
     }
 
     private void createRootIfNotExists(String slug, String name) {
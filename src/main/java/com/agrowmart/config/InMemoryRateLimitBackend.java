@@ -0,0 +1,46 @@
+package com.agrowmart.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local stand-in for {@link RedisRateLimitBackend}: same semantics, no Redis.
+ * Limits are per instance, so use it only for tests and single-instance local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "memory")
+public class InMemoryRateLimitBackend implements RateLimitBackend {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, RateLimitPolicy policy) {
+        long now = System.currentTimeMillis();
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(policy.capacity(), policy.perMinute(), now))
+                .tryTake(now);
+    }
+
+    @Override
+    public long incrementWindow(String key, long windowSeconds) {
+        long now = System.currentTimeMillis();
+        Window w = windows.compute(key, (k, current) ->
+                current == null || current.expiresAt() <= now
+                        ? new Window(now + windowSeconds * 1000, 1)
+                        : new Window(current.expiresAt(), current.count() + 1));
+        return w.count();
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(b -> b.isIdle(now));
+        windows.values().removeIf(w -> w.expiresAt() <= now);
+    }
+
+    private record Window(long expiresAt, long count) {}
+}
@@ -6,6 +6,7 @@ import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.repository.UserRepository;
 import com.agrowmart.repository.customer.CustomerRepository;
 import com.agrowmart.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,14 +14,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -30,13 +29,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserRepository userRepository;
     private final CustomerRepository customerRepository;
+    private final AuthPrincipalCache principalCache;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
                                    UserRepository userRepository,
-                                   CustomerRepository customerRepository) {
+                                   CustomerRepository customerRepository,
+                                   AuthPrincipalCache principalCache) {
         this.jwtUtil = jwtUtil;
         this.userRepository = userRepository;
         this.customerRepository = customerRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -50,20 +52,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.substring(7);
 
             try {
-                Long userId = jwtUtil.extractUserId(token);
-                String userType = jwtUtil.extractUserType(token); // "vendor" or "customer"
-
-                if (userId != null && userType != null &&
-                    SecurityContextHolder.getContext().getAuthentication() == null) {
-
-                    if ("vendor".equalsIgnoreCase(userType)) {
-                        authenticateVendor(userId, token, request);
-
-                    } else if ("customer".equalsIgnoreCase(userType)) {
-                        authenticateCustomer(userId, token, request);
-
-                    } else {
-                        logger.warn("Unknown user type in JWT: {}", userType);
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // One parse: verifies signature + expiry and gives us every claim
+                    Claims claims = jwtUtil.parseClaims(token);
+                    Long userId = claims.get("userId", Long.class);
+                    String userType = claims.get("type", String.class); // "vendor" or "customer"
+
+                    if (userId != null && userType != null) {
+                        if ("vendor".equalsIgnoreCase(userType)) {
+                            authenticate(principalCache.get("vendor", userId, () -> loadVendor(userId)), userId, request);
+
+                        } else if ("customer".equalsIgnoreCase(userType)) {
+                            authenticate(principalCache.get("customer", userId, () -> loadCustomer(userId)), userId, request);
+
+                        } else if (!"admin".equalsIgnoreCase(userType)) {
+                            logger.warn("Unknown user type in JWT: {}", userType);
+                        }
                     }
                 }
 
@@ -77,41 +81,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
-    private void authenticateVendor(Long userId, String token, HttpServletRequest request) {
-        User user = userRepository.findById(userId).orElse(null);
-
-        if (user != null && jwtUtil.validateToken(token, userId)) {
-            String role = user.getRole().getName();
-
-            var authorities = Collections.singletonList(new SimpleGrantedAuthority(role));
-
-            UsernamePasswordAuthenticationToken auth =
-                    new UsernamePasswordAuthenticationToken(user, null, authorities);
-            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-            SecurityContextHolder.getContext().setAuthentication(auth);
-
-            logger.debug("Authenticated VENDOR: {} (ID: {}) with role: {}", user.getName(), user.getId(), role);
-        } else {
-            logger.warn("Invalid vendor JWT for userId: {}", userId);
+    private void authenticate(AuthPrincipalCache.CachedPrincipal cached, Long userId, HttpServletRequest request) {
+        if (cached == null) {
+            logger.warn("JWT for unknown user ID: {}", userId);
+            return;
         }
-    }
 
-    private void authenticateCustomer(Long userId, String token, HttpServletRequest request) {
-        Customer customer = customerRepository.findById(userId).orElse(null);
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(cached.newPrincipal(), null, cached.authorities());
+        auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-        if (customer != null && jwtUtil.validateToken(token, userId)) {
-            var authorities = Collections.singletonList(new SimpleGrantedAuthority("CUSTOMER"));
+        SecurityContextHolder.getContext().setAuthentication(auth);
 
-            UsernamePasswordAuthenticationToken auth =
-                    new UsernamePasswordAuthenticationToken(customer, null, authorities);
-            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        logger.debug("Authenticated user ID: {} with authorities: {}", userId, cached.authorities());
+    }
 
-            SecurityContextHolder.getContext().setAuthentication(auth);
+    private AuthPrincipalCache.CachedPrincipal loadVendor(Long userId) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) return null;
+        return AuthPrincipalCache.CachedPrincipal.of(user);
+    }
 
-            logger.debug("Authenticated CUSTOMER: {} (ID: {})", customer.getFullName(), customer.getId());
-        } else {
-            logger.warn("Invalid customer JWT for userId: {}", userId);
-        }
+    private AuthPrincipalCache.CachedPrincipal loadCustomer(Long customerId) {
+        Customer customer = customerRepository.findById(customerId).orElse(null);
+        if (customer == null) return null;
+        return AuthPrincipalCache.CachedPrincipal.of(customer);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package com.agrowmart.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Process-local stand-in for {@link RedisStompFanout}: straight to the in-memory broker, no
+ * Redis. Clients on other instances get nothing, so use it only for tests and
+ * single-instance local runs.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker", havingValue = "simple")
+public class LocalStompFanout implements StompFanout {
+
+    private final SimpMessagingTemplate template;
+    private final StompMetrics metrics;
+
+    public LocalStompFanout(SimpMessagingTemplate template, StompMetrics metrics) {
+        this.template = template;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void toUser(String userId, String destination, Object payload) {
+        template.convertAndSendToUser(userId, destination, payload);
+        metrics.deliveredLocal();
+    }
+
+    @Override
+    public void toTopic(String destination, Object payload) {
+        template.convertAndSend(destination, payload);
+        metrics.deliveredLocal();
+    }
+}
@@ -0,0 +1,16 @@
+package com.agrowmart.config;
+
+/**
+ * Shared counter store behind the rate limiter. Every operation is a single atomic step,
+ * so limits hold across all instances. {@link RedisRateLimitBackend} in production,
+ * {@link InMemoryRateLimitBackend} for tests and single-instance local runs
+ * ({@code rate-limit.backend=memory}).
+ */
+public interface RateLimitBackend {
+
+    /** Takes one token from the bucket at {@code key}; returns 0 if granted, otherwise ms to wait. */
+    long tryAcquire(String key, RateLimitPolicy policy);
+
+    /** Increments a fixed-window counter that expires {@code windowSeconds} after its first hit; returns the new count. */
+    long incrementWindow(String key, long windowSeconds);
+}
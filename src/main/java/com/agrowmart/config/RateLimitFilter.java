@@ -0,0 +1,143 @@
+package com.agrowmart.config;
+
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.Customer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-route rate limiting ({@link RateLimitPolicies}), keyed by the signed-in user or,
+ * for anonymous calls, the client IP. Runs after the JWT filters.
+ *
+ * The client IP is {@code getRemoteAddr()}: with {@code server.forward-headers-strategy=native}
+ * Tomcat replaces it with the last X-Forwarded-For hop that is not one of our own proxies,
+ * so a client cannot pick its own key by sending the header itself.
+ *
+ * Each request is first checked against an in-process bucket with the same limits: a
+ * client already over its limit on this instance alone is over it everywhere, so it is
+ * refused without a Redis call. Otherwise one script call to the shared backend decides.
+ * If the backend is unreachable the request is let through (only the local bucket
+ * applies) and Redis is skipped for a few seconds.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final long BACKEND_BACKOFF_MS = 5000;
+
+    private final RateLimitPolicies policies;
+    private final RateLimitBackend backend;
+    private final RateLimitMetrics metrics;
+    private final Map<String, TokenBucket> local = new ConcurrentHashMap<>();
+    // Caps the local buckets; past it new clients are checked by the backend only
+    private final int maxLocalKeys;
+    private volatile long backendSkipUntil;
+
+    public RateLimitFilter(RateLimitPolicies policies, RateLimitBackend backend, RateLimitMetrics metrics,
+                           @Value("${rate-limit.local.max-keys:100000}") int maxLocalKeys) {
+        this.policies = policies;
+        this.backend = backend;
+        this.metrics = metrics;
+        this.maxLocalKeys = maxLocalKeys;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        RateLimitPolicy policy = policies.match(request);
+        if (policy == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = policy.name() + ":" + clientKey(request);
+        long now = System.currentTimeMillis();
+
+        TokenBucket bucket = local.get(key);
+        if (bucket == null && local.size() < maxLocalKeys) {
+            bucket = local.computeIfAbsent(key, k -> new TokenBucket(policy.capacity(), policy.perMinute(), now));
+        }
+        long wait = bucket != null ? bucket.tryTake(now) : 0;
+        if (wait > 0) {
+            metrics.deniedLocal(policy.name());
+            reject(request, response, wait);
+            return;
+        }
+
+        if (now >= backendSkipUntil) {
+            try {
+                wait = backend.tryAcquire("rl:" + key, policy);
+            } catch (RuntimeException e) {
+                backendSkipUntil = now + BACKEND_BACKOFF_MS;
+                metrics.backendError(policy.name());
+                log.warn("Rate limit backend unavailable, allowing {} for {}s: {}",
+                        policy.name(), BACKEND_BACKOFF_MS / 1000, e.getMessage());
+                wait = 0;
+            }
+            if (wait > 0) {
+                metrics.deniedRemote(policy.name());
+                reject(request, response, wait);
+                return;
+            }
+        } else {
+            metrics.backendError(policy.name());
+        }
+
+        metrics.allowed(policy.name());
+        chain.doFilter(request, response);
+    }
+
+    // Local buckets of clients that went quiet are full again and can go
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        local.values().removeIf(b -> b.isIdle(now));
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()) {
+            Object principal = auth.getPrincipal();
+            if (principal instanceof Customer c) return "c" + c.getId();
+            if (principal instanceof User u) return "u" + u.getId();
+        }
+        // Already resolved from X-Forwarded-For by Tomcat's RemoteIpValve (trusted proxies only)
+        return "ip" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletRequest request, HttpServletResponse response, long waitMs) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", "Too Many Requests");
+        body.put("message", "Too many requests. Please try again shortly.");
+        body.put("path", request.getRequestURI());
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, (waitMs + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        MAPPER.writeValue(response.getOutputStream(), body);
+    }
+}
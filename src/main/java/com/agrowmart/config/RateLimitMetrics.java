@@ -0,0 +1,48 @@
+package com.agrowmart.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Allow / deny counts per rate-limit policy since startup, for this instance.
+ * deniedLocal are floods shed before Redis; backendErrors are checks that failed open.
+ */
+@Component
+public class RateLimitMetrics {
+
+    private final Map<String, Counters> byPolicy = new ConcurrentHashMap<>();
+
+    void allowed(String policy) { counters(policy).allowed.increment(); }
+    void deniedLocal(String policy) { counters(policy).deniedLocal.increment(); }
+    void deniedRemote(String policy) { counters(policy).deniedRemote.increment(); }
+    void backendError(String policy) { counters(policy).backendErrors.increment(); }
+
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        byPolicy.forEach((policy, c) -> {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("allowed", c.allowed.sum());
+            counts.put("deniedLocal", c.deniedLocal.sum());
+            counts.put("deniedRemote", c.deniedRemote.sum());
+            counts.put("backendErrors", c.backendErrors.sum());
+            result.put(policy, counts);
+        });
+        return result;
+    }
+
+    private Counters counters(String policy) {
+        return byPolicy.computeIfAbsent(policy, p -> new Counters());
+    }
+
+    private static final class Counters {
+        final LongAdder allowed = new LongAdder();
+        final LongAdder deniedLocal = new LongAdder();
+        final LongAdder deniedRemote = new LongAdder();
+        final LongAdder backendErrors = new LongAdder();
+    }
+}
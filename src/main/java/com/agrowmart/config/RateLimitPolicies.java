@@ -0,0 +1,59 @@
+package com.agrowmart.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Which routes are rate limited, and how hard. First matching policy wins.
+ * Limits are "capacity,perMinute" and can be tuned per environment.
+ */
+@Component
+public class RateLimitPolicies {
+
+    private static final Set<HttpMethod> POST = Set.of(HttpMethod.POST);
+    private static final Set<HttpMethod> ANY = Set.of();
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<RateLimitPolicy> policies;
+
+    public RateLimitPolicies(@Value("${rate-limit.login:10,10}") String login,
+                             @Value("${rate-limit.otp:5,5}") String otp,
+                             @Value("${rate-limit.search:60,120}") String search,
+                             @Value("${rate-limit.checkout:10,20}") String checkout) {
+        this.policies = List.of(
+                RateLimitPolicy.of("login", login, POST,
+                        "/api/auth/login", "/api/customer/auth/login", "/api/farmer/login", "/api/admin/auth/login"),
+                // Per client; RedisOtpStore still caps OTPs per phone number
+                RateLimitPolicy.of("otp", otp, POST,
+                        "/api/**/send-otp", "/api/**/forgot-password"),
+                RateLimitPolicy.of("search", search, ANY,
+                        "/api/products/search", "/api/shops/search", "/api/public/search",
+                        "/api/v1/agri/products/search"),
+                RateLimitPolicy.of("checkout", checkout, POST,
+                        "/api/orders/create", "/api/payments/create")
+        );
+    }
+
+    /** The policy for this request, or null if it is not rate limited. */
+    public RateLimitPolicy match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        for (RateLimitPolicy policy : policies) {
+            if (!policy.methods().isEmpty() && !policy.methods().contains(method)) continue;
+            for (String pattern : policy.patterns()) {
+                if (matcher.match(pattern, path)) return policy;
+            }
+        }
+        return null;
+    }
+
+    public List<RateLimitPolicy> all() {
+        return policies;
+    }
+}
@@ -0,0 +1,36 @@
+package com.agrowmart.config;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One rate-limited group of routes: a token bucket of {@code capacity} requests,
+ * refilled at {@code perMinute}, kept per client (user when signed in, otherwise IP).
+ *
+ * @param methods HTTP methods covered; empty means all
+ * @param patterns Ant-style paths, e.g. {@code /api/auth/login}
+ */
+public record RateLimitPolicy(
+        String name,
+        int capacity,
+        int perMinute,
+        Set<HttpMethod> methods,
+        List<String> patterns
+) {
+
+    /** Parses "capacity,perMinute", e.g. "10,20". */
+    static RateLimitPolicy of(String name, String spec, Set<HttpMethod> methods, String... patterns) {
+        String[] parts = spec.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Rate limit '" + name + "' must be 'capacity,perMinute', got: " + spec);
+        }
+        int capacity = Integer.parseInt(parts[0].trim());
+        int perMinute = Integer.parseInt(parts[1].trim());
+        if (capacity < 1 || perMinute < 1) {
+            throw new IllegalArgumentException("Rate limit '" + name + "' values must be positive: " + spec);
+        }
+        return new RateLimitPolicy(name, capacity, perMinute, methods, List.of(patterns));
+    }
+}
@@ -0,0 +1,75 @@
+package com.agrowmart.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Rate-limit state in Redis, one script call (EVALSHA) per check.
+ *
+ * The token bucket reads, refills, takes and sets its expiry inside the script, using
+ * Redis' own clock, so instances with skewed clocks still share one limit. The
+ * fixed-window counter sets its TTL in the same call as the INCR, so a crash can no
+ * longer leave a counter without an expiry (a counter found without one is repaired).
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "redis", matchIfMissing = true)
+public class RedisRateLimitBackend implements RateLimitBackend {
+
+    // KEYS[1] bucket; ARGV[1] capacity, ARGV[2] tokens per minute. Returns 0 or ms to wait.
+    private static final RedisScript<Long> TOKEN_BUCKET = new DefaultRedisScript<>("""
+            local capacity = tonumber(ARGV[1])
+            local perMs = tonumber(ARGV[2]) / 60000
+            local t = redis.call('TIME')
+            local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+            local state = redis.call('HMGET', KEYS[1], 'tokens', 'at')
+            local tokens = tonumber(state[1])
+            local at = tonumber(state[2])
+            if tokens == nil or at == nil then
+                tokens = capacity
+                at = now
+            end
+            tokens = math.min(capacity, tokens + math.max(0, now - at) * perMs)
+            local wait = 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+            else
+                wait = math.ceil((1 - tokens) / perMs)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'at', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / perMs) + 1000)
+            return wait
+            """, Long.class);
+
+    // KEYS[1] counter; ARGV[1] window seconds. Returns the new count.
+    private static final RedisScript<Long> FIXED_WINDOW = new DefaultRedisScript<>("""
+            local count = redis.call('INCR', KEYS[1])
+            if redis.call('TTL', KEYS[1]) < 0 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+            end
+            return count
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+
+    public RedisRateLimitBackend(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimitPolicy policy) {
+        Long wait = redis.execute(TOKEN_BUCKET, List.of(key),
+                String.valueOf(policy.capacity()), String.valueOf(policy.perMinute()));
+        return wait != null ? wait : 0;
+    }
+
+    @Override
+    public long incrementWindow(String key, long windowSeconds) {
+        Long count = redis.execute(FIXED_WINDOW, List.of(key), String.valueOf(windowSeconds));
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.agrowmart.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays STOMP messages between instances over Redis pub/sub; each instance hands what it
+ * receives to its own in-memory broker.
+ *
+ * Messages for a user go to that user's channel, and an instance subscribes to a user's
+ * channel only while that user has a session on it, so a message reaches just the instances
+ * where its recipient is connected. /topic messages go to one channel every instance
+ * listens on. The publisher receives its own messages too, so local and remote clients
+ * get them the same way. If Redis cannot be reached the message is delivered to this
+ * instance's clients only.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker", havingValue = "redis", matchIfMissing = true)
+public class RedisStompFanout implements StompFanout {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisStompFanout.class);
+
+    static final String USER_CHANNEL_PREFIX = "agrowmart:stomp:user:";
+    static final String TOPIC_CHANNEL = "agrowmart:stomp:topic";
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer container;
+    private final SimpMessagingTemplate template;
+    private final ObjectMapper mapper;
+    private final StompMetrics metrics;
+    private final MessageListener userListener = this::onUserMessage;
+    // Principal name (c5 / u5) → its session ids on this instance
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+
+    public RedisStompFanout(StringRedisTemplate redis,
+                            RedisMessageListenerContainer container,
+                            SimpMessagingTemplate template,
+                            ObjectMapper mapper,
+                            StompMetrics metrics) {
+        this.redis = redis;
+        this.container = container;
+        this.template = template;
+        this.mapper = mapper;
+        this.metrics = metrics;
+        container.addMessageListener(this::onTopicMessage, new ChannelTopic(TOPIC_CHANNEL));
+        metrics.localUsers(localSessions::size);
+    }
+
+    @Override
+    public void toUser(String userId, String destination, Object payload) {
+        if (!publish(USER_CHANNEL_PREFIX + userId, destination, payload)) {
+            template.convertAndSendToUser(userId, destination, payload);
+            metrics.deliveredLocal();
+        }
+    }
+
+    @Override
+    public void toTopic(String destination, Object payload) {
+        if (!publish(TOPIC_CHANNEL, destination, payload)) {
+            template.convertAndSend(destination, payload);
+            metrics.deliveredLocal();
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) return;
+
+        localSessions.compute(user.getName(), (userId, sessions) -> {
+            if (sessions == null) {
+                sessions = ConcurrentHashMap.newKeySet();
+                container.addMessageListener(userListener, new ChannelTopic(USER_CHANNEL_PREFIX + userId));
+            }
+            sessions.add(sessionId);
+            return sessions;
+        });
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) return;
+
+        localSessions.computeIfPresent(user.getName(), (userId, sessions) -> {
+            sessions.remove(event.getSessionId());
+            if (!sessions.isEmpty()) return sessions;
+            container.removeMessageListener(userListener, new ChannelTopic(USER_CHANNEL_PREFIX + userId));
+            return null;
+        });
+    }
+
+    // ─────────────────────────────────────────────
+
+    // False when the message could not be handed to Redis
+    private boolean publish(String channel, String destination, Object payload) {
+        try {
+            ObjectNode envelope = mapper.createObjectNode();
+            envelope.put("destination", destination);
+            envelope.set("payload", mapper.valueToTree(payload));
+            redis.convertAndSend(channel, mapper.writeValueAsString(envelope));
+            metrics.published();
+            return true;
+        } catch (Exception e) {
+            metrics.publishError();
+            log.warn("STOMP message for {} not relayed, delivering locally only: {}", channel, e.getMessage());
+            return false;
+        }
+    }
+
+    private void onUserMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String userId = channel.substring(USER_CHANNEL_PREFIX.length());
+        JsonNode envelope = read(message);
+        if (envelope == null) return;
+        template.convertAndSendToUser(userId, envelope.get("destination").asText(), envelope.get("payload"));
+        metrics.deliveredLocal();
+    }
+
+    private void onTopicMessage(Message message, byte[] pattern) {
+        JsonNode envelope = read(message);
+        if (envelope == null) return;
+        template.convertAndSend(envelope.get("destination").asText(), envelope.get("payload"));
+        metrics.deliveredLocal();
+    }
+
+    private JsonNode read(Message message) {
+        metrics.received();
+        try {
+            JsonNode envelope = mapper.readTree(message.getBody());
+            return envelope.hasNonNull("destination") ? envelope : null;
+        } catch (Exception e) {
+            log.warn("Unreadable STOMP relay message ignored: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -22,12 +22,15 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
     private final AdminJwtAuthenticationFilter AdminJwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     
 
     public SecurityConfig(JwtAuthenticationFilter jwtFilter,
-    		 AdminJwtAuthenticationFilter AdminJwtAuthenticationFilter) {
+    		 AdminJwtAuthenticationFilter AdminJwtAuthenticationFilter,
+    		 RateLimitFilter rateLimitFilter) {
         this.jwtFilter = jwtFilter;
         this.AdminJwtAuthenticationFilter=AdminJwtAuthenticationFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -48,7 +51,7 @@ public class SecurityConfig {
         ));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
-        config.setExposedHeaders(List.of("Authorization"));
+        config.setExposedHeaders(List.of("Authorization", "Retry-After"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -111,6 +114,7 @@ public class SecurityConfig {
                         "/api/customer/me",
                         "/api/customer/profile",
                         "/api/customer/addresses/**",
+                        "/api/customer/nearby/**",
                         "/api/orders/my",
                         "/api/orders/my/active",
                         "/api/orders/{orderId}/status",
@@ -157,7 +161,8 @@ public class SecurityConfig {
 //             .addFilterBefore(AdminJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
      // Add BOTH filters
         .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)                // normal user/vendor filter
-        .addFilterBefore(AdminJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);  // admin filter
+        .addFilterBefore(AdminJwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)  // admin filter
+        .addFilterAfter(rateLimitFilter, UsernamePasswordAuthenticationFilter.class);   // after auth: limits are per user when signed in
         return http.build();
     }
 }
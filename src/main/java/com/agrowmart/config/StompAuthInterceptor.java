@@ -0,0 +1,58 @@
+package com.agrowmart.config;
+
+import com.agrowmart.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+
+/**
+ * Names a STOMP session after the account in the JWT sent with CONNECT
+ * ({@code Authorization: Bearer ...} native header), so /user destinations addressed to that
+ * account reach it. The name includes the token type ({@link StompFanout#customer} /
+ * {@link StompFanout#user}). Connections without a valid token stay anonymous and only get
+ * /topic messages.
+ */
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(StompAuthInterceptor.class);
+
+    private final JwtUtil jwtUtil;
+
+    public StompAuthInterceptor(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) return message;
+
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return message;
+        try {
+            Claims claims = jwtUtil.parseClaims(header.substring(7));
+            Long userId = claims.get("userId", Long.class);
+            String type = claims.get("type", String.class);
+            String name = userId == null || type == null ? null
+                    : "customer".equalsIgnoreCase(type) ? StompFanout.customer(userId)
+                    : "vendor".equalsIgnoreCase(type) ? StompFanout.user(userId)
+                    : null;
+            if (name != null) {
+                accessor.setUser((Principal) () -> name);
+            }
+        } catch (Exception e) {
+            log.warn("STOMP CONNECT with invalid token: {}", e.getMessage());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.agrowmart.config;
+
+/**
+ * Delivers STOMP messages to clients wherever they are connected. {@link RedisStompFanout}
+ * in production (relays through Redis pub/sub to every instance); {@link LocalStompFanout}
+ * for tests and single-instance local runs ({@code websocket.broker=simple}).
+ */
+public interface StompFanout {
+
+    /**
+     * Sends to every session of one user.
+     *
+     * @param userId the STOMP principal name, {@link #customer} or {@link #user}
+     */
+    void toUser(String userId, String destination, Object payload);
+
+    /** Sends to every subscriber of a /topic destination. */
+    void toTopic(String destination, Object payload);
+
+    // Customers and users (vendors, delivery partners) are numbered separately, so the
+    // principal name carries the account type: customer 5 is "c5", user 5 is "u5"
+
+    static String customer(Long customerId) {
+        return "c" + customerId;
+    }
+
+    static String user(Long userId) {
+        return "u" + userId;
+    }
+}
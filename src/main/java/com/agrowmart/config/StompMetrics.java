@@ -0,0 +1,49 @@
+package com.agrowmart.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * STOMP fan-out counts since startup, for this instance.
+ * dropped are messages shed because a session's outbound queue was full; slowConsumersClosed
+ * are sessions closed for not draining their send buffer in time.
+ */
+@Component
+public class StompMetrics {
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder deliveredLocal = new LongAdder();
+    private final LongAdder publishErrors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowConsumersClosed = new LongAdder();
+    private volatile IntSupplier localUsers = () -> 0;
+    private volatile IntSupplier sessions = () -> 0;
+
+    void published() { published.increment(); }
+    void received() { received.increment(); }
+    void deliveredLocal() { deliveredLocal.increment(); }
+    void publishError() { publishErrors.increment(); }
+    void dropped() { dropped.increment(); }
+    void slowConsumerClosed() { slowConsumersClosed.increment(); }
+
+    void localUsers(IntSupplier gauge) { this.localUsers = gauge; }
+    void sessions(IntSupplier gauge) { this.sessions = gauge; }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("published", published.sum());
+        counts.put("received", received.sum());
+        counts.put("deliveredLocal", deliveredLocal.sum());
+        counts.put("publishErrors", publishErrors.sum());
+        counts.put("dropped", dropped.sum());
+        counts.put("slowConsumersClosed", slowConsumersClosed.sum());
+        counts.put("sessions", (long) sessions.getAsInt());
+        counts.put("localUsers", (long) localUsers.getAsInt());
+        return counts;
+    }
+}
@@ -0,0 +1,85 @@
+package com.agrowmart.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the outbound queue of every STOMP session (interceptor on the client outbound channel).
+ *
+ * A message counts as pending from the moment it is queued for a session until the
+ * session's handler has taken it. Once a session has {@code websocket.outbound.max-pending}
+ * messages waiting, further MESSAGE frames to it are dropped (and counted) instead of
+ * piling up in memory; control frames always go through. Sessions that stop reading
+ * altogether are closed by the transport limits in {@link WebSocketConfig}.
+ *
+ * A session is tracked from its CONNECTED frame until it disconnects. Frames for a session
+ * that is not tracked (e.g. still queued when it disconnected) pass without being counted,
+ * so a late frame cannot bring back the entry {@link #onDisconnect} removed.
+ */
+@Component
+public class StompOutboundLimiter implements ExecutorChannelInterceptor {
+
+    private final int maxPending;
+    private final StompMetrics metrics;
+    private final Map<String, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    public StompOutboundLimiter(@Value("${websocket.outbound.max-pending:200}") int maxPending,
+                                StompMetrics metrics) {
+        this.maxPending = maxPending;
+        this.metrics = metrics;
+        metrics.sessions(pending::size);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) return message;
+
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        AtomicInteger count = type == SimpMessageType.CONNECT_ACK
+                ? pending.computeIfAbsent(sessionId, s -> new AtomicInteger())
+                : pending.get(sessionId);
+        if (count == null) return message;
+        if (type == SimpMessageType.MESSAGE && count.get() >= maxPending) {
+            metrics.dropped();
+            return null;
+        }
+        count.incrementAndGet();
+        return message;
+    }
+
+    // Not queued after all (executor rejected it)
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) release(message);
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        pending.remove(event.getSessionId());
+    }
+
+    private void release(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) return;
+        AtomicInteger count = pending.get(sessionId);
+        if (count != null) count.updateAndGet(n -> Math.max(0, n - 1));
+    }
+}
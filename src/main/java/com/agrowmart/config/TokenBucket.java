@@ -0,0 +1,44 @@
+package com.agrowmart.config;
+
+/**
+ * In-process token bucket: {@code capacity} requests at once, refilled at
+ * {@code perMinute} tokens a minute. Same arithmetic as the Redis script in
+ * {@link RedisRateLimitBackend}.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double perMs;
+    private double tokens;
+    private long at;
+
+    TokenBucket(int capacity, int perMinute, long nowMillis) {
+        this.capacity = capacity;
+        this.perMs = perMinute / 60000.0;
+        this.tokens = capacity;
+        this.at = nowMillis;
+    }
+
+    /** Takes one token; returns 0 if it was granted, otherwise milliseconds until one is available. */
+    synchronized long tryTake(long nowMillis) {
+        refill(nowMillis);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / perMs);
+    }
+
+    // Full again: the client has been quiet long enough for the bucket to be dropped
+    synchronized boolean isIdle(long nowMillis) {
+        refill(nowMillis);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowMillis) {
+        if (nowMillis > at) {
+            tokens = Math.min(capacity, tokens + (nowMillis - at) * perMs);
+            at = nowMillis;
+        }
+    }
+}
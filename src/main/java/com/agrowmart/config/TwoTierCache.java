@@ -0,0 +1,447 @@
+package com.agrowmart.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in two tiers: a small LRU per instance in front of Redis (JSON values).
+ *
+ * A miss on one key is loaded once per instance – concurrent callers wait for that load –
+ * and, through a short Redis lock, roughly once across instances: the others poll Redis
+ * for the value for a moment before loading it themselves. Invalidations drop the local
+ * copy, the Redis copy and are broadcast with {@link CacheInvalidationBus}; a load that
+ * started before an invalidation of its key does not store its (possibly stale) result,
+ * locally or in Redis (each Redis value has a version, bumped by every eviction, and the
+ * write-back only lands if the version is still the one read before loading).
+ *
+ * Redis is optional at runtime: on an error the cache works from the local tier and the
+ * loader for a few seconds, and tries Redis again after that.
+ */
+@Component
+public class TwoTierCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private static final String PREFIX = "cache:";
+    private static final long REDIS_BACKOFF_MS = 5000;
+    // Cross-instance stampede guard: how long a loader holds a key, and how long others wait for it
+    private static final long LOAD_LOCK_MS = 5000;
+    private static final long LOAD_WAIT_MS = 300;
+    private static final long LOAD_POLL_MS = 50;
+    // Redis keys carry the region's epoch (bumped by clear); re-read it at least this often
+    private static final long EPOCH_RECHECK_MS = 30_000;
+    // Per-key versions only have to outlive the loads that read them
+    private static final long VERSION_TTL_MS = 3_600_000;
+
+    // KEYS[1] value, KEYS[2] version; ARGV[1] version read before loading, ARGV[2] json, ARGV[3] ttl ms.
+    // Returns 1 when written, 0 when the key was invalidated meanwhile.
+    private static final RedisScript<Long> WRITE_IF_VERSION = new DefaultRedisScript<>("""
+            local version = redis.call('GET', KEYS[2]) or '0'
+            if version ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            return 1
+            """, Long.class);
+
+    // KEYS[1] value, KEYS[2] version; ARGV[1] version ttl ms
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            local version = redis.call('INCR', KEYS[2])
+            redis.call('PEXPIRE', KEYS[2], ARGV[1])
+            return version
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper mapper;
+    private final CacheInvalidationBus bus;
+    private final Map<String, Region<?>> regions = new ConcurrentHashMap<>();
+    private volatile long redisDownUntil;
+
+    public TwoTierCache(StringRedisTemplate redis, ObjectMapper mapper, CacheInvalidationBus bus) {
+        this.redis = redis;
+        this.mapper = mapper;
+        this.bus = bus;
+    }
+
+    public <T> Region<T> region(String name, TypeReference<T> type, int maxEntries,
+                                Duration localTtl, Duration remoteTtl) {
+        Region<T> region = new Region<>(name, mapper.getTypeFactory().constructType(type),
+                maxEntries, localTtl.toMillis(), remoteTtl);
+        if (regions.putIfAbsent(name, region) != null) {
+            throw new IllegalStateException("Cache region already defined: " + name);
+        }
+        bus.subscribe(name, region::onRemoteInvalidation);
+        return region;
+    }
+
+    /** Counters per region since startup, for this instance. */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        regions.forEach((name, region) -> result.put(name, region.stats()));
+        return result;
+    }
+
+    private boolean redisUp() {
+        return System.currentTimeMillis() >= redisDownUntil;
+    }
+
+    private void redisFailed(Region<?> region, Exception e) {
+        region.redisErrors.increment();
+        redisDownUntil = System.currentTimeMillis() + REDIS_BACKOFF_MS;
+        log.warn("Redis cache tier unavailable ({}), using local tier only for {} ms",
+                e.getMessage(), REDIS_BACKOFF_MS);
+    }
+
+    public final class Region<T> {
+
+        private final String name;
+        private final JavaType type;
+        private final long localTtlMillis;
+        private final Duration remoteTtl;
+
+        private final LongAdder localHits = new LongAdder();
+        private final LongAdder remoteHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+        private final LongAdder invalidations = new LongAdder();
+        private final LongAdder redisErrors = new LongAdder();
+
+        // Access-ordered LRU, guarded by itself
+        private final Map<String, Entry<T>> local;
+        // One load per key; an invalidation of the key (or the region) marks it stale
+        private final Map<String, Load<T>> inFlight = new ConcurrentHashMap<>();
+        private volatile long epoch = -1;
+        private volatile long epochCheckedAt;
+
+        private Region(String name, JavaType type, int maxEntries, long localTtlMillis, Duration remoteTtl) {
+            this.name = name;
+            this.type = type;
+            this.localTtlMillis = localTtlMillis;
+            this.remoteTtl = remoteTtl;
+            this.local = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry<T>> eldest) {
+                    if (size() <= maxEntries) return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        /** Cached value, or the loader's result (cached when not null). */
+        public T get(String key, Supplier<T> loader) {
+            T cached = getLocal(key);
+            if (cached != null) {
+                localHits.increment();
+                return cached;
+            }
+
+            Load<T> mine = new Load<>();
+            Load<T> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                coalesced.increment();
+                return await(running.future, loader);
+            }
+            try {
+                T value = fetch(key, loader, mine);
+                mine.future.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                mine.future.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, mine);
+            }
+        }
+
+        /** Drop one key here, in Redis and on the other instances. */
+        public void evict(String key) {
+            evictLocal(key);
+            invalidations.increment();
+            if (redisUp()) {
+                try {
+                    redis.execute(INVALIDATE, List.of(remoteKey(key), versionKey(key)), String.valueOf(VERSION_TTL_MS));
+                } catch (Exception e) {
+                    redisFailed(this, e);
+                }
+            }
+            bus.publish(name, key);
+        }
+
+        /** Drop the whole region here, in Redis (by moving to a new epoch) and on the other instances. */
+        public void clear() {
+            clearLocal();
+            invalidations.increment();
+            if (redisUp()) {
+                try {
+                    Long next = redis.opsForValue().increment(epochKey());
+                    if (next != null) {
+                        epoch = next;
+                        epochCheckedAt = System.currentTimeMillis();
+                    }
+                } catch (Exception e) {
+                    redisFailed(this, e);
+                }
+            }
+            bus.publish(name, null);
+        }
+
+        private void onRemoteInvalidation(String key) {
+            invalidations.increment();
+            if (key != null) {
+                evictLocal(key);
+            } else {
+                clearLocal();
+                epochCheckedAt = 0;   // the publisher moved to a new epoch
+            }
+        }
+
+        private T fetch(String key, Supplier<T> loader, Load<T> load) {
+            Remote<T> remote = readRemote(key);
+            if (remote.value() != null) {
+                remoteHits.increment();
+                putLocal(key, remote.value(), load);
+                return remote.value();
+            }
+            misses.increment();
+
+            boolean locked = tryLock(key);
+            if (!locked && redisUp() && remote.valueKey() != null) {
+                // Another instance is loading this key: give it a moment to publish the value
+                T published = waitForRemote(key, remote.valueKey());
+                if (published != null) {
+                    remoteHits.increment();
+                    putLocal(key, published, load);
+                    return published;
+                }
+            }
+
+            try {
+                T value = loader.get();
+                loads.increment();
+                if (value != null) {
+                    putLocal(key, value, load);
+                    writeRemote(key, remote, value, load);
+                }
+                return value;
+            } finally {
+                if (locked) unlock(key);
+            }
+        }
+
+        private T await(CompletableFuture<T> running, Supplier<T> loader) {
+            try {
+                return running.get(LOAD_LOCK_MS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error err) throw err;
+                throw new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                return loader.get();   // the first load is stuck; do not wait forever behind it
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return loader.get();
+            }
+        }
+
+        private T getLocal(String key) {
+            long now = System.currentTimeMillis();
+            synchronized (local) {
+                Entry<T> e = local.get(key);
+                if (e == null) return null;
+                if (e.expiresAt() > now) return e.value();
+                local.remove(key);
+                expirations.increment();
+                return null;
+            }
+        }
+
+        private void putLocal(String key, T value, Load<T> load) {
+            synchronized (local) {
+                if (!load.stale) {
+                    local.put(key, new Entry<>(value, System.currentTimeMillis() + localTtlMillis));
+                }
+            }
+        }
+
+        private void evictLocal(String key) {
+            synchronized (local) {
+                local.remove(key);
+                Load<T> running = inFlight.get(key);
+                if (running != null) running.stale = true;
+            }
+        }
+
+        private void clearLocal() {
+            synchronized (local) {
+                local.clear();
+                inFlight.values().forEach(running -> running.stale = true);
+            }
+        }
+
+        // The value with its version, read together; keys stay null when Redis is unavailable
+        private Remote<T> readRemote(String key) {
+            if (!redisUp()) return Remote.none();
+            try {
+                String valueKey = remoteKey(key);
+                String versionKey = versionKey(key);
+                List<String> stored = redis.opsForValue().multiGet(List.of(valueKey, versionKey));
+                String json = stored != null ? stored.get(0) : null;
+                String version = stored != null && stored.get(1) != null ? stored.get(1) : "0";
+                return new Remote<>(valueKey, versionKey, version, parse(key, json));
+            } catch (Exception e) {
+                redisFailed(this, e);
+                return Remote.none();
+            }
+        }
+
+        private T parse(String key, String json) {
+            if (json == null) return null;
+            try {
+                return mapper.readValue(json, type);
+            } catch (JsonProcessingException e) {
+                // Written by an older build with a different shape: treat as a miss
+                log.debug("Unreadable cache entry {}:{} ignored: {}", name, key, e.getMessage());
+                return null;
+            }
+        }
+
+        // Only when the key's version is still the one read before loading: an eviction in
+        // between (on any instance) bumped it, and the loaded value may predate that change
+        private void writeRemote(String key, Remote<T> remote, T value, Load<T> load) {
+            if (remote.valueKey() == null || !redisUp() || load.stale) return;
+            try {
+                redis.execute(WRITE_IF_VERSION, List.of(remote.valueKey(), remote.versionKey()),
+                        remote.version(), mapper.writeValueAsString(value), String.valueOf(remoteTtl.toMillis()));
+            } catch (JsonProcessingException e) {
+                log.warn("Cache value for {}:{} not serialisable: {}", name, key, e.getMessage());
+            } catch (Exception e) {
+                redisFailed(this, e);
+            }
+        }
+
+        private T waitForRemote(String key, String valueKey) {
+            long deadline = System.currentTimeMillis() + LOAD_WAIT_MS;
+            while (System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(LOAD_POLL_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                try {
+                    T remote = parse(key, redis.opsForValue().get(valueKey));
+                    if (remote != null) return remote;
+                } catch (Exception e) {
+                    redisFailed(this, e);
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private boolean tryLock(String key) {
+            if (!redisUp()) return false;
+            try {
+                return Boolean.TRUE.equals(redis.opsForValue()
+                        .setIfAbsent(lockKey(key), "1", Duration.ofMillis(LOAD_LOCK_MS)));
+            } catch (Exception e) {
+                redisFailed(this, e);
+                return false;
+            }
+        }
+
+        // A load slower than the lease may delete a later holder's lock; that only costs one extra load
+        private void unlock(String key) {
+            try {
+                redis.delete(lockKey(key));
+            } catch (Exception e) {
+                redisFailed(this, e);
+            }
+        }
+
+        // The {key} hash tag keeps a value and its version in one cluster slot for the scripts
+        private String remoteKey(String key) {
+            return PREFIX + name + ":" + epoch() + ":{" + key + "}";
+        }
+
+        private String versionKey(String key) {
+            return PREFIX + name + ":version:{" + key + "}";
+        }
+
+        private String lockKey(String key) {
+            return PREFIX + name + ":lock:" + key;
+        }
+
+        private String epochKey() {
+            return PREFIX + name + ":epoch";
+        }
+
+        private long epoch() {
+            long now = System.currentTimeMillis();
+            if (epoch < 0 || now - epochCheckedAt > EPOCH_RECHECK_MS) {
+                String stored = redis.opsForValue().get(epochKey());
+                epoch = stored != null ? Long.parseLong(stored) : 0;
+                epochCheckedAt = now;
+            }
+            return epoch;
+        }
+
+        private Map<String, Long> stats() {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            counts.put("localHits", localHits.sum());
+            counts.put("remoteHits", remoteHits.sum());
+            counts.put("misses", misses.sum());
+            counts.put("loads", loads.sum());
+            counts.put("coalesced", coalesced.sum());
+            counts.put("evictions", evictions.sum());
+            counts.put("expirations", expirations.sum());
+            counts.put("invalidations", invalidations.sum());
+            counts.put("redisErrors", redisErrors.sum());
+            synchronized (local) {
+                counts.put("localSize", (long) local.size());
+            }
+            return counts;
+        }
+    }
+
+    private record Entry<T>(T value, long expiresAt) {}
+
+    private static final class Load<T> {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        // Set under the region's local lock when the key is invalidated while loading
+        volatile boolean stale;
+    }
+
+    // valueKey is under the epoch read before loading, so a clear() meanwhile cannot redirect the write
+    private record Remote<T>(String valueKey, String versionKey, String version, T value) {
+        static <T> Remote<T> none() {
+            return new Remote<>(null, null, null, null);
+        }
+    }
+}
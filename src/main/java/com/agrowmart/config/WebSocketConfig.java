@@ -1,16 +1,48 @@
 package com.agrowmart.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
 
+/**
+ * STOMP over /ws. The broker is the in-memory one on every instance; messages sent through
+ * {@link StompFanout} reach the brokers of all instances (see {@link RedisStompFanout}).
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
+    private final StompAuthInterceptor authInterceptor;
+    private final StompOutboundLimiter outboundLimiter;
+    private final StompMetrics metrics;
+
+    // A session whose socket has not taken a message for this long, or has this much unsent, is closed
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.send-buffer-limit-kb:512}")
+    private int sendBufferLimitKb;
+
+    public WebSocketConfig(StompAuthInterceptor authInterceptor,
+                           StompOutboundLimiter outboundLimiter,
+                           StompMetrics metrics) {
+        this.authInterceptor = authInterceptor;
+        this.outboundLimiter = outboundLimiter;
+        this.metrics = metrics;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");          // ← Broadcast + private
@@ -24,10 +56,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")                  // ← Allow all origins (testing)
                 .withSockJS();                                  // ← SockJS fallback
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(authInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(outboundLimiter);
+    }
+
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
         registration.setMessageSizeLimit(128 * 1024);
-        System.out.println("WebSocket transport ready!");
+        registration.setSendTimeLimit(sendTimeLimitMs);
+        registration.setSendBufferSizeLimit(sendBufferLimitKb * 1024);
+        // Count the sessions closed for exceeding the limits above
+        registration.addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(status)) metrics.slowConsumerClosed();
+                super.afterConnectionClosed(session, status);
+            }
+        });
+        log.info("WebSocket transport ready: send time limit {} ms, send buffer limit {} KB",
+                sendTimeLimitMs, sendBufferLimitKb);
     }
 }
-
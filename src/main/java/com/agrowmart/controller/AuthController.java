@@ -100,6 +100,8 @@ public class AuthController {
             @RequestPart(value = "shopLicensePhoto", required = false) MultipartFile shopLicensePhoto,
             @RequestPart(value = "opensAt", required = false) String opensAt,
             @RequestPart(value = "closesAt", required = false) String closesAt,
+            @RequestPart(value = "shopLatitude", required = false) String shopLatitude,
+            @RequestPart(value = "shopLongitude", required = false) String shopLongitude,
 
             @AuthenticationPrincipal User currentUser) throws IOException {
 
@@ -153,7 +155,8 @@ public class AuthController {
         boolean hasShopData = shopName != null || shopType != null || shopAddress != null ||
         		workingHoursJson != null || shopLicense != null ||
                               shopPhoto != null || shopCoverPhoto != null || shopLicensePhoto != null ||
-                              opensAt != null || closesAt != null;
+                              opensAt != null || closesAt != null ||
+                              shopLatitude != null || shopLongitude != null;
 
         if (hasShopData) {
             LocalTime openTime  = opensAt  != null && !opensAt.isBlank()  ? LocalTime.parse(opensAt.trim())  : null;
@@ -168,6 +171,8 @@ public class AuthController {
                     shopLicense,
                     openTime,
                     closeTime,
+                    parseCoordinate(shopLatitude),
+                    parseCoordinate(shopLongitude),
                     shopPhoto,
                     shopCoverPhoto,
                     shopLicensePhoto
@@ -580,7 +585,13 @@ public class AuthController {
                         .body("Something went wrong. Please try again later.");
             }
         }
-    
-    
-    
+
+    private static Double parseCoordinate(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return Double.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new BusinessValidationException("Invalid shop coordinate: " + value);
+        }
+    }
 }
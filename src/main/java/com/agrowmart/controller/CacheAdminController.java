@@ -0,0 +1,26 @@
+package com.agrowmart.controller;
+
+import com.agrowmart.config.TwoTierCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// Admin-only (via /api/admin/**): hit / miss / eviction counts per cache region on this instance
+@RestController
+@RequestMapping("/api/admin/caches")
+public class CacheAdminController {
+
+    private final TwoTierCache cache;
+
+    public CacheAdminController(TwoTierCache cache) {
+        this.cache = cache;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Long>>> stats() {
+        return ResponseEntity.ok(cache.stats());
+    }
+}
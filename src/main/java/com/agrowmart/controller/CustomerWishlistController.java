@@ -5,9 +5,11 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import com.agrowmart.dto.auth.customer.WishlistAddRequest;
 import com.agrowmart.dto.auth.customer.WishlistProductDTO;
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.entity.customer.Customer;          // ← import this
 import com.agrowmart.service.customer.CustomerWishlistService;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/customer/wishlist")
@@ -47,6 +49,27 @@ public class CustomerWishlistController {
         return ResponseEntity.ok(service.getWishlist(customerId));
     }
 
+    // Cursor-paged alternative to the full list above; nextCursor is null on the last page
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<WishlistProductDTO>> page(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @AuthenticationPrincipal Customer customer) {
+
+        int pageSize = Math.max(1, Math.min(size, 50));
+        return ResponseEntity.ok(service.getWishlistPage(customer.getId(), cursor, pageSize));
+    }
+
+    // e.g. ?productType=REGULAR&productIds=12,15,40 -> {"12":true,"15":false,"40":false}
+    @GetMapping("/check-bulk")
+    public ResponseEntity<Map<Long, Boolean>> checkBulk(
+            @RequestParam String productType,
+            @RequestParam List<Long> productIds,
+            @AuthenticationPrincipal Customer customer) {
+
+        return ResponseEntity.ok(service.checkMany(customer.getId(), productType, productIds));
+    }
+
     @GetMapping("/check")
     public ResponseEntity<Boolean> check(
             @RequestParam Long productId,
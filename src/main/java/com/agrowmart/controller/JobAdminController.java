@@ -0,0 +1,39 @@
+package com.agrowmart.controller;
+
+import com.agrowmart.entity.JobRun;
+import com.agrowmart.repository.JobRunRepository;
+import com.agrowmart.repository.ScheduledJobRepository;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Admin-only (via /api/admin/**): scheduled job locks / checkpoints and recent runs
+@RestController
+@RequestMapping("/api/admin/jobs")
+public class JobAdminController {
+
+    private final ScheduledJobRepository jobRepo;
+    private final JobRunRepository runRepo;
+
+    public JobAdminController(ScheduledJobRepository jobRepo, JobRunRepository runRepo) {
+        this.jobRepo = jobRepo;
+        this.runRepo = runRepo;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> jobs(@RequestParam(required = false) String job) {
+        List<JobRun> runs = job != null
+                ? runRepo.findTop20ByJobNameOrderByStartedAtDesc(job)
+                : runRepo.findTop50ByOrderByStartedAtDesc();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobs", jobRepo.findAll());
+        body.put("runs", runs);
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,48 @@
+package com.agrowmart.controller;
+
+import com.agrowmart.dto.auth.product.NearbyProductDTO;
+import com.agrowmart.dto.auth.shop.NearbyShopDTO;
+import com.agrowmart.entity.customer.Customer;
+import com.agrowmart.service.NearbyService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Shops / products near the customer's default address (or ?addressId=), nearest first
+@RestController
+@RequestMapping("/api/customer/nearby")
+public class NearbyController {
+
+    private final NearbyService nearbyService;
+
+    public NearbyController(NearbyService nearbyService) {
+        this.nearbyService = nearbyService;
+    }
+
+    @GetMapping("/shops")
+    public ResponseEntity<List<NearbyShopDTO>> shops(
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Long addressId,
+            @AuthenticationPrincipal Customer customer) {
+
+        int max = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(nearbyService.nearbyShops(customer.getId(), addressId, radiusKm, max));
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<List<NearbyProductDTO>> products(
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Long addressId,
+            @AuthenticationPrincipal Customer customer) {
+
+        int max = Math.max(1, Math.min(limit, 100));
+        return ResponseEntity.ok(nearbyService.nearbyProducts(customer.getId(), addressId, radiusKm, max));
+    }
+}
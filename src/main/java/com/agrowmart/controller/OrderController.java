@@ -3,6 +3,7 @@
 package com.agrowmart.controller;
 
 import com.agrowmart.dto.auth.order.*;
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.entity.User;
 import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.entity.order.Order;
@@ -86,6 +87,21 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllVendorOrders(vendor));
     }
 
+    /**
+     * Vendor order inbox, newest first, one page at a time.
+     * Pass the returned nextCursor to get the following page; status may be repeated or comma separated.
+     */
+    @GetMapping("/vendor/inbox")
+    @PreAuthorize("hasAnyAuthority('VEGETABLE', 'DAIRY', 'SEAFOODMEAT', 'WOMEN', 'FARMER', 'AGRI')")
+    public ResponseEntity<CursorPage<OrderResponseDTO>> getVendorInbox(
+            @AuthenticationPrincipal User vendor,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        int pageSize = Math.max(1, Math.min(size, 50));
+        return ResponseEntity.ok(orderService.getVendorInbox(vendor, status, cursor, pageSize));
+    }
+
     
     
     @GetMapping("/vendor/scheduled")
@@ -2,13 +2,17 @@
 
 package com.agrowmart.controller;
 
+import com.agrowmart.dto.auth.product.CatalogSearchHitDTO;
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.dto.auth.product.ProductFilterDTO;
 import com.agrowmart.dto.auth.product.ProductResponseDTO;
 import com.agrowmart.dto.auth.women.WomenProductResponseDTO;
 import com.agrowmart.dto.auth.category.CategoryResponseDTO;
 import com.agrowmart.dto.auth.shop.ShopResponse;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
 import com.agrowmart.service.*;
 
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,45 +26,69 @@ public class PublicProductController {
     private final WomenProductService womenProductService;
     private final CategoryService categoryService;
     private final ShopService shopService;
+    private final CatalogSearchService catalogSearchService;
+
+    private static final int MAX_HOME_PAGE_SIZE = 50;
+    private static final String END_OF_FEED = "~";
 
     public PublicProductController(ProductService productService,
                                    WomenProductService womenProductService,
                                    CategoryService categoryService,
-                                   ShopService shopService) {
+                                   ShopService shopService,
+                                   CatalogSearchService catalogSearchService) {
         this.productService = productService;
         this.womenProductService = womenProductService;
         this.categoryService = categoryService;
         this.shopService = shopService;
+        this.catalogSearchService = catalogSearchService;
     }
 
-    // HOME PAGE
+    // HOME PAGE – keyset pages of both product families, search done in the DB.
+    // cursor is the nextCursor of the previous response; omit it for the first page.
     @GetMapping({"/", "/home", "/products"})
     public ResponseEntity<Map<String, Object>> getHomeData(
-            @RequestParam(required = false) String search) {
-
-       // List<ProductResponseDTO> regular = productService.getAllActiveProducts();
-    	
-    // 21 Jan
-    	
-    	List<ProductResponseDTO> regular = productService.getAllActiveProducts();
-// 
-     // FIXED: Use active-only method
-        List<WomenProductResponseDTO> women = womenProductService.getAllActiveWomenProducts();
-        if (search != null && !search.trim().isEmpty()) {
-            String q = search.trim().toLowerCase();
-            regular = regular.stream()
-                    .filter(p -> p.productName().toLowerCase().contains(q))
-                    .toList();
-            women = women.stream()
-                    .filter(w -> w.name().toLowerCase().contains(q))
-                    .toList();
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        int pageSize = Math.max(1, Math.min(size, MAX_HOME_PAGE_SIZE));
+        boolean firstPage = cursor == null || cursor.isBlank();
+
+        // Combined cursor: "<regular>.<women>", a family that has run out is sent as "~"
+        String regularCursor = null;
+        String womenCursor = null;
+        if (!firstPage) {
+            String[] parts = cursor.trim().split("\\.", -1);
+            if (parts.length != 2) {
+                throw new BusinessValidationException("Invalid cursor");
+            }
+            regularCursor = parts[0];
+            womenCursor = parts[1];
         }
 
+        CursorPage<ProductResponseDTO> regular = END_OF_FEED.equals(regularCursor)
+                ? new CursorPage<>(List.of(), null, false)
+                : productService.getHomeFeed(search, regularCursor, pageSize);
+        CursorPage<WomenProductResponseDTO> women = END_OF_FEED.equals(womenCursor)
+                ? new CursorPage<>(List.of(), null, false)
+                : womenProductService.getHomeFeed(search, womenCursor, pageSize);
+
+        boolean hasMore = regular.hasMore() || women.hasMore();
+        String nextCursor = hasMore
+                ? (regular.hasMore() ? regular.nextCursor() : END_OF_FEED) + "."
+                  + (women.hasMore() ? women.nextCursor() : END_OF_FEED)
+                : null;
+
         Map<String, Object> data = new HashMap<>();
-        data.put("regularProducts", regular);
-        data.put("womenProducts", women);
-        data.put("categories", categoryService.listAll());
-        data.put("total", regular.size() + women.size());
+        data.put("regularProducts", regular.items());
+        data.put("womenProducts", women.items());
+        if (firstPage) {
+            // Categories change rarely; later pages don't need them again
+            data.put("categories", categoryService.listAll());
+        }
+        data.put("total", regular.items().size() + women.items().size());
+        data.put("nextCursor", nextCursor);
+        data.put("hasMore", hasMore);
 
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -71,6 +99,16 @@ public class PublicProductController {
         return ResponseEntity.ok(response);
     }
 
+    // SEARCH – ranked across regular, women and agri products (prefix + typo tolerant)
+    @GetMapping("/search")
+    public ResponseEntity<Page<CatalogSearchHitDTO>> search(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(catalogSearchService.search(q, type, page, size));
+    }
+
     // MOST POPULAR SHOPS
     @GetMapping("/popular-shops")
     public ResponseEntity<Map<String, Object>> getPopularShops() {
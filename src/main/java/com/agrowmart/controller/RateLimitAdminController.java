@@ -0,0 +1,36 @@
+package com.agrowmart.controller;
+
+import com.agrowmart.config.RateLimitMetrics;
+import com.agrowmart.config.RateLimitPolicies;
+import com.agrowmart.config.RateLimitPolicy;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Admin-only (via /api/admin/**): configured limits and this instance's allow / deny counts
+@RestController
+@RequestMapping("/api/admin/rate-limits")
+public class RateLimitAdminController {
+
+    private final RateLimitPolicies policies;
+    private final RateLimitMetrics metrics;
+
+    public RateLimitAdminController(RateLimitPolicies policies, RateLimitMetrics metrics) {
+        this.policies = policies;
+        this.metrics = metrics;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        List<RateLimitPolicy> configured = policies.all();
+        body.put("policies", configured);
+        body.put("counts", metrics.snapshot());
+        return ResponseEntity.ok(body);
+    }
+}
@@ -4,6 +4,7 @@ package com.agrowmart.controller;
 
 import com.agrowmart.dto.auth.rating.RatingCreateRequestDTO;
 import com.agrowmart.dto.auth.rating.RatingResponseDTO;
+import com.agrowmart.dto.auth.rating.TopRatedVendorDTO;
 import com.agrowmart.dto.auth.rating.VendorRatingSummaryDTO;
 import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.service.RatingService;
@@ -12,6 +13,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/ratings")
 public class RatingController {
@@ -44,4 +47,10 @@ public class RatingController {
     public ResponseEntity<VendorRatingSummaryDTO> getVendorRatings(@PathVariable Long vendorId) {
         return ResponseEntity.ok(ratingService.getVendorRatingSummary(vendorId));
     }
+
+    @GetMapping("/vendors/top")
+    public ResponseEntity<List<TopRatedVendorDTO>> getTopRatedVendors(
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(ratingService.getTopRatedVendors(Math.max(1, Math.min(limit, 50))));
+    }
 }
\ No newline at end of file
@@ -48,6 +48,9 @@ public class ShopController {
          @RequestParam(required = false) String opensAt,
          @RequestParam(required = false) String closesAt,
 
+         @RequestParam(required = false) Double latitude,
+         @RequestParam(required = false) Double longitude,
+
          @AuthenticationPrincipal User user
  ) throws IOException {
  	
@@ -65,6 +68,8 @@ public class ShopController {
              shopLicense,
              openTime,
              closeTime,
+             latitude,
+             longitude,
              shopPhoto,
              shopCoverPhoto,
              shopLicensePhoto
@@ -94,6 +99,9 @@ public class ShopController {
          @RequestParam(required = false) String opensAt,
          @RequestParam(required = false) String closesAt,
 
+         @RequestParam(required = false) Double latitude,
+         @RequestParam(required = false) Double longitude,
+
          @AuthenticationPrincipal User user
  ) throws IOException {
 
@@ -109,6 +117,8 @@ public class ShopController {
              shopLicense,
              openTime,
              closeTime,
+             latitude,
+             longitude,
              shopPhoto,
              shopCoverPhoto,
              shopLicensePhoto
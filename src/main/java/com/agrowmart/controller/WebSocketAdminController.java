@@ -0,0 +1,26 @@
+package com.agrowmart.controller;
+
+import com.agrowmart.config.StompMetrics;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// Admin-only (via /api/admin/**): STOMP relay / delivery / drop counts on this instance
+@RestController
+@RequestMapping("/api/admin/websocket")
+public class WebSocketAdminController {
+
+    private final StompMetrics metrics;
+
+    public WebSocketAdminController(StompMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Long>> stats() {
+        return ResponseEntity.ok(metrics.snapshot());
+    }
+}
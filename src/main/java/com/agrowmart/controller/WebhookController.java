@@ -1,6 +1,5 @@
 package com.agrowmart.controller;
 
-import org.json.JSONObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,32 +7,34 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import com.agrowmart.service.RazorpayService;
+import com.agrowmart.service.WebhookEventProcessor;
 import com.agrowmart.util.RazorpaySignatureUtil;
 
 @RestController
 @RequestMapping("/webhook")
 public class WebhookController {
 
-    private final RazorpayService razorpayService;
+    private final WebhookEventProcessor webhookEventProcessor;
     private final RazorpaySignatureUtil signatureUtil;  // ← Add this field
 
-    public WebhookController(RazorpayService razorpayService, RazorpaySignatureUtil signatureUtil) {
-        this.razorpayService = razorpayService;
+    public WebhookController(WebhookEventProcessor webhookEventProcessor, RazorpaySignatureUtil signatureUtil) {
+        this.webhookEventProcessor = webhookEventProcessor;
         this.signatureUtil = signatureUtil;  // ← Inject it
     }
 
     @PostMapping("/razorpay")
     public ResponseEntity<String> handleWebhook(
             @RequestBody String payload,
-            @RequestHeader("X-Razorpay-Signature") String signature) {
+            @RequestHeader("X-Razorpay-Signature") String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
 
         // Use the injected instance method (non-static)
         if (!signatureUtil.verify(payload, signature)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid Signature");
         }
 
-        razorpayService.processWebhookEvent(new JSONObject(payload));
-        return ResponseEntity.ok("Webhook processed");
+        // Stored and acknowledged right away; applied in the background (see WebhookEventProcessor)
+        boolean stored = webhookEventProcessor.accept(eventId, payload);
+        return ResponseEntity.ok(stored ? "Webhook received" : "Duplicate webhook ignored");
     }
 }
\ No newline at end of file
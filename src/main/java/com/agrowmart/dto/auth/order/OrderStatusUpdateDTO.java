@@ -10,5 +10,6 @@ public record OrderStatusUpdateDTO(
     String message,             // e.g. "Order is now out for delivery"
     LocalDateTime timestamp,
     String type,                // e.g. "STATUS_UPDATE", "NEW_PICKUP", "DELIVERED"
-    String deliveryPartnerName  // optional, can be null
+    String deliveryPartnerName, // optional, can be null
+    String eventId              // same on a re-delivery – clients use it to drop duplicates
 ) {}
\ No newline at end of file
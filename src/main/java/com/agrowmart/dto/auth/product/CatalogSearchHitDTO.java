@@ -0,0 +1,9 @@
+package com.agrowmart.dto.auth.product;
+
+// One ranked search result. product is a ProductResponseDTO, WomenProductResponseDTO or AgriProductResponseDTO depending on type.
+public record CatalogSearchHitDTO(
+        String type,      // REGULAR / WOMEN / AGRI
+        Long id,
+        double score,
+        Object product
+) {}
@@ -0,0 +1,10 @@
+package com.agrowmart.dto.auth.product;
+
+import java.util.List;
+
+// One keyset page. nextCursor is null on the last page.
+public record CursorPage<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore
+) {}
@@ -0,0 +1,7 @@
+package com.agrowmart.dto.auth.product;
+
+public record NearbyProductDTO(
+        ProductResponseDTO product,
+        Long shopId,
+        double distanceKm
+) {}
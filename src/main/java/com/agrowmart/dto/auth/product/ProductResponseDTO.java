@@ -36,5 +36,7 @@ public record ProductResponseDTO(
    // Code Change :- Aakansha
    // Changes:- Merge code Ankita 
    Long serialNo,
-   ShopSummaryDTO shop
+   ShopSummaryDTO shop,
+   double averageRating,   // from rating_aggregates, 0.0 when unrated
+   long ratingCount
 ) {}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.agrowmart.dto.auth.rating;
+
+public record TopRatedVendorDTO(
+    Long vendorId,
+    String vendorName,
+    double averageRating,
+    long totalReviews
+) {}
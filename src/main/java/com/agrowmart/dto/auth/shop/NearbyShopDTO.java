@@ -0,0 +1,6 @@
+package com.agrowmart.dto.auth.shop;
+
+public record NearbyShopDTO(
+        ShopSummaryDTO shop,
+        double distanceKm
+) {}
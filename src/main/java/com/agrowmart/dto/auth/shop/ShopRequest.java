@@ -17,6 +17,9 @@ public record ShopRequest(
  
  LocalTime opensAt,
  LocalTime closesAt,
+
+ Double latitude,               // optional, both or neither
+ Double longitude,
  
  MultipartFile shopPhoto,       // optional
  MultipartFile shopCoverPhoto,  // optional
@@ -32,5 +32,8 @@ public record ShopResponse(
  String vendorPhotoUrl,
 
  LocalTime opensAt,
- LocalTime closesAt
+ LocalTime closesAt,
+
+ Double latitude,
+ Double longitude
 ) {}
\ No newline at end of file
@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 
 import com.agrowmart.entity.ApprovalStatus;
 import com.agrowmart.entity.User;
+import com.agrowmart.service.CatalogIndexListener;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,7 +22,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 @Entity
 @Table(name = "agri_products")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CatalogIndexListener.class})
 @Inheritance(strategy = InheritanceType.JOINED)
 @DiscriminatorColumn(name = "Agricategory", discriminatorType = DiscriminatorType.STRING)
 public abstract class BaseAgriProduct {
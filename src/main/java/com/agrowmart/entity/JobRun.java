@@ -0,0 +1,95 @@
+package com.agrowmart.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * History of scheduled job runs.
+ *
+ * RUNNING   – in progress (or the instance died; the job row's lease tells)
+ * SUCCEEDED – every chunk and the finishing step completed
+ * FAILED    – stopped on an error; the next run resumes from the job's checkpoint
+ */
+@Entity
+@Table(name = "job_runs", indexes = {
+        @Index(name = "idx_job_runs_job", columnList = "job_name, started_at")
+})
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", nullable = false, length = 64)
+    private String jobName;
+
+    @Column(nullable = false, length = 64)
+    private String node;
+
+    @Column(nullable = false, length = 20)
+    private String status = "RUNNING";
+
+    @Column(name = "resumed_from", length = 255)
+    private String resumedFrom;
+
+    @Column(nullable = false)
+    private int chunks = 0;
+
+    @Column(nullable = false)
+    private long items = 0;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(length = 500)
+    private String error;
+
+    public JobRun() {}
+
+    public JobRun(String jobName, String node, String resumedFrom, LocalDateTime startedAt) {
+        this.jobName = jobName;
+        this.node = node;
+        this.resumedFrom = resumedFrom;
+        this.startedAt = startedAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJobName() { return jobName; }
+    public void setJobName(String jobName) { this.jobName = jobName; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getResumedFrom() { return resumedFrom; }
+    public void setResumedFrom(String resumedFrom) { this.resumedFrom = resumedFrom; }
+
+    public int getChunks() { return chunks; }
+    public void setChunks(int chunks) { this.chunks = chunks; }
+
+    public long getItems() { return items; }
+    public void setItems(long items) { this.items = items; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,65 @@
+package com.agrowmart.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Cloudinary image whose deletion failed, kept for {@link com.agrowmart.service.MediaPurgeService}
+ * to retry.
+ *
+ * PENDING – retried from nextAttemptAt
+ * GAVE_UP – too many attempts; left for manual cleanup
+ */
+@Entity
+@Table(name = "media_purge_queue", indexes = {
+        @Index(name = "idx_media_purge_due", columnList = "status, next_attempt_at")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_media_purge_public_id", columnNames = "public_id")
+})
+public class MediaPurge {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "public_id", nullable = false)
+    private String publicId;
+
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING";
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt;
+
+    public MediaPurge() {}
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getPublicId() { return publicId; }
+    public void setPublicId(String publicId) { this.publicId = publicId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,38 @@
+package com.agrowmart.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Node ids handed out to running instances for order ids
+ * ({@link com.agrowmart.service.SnowflakeOrderIdGenerator}), one row per node id in use.
+ *
+ * leasedBy / leasedUntil – the instance holding the node id and its lease; renewed while the
+ *                          instance runs, so a node id is only reused after its holder stopped
+ */
+@Entity
+@Table(name = "order_id_nodes")
+public class OrderIdNode {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(name = "leased_by", length = 64)
+    private String leasedBy;
+
+    @Column(name = "leased_until")
+    private LocalDateTime leasedUntil;
+
+    public OrderIdNode() {}
+
+    public Integer getNodeId() { return nodeId; }
+    public void setNodeId(Integer nodeId) { this.nodeId = nodeId; }
+
+    public String getLeasedBy() { return leasedBy; }
+    public void setLeasedBy(String leasedBy) { this.leasedBy = leasedBy; }
+
+    public LocalDateTime getLeasedUntil() { return leasedUntil; }
+    public void setLeasedUntil(LocalDateTime leasedUntil) { this.leasedUntil = leasedUntil; }
+}
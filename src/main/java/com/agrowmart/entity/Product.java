@@ -1,12 +1,18 @@
 
 package com.agrowmart.entity;
 
+import com.agrowmart.service.CatalogIndexListener;
 import jakarta.persistence.*;
 
 
 @Entity
-@Table(name = "products")
-
+@Table(name = "products", indexes = {
+        // Public home feed: filter + keyset order in one index
+        @Index(name = "idx_products_feed", columnList = "status, approval_status, created_at, id"),
+        // Products of a set of shops (nearby products)
+        @Index(name = "idx_products_merchant_visible", columnList = "merchant_id, status, approval_status")
+})
+@EntityListeners(CatalogIndexListener.class)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
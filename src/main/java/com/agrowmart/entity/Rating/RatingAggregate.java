@@ -0,0 +1,105 @@
+package com.agrowmart.entity.Rating;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running rating totals for one vendor or product: count, sum and a 1–5 star histogram.
+ *
+ * Kept in step with {@code ratings} / {@code product_ratings} by atomic delta upserts in the
+ * same transaction as the rating change, and rebuilt from those tables by the nightly
+ * reconciliation. averageRating is stored so top-rated lists are an index range read.
+ */
+@Entity
+@Table(name = "rating_aggregates",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"subject_type", "subject_id"}),
+        indexes = @Index(name = "idx_rating_aggregates_rank",
+                columnList = "subject_type, average_rating, rating_count"))
+public class RatingAggregate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // VENDOR, PRODUCT or WOMEN_PRODUCT
+    @Column(name = "subject_type", nullable = false, length = 20)
+    private String subjectType;
+
+    @Column(name = "subject_id", nullable = false)
+    private Long subjectId;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "star_sum", nullable = false)
+    private long starSum;
+
+    @Column(name = "average_rating", nullable = false)
+    private double averageRating;
+
+    @Column(name = "stars_1", nullable = false)
+    private long stars1;
+
+    @Column(name = "stars_2", nullable = false)
+    private long stars2;
+
+    @Column(name = "stars_3", nullable = false)
+    private long stars3;
+
+    @Column(name = "stars_4", nullable = false)
+    private long stars4;
+
+    @Column(name = "stars_5", nullable = false)
+    private long stars5;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public long countFor(int stars) {
+        return switch (stars) {
+            case 1 -> stars1;
+            case 2 -> stars2;
+            case 3 -> stars3;
+            case 4 -> stars4;
+            case 5 -> stars5;
+            default -> 0;
+        };
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getSubjectType() { return subjectType; }
+    public void setSubjectType(String subjectType) { this.subjectType = subjectType; }
+
+    public Long getSubjectId() { return subjectId; }
+    public void setSubjectId(Long subjectId) { this.subjectId = subjectId; }
+
+    public long getRatingCount() { return ratingCount; }
+    public void setRatingCount(long ratingCount) { this.ratingCount = ratingCount; }
+
+    public long getStarSum() { return starSum; }
+    public void setStarSum(long starSum) { this.starSum = starSum; }
+
+    public double getAverageRating() { return averageRating; }
+    public void setAverageRating(double averageRating) { this.averageRating = averageRating; }
+
+    public long getStars1() { return stars1; }
+    public void setStars1(long stars1) { this.stars1 = stars1; }
+
+    public long getStars2() { return stars2; }
+    public void setStars2(long stars2) { this.stars2 = stars2; }
+
+    public long getStars3() { return stars3; }
+    public void setStars3(long stars3) { this.stars3 = stars3; }
+
+    public long getStars4() { return stars4; }
+    public void setStars4(long stars4) { this.stars4 = stars4; }
+
+    public long getStars5() { return stars5; }
+    public void setStars5(long stars5) { this.stars5 = stars5; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
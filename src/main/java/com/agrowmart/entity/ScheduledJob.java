@@ -0,0 +1,63 @@
+package com.agrowmart.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per scheduled job ({@link com.agrowmart.service.JobRunner}): the cluster lock and the
+ * checkpoint of an unfinished run.
+ *
+ * lockedBy / lockedUntil – the instance running the job and its lease; renewed with every chunk,
+ *                          so a crashed instance frees the job once the lease runs out
+ * checkpoint             – where the last committed chunk stopped; null once a run completes
+ */
+@Entity
+@Table(name = "scheduled_jobs")
+public class ScheduledJob {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "locked_by", length = 64)
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(length = 255)
+    private String checkpoint;
+
+    @Column(name = "last_status", length = 20)
+    private String lastStatus;
+
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_finished_at")
+    private LocalDateTime lastFinishedAt;
+
+    public ScheduledJob() {}
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+
+    public String getCheckpoint() { return checkpoint; }
+    public void setCheckpoint(String checkpoint) { this.checkpoint = checkpoint; }
+
+    public String getLastStatus() { return lastStatus; }
+    public void setLastStatus(String lastStatus) { this.lastStatus = lastStatus; }
+
+    public LocalDateTime getLastStartedAt() { return lastStartedAt; }
+    public void setLastStartedAt(LocalDateTime lastStartedAt) { this.lastStartedAt = lastStartedAt; }
+
+    public LocalDateTime getLastFinishedAt() { return lastFinishedAt; }
+    public void setLastFinishedAt(LocalDateTime lastFinishedAt) { this.lastFinishedAt = lastFinishedAt; }
+}
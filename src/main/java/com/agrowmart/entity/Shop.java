@@ -4,6 +4,7 @@ package com.agrowmart.entity;
 
 import com.agrowmart.admin_seller_management.enums.DocumentStatus;
 import com.agrowmart.entity.User;
+import com.agrowmart.service.ShopCacheListener;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -17,8 +18,12 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Entity
+@EntityListeners(ShopCacheListener.class)
 @Table(name = "shops", uniqueConstraints = {
  @UniqueConstraint(columnNames = "user_id")
+}, indexes = {
+ // Popular / top-N shops: filter + order straight from the index (directions match findPopularShops)
+ @Index(name = "idx_shops_popular_rank", columnList = "is_approved, is_active, delivered_order_count DESC, id")
 })
 
 public class Shop {
@@ -115,6 +120,14 @@ public class Shop {
  @Column(name = "is_active", nullable = false)
  private boolean isActive = true;
 
+ // Delivered orders of this shop's vendor. Bumped on delivery, reconciled nightly (ShopService).
+ @Column(name = "delivered_order_count", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+ private long deliveredOrderCount = 0;
+
+ // Shop location; nearby queries go through the in-memory ShopGeoIndex, not the DB
+ private Double latitude;
+ private Double longitude;
+
  @OneToOne
  @JsonIgnore
  @JoinColumn(name = "user_id", nullable = false, unique = true)
@@ -124,6 +137,30 @@ public class Shop {
 		return id;
 	}
 
+	public Double getLatitude() {
+		return latitude;
+	}
+
+	public void setLatitude(Double latitude) {
+		this.latitude = latitude;
+	}
+
+	public Double getLongitude() {
+		return longitude;
+	}
+
+	public void setLongitude(Double longitude) {
+		this.longitude = longitude;
+	}
+
+	public long getDeliveredOrderCount() {
+		return deliveredOrderCount;
+	}
+
+	public void setDeliveredOrderCount(long deliveredOrderCount) {
+		this.deliveredOrderCount = deliveredOrderCount;
+	}
+
 	public void setId(Long id) {
 		this.id = id;
 	}
@@ -6,6 +6,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import com.agrowmart.admin_seller_management.entity.Admin;
+import com.agrowmart.config.AuthPrincipalEvictionListener;
 import com.agrowmart.admin_seller_management.enums.AccountStatus;
 import com.agrowmart.admin_seller_management.enums.DocumentStatus;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -18,6 +19,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(AuthPrincipalEvictionListener.class)
 public class User {
 
     @Id
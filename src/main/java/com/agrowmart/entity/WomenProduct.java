@@ -10,10 +10,13 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.agrowmart.entity.Product.ProductStatus;
+import com.agrowmart.service.CatalogIndexListener;
 
 @Entity
-@Table(name = "women_products")
-
+@Table(name = "women_products", indexes = {
+        @Index(name = "idx_women_products_feed", columnList = "approval_status, is_available, created_at, id")
+})
+@EntityListeners(CatalogIndexListener.class)
 public class WomenProduct {
 
     @Id
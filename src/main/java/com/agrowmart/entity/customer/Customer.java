@@ -2,6 +2,7 @@
 
 package com.agrowmart.entity.customer;
 
+import com.agrowmart.config.AuthPrincipalEvictionListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -10,6 +11,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "customers")
+@EntityListeners(AuthPrincipalEvictionListener.class)
 public class Customer {
 
     @Id
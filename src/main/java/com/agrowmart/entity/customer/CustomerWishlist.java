@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "customer_wishlists",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "product_id", "product_type"}))
+    uniqueConstraints = @UniqueConstraint(columnNames = {"customer_id", "product_id", "product_type"}),
+    indexes = @Index(name = "idx_wishlist_customer_added", columnList = "customer_id, added_at, id"))
 public class CustomerWishlist {
  @Id
  @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -7,6 +7,7 @@ import com.agrowmart.entity.customer.CustomerAddress;
 import com.agrowmart.enums.DeliveryMode;
 import com.agrowmart.enums.VendorAcceptThenCancelReason;
 import com.agrowmart.enums.VendorCancelReason;
+import com.agrowmart.service.OrderIdAssigner;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -16,7 +17,11 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // Vendor inbox: one merchant's orders in one status, in the inbox's (created_at, id) order
+        @Index(name = "idx_orders_merchant_inbox", columnList = "merchant_id, status, created_at, id")
+})
+@EntityListeners(OrderIdAssigner.class)
 public class Order {
 
     @Id
@@ -103,11 +108,9 @@ public class Order {
 //    }
 
     
+    // id is assigned by OrderIdAssigner, which runs just before this
     @PrePersist
     protected void onCreate() {
-        if (this.id == null) {
-            this.id = "ORD-" + System.currentTimeMillis(); // simple unique string
-        }
         if (createdAt == null) createdAt = LocalDateTime.now();
         updatedAt = createdAt;
     }
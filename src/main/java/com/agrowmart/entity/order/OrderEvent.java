@@ -0,0 +1,116 @@
+package com.agrowmart.entity.order;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Real-time order update waiting to go out over STOMP, written in the same transaction
+ * as the order change. Published after commit by OrderEventRelay, oldest first per order.
+ *
+ * eventId is sent with the message so clients can drop a repeat (delivery is at-least-once).
+ *
+ * PENDING   – due at nextAttemptAt (null: right away); holds back the order's later events
+ * PUBLISHED – sent to the broker
+ * FAILED    – gave up after too many attempts; the order's later events go out without it
+ */
+@Entity
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_status_id", columnList = "status, id"),
+        @Index(name = "idx_order_events_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_order_events_order", columnList = "order_id, status, id")
+})
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 36)
+    private String eventId = java.util.UUID.randomUUID().toString();
+
+    @Column(name = "order_id", nullable = false, length = 50)
+    private String orderId;
+
+    @Column(nullable = false, length = 30)
+    private String type;            // NEW_ORDER, STATUS_UPDATE, ...
+
+    @Column(name = "order_status", nullable = false, length = 30)
+    private String orderStatus;
+
+    @Column(length = 500)
+    private String message;
+
+    @Column(name = "delivery_partner_name")
+    private String deliveryPartnerName;
+
+    // STOMP principal names that get the private update (c<customerId> / u<userId>), comma separated
+    @Column(name = "recipient_ids", nullable = false, length = 200)
+    private String recipientIds;
+
+    @Column(name = "broadcast_pickup", nullable = false)
+    private boolean broadcastPickup;
+
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING";   // PENDING, PUBLISHED, FAILED
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getOrderStatus() { return orderStatus; }
+    public void setOrderStatus(String orderStatus) { this.orderStatus = orderStatus; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+
+    public String getDeliveryPartnerName() { return deliveryPartnerName; }
+    public void setDeliveryPartnerName(String deliveryPartnerName) { this.deliveryPartnerName = deliveryPartnerName; }
+
+    public String getRecipientIds() { return recipientIds; }
+    public void setRecipientIds(String recipientIds) { this.recipientIds = recipientIds; }
+
+    public boolean isBroadcastPickup() { return broadcastPickup; }
+    public void setBroadcastPickup(boolean broadcastPickup) { this.broadcastPickup = broadcastPickup; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+}
@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "settlements")
+@Table(name = "settlements", indexes = {
+        @Index(name = "idx_settlements_vendor_payout", columnList = "vendor_payout_id")
+})
 public class Settlement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -92,4 +94,16 @@ public class Settlement {
     private LocalDateTime payoutDate;
 
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Aggregated payout this order was paid in (null for older per-order payouts)
+    @Column(name = "vendor_payout_id")
+    private Long vendorPayoutId;
+
+    public Long getVendorPayoutId() {
+        return vendorPayoutId;
+    }
+
+    public void setVendorPayoutId(Long vendorPayoutId) {
+        this.vendorPayoutId = vendorPayoutId;
+    }
 }
\ No newline at end of file
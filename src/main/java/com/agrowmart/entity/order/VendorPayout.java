@@ -0,0 +1,96 @@
+package com.agrowmart.entity.order;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One bank payout to a vendor, covering all of their orders settled in a cycle.
+ * The per-order {@link Settlement} rows point back here through vendorPayoutId.
+ */
+@Entity
+@Table(name = "vendor_payouts", indexes = {
+        @Index(name = "idx_vendor_payouts_status", columnList = "status, id"),
+        @Index(name = "idx_vendor_payouts_vendor", columnList = "vendor_id, status")
+})
+public class VendorPayout {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "cycle_date", nullable = false)
+    private LocalDate cycleDate;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal commission = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private int orderCount = 0;
+
+    // Sent as X-Payout-Idempotency / reference_id; a retry with the same key never pays twice
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 64)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 20)
+    private String status = "PENDING";   // PENDING, SUBMITTING, PROCESSING, PAID, FAILED
+
+    @Column(name = "razorpay_payout_id", length = 50)
+    private String razorpayPayoutId;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    private LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVendorId() { return vendorId; }
+    public void setVendorId(Long vendorId) { this.vendorId = vendorId; }
+
+    public LocalDate getCycleDate() { return cycleDate; }
+    public void setCycleDate(LocalDate cycleDate) { this.cycleDate = cycleDate; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+
+    public BigDecimal getCommission() { return commission; }
+    public void setCommission(BigDecimal commission) { this.commission = commission; }
+
+    public int getOrderCount() { return orderCount; }
+    public void setOrderCount(int orderCount) { this.orderCount = orderCount; }
+
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getRazorpayPayoutId() { return razorpayPayoutId; }
+    public void setRazorpayPayoutId(String razorpayPayoutId) { this.razorpayPayoutId = razorpayPayoutId; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,90 @@
+package com.agrowmart.entity.order;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Razorpay webhook as received, stored before it is acknowledged.
+ *
+ * RECEIVED   – waiting (or waiting for a retry at nextAttemptAt)
+ * PROCESSING – claimed by a worker; picked up again after nextAttemptAt if that worker died
+ * PROCESSED  – applied
+ * FAILED     – gave up after too many attempts
+ *
+ * eventId is Razorpay's X-Razorpay-Event-Id, so a redelivered event is rejected by the
+ * unique key. entityKey (payment / payout it concerns) orders the processing.
+ */
+@Entity
+@Table(name = "webhook_events", indexes = {
+        @Index(name = "idx_webhook_events_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_events_entity", columnList = "entity_key, status, id")
+})
+public class WebhookEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 100)
+    private String eventId;
+
+    @Column(name = "event_type", length = 60)
+    private String eventType;
+
+    @Column(name = "entity_key", nullable = false, length = 120)
+    private String entityKey;
+
+    @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
+    private String payload;
+
+    @Column(nullable = false, length = 20)
+    private String status = "RECEIVED";
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private LocalDateTime receivedAt = LocalDateTime.now();
+
+    private LocalDateTime processedAt;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public String getEntityKey() { return entityKey; }
+    public void setEntityKey(String entityKey) { this.entityKey = entityKey; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public LocalDateTime getReceivedAt() { return receivedAt; }
+    public void setReceivedAt(LocalDateTime receivedAt) { this.receivedAt = receivedAt; }
+
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
@@ -4,11 +4,14 @@ import com.agrowmart.entity.User;
 import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
 import com.agrowmart.entity.AgriProduct.BaseAgriProduct.ApprovalStatus;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
  
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
  
@@ -18,7 +21,22 @@ public interface AgriProductRepository extends JpaRepository<BaseAgriProduct, Lo
     List<BaseAgriProduct> findByVendor(User vendor);
  
     Optional<BaseAgriProduct> findByIdAndVendor(Long id, User vendor);
+
+    List<BaseAgriProduct> findByIdInAndVendor_Id(Collection<Long> ids, Long vendorId);
+
+    // Atomic stock change. Native so the JOINED hierarchy does not force a multi-table update.
+    @Modifying
+    @Query(value = "UPDATE agri_products SET agriquantity = agriquantity - :qty WHERE id = :id AND agriquantity >= :qty",
+           nativeQuery = true)
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query(value = "UPDATE agri_products SET agriquantity = agriquantity + :qty WHERE id = :id", nativeQuery = true)
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
  
+    // Id-ordered batches for rebuilding the search index
+    List<BaseAgriProduct> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     @Query("SELECT p FROM BaseAgriProduct p WHERE LOWER(p.AgriproductName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.Agridescription) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<BaseAgriProduct> search(@Param("keyword") String keyword);
 
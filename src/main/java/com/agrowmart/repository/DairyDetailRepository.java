@@ -2,11 +2,15 @@ package com.agrowmart.repository;
 
 import com.agrowmart.entity.DairyDetail;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface DairyDetailRepository extends JpaRepository<DairyDetail, Long> {
 	Optional<DairyDetail> findByProductId(Long productId);
+
+	List<DairyDetail> findByProductIdIn(Collection<Long> productIds);
 	
 }
\ No newline at end of file
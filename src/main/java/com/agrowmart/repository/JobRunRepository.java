@@ -0,0 +1,25 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.JobRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findTop50ByOrderByStartedAtDesc();
+
+    List<JobRun> findTop20ByJobNameOrderByStartedAtDesc(String jobName);
+
+    @Modifying
+    @Query("UPDATE JobRun r SET r.chunks = :chunks, r.items = :items WHERE r.id = :id")
+    int updateProgress(@Param("id") Long id, @Param("chunks") int chunks, @Param("items") long items);
+
+    @Modifying
+    @Query("DELETE FROM JobRun r WHERE r.jobName = :jobName AND r.startedAt < :before")
+    int deleteByJobNameStartedBefore(@Param("jobName") String jobName, @Param("before") LocalDateTime before);
+}
@@ -2,10 +2,14 @@ package com.agrowmart.repository;
 
 import com.agrowmart.entity.MeatDetail;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface MeatDetailRepository extends JpaRepository<MeatDetail, Long> {
 	Optional<MeatDetail> findByProductId(Long productId);
+
+	List<MeatDetail> findByProductIdIn(Collection<Long> productIds);
 }
\ No newline at end of file
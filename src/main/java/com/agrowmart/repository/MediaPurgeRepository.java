@@ -0,0 +1,35 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.MediaPurge;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface MediaPurgeRepository extends JpaRepository<MediaPurge, Long> {
+
+    // A public id that is already queued keeps its row (and attempt count)
+    @Modifying
+    @Query(value = """
+        INSERT INTO media_purge_queue (public_id, status, attempts, next_attempt_at, created_at)
+        VALUES (:publicId, 'PENDING', 0, :now, :now)
+        ON DUPLICATE KEY UPDATE status = 'PENDING', updated_at = :now
+    """, nativeQuery = true)
+    int enqueue(@Param("publicId") String publicId, @Param("now") LocalDateTime now);
+
+    @Query("""
+        SELECT m FROM MediaPurge m
+        WHERE m.status = 'PENDING' AND m.nextAttemptAt <= :now AND m.id > :afterId
+        ORDER BY m.id
+    """)
+    List<MediaPurge> findDueAfter(@Param("now") LocalDateTime now, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM MediaPurge m WHERE m.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
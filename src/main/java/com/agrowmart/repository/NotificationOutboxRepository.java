@@ -0,0 +1,33 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Rows locked here are skipped by other dispatchers/instances until this transaction ends
+    @Query(value = """
+        SELECT * FROM notification_outbox
+        WHERE status IN ('PENDING', 'SENDING')
+          AND next_attempt_at <= :now
+        ORDER BY id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<NotificationOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM notification_outbox
+        WHERE status IN ('SENT', 'SKIPPED') AND updated_at < :before
+        ORDER BY id
+        LIMIT :limit
+    """, nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
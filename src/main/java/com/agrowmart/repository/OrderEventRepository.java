@@ -0,0 +1,53 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.order.OrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+
+    /*
+     * Due pending events, oldest first, skipping rows another relay has locked.
+     * An event is only taken when no older event of the same order is still pending
+     * (locked elsewhere, waiting out a retry backoff or not), so one order's updates are
+     * never published out of order.
+     */
+    @Query(value = """
+        SELECT * FROM order_events e
+        WHERE e.status = 'PENDING'
+          AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now)
+          AND NOT EXISTS (
+              SELECT 1 FROM order_events p
+              WHERE p.order_id = e.order_id
+                AND p.status = 'PENDING'
+                AND p.id < e.id
+          )
+        ORDER BY e.id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<OrderEvent> lockNextPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM order_events
+        WHERE status = 'PUBLISHED' AND published_at < :before
+        ORDER BY id
+        LIMIT :limit
+    """, nativeQuery = true)
+    int deletePublishedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+        DELETE FROM order_events
+        WHERE status = 'FAILED' AND created_at < :before
+        ORDER BY id
+        LIMIT :limit
+    """, nativeQuery = true)
+    int deleteFailedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,32 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.OrderIdNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface OrderIdNodeRepository extends JpaRepository<OrderIdNode, Integer> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO order_id_nodes (node_id) VALUES (:nodeId)", nativeQuery = true)
+    int ensureExists(@Param("nodeId") int nodeId);
+
+    // 1 when this instance now holds the node id: nobody did, or the holder's lease ran out
+    @Modifying
+    @Query(value = """
+        UPDATE order_id_nodes
+        SET leased_by = :holder, leased_until = :until
+        WHERE node_id = :nodeId
+          AND (leased_until IS NULL OR leased_until < :now)
+    """, nativeQuery = true)
+    int tryLease(@Param("nodeId") int nodeId, @Param("holder") String holder,
+                 @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query(value = "UPDATE order_id_nodes SET leased_until = :until WHERE node_id = :nodeId AND leased_by = :holder",
+           nativeQuery = true)
+    int renewLease(@Param("nodeId") int nodeId, @Param("holder") String holder, @Param("until") LocalDateTime until);
+}
@@ -27,6 +27,28 @@
 //
 //	    @Query("SELECT o FROM Order o WHERE o.status = 'DELIVERED' AND o.settlementStatus = 'PENDING' AND o.createdAt <= :cutoff")
 //	    List<Order> findEligibleForSettlement(@Param("cutoff") LocalDateTime cutoff);
+
+    // Settlement runs walk eligible orders in id order, one chunk at a time
+    @Query("""
+        SELECT o FROM Order o
+        WHERE o.status = com.agrowmart.entity.order.Order.OrderStatus.DELIVERED
+          AND o.settlementStatus = 'PENDING'
+          AND o.createdAt <= :cutoff
+          AND o.id > :afterId
+        ORDER BY o.id
+    """)
+    List<Order> findEligibleForSettlementAfter(
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") String afterId,
+            Pageable pageable
+    );
+
+    @Modifying
+    @Query("""
+        UPDATE Order o SET o.settlementStatus = :status
+        WHERE o.id IN (SELECT s.orderId FROM Settlement s WHERE s.vendorPayoutId = :payoutId)
+    """)
+    int updateSettlementStatusByVendorPayoutId(@Param("payoutId") Long payoutId, @Param("status") String status);
 //	    
 //	    
 //	    
@@ -49,7 +71,9 @@
 
 package com.agrowmart.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -118,4 +142,62 @@ public interface OrderRepository extends JpaRepository<Order, String> {
 
 	Optional<User> findByCustomerAndStatusIn(Customer customer, List<OrderStatus> activeStatuses);
     
+
+    // Cancels an ONLINE order whose payment never arrived. Conditional, so a capture or a vendor
+    // accept that got there first wins; 1 only when this call cancelled it
+    @Modifying
+    @Query("""
+        UPDATE Order o
+        SET o.status = com.agrowmart.entity.order.Order.OrderStatus.CANCELLED,
+            o.cancelledBy = 'SYSTEM', o.cancelReason = :reason, o.cancelledAt = :now, o.updatedAt = :now
+        WHERE o.id = :id
+          AND o.paymentStatus = 'PENDING'
+          AND o.status IN (com.agrowmart.entity.order.Order.OrderStatus.PENDING,
+                           com.agrowmart.entity.order.Order.OrderStatus.SCHEDULED)
+    """)
+    int cancelUnpaid(@Param("id") String id, @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    // ================= VENDOR INBOX (keyset, idx_orders_merchant_inbox) =================
+    // Keys first, so the page limit is applied in SQL; the rows are then loaded with their items.
+    // One status per query: with an equality on status the index returns rows already in
+    // (created_at, id) order, where an IN list would sort every matching order of the vendor.
+    // Rows: {id, createdAt}
+
+    @Query("""
+        SELECT o.id, o.createdAt FROM Order o
+        WHERE o.merchant.id = :merchantId
+          AND o.status = :status
+        ORDER BY o.createdAt DESC, o.id DESC
+    """)
+    List<Object[]> findVendorInboxKeys(
+            @Param("merchantId") Long merchantId,
+            @Param("status") OrderStatus status,
+            Pageable pageable
+    );
+
+    @Query("""
+        SELECT o.id, o.createdAt FROM Order o
+        WHERE o.merchant.id = :merchantId
+          AND o.status = :status
+          AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id))
+        ORDER BY o.createdAt DESC, o.id DESC
+    """)
+    List<Object[]> findVendorInboxKeysAfter(
+            @Param("merchantId") Long merchantId,
+            @Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") String id,
+            Pageable pageable
+    );
+
+    // Everything mapToResponse reads, in one query
+    @Query("""
+        SELECT DISTINCT o FROM Order o
+        LEFT JOIN FETCH o.items i
+        LEFT JOIN FETCH i.product
+        LEFT JOIN FETCH i.womenProduct
+        LEFT JOIN FETCH o.deliveryAddress
+        WHERE o.id IN :ids
+    """)
+    List<Order> findWithItemsByIdIn(@Param("ids") List<String> ids);
 }
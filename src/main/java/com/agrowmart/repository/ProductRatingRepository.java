@@ -65,9 +65,11 @@ package com.agrowmart.repository;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import com.agrowmart.entity.Rating.ProductRating;
+import jakarta.persistence.LockModeType;
 
 public interface ProductRatingRepository extends JpaRepository<ProductRating, Long> {
 
@@ -80,35 +82,49 @@ public interface ProductRatingRepository extends JpaRepository<ProductRating, Lo
             @Param("productId") Long productId,
             @Param("womenProductId") Long womenProductId);
 
+    // Locked reads for edits and deletes: the stars they replace are subtracted from the
+    // rating aggregate, so two concurrent edits must not both see the same old value
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ProductRating r " +
+           "WHERE r.customer.id = :customerId " +
+           "AND (r.product.id = :productId OR r.womenProduct.id = :womenProductId)")
+    Optional<ProductRating> lockByCustomerIdAndProductOrWomenProduct(
+            @Param("customerId") Long customerId,
+            @Param("productId") Long productId,
+            @Param("womenProductId") Long womenProductId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ProductRating r WHERE r.id = :id")
+    Optional<ProductRating> lockById(@Param("id") Long id);
+
     // ──────────────────────────────────────────────
     // NORMAL PRODUCT QUERIES
     // ──────────────────────────────────────────────
     Optional<ProductRating> findByCustomerIdAndProductId(Long customerId, Long productId);
 
-    List<ProductRating> findByProductIdOrderByCreatedAtDesc(Long productId);
+    // Customer fetched with the reviews: the summary shows each customer's name
+    @Query("SELECT r FROM ProductRating r JOIN FETCH r.customer WHERE r.product.id = :productId ORDER BY r.createdAt DESC")
+    List<ProductRating> findByProductIdOrderByCreatedAtDesc(@Param("productId") Long productId);
 
-    @Query("SELECT AVG(r.stars) FROM ProductRating r WHERE r.product.id = :productId")
-    Double findAverageRatingByProductId(@Param("productId") Long productId);
+    // {productId, stars, count} for the rating aggregate reconciliation
+    @Query("SELECT r.product.id, r.stars, COUNT(r) FROM ProductRating r WHERE r.product IS NOT NULL GROUP BY r.product.id, r.stars")
+    List<Object[]> countStarsByProduct();
 
+    // {stars, count} of one product, recounted while its aggregate row is locked
     @Query("SELECT r.stars, COUNT(r) FROM ProductRating r WHERE r.product.id = :productId GROUP BY r.stars")
-    List<Object[]> starDistributionByProductId(@Param("productId") Long productId);
-
-    // Total count for normal product (added - efficient)
-    long countByProductId(Long productId);
+    List<Object[]> countStarsForProduct(@Param("productId") Long productId);
 
     // ──────────────────────────────────────────────
     // WOMEN PRODUCT QUERIES
     // ──────────────────────────────────────────────
     Optional<ProductRating> findByCustomerIdAndWomenProductId(Long customerId, Long womenProductId);
 
-    List<ProductRating> findByWomenProductIdOrderByCreatedAtDesc(Long womenProductId);
+    @Query("SELECT r FROM ProductRating r JOIN FETCH r.customer WHERE r.womenProduct.id = :womenProductId ORDER BY r.createdAt DESC")
+    List<ProductRating> findByWomenProductIdOrderByCreatedAtDesc(@Param("womenProductId") Long womenProductId);
 
-    @Query("SELECT AVG(r.stars) FROM ProductRating r WHERE r.womenProduct.id = :womenProductId")
-    Double findAverageRatingByWomenProductId(@Param("womenProductId") Long womenProductId);
+    @Query("SELECT r.womenProduct.id, r.stars, COUNT(r) FROM ProductRating r WHERE r.womenProduct IS NOT NULL GROUP BY r.womenProduct.id, r.stars")
+    List<Object[]> countStarsByWomenProduct();
 
     @Query("SELECT r.stars, COUNT(r) FROM ProductRating r WHERE r.womenProduct.id = :womenProductId GROUP BY r.stars")
-    List<Object[]> starDistributionByWomenProductId(@Param("womenProductId") Long womenProductId);
-
-    // Total count for women product (added - efficient)
-    long countByWomenProductId(Long womenProductId);
+    List<Object[]> countStarsForWomenProduct(@Param("womenProductId") Long womenProductId);
 }
\ No newline at end of file
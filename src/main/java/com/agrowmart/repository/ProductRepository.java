@@ -7,9 +7,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,6 +69,84 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             ApprovalStatus approvalStatus
     );
 
+    // Batch version of the above – one round trip for a whole checkout basket
+    @Query("""
+        SELECT p FROM Product p
+        LEFT JOIN FETCH p.category
+        WHERE p.id IN :ids
+          AND p.merchantId = :merchantId
+          AND p.status = :status
+          AND p.approvalStatus = :approvalStatus
+    """)
+    List<Product> findAllByIdsForMerchant(
+            @Param("ids") Collection<Long> ids,
+            @Param("merchantId") Long merchantId,
+            @Param("status") ProductStatus status,
+            @Param("approvalStatus") ApprovalStatus approvalStatus
+    );
+
+    // ================= ATOMIC STOCK (no read-check-write race) =================
+    // inStock is assigned first so it is computed from the old quantity
+    @Modifying
+    @Query("""
+        UPDATE Product p
+        SET p.inStock = CASE WHEN p.stockQuantity > :qty THEN true ELSE false END,
+            p.stockQuantity = p.stockQuantity - :qty
+        WHERE p.id = :id
+          AND p.stockQuantity >= :qty
+    """)
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("qty") double qty);
+
+    @Modifying
+    @Query("""
+        UPDATE Product p
+        SET p.stockQuantity = COALESCE(p.stockQuantity, 0) + :qty,
+            p.inStock = true
+        WHERE p.id = :id
+    """)
+    int incrementStock(@Param("id") Long id, @Param("qty") double qty);
+
+    // ================= PUBLIC HOME FEED (keyset, newest first) =================
+    // pattern is a lower-cased, escaped LIKE pattern (LikePattern.contains) or null; page with PageRequest.of(0, size)
+    @Query("""
+        SELECT p FROM Product p
+        LEFT JOIN FETCH p.category
+        WHERE p.status = 'ACTIVE'
+          AND p.approvalStatus = 'APPROVED'
+          AND (:pattern IS NULL OR LOWER(p.productName) LIKE :pattern)
+        ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<Product> findHomeFeed(@Param("pattern") String pattern, Pageable pageable);
+
+    @Query("""
+        SELECT p FROM Product p
+        LEFT JOIN FETCH p.category
+        WHERE p.status = 'ACTIVE'
+          AND p.approvalStatus = 'APPROVED'
+          AND (:pattern IS NULL OR LOWER(p.productName) LIKE :pattern)
+          AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id))
+        ORDER BY p.createdAt DESC, p.id DESC
+    """)
+    List<Product> findHomeFeedAfter(
+            @Param("pattern") String pattern,
+            @Param("createdAt") java.sql.Timestamp createdAt,
+            @Param("id") Long id,
+            Pageable pageable
+    );
+
+    // Id-ordered batches for rebuilding the search index
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Public products of a set of shops (nearby products), served by idx_products_merchant_visible
+    @Query("""
+        SELECT p FROM Product p
+        WHERE p.merchantId IN :merchantIds
+          AND p.status = 'ACTIVE'
+          AND p.approvalStatus = 'APPROVED'
+        ORDER BY p.id DESC
+    """)
+    List<Product> findVisibleByMerchantIdIn(@Param("merchantIds") Collection<Long> merchantIds);
+
     // ================= ONLINE + PROFILE COMPLETED =================
     @Query("""
         SELECT p FROM Product p
@@ -0,0 +1,96 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.Rating.RatingAggregate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface RatingAggregateRepository extends JpaRepository<RatingAggregate, Long> {
+
+    Optional<RatingAggregate> findBySubjectTypeAndSubjectId(String subjectType, Long subjectId);
+
+    List<RatingAggregate> findBySubjectTypeAndSubjectIdIn(String subjectType, Collection<Long> subjectIds);
+
+    List<RatingAggregate> findBySubjectType(String subjectType);
+
+    // Held while one subject is recounted, so no rating delta can commit in between
+    @Query(value = "SELECT * FROM rating_aggregates WHERE subject_type = :subjectType AND subject_id = :subjectId FOR UPDATE",
+           nativeQuery = true)
+    Optional<RatingAggregate> lockBySubject(@Param("subjectType") String subjectType,
+                                            @Param("subjectId") Long subjectId);
+
+    // Served by idx_rating_aggregates_rank
+    @Query("SELECT a FROM RatingAggregate a WHERE a.subjectType = :subjectType AND a.ratingCount >= :minCount " +
+           "ORDER BY a.averageRating DESC, a.ratingCount DESC")
+    List<RatingAggregate> findTopRated(@Param("subjectType") String subjectType,
+                                       @Param("minCount") long minCount,
+                                       Pageable pageable);
+
+    /**
+     * Adds the deltas to the subject's row, creating it on first use. A single statement,
+     * so concurrent ratings of the same subject cannot lose an update.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO rating_aggregates
+                (subject_type, subject_id, rating_count, star_sum, average_rating,
+                 stars_1, stars_2, stars_3, stars_4, stars_5, updated_at)
+            VALUES (:subjectType, :subjectId, :count, :sum, IF(:count > 0, :sum / :count, 0),
+                    :s1, :s2, :s3, :s4, :s5, NOW())
+            ON DUPLICATE KEY UPDATE
+                rating_count = rating_count + :count,
+                star_sum = star_sum + :sum,
+                stars_1 = stars_1 + :s1,
+                stars_2 = stars_2 + :s2,
+                stars_3 = stars_3 + :s3,
+                stars_4 = stars_4 + :s4,
+                stars_5 = stars_5 + :s5,
+                average_rating = IF(rating_count > 0, star_sum / rating_count, 0),
+                updated_at = NOW()
+            """, nativeQuery = true)
+    int applyDelta(@Param("subjectType") String subjectType,
+                   @Param("subjectId") Long subjectId,
+                   @Param("count") long count,
+                   @Param("sum") long sum,
+                   @Param("s1") long s1,
+                   @Param("s2") long s2,
+                   @Param("s3") long s3,
+                   @Param("s4") long s4,
+                   @Param("s5") long s5);
+
+    // Overwrites the row with totals recomputed from the rating tables (reconciliation);
+    // only while the row is held through lockBySubject
+    @Modifying
+    @Query(value = """
+            INSERT INTO rating_aggregates
+                (subject_type, subject_id, rating_count, star_sum, average_rating,
+                 stars_1, stars_2, stars_3, stars_4, stars_5, updated_at)
+            VALUES (:subjectType, :subjectId, :count, :sum, IF(:count > 0, :sum / :count, 0),
+                    :s1, :s2, :s3, :s4, :s5, NOW())
+            ON DUPLICATE KEY UPDATE
+                rating_count = :count,
+                star_sum = :sum,
+                stars_1 = :s1,
+                stars_2 = :s2,
+                stars_3 = :s3,
+                stars_4 = :s4,
+                stars_5 = :s5,
+                average_rating = IF(:count > 0, :sum / :count, 0),
+                updated_at = NOW()
+            """, nativeQuery = true)
+    int overwrite(@Param("subjectType") String subjectType,
+                  @Param("subjectId") Long subjectId,
+                  @Param("count") long count,
+                  @Param("sum") long sum,
+                  @Param("s1") long s1,
+                  @Param("s2") long s2,
+                  @Param("s3") long s3,
+                  @Param("s4") long s4,
+                  @Param("s5") long s5);
+}
@@ -1,12 +1,13 @@
 package com.agrowmart.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.awt.print.Pageable;
-
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.agrowmart.entity.Rating.Rating;
+import jakarta.persistence.LockModeType;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,38 +15,29 @@ import java.util.Optional;
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
 
- List<Rating> findByRatedIdOrderByCreatedAtDesc(Long ratedId);
+ // Rater fetched with the reviews: the summary shows each rater's name
+ @Query("SELECT r FROM Rating r JOIN FETCH r.rater WHERE r.rated.id = :ratedId ORDER BY r.createdAt DESC")
+ List<Rating> findByRatedIdOrderByCreatedAtDesc(@Param("ratedId") Long ratedId);
 
  Optional<Rating> findByIdAndRaterId(Long id, Long raterId);
 
  Optional<Rating> findByRaterIdAndRatedId(Long raterId, Long ratedId);
 
- @Query("SELECT COALESCE(AVG(r.stars), 0.0) FROM Rating r WHERE r.rated.id = :vendorId")
- Double findAverageRatingByVendorId(Long vendorId);
-
- @Query("SELECT COALESCE(COUNT(r), 0L) FROM Rating r WHERE r.rated.id = :vendorId")
- Long findTotalRatingsByVendorId(Long vendorId);
-
- @Query("SELECT r.stars, COUNT(r) FROM Rating r WHERE r.rated.id = :vendorId GROUP BY r.stars ORDER BY r.stars DESC")
- List<Object[]> findStarDistributionByVendorId(Long vendorId);
- 
- 
- @Query("""
-		    SELECT r.rated, AVG(r.stars) as avgRating, COUNT(r) as reviewCount
-		    FROM Rating r
-		    GROUP BY r.rated
-		    HAVING COUNT(r) >= 1
-		    ORDER BY avgRating DESC, reviewCount DESC
-		    """)
-		List<Object[]> findTopRatedVendors();
-
-		// Or with limit
-		@Query("""
-		    SELECT r.rated, AVG(r.stars), COUNT(r)
-		    FROM Rating r
-		    GROUP BY r.rated
-		    HAVING COUNT(r) >= 3
-		    ORDER BY AVG(r.stars) DESC, COUNT(r) DESC
-		    """)
-		List<Object[]> findTopRatedVendorsLimited(Pageable pageable);
-}
\ No newline at end of file
+ // Locked reads for edits and deletes: the stars they replace are subtracted from the
+ // rating aggregate, so two concurrent edits must not both see the same old value
+ @Lock(LockModeType.PESSIMISTIC_WRITE)
+ @Query("SELECT r FROM Rating r WHERE r.rater.id = :raterId AND r.rated.id = :ratedId")
+ Optional<Rating> lockByRaterIdAndRatedId(@Param("raterId") Long raterId, @Param("ratedId") Long ratedId);
+
+ @Lock(LockModeType.PESSIMISTIC_WRITE)
+ @Query("SELECT r FROM Rating r WHERE r.id = :id")
+ Optional<Rating> lockById(@Param("id") Long id);
+
+ // {vendorId, stars, count} for the rating aggregate reconciliation
+ @Query("SELECT r.rated.id, r.stars, COUNT(r) FROM Rating r GROUP BY r.rated.id, r.stars")
+ List<Object[]> countStarsByVendor();
+
+ // {stars, count} of one vendor, recounted while its aggregate row is locked
+ @Query("SELECT r.stars, COUNT(r) FROM Rating r WHERE r.rated.id = :vendorId GROUP BY r.stars")
+ List<Object[]> countStarsForVendor(@Param("vendorId") Long vendorId);
+}
@@ -0,0 +1,49 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.ScheduledJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ScheduledJobRepository extends JpaRepository<ScheduledJob, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scheduled_jobs (name) VALUES (:name)", nativeQuery = true)
+    int ensureExists(@Param("name") String name);
+
+    // 1 when this instance now holds the job: nobody did, or the holder's lease ran out
+    @Modifying
+    @Query(value = """
+        UPDATE scheduled_jobs
+        SET locked_by = :node, locked_until = :until, last_started_at = :now, last_status = 'RUNNING'
+        WHERE name = :name
+          AND (locked_until IS NULL OR locked_until < :now)
+    """, nativeQuery = true)
+    int tryLock(@Param("name") String name, @Param("node") String node,
+                @Param("now") LocalDateTime now, @Param("until") LocalDateTime until);
+
+    // Also row-locks the job until the chunk's transaction ends, so its lease cannot be taken mid-chunk
+    @Modifying
+    @Query(value = "UPDATE scheduled_jobs SET locked_until = :until WHERE name = :name AND locked_by = :node",
+           nativeQuery = true)
+    int renewLease(@Param("name") String name, @Param("node") String node, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query(value = "UPDATE scheduled_jobs SET checkpoint = :checkpoint WHERE name = :name AND locked_by = :node",
+           nativeQuery = true)
+    int saveCheckpoint(@Param("name") String name, @Param("node") String node, @Param("checkpoint") String checkpoint);
+
+    // Leaves locked_until at holdUntil, so instances whose trigger fires later in the same slot still skip
+    @Modifying
+    @Query(value = """
+        UPDATE scheduled_jobs
+        SET locked_by = NULL, locked_until = :holdUntil, last_status = :status, last_finished_at = :now
+        WHERE name = :name AND locked_by = :node
+    """, nativeQuery = true)
+    int release(@Param("name") String name, @Param("node") String node,
+                @Param("status") String status, @Param("now") LocalDateTime now,
+                @Param("holdUntil") LocalDateTime holdUntil);
+}
@@ -1,10 +1,14 @@
 package com.agrowmart.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.agrowmart.entity.order.Settlement;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +29,11 @@ public interface SettlementRepository extends JpaRepository<Settlement, Long> {
 
     // Find settlements by order ID
     Optional<Settlement> findByOrderId(String orderId);
-}
\ No newline at end of file
+
+    // Settles / fails every order row of one aggregated vendor payout
+    @Modifying
+    @Query("UPDATE Settlement s SET s.status = :status, s.payoutDate = :at WHERE s.vendorPayoutId = :payoutId")
+    int updateStatusByVendorPayoutId(@Param("payoutId") Long payoutId,
+                                     @Param("status") String status,
+                                     @Param("at") LocalDateTime at);
+}
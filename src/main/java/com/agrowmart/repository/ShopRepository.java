@@ -5,6 +5,7 @@ import com.agrowmart.entity.Shop;
 import com.agrowmart.entity.User;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -16,33 +17,54 @@ import java.util.*;
 public interface ShopRepository extends JpaRepository<Shop, Long> {
  Optional<Shop> findByUser(User user);
  Optional<Shop> findByUserId(Long userId);
+
+ // Batch lookup for listing pages (user fetched in the same query)
+ @Query("SELECT s FROM Shop s JOIN FETCH s.user u WHERE u.id IN :userIds")
+ List<Shop> findAllByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+ // Bulk delete for account cleanup; bypasses ShopCacheListener, so the caller notifies it
+ @Modifying
+ @Query("DELETE FROM Shop s WHERE s.user.id IN :userIds")
+ int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
  boolean existsByUser(User user);
  
  
-//MOST POPULAR SHOPS - by number of delivered orders
-//In ShopRepository.java — REPLACE BOTH METHODS WITH THESE
-
+//MOST POPULAR SHOPS - by number of delivered orders (materialized in deliveredOrderCount)
+//Read in idx_shops_popular_rank order (count DESC, id ASC), so LIMIT stops after the page
 @Query("""
   SELECT s FROM Shop s
+  JOIN FETCH s.user u
   WHERE s.isApproved = true AND s.isActive = true
-  ORDER BY (
-      SELECT COUNT(o) FROM Order o
-      WHERE o.merchant.id = s.user.id
-      AND o.status = 'DELIVERED'
-  ) DESC
+  ORDER BY s.deliveredOrderCount DESC, s.id ASC
   """)
-List<Shop> findPopularShops();
+List<Shop> findPopularShops(Pageable pageable);
 
+@Modifying
+@Query("UPDATE Shop s SET s.deliveredOrderCount = s.deliveredOrderCount + 1 WHERE s.user.id = :merchantId")
+int incrementDeliveredOrderCount(@Param("merchantId") Long merchantId);
+
+// Recount from orders; only rows that drifted are written
+@Modifying
+@Query(value = """
+  UPDATE shops s
+  JOIN (
+      SELECT sh.id AS shop_id, COUNT(o.id) AS delivered
+      FROM shops sh
+      LEFT JOIN orders o ON o.merchant_id = sh.user_id AND o.status = 'DELIVERED'
+      GROUP BY sh.id
+  ) c ON c.shop_id = s.id
+  SET s.delivered_order_count = c.delivered
+  WHERE s.delivered_order_count <> c.delivered
+  """, nativeQuery = true)
+int reconcileDeliveredOrderCounts();
+
+// Location of every orderable shop, for the ShopGeoIndex rebuild. Rows: {shopId, userId, latitude, longitude}
 @Query("""
-  SELECT s FROM Shop s
+  SELECT s.id, s.user.id, s.latitude, s.longitude FROM Shop s
   WHERE s.isApproved = true AND s.isActive = true
-  ORDER BY (
-      SELECT COUNT(o) FROM Order o
-      WHERE o.merchant.id = s.user.id
-      AND o.status = 'DELIVERED'
-  ) DESC
+    AND s.latitude IS NOT NULL AND s.longitude IS NOT NULL
   """)
-List<Shop> findPopularShops(Pageable pageable);
+List<Object[]> findGeoPoints();
 
 //✅ CUSTOMER SEARCH (PUBLIC)
 
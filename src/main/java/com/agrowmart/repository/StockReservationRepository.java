@@ -0,0 +1,54 @@
+package com.agrowmart.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.agrowmart.entity.order.StockReservation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByOrderId(String orderId);
+
+    // Orders with an expired HELD reservation, keyset by order id (idx_stock_res_status_expiry)
+    @Query("""
+        SELECT DISTINCT r.orderId FROM StockReservation r
+        WHERE r.status = 'HELD' AND r.expiresAt < :cutoff AND r.orderId > :afterOrderId
+        ORDER BY r.orderId
+    """)
+    List<String> findExpiredHeldOrderIds(@Param("cutoff") LocalDateTime cutoff,
+                                         @Param("afterOrderId") String afterOrderId,
+                                         Pageable pageable);
+
+    // Status changes are conditional so that only one caller moves stock for a reservation:
+    // each returns 1 for the caller that made the change, 0 for everyone else
+
+    @Modifying
+    @Query("""
+        UPDATE StockReservation r SET r.status = 'RELEASED', r.updatedAt = :now
+        WHERE r.id = :id AND r.status IN ('HELD', 'CONFIRMED')
+    """)
+    int markReleased(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("""
+        UPDATE StockReservation r SET r.status = 'CONFIRMED', r.expiresAt = NULL, r.updatedAt = :now
+        WHERE r.orderId = :orderId AND r.status = 'HELD'
+    """)
+    int confirmHeld(@Param("orderId") String orderId, @Param("now") LocalDateTime now);
+
+    // A released reservation taken back by a payment that arrived after the sweep
+    @Modifying
+    @Query("""
+        UPDATE StockReservation r SET r.status = 'CONFIRMED', r.expiresAt = NULL, r.updatedAt = :now
+        WHERE r.id = :id AND r.status = 'RELEASED'
+    """)
+    int markRetaken(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -5,6 +5,7 @@ import com.agrowmart.entity.Subscription;
 import com.agrowmart.entity.User;
 import com.google.common.base.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -18,6 +19,16 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
            "WHERE s.active = true " +
            "AND s.expiryDate < :now")
     List<Subscription> findAllExpiredActiveSubscriptions(LocalDateTime now);
+
+    // Keyset page for the expiry job, in id order
+    @Query("SELECT s FROM Subscription s " +
+           "WHERE s.active = true " +
+           "AND s.expiryDate < :now " +
+           "AND s.id > :afterId " +
+           "ORDER BY s.id")
+    List<Subscription> findExpiredActiveAfter(@Param("now") LocalDateTime now,
+                                              @Param("afterId") Long afterId,
+                                              Pageable pageable);
     
  
     @Query("SELECT s FROM Subscription s WHERE s.user = :user AND s.active = true AND s.expiryDate > :now ORDER BY s.startDate DESC LIMIT 1")
@@ -41,6 +41,9 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailIgnoreCaseOrPhone(String email, String phone);
 
 	List<User> findByRoleName(String roleName);
+
+	@Query("SELECT u.id FROM User u WHERE u.role.name = :roleName")
+	List<Long> findIdsByRoleName(@Param("roleName") String roleName);
 	
 	//Added by Aakanksha - 19/01/2026
 	// ================= ADMIN – SELLER LIST =================
@@ -102,6 +105,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     List<User> findAllByDeletedTrueAndDeletedAtBefore(LocalDateTime dateTime);
 
+    // Keyset page for the cleanup job, in id order; shops in the same query instead of one select per user
+    @Query("""
+        SELECT u FROM User u LEFT JOIN FETCH u.shop
+        WHERE u.deleted = true AND u.deletedAt < :before AND u.id > :afterId
+        ORDER BY u.id
+    """)
+    List<User> findDeletedBeforeAfterId(@Param("before") LocalDateTime before,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
     
     
     
@@ -2,11 +2,15 @@ package com.agrowmart.repository;
 
 import com.agrowmart.entity.VegetableDetail;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface VegetableDetailRepository extends JpaRepository<VegetableDetail, Long> {
 	Optional<VegetableDetail> findByProductId(Long productId);
+
+	List<VegetableDetail> findByProductIdIn(Collection<Long> productIds);
 	
 }
\ No newline at end of file
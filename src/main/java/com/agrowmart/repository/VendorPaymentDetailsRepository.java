@@ -5,9 +5,12 @@ import com.agrowmart.entity.VendorPaymentDetails;
 import com.agrowmart.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface VendorPaymentDetailsRepository extends JpaRepository<VendorPaymentDetails, Long> {
     Optional<VendorPaymentDetails> findByUser(User user);
     Optional<VendorPaymentDetails> findByUserId(Long userId);
+    List<VendorPaymentDetails> findByUserIdIn(Collection<Long> userIds);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.order.VendorPayout;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface VendorPayoutRepository extends JpaRepository<VendorPayout, Long> {
+
+    // Open payouts the next chunk can add orders to: PENDING and never submitted (attempts = 0).
+    // A payout already sent once keeps its amount, since a retry reuses its idempotency key
+    @Query(value = """
+        SELECT * FROM vendor_payouts
+        WHERE vendor_id IN (:vendorIds) AND status = 'PENDING' AND attempts = 0
+        FOR UPDATE
+    """, nativeQuery = true)
+    List<VendorPayout> lockOpenByVendorIdIn(@Param("vendorIds") Collection<Long> vendorIds);
+
+    List<VendorPayout> findByStatusInOrderByIdAsc(Collection<String> statuses);
+
+    Optional<VendorPayout> findByRazorpayPayoutId(String razorpayPayoutId);
+
+    // Razorpay echoes the key back as reference_id
+    Optional<VendorPayout> findByIdempotencyKey(String idempotencyKey);
+
+    @Query(value = "SELECT * FROM vendor_payouts WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<VendorPayout> lockById(@Param("id") Long id);
+
+    // Taken in its own transaction before the Razorpay call; 0 if the payout is no longer open.
+    // SUBMITTING is accepted too, so a send cut short by a crash goes out again under the same key
+    @Modifying
+    @Query("""
+        UPDATE VendorPayout p SET p.status = 'SUBMITTING', p.attempts = p.attempts + 1, p.updatedAt = :now
+        WHERE p.id = :id AND p.status IN ('PENDING', 'SUBMITTING')
+    """)
+    int markSubmitting(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
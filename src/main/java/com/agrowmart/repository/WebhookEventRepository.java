@@ -0,0 +1,46 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.entity.order.WebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    boolean existsByEventId(String eventId);
+
+    /*
+     * Due events, oldest first, skipping rows another worker has locked.
+     * An event is only taken while no older event for the same payment / payout is unfinished,
+     * so each entity's events are applied one at a time and in arrival order.
+     */
+    @Query(value = """
+        SELECT * FROM webhook_events e
+        WHERE e.status IN ('RECEIVED', 'PROCESSING')
+          AND e.next_attempt_at <= :now
+          AND NOT EXISTS (
+              SELECT 1 FROM webhook_events p
+              WHERE p.entity_key = e.entity_key
+                AND p.status IN ('RECEIVED', 'PROCESSING')
+                AND p.id < e.id
+          )
+        ORDER BY e.id
+        LIMIT :limit
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<WebhookEvent> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Kept long enough to reject Razorpay's redeliveries (it retries for up to 24h)
+    @Modifying
+    @Query(value = """
+        DELETE FROM webhook_events
+        WHERE status = 'PROCESSED' AND processed_at < :before
+        ORDER BY id
+        LIMIT :limit
+    """, nativeQuery = true)
+    int deleteProcessedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
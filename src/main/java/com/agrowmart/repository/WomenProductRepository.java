@@ -7,9 +7,12 @@ import com.agrowmart.entity.WomenProduct;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,6 +58,23 @@ public interface WomenProductRepository extends JpaRepository<WomenProduct, Long
             ProductStatus status,
             ApprovalStatus approvalStatus
     );
+
+    // Atomic stock change – returns 0 when there is not enough stock
+    @Modifying
+    @Query("UPDATE WomenProduct w SET w.stock = w.stock - :qty WHERE w.id = :id AND w.stock >= :qty")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE WomenProduct w SET w.stock = COALESCE(w.stock, 0) + :qty WHERE w.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    // Batch version of the above (checkout)
+    List<WomenProduct> findByIdInAndSeller_IdAndStatusAndApprovalStatus(
+            Collection<Long> ids,
+            Long sellerId,
+            ProductStatus status,
+            ApprovalStatus approvalStatus
+    );
     @Query("""
             SELECT wp FROM WomenProduct wp
             LEFT JOIN FETCH wp.seller s
@@ -82,5 +102,37 @@ public interface WomenProductRepository extends JpaRepository<WomenProduct, Long
         	""")
         	List<WomenProduct> findAllWithSellerAndShopOrderByCreatedAtDesc();
 
+        // Public home feed (keyset, newest first). pattern is a lower-cased, escaped LIKE pattern (LikePattern.contains) or null.
+        @Query("""
+            SELECT wp FROM WomenProduct wp
+            LEFT JOIN FETCH wp.seller s
+            LEFT JOIN FETCH s.shop sh
+            WHERE wp.approvalStatus = 'APPROVED'
+              AND wp.isAvailable = true
+              AND (:pattern IS NULL OR LOWER(wp.name) LIKE :pattern)
+            ORDER BY wp.createdAt DESC, wp.id DESC
+        """)
+        List<WomenProduct> findHomeFeed(@Param("pattern") String pattern, Pageable pageable);
+
+        @Query("""
+            SELECT wp FROM WomenProduct wp
+            LEFT JOIN FETCH wp.seller s
+            LEFT JOIN FETCH s.shop sh
+            WHERE wp.approvalStatus = 'APPROVED'
+              AND wp.isAvailable = true
+              AND (:pattern IS NULL OR LOWER(wp.name) LIKE :pattern)
+              AND (wp.createdAt < :createdAt OR (wp.createdAt = :createdAt AND wp.id < :id))
+            ORDER BY wp.createdAt DESC, wp.id DESC
+        """)
+        List<WomenProduct> findHomeFeedAfter(
+                @Param("pattern") String pattern,
+                @Param("createdAt") LocalDateTime createdAt,
+                @Param("id") Long id,
+                Pageable pageable
+        );
+
+        // Id-ordered batches for rebuilding the search index
+        List<WomenProduct> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     // ──── NO MORE DeletedFalse method below this line ────
 }
\ No newline at end of file
@@ -4,7 +4,12 @@ package com.agrowmart.repository.customer;
 
 
 import com.agrowmart.entity.customer.CustomerWishlist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +17,25 @@ public interface CustomerWishlistRepository extends JpaRepository<CustomerWishli
 
  List<CustomerWishlist> findByCustomerIdOrderByAddedAtDesc(Long customerId);
 
+ // Keyset pages, newest first; (addedAt, id) of the last row sent is the cursor
+ @Query("SELECT w FROM CustomerWishlist w WHERE w.customerId = :customerId ORDER BY w.addedAt DESC, w.id DESC")
+ List<CustomerWishlist> findPage(@Param("customerId") Long customerId, Pageable pageable);
+
+ @Query("SELECT w FROM CustomerWishlist w WHERE w.customerId = :customerId " +
+        "AND (w.addedAt < :addedAt OR (w.addedAt = :addedAt AND w.id < :id)) " +
+        "ORDER BY w.addedAt DESC, w.id DESC")
+ List<CustomerWishlist> findPageAfter(@Param("customerId") Long customerId,
+                                      @Param("addedAt") LocalDateTime addedAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+ // Bulk "is it in the wishlist" for a product grid; served by the unique (customer, product, type) key
+ @Query("SELECT w.productId FROM CustomerWishlist w WHERE w.customerId = :customerId " +
+        "AND w.productType = :productType AND w.productId IN :productIds")
+ List<Long> findProductIdsIn(@Param("customerId") Long customerId,
+                             @Param("productType") String productType,
+                             @Param("productIds") Collection<Long> productIds);
+
  Optional<CustomerWishlist> findByCustomerIdAndProductIdAndProductType(
          Long customerId, Long productId, String productType);
 
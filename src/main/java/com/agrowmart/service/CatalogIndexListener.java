@@ -0,0 +1,64 @@
+package com.agrowmart.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps {@link CatalogSearchIndex}, the {@link CatalogLookupService} snapshots and the
+ * {@link PublicCatalogCache} in step with product create / update / approve / delete.
+ * Changes are applied after commit, so a rolled-back save never reaches the index.
+ */
+@Component
+public class CatalogIndexListener {
+
+    private final CatalogSearchIndex index;
+    private final CatalogLookupService lookup;
+    private final PublicCatalogCache publicCache;
+
+    public CatalogIndexListener(CatalogSearchIndex index, CatalogLookupService lookup,
+                                PublicCatalogCache publicCache) {
+        this.index = index;
+        this.lookup = lookup;
+        this.publicCache = publicCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        CatalogSearchIndex.Document doc = CatalogSearchService.toDocument(entity);
+        if (doc == null) return;
+        publicCache.productChanged(doc.type(), doc.id());
+        afterCommit(() -> {
+            index.upsert(doc);
+            lookup.evict(doc.type(), doc.id());
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        CatalogSearchIndex.Document doc = CatalogSearchService.toDocument(entity);
+        if (doc == null) return;
+        publicCache.productChanged(doc.type(), doc.id());
+        afterCommit(() -> {
+            index.remove(doc.type(), doc.id());
+            lookup.evict(doc.type(), doc.id());
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
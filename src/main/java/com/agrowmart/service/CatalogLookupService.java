@@ -0,0 +1,266 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.*;
+import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.exception.ResourceNotFoundException;
+import com.agrowmart.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Read-only product snapshots (name, price, first image, stock, merchant) for cart,
+ * wishlist and checkout, whatever the catalog: REGULAR, WOMEN or AGRI.
+ *
+ * A batch of keys costs at most one query per catalog, plus the detail tables that hold
+ * regular-product prices; categories come from {@link CategoryTreeCache}. Snapshots are kept
+ * for a few seconds; a save on this instance drops the product's entry right away
+ * (see {@link CatalogIndexListener}).
+ * Stock here is for display only – orders still take stock with a conditional UPDATE.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogLookupService {
+
+    public static final String REGULAR = CatalogSearchIndex.REGULAR;
+    public static final String WOMEN = CatalogSearchIndex.WOMEN;
+    public static final String AGRI = CatalogSearchIndex.AGRI;
+
+    private final ProductRepository productRepo;
+    private final WomenProductRepository womenProductRepo;
+    private final AgriProductRepository agriProductRepo;
+    private final CategoryTreeCache categoryTree;
+    private final VegetableDetailRepository vegRepo;
+    private final DairyDetailRepository dairyRepo;
+    private final MeatDetailRepository meatRepo;
+
+    private final long ttlMillis;
+    private final Map<Key, Entry> cache;
+
+    public CatalogLookupService(ProductRepository productRepo,
+                                WomenProductRepository womenProductRepo,
+                                AgriProductRepository agriProductRepo,
+                                CategoryTreeCache categoryTree,
+                                VegetableDetailRepository vegRepo,
+                                DairyDetailRepository dairyRepo,
+                                MeatDetailRepository meatRepo,
+                                @Value("${catalog.lookup.ttl-seconds:30}") long ttlSeconds,
+                                @Value("${catalog.lookup.max-size:20000}") int maxSize) {
+        this.productRepo = productRepo;
+        this.womenProductRepo = womenProductRepo;
+        this.agriProductRepo = agriProductRepo;
+        this.categoryTree = categoryTree;
+        this.vegRepo = vegRepo;
+        this.dairyRepo = dairyRepo;
+        this.meatRepo = meatRepo;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /** One product; throws if it does not exist. */
+    public CatalogSnapshot get(String productType, Long productId) {
+        Key key = Key.of(productType, productId);
+        CatalogSnapshot snapshot = lookup(List.of(key)).get(key);
+        if (snapshot == null) {
+            throw new ResourceNotFoundException(describe(key.productType()) + " not found: " + productId);
+        }
+        return snapshot;
+    }
+
+    /** Snapshots for every key that exists; missing products are simply absent from the map. */
+    public Map<Key, CatalogSnapshot> lookup(Collection<Key> keys) {
+        Map<Key, CatalogSnapshot> result = new HashMap<>();
+        if (keys == null || keys.isEmpty()) return result;
+
+        long now = System.currentTimeMillis();
+        Map<String, Set<Long>> missing = new HashMap<>();
+        synchronized (cache) {
+            for (Key key : keys) {
+                Entry e = cache.get(key);
+                if (e != null && e.expiresAt() > now) {
+                    result.put(key, e.snapshot());
+                } else {
+                    missing.computeIfAbsent(key.productType(), t -> new HashSet<>()).add(key.productId());
+                }
+            }
+        }
+        if (missing.isEmpty()) return result;
+
+        List<CatalogSnapshot> loaded = new ArrayList<>();
+        missing.forEach((type, ids) -> {
+            switch (type) {
+                case REGULAR -> loaded.addAll(loadRegular(ids));
+                case WOMEN -> womenProductRepo.findAllById(ids).forEach(w -> loaded.add(snapshot(w)));
+                case AGRI -> agriProductRepo.findAllById(ids).forEach(a -> loaded.add(snapshot(a)));
+                default -> { }
+            }
+        });
+
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        synchronized (cache) {
+            for (CatalogSnapshot s : loaded) {
+                Key key = new Key(s.productType(), s.productId());
+                cache.put(key, new Entry(s, expiresAt));
+                result.put(key, s);
+            }
+        }
+        return result;
+    }
+
+    public void evict(String productType, Long productId) {
+        synchronized (cache) {
+            cache.remove(Key.of(productType, productId));
+        }
+    }
+
+    // ─────────────────────────────────────────────
+
+    private List<CatalogSnapshot> loadRegular(Set<Long> ids) {
+        List<Product> products = productRepo.findAllById(ids);
+        if (products.isEmpty()) return List.of();
+
+        Map<String, List<Long>> idsByDetail = new HashMap<>();
+        Map<Long, String> detailByProduct = new HashMap<>();
+        for (Product p : products) {
+            String detail = categoryTree.productType(p.getCategory());
+            detailByProduct.put(p.getId(), detail);
+            idsByDetail.computeIfAbsent(detail, d -> new ArrayList<>()).add(p.getId());
+        }
+
+        Map<Long, BigDecimal[]> prices = new HashMap<>();   // product → {min, max}
+        idsByDetail.forEach((detail, detailIds) -> {
+            switch (detail) {
+                case "VEGETABLE" -> vegRepo.findByProductIdIn(detailIds).forEach(d ->
+                        prices.put(d.getProduct().getId(), new BigDecimal[]{d.getMinPrice(), d.getMaxPrice()}));
+                case "DAIRY" -> dairyRepo.findByProductIdIn(detailIds).forEach(d ->
+                        prices.put(d.getProduct().getId(), new BigDecimal[]{d.getMinPrice(), d.getMaxPrice()}));
+                case "MEAT" -> meatRepo.findByProductIdIn(detailIds).forEach(d ->
+                        prices.put(d.getProduct().getId(), new BigDecimal[]{d.getMinPrice(), d.getMaxPrice()}));
+                default -> { }
+            }
+        });
+
+        List<CatalogSnapshot> result = new ArrayList<>(products.size());
+        for (Product p : products) {
+            BigDecimal[] price = prices.get(p.getId());
+            CategoryTreeCache.Node category = categoryTree.node(p.getCategory());
+            result.add(new CatalogSnapshot(
+                    REGULAR,
+                    p.getId(),
+                    p.getProductName(),
+                    price != null ? price[0] : null,
+                    price != null ? price[1] : null,
+                    firstOf(p.getImagePaths()),
+                    p.getStockQuantity() != null ? p.getStockQuantity() : 0.0,
+                    Boolean.TRUE.equals(p.getInStock()),
+                    p.getMerchantId(),
+                    category != null ? category.name() : null,
+                    detailByProduct.get(p.getId()),
+                    isVisible(p)
+            ));
+        }
+        return result;
+    }
+
+    private static CatalogSnapshot snapshot(WomenProduct w) {
+        double stock = w.getStock() != null ? w.getStock() : 0.0;
+        return new CatalogSnapshot(
+                WOMEN,
+                w.getId(),
+                w.getName(),
+                w.getMinPrice(),
+                w.getMaxPrice(),
+                firstOf(w.getImageUrls()),
+                stock,
+                stock > 0,
+                w.getSeller() != null ? w.getSeller().getId() : null,
+                w.getCategory(),
+                "WOMEN",
+                isVisible(w)
+        );
+    }
+
+    private static CatalogSnapshot snapshot(BaseAgriProduct a) {
+        double stock = a.getAgriquantity() != null ? a.getAgriquantity() : 0.0;
+        List<String> images = a.getAgriImageUrls();
+        return new CatalogSnapshot(
+                AGRI,
+                a.getId(),
+                a.getAgriproductName(),
+                a.getAgriprice(),
+                a.getAgriprice(),
+                images != null && !images.isEmpty() ? images.get(0) : null,
+                stock,
+                stock > 0,
+                a.getVendor() != null ? a.getVendor().getId() : null,
+                null,
+                "AGRI",
+                isVisible(a)
+        );
+    }
+
+    private static boolean isVisible(Object entity) {
+        CatalogSearchIndex.Document doc = CatalogSearchService.toDocument(entity);
+        return doc != null && doc.visible();
+    }
+
+    private static String firstOf(String commaSeparated) {
+        if (commaSeparated == null || commaSeparated.isBlank()) return null;
+        String first = commaSeparated.split(",")[0].trim();
+        return first.isEmpty() ? null : first;
+    }
+
+    private static String describe(String productType) {
+        return switch (productType) {
+            case REGULAR -> "Regular product";
+            case WOMEN -> "Women product";
+            default -> "Agri product";
+        };
+    }
+
+    /** (productType, productId); productType is REGULAR / WOMEN / AGRI (NORMAL is read as REGULAR). */
+    public record Key(String productType, Long productId) {
+
+        public static Key of(String productType, Long productId) {
+            if (productType == null || productId == null) {
+                throw new BusinessValidationException("Product ID and type are required");
+            }
+            String type = productType.trim().toUpperCase(Locale.ROOT);
+            if ("NORMAL".equals(type)) type = REGULAR;
+            if (!REGULAR.equals(type) && !WOMEN.equals(type) && !AGRI.equals(type)) {
+                throw new BusinessValidationException("Invalid product type: " + productType);
+            }
+            return new Key(type, productId);
+        }
+    }
+
+    /**
+     * Immutable view of one product. price / maxPrice are null for a regular product without
+     * a price detail row; detailType is VEGETABLE / DAIRY / MEAT / GENERAL for regular products.
+     */
+    public record CatalogSnapshot(
+            String productType,
+            Long productId,
+            String name,
+            BigDecimal price,
+            BigDecimal maxPrice,
+            String image,
+            double stock,
+            boolean inStock,
+            Long merchantId,
+            String categoryName,
+            String detailType,
+            boolean visible
+    ) {}
+
+    private record Entry(CatalogSnapshot snapshot, long expiresAt) {}
+}
@@ -0,0 +1,268 @@
+package com.agrowmart.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process inverted index over the public catalog (regular, women and agri products).
+ *
+ * term → (doc → weight) postings kept in a sorted map, so prefix lookups are a range scan
+ * and typo lookups only look at terms sharing the first letter. Name terms weigh more
+ * than description terms. Only publicly visible products are kept in the index.
+ */
+@Component
+public class CatalogSearchIndex {
+
+    public static final String REGULAR = "REGULAR";
+    public static final String WOMEN = "WOMEN";
+    public static final String AGRI = "AGRI";
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    // Match quality per query token
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double FUZZY = 0.4;
+
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+    private Map<String, Set<String>> termsByDoc = new HashMap<>();
+    // Changes applied while a rebuild reads the DB, replayed over its result (the read may
+    // predate them); null when no rebuild is running
+    private List<Change> changedDuringRebuild;
+
+    /** Adds or replaces one product; a non-visible product is removed instead. */
+    public void upsert(Document doc) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(doc.key(), doc));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String type, Long id) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(key(type, id), null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds from a full read of the DB. Upserts and removes that arrive while {@code load}
+     * runs go to the current index as usual and are replayed over the new one, so a change
+     * committed after the read saw that row is not lost until the next rebuild.
+     *
+     * @return the number of documents loaded
+     */
+    public int rebuild(Supplier<? extends Collection<Document>> load) {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Collection<Document> docs;
+        try {
+            docs = load.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        replaceAll(docs);
+        return docs.size();
+    }
+
+    /**
+     * Swaps in a freshly built index. Building happens outside the lock, so searches keep running.
+     * Changes recorded since {@link #rebuild} started are replayed over it.
+     */
+    public void replaceAll(Collection<Document> docs) {
+        NavigableMap<String, Map<String, Float>> newPostings = new TreeMap<>();
+        Map<String, Set<String>> newTermsByDoc = new HashMap<>();
+        for (Document doc : docs) {
+            if (doc.visible()) addInternal(doc, newPostings, newTermsByDoc);
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            termsByDoc = newTermsByDoc;
+            List<Change> replay = changedDuringRebuild;
+            changedDuringRebuild = null;
+            if (replay != null) replay.forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void apply(Change change) {
+        removeInternal(change.key());
+        if (change.doc() != null && change.doc().visible()) {
+            addInternal(change.doc(), postings, termsByDoc);
+        }
+        if (changedDuringRebuild != null) changedDuringRebuild.add(change);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByDoc.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked hits for a free-text query, best first. Every query token may match exactly,
+     * as a prefix, or within 1–2 edits; documents matching more tokens rank higher.
+     *
+     * @param types REGULAR / WOMEN / AGRI to include; empty means all
+     */
+    public List<Hit> search(String query, Set<String> types) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+
+        Map<String, double[]> scores = new HashMap<>();   // doc → {score, matched tokens}
+
+        lock.readLock().lock();
+        try {
+            for (String token : tokens) {
+                Map<String, Double> best = new HashMap<>();
+                collect(best, postings.get(token), EXACT);
+
+                int expansions = 0;
+                for (Map.Entry<String, Map<String, Float>> e
+                        : postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                    if (++expansions > MAX_PREFIX_EXPANSIONS) break;
+                    collect(best, e.getValue(), PREFIX);
+                }
+
+                int maxEdits = token.length() >= 8 ? 2 : token.length() >= 4 ? 1 : 0;
+                if (maxEdits > 0) {
+                    String first = token.substring(0, 1);
+                    for (Map.Entry<String, Map<String, Float>> e
+                            : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                        String term = e.getKey();
+                        if (Math.abs(term.length() - token.length()) > maxEdits || term.startsWith(token)) continue;
+                        if (withinEdits(token, term, maxEdits)) {
+                            collect(best, e.getValue(), FUZZY);
+                        }
+                    }
+                }
+
+                best.forEach((doc, s) -> {
+                    double[] acc = scores.computeIfAbsent(doc, d -> new double[2]);
+                    acc[0] += s;
+                    acc[1] += 1;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        scores.forEach((doc, acc) -> {
+            int sep = doc.indexOf(':');
+            String type = doc.substring(0, sep);
+            if (!types.isEmpty() && !types.contains(type)) return;
+            double coverage = acc[1] / tokens.size();
+            hits.add(new Hit(type, Long.parseLong(doc.substring(sep + 1)), acc[0] * coverage));
+        });
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparing(Comparator.comparingLong(Hit::id).reversed()));
+        return hits;
+    }
+
+    // ─────────────────────────────────────────────
+
+    private static void collect(Map<String, Double> best, Map<String, Float> docs, double quality) {
+        if (docs == null) return;
+        docs.forEach((doc, weight) -> best.merge(doc, weight * quality, Math::max));
+    }
+
+    private void removeInternal(String key) {
+        Set<String> terms = termsByDoc.remove(key);
+        if (terms == null) return;
+        for (String term : terms) {
+            Map<String, Float> docs = postings.get(term);
+            if (docs == null) continue;
+            docs.remove(key);
+            if (docs.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static void addInternal(Document doc,
+                                    NavigableMap<String, Map<String, Float>> postings,
+                                    Map<String, Set<String>> termsByDoc) {
+        Map<String, Float> weights = new HashMap<>();
+        for (String t : tokenize(doc.name())) weights.merge(t, NAME_WEIGHT, Float::sum);
+        for (String t : tokenize(doc.description())) weights.merge(t, DESCRIPTION_WEIGHT, Float::sum);
+        if (weights.isEmpty()) return;
+
+        String key = doc.key();
+        weights.forEach((term, w) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(key, w));
+        termsByDoc.put(key, new HashSet<>(weights.keySet()));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String t : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (t.length() >= 2) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    // Bounded Levenshtein: gives up as soon as a whole row exceeds maxEdits
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > maxEdits) return false;
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        return prev[b.length()] <= maxEdits;
+    }
+
+    static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    // What gets indexed for one product
+    public record Document(String type, Long id, String name, String description, boolean visible) {
+        String key() {
+            return CatalogSearchIndex.key(type, id);
+        }
+    }
+
+    public record Hit(String type, Long id, double score) {}
+
+    // One upsert (doc set) or remove (doc null)
+    private record Change(String key, Document doc) {}
+}
@@ -0,0 +1,197 @@
+package com.agrowmart.service;
+
+import com.agrowmart.dto.auth.product.CatalogSearchHitDTO;
+import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
+import com.agrowmart.entity.ApprovalStatus;
+import com.agrowmart.entity.Product;
+import com.agrowmart.entity.WomenProduct;
+import com.agrowmart.repository.AgriProductRepository;
+import com.agrowmart.repository.ProductRepository;
+import com.agrowmart.repository.WomenProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unified, ranked search over regular, women and agri products, backed by {@link CatalogSearchIndex}.
+ *
+ * The index is filled from the DB at startup and rebuilt periodically, which also
+ * brings every instance back in line with writes made on other instances.
+ * In between, {@link CatalogIndexListener} applies local changes as they commit.
+ */
+@Service
+public class CatalogSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSearchService.class);
+
+    private static final int REBUILD_BATCH = 1000;
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final CatalogSearchIndex index;
+    private final ProductRepository productRepo;
+    private final WomenProductRepository womenProductRepo;
+    private final AgriProductRepository agriProductRepo;
+    private final ProductResponseAssembler assembler;
+    private final WomenProductService womenProductService;
+    private final AgriProductService agriProductService;
+    private final JobRunner jobs;
+
+    public CatalogSearchService(CatalogSearchIndex index,
+                                ProductRepository productRepo,
+                                WomenProductRepository womenProductRepo,
+                                AgriProductRepository agriProductRepo,
+                                ProductResponseAssembler assembler,
+                                WomenProductService womenProductService,
+                                AgriProductService agriProductService,
+                                JobRunner jobs) {
+        this.index = index;
+        this.productRepo = productRepo;
+        this.womenProductRepo = womenProductRepo;
+        this.agriProductRepo = agriProductRepo;
+        this.assembler = assembler;
+        this.womenProductService = womenProductService;
+        this.agriProductService = agriProductService;
+        this.jobs = jobs;
+    }
+
+    /**
+     * @param types REGULAR / WOMEN / AGRI; null or empty searches all three
+     */
+    @Transactional(readOnly = true)
+    public Page<CatalogSearchHitDTO> search(String query, Collection<String> types, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        Set<String> typeFilter = types == null ? Set.of() : types.stream()
+                .map(t -> t.trim().toUpperCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        List<CatalogSearchIndex.Hit> hits = index.search(query, typeFilter);
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<CatalogSearchIndex.Hit> pageHits = hits.subList(from, to);
+
+        return new PageImpl<>(hydrate(pageHits), pageable, hits.size());
+    }
+
+    // Scheduled with no initial delay, so this is also the startup build.
+    // The index lives in each instance, so every instance rebuilds its own; runs show up in job_runs
+    @Scheduled(fixedDelayString = "${search.index.rebuild-ms:900000}")
+    public void rebuild() {
+        jobs.runLocally("catalog-search-rebuild", this::buildIndex);
+    }
+
+    private int buildIndex() {
+        long start = System.currentTimeMillis();
+        // Listener updates that commit during the read are replayed over the result
+        int loaded = index.rebuild(() -> {
+            List<CatalogSearchIndex.Document> docs = new ArrayList<>();
+            loadInBatches(productRepo::findByIdGreaterThanOrderByIdAsc, Product::getId, docs);
+            loadInBatches(womenProductRepo::findByIdGreaterThanOrderByIdAsc, WomenProduct::getId, docs);
+            loadInBatches(agriProductRepo::findByIdGreaterThanOrderByIdAsc, BaseAgriProduct::getId, docs);
+            return docs;
+        });
+        log.info("Catalog search index rebuilt: {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    /** Maps a catalog entity to its index entry; null for anything that is not a product. */
+    static CatalogSearchIndex.Document toDocument(Object entity) {
+        if (entity instanceof Product p) {
+            boolean visible = p.getStatus() == Product.ProductStatus.ACTIVE
+                    && p.getApprovalStatus() == ApprovalStatus.APPROVED;
+            return new CatalogSearchIndex.Document(CatalogSearchIndex.REGULAR, p.getId(),
+                    p.getProductName(), p.getShortDescription(), visible);
+        }
+        if (entity instanceof WomenProduct w) {
+            boolean visible = w.getApprovalStatus() == ApprovalStatus.APPROVED
+                    && Boolean.TRUE.equals(w.getIsAvailable());
+            return new CatalogSearchIndex.Document(CatalogSearchIndex.WOMEN, w.getId(),
+                    w.getName(), w.getDescription(), visible);
+        }
+        if (entity instanceof BaseAgriProduct a) {
+            return new CatalogSearchIndex.Document(CatalogSearchIndex.AGRI, a.getId(),
+                    a.getAgriproductName(), a.getAgridescription(), a.isVisibleToCustomers());
+        }
+        return null;
+    }
+
+    // ─────────────────────────────────────────────
+
+    private static boolean isVisible(Object entity) {
+        CatalogSearchIndex.Document doc = toDocument(entity);
+        return doc != null && doc.visible();
+    }
+
+    private <T> void loadInBatches(BatchLoader<T> loader, Function<T, Long> idOf,
+                                   List<CatalogSearchIndex.Document> out) {
+        Pageable batch = PageRequest.of(0, REBUILD_BATCH);
+        Long lastId = 0L;
+        List<T> rows;
+        do {
+            rows = loader.load(lastId, batch);
+            for (T row : rows) {
+                CatalogSearchIndex.Document doc = toDocument(row);
+                if (doc != null) out.add(doc);
+            }
+            if (!rows.isEmpty()) lastId = idOf.apply(rows.get(rows.size() - 1));
+        } while (rows.size() == REBUILD_BATCH);
+    }
+
+    // Loads the page's products with one query per catalog and keeps the ranked order
+    private List<CatalogSearchHitDTO> hydrate(List<CatalogSearchIndex.Hit> hits) {
+        Map<String, List<Long>> idsByType = hits.stream().collect(Collectors.groupingBy(
+                CatalogSearchIndex.Hit::type,
+                Collectors.mapping(CatalogSearchIndex.Hit::id, Collectors.toList())));
+
+        Map<String, Object> dtoByKey = new HashMap<>();
+
+        List<Long> regularIds = idsByType.getOrDefault(CatalogSearchIndex.REGULAR, List.of());
+        if (!regularIds.isEmpty()) {
+            List<Product> products = productRepo.findAllById(regularIds).stream().filter(CatalogSearchService::isVisible).toList();
+            List<?> dtos = assembler.toResponseDtos(products);
+            for (int i = 0; i < products.size(); i++) {
+                dtoByKey.put(CatalogSearchIndex.key(CatalogSearchIndex.REGULAR, products.get(i).getId()), dtos.get(i));
+            }
+        }
+
+        List<Long> womenIds = idsByType.getOrDefault(CatalogSearchIndex.WOMEN, List.of());
+        if (!womenIds.isEmpty()) {
+            womenProductRepo.findAllById(womenIds).stream().filter(CatalogSearchService::isVisible).forEach(w ->
+                    dtoByKey.put(CatalogSearchIndex.key(CatalogSearchIndex.WOMEN, w.getId()), womenProductService.toDTO(w)));
+        }
+
+        List<Long> agriIds = idsByType.getOrDefault(CatalogSearchIndex.AGRI, List.of());
+        if (!agriIds.isEmpty()) {
+            agriProductRepo.findAllById(agriIds).stream().filter(CatalogSearchService::isVisible).forEach(a ->
+                    dtoByKey.put(CatalogSearchIndex.key(CatalogSearchIndex.AGRI, a.getId()), agriProductService.entityToDto(a)));
+        }
+
+        List<CatalogSearchHitDTO> result = new ArrayList<>(hits.size());
+        for (CatalogSearchIndex.Hit hit : hits) {
+            Object dto = dtoByKey.get(CatalogSearchIndex.key(hit.type(), hit.id()));
+            if (dto == null) {
+                // Deleted or hidden on another instance since the last rebuild
+                index.remove(hit.type(), hit.id());
+                continue;
+            }
+            result.add(new CatalogSearchHitDTO(hit.type(), hit.id(), hit.score(), dto));
+        }
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface BatchLoader<T> {
+        List<T> load(Long afterId, Pageable pageable);
+    }
+}
@@ -8,11 +8,11 @@ import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
 import com.agrowmart.exception.ForbiddenException;
 import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.CategoryRepository;
+import com.agrowmart.service.CategoryTreeCache.Node;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,9 +21,14 @@ import java.util.Optional;
 public class CategoryService {
 
     private final CategoryRepository categoryRepo;
+    private final CategoryTreeCache categoryTree;
+    private final PublicCatalogCache publicCache;
 
-    public CategoryService(CategoryRepository categoryRepo) {
+    public CategoryService(CategoryRepository categoryRepo, CategoryTreeCache categoryTree,
+                           PublicCatalogCache publicCache) {
         this.categoryRepo = categoryRepo;
+        this.categoryTree = categoryTree;
+        this.publicCache = publicCache;
     }
 
     // Helper to determine the required root slug based on role
@@ -129,11 +134,15 @@ public class CategoryService {
         category.setParent(parent);
 
         category = categoryRepo.save(category);
+        categoryTree.rebuildAfterCommit();
+        publicCache.categoriesChanged();
         return toDto(category);
     }
     
+    // Served from the in-memory tree, no query
+    @Transactional(readOnly = true)
     public List<CategoryResponseDTO> listAll() {
-        return categoryRepo.findAll().stream()
+        return categoryTree.snapshot().byId().values().stream()
             .map(this::toDto)
             .toList();
     }
@@ -227,6 +236,8 @@ public class CategoryService {
         }
 
         cat = categoryRepo.save(cat);
+        categoryTree.rebuildAfterCommit();
+        publicCache.categoriesChanged();
         return toDto(cat);
     }
     
@@ -264,26 +275,25 @@ public class CategoryService {
         }
 
         categoryRepo.delete(cat);
+        categoryTree.rebuildAfterCommit();
+        publicCache.categoriesChanged();
     }
     
     
     
     // Helper: Check if category is under a root
     private boolean isUnderRoot(Category category, String rootSlug) {
-        Category current = category;
-        while (current != null) {
-            if (rootSlug.equals(current.getSlug())) {
-                return true;
-            }
-            current = current.getParent();
-        }
-        return false;
+        return categoryTree.isUnder(category, rootSlug);
     }
 
     private CategoryResponseDTO toDto(Category c) {
         Long parentId = c.getParent() != null ? c.getParent().getId() : null;
         return new CategoryResponseDTO(c.getId(), c.getName(), c.getSlug(), parentId);
     }
+
+    private CategoryResponseDTO toDto(Node n) {
+        return new CategoryResponseDTO(n.id(), n.name(), n.slug(), n.parentId());
+    }
     
     
     
@@ -315,6 +325,7 @@ public class CategoryService {
  // ──────────────────────────────────────────────
     // GET Allowed Categories for Current Vendor
     // ──────────────────────────────────────────────
+    @Transactional(readOnly = true)
     public List<CategoryResponseDTO> getAllowedCategoriesForVendor(User currentUser) {
         if (currentUser == null) {
             throw new ForbiddenException("You must be logged in to view allowed categories");
@@ -328,24 +339,17 @@ public class CategoryService {
             return listAll();
         }
 
-        // Restricted vendors → only under their root
-        Category root = categoryRepo.findBySlug(requiredRootSlug)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "Your section root category not found. Contact support."
-                ));
-
-        List<Category> allowed = new ArrayList<>();
-        collectSubcategories(root, allowed);
-
-        return allowed.stream().map(this::toDto).toList();
-    }
-    
-
-    private void collectSubcategories(Category category, List<Category> result) {
-        result.add(category); // Include the root itself
-        for (Category child : category.getChildren()) {
-            collectSubcategories(child, result);
+        // Restricted vendors → only under their root (root first, then its subtree)
+        CategoryTreeCache.Snapshot tree = categoryTree.snapshot();
+        Node root = tree.bySlug().get(requiredRootSlug);
+        if (root == null) {
+            throw new ResourceNotFoundException("Your section root category not found. Contact support.");
         }
+
+        return root.subtreeIds().stream()
+                .map(tree.byId()::get)
+                .map(this::toDto)
+                .toList();
     }
 }
 
@@ -0,0 +1,207 @@
+package com.agrowmart.service;
+
+import com.agrowmart.config.CacheInvalidationBus;
+import com.agrowmart.entity.Category;
+import com.agrowmart.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * The whole category tree as an immutable in-memory snapshot.
+ *
+ * Each node carries its product type (from the root it sits under) and the ids of its
+ * subtree, so "what type is this category" and "everything under this category" are
+ * map lookups with no parent walking and no lazy loads. The snapshot is rebuilt from one
+ * query and swapped in whole after a category change commits; readers never see a
+ * half-built tree. Other instances are told to rebuild through {@link CacheInvalidationBus};
+ * a periodic refresh covers any message they missed.
+ */
+@Component
+public class CategoryTreeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    public static final String GENERAL = "GENERAL";
+    private static final String REGION = "category-tree";
+
+    // Root slug → detail type of the products under it (seeded by CategorySeeder)
+    private static final Map<String, String> TYPE_BY_ROOT_SLUG = Map.of(
+            "vegetable-root", "VEGETABLE",
+            "dairy-root", "DAIRY",
+            "seafoodmeat-root", "MEAT");
+
+    private final CategoryRepository categoryRepo;
+    private final CacheInvalidationBus bus;
+    private volatile Snapshot snapshot;
+
+    public CategoryTreeCache(CategoryRepository categoryRepo, CacheInvalidationBus bus) {
+        this.categoryRepo = categoryRepo;
+        this.bus = bus;
+        bus.subscribe(REGION, key -> rebuild());
+    }
+
+    public Snapshot snapshot() {
+        Snapshot s = snapshot;
+        return s != null ? s : rebuild();
+    }
+
+    public Node node(Long categoryId) {
+        return categoryId != null ? snapshot().byId().get(categoryId) : null;
+    }
+
+    public Node node(Category category) {
+        return category != null ? node(category.getId()) : null;
+    }
+
+    /** VEGETABLE, DAIRY, MEAT or GENERAL. */
+    public String productType(Category category) {
+        if (category == null) return GENERAL;
+        Node n = node(category.getId());
+        if (n != null) return n.productType();
+
+        // Not in the snapshot yet (created moments ago elsewhere): walk the entity
+        Category current = category;
+        while (current != null) {
+            String type = TYPE_BY_ROOT_SLUG.get(current.getSlug());
+            if (type != null) return type;
+            current = current.getParent();
+        }
+        return GENERAL;
+    }
+
+    /** The category and all its descendants, parents before children; empty if unknown. */
+    public Set<Long> subtreeIds(Long categoryId) {
+        Node n = node(categoryId);
+        return n != null ? n.subtreeIds() : Set.of();
+    }
+
+    public boolean isUnder(Category category, String rootSlug) {
+        if (category == null) return false;
+        Node root = snapshot().bySlug().get(rootSlug);
+        Node n = node(category.getId());
+        if (root != null && n != null) return root.subtreeIds().contains(n.id());
+
+        Category current = category;
+        while (current != null) {
+            if (rootSlug.equals(current.getSlug())) return true;
+            current = current.getParent();
+        }
+        return false;
+    }
+
+    /** Rebuild here and on the other instances once the current transaction commits (immediately if there is none). */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuildEverywhere();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuildEverywhere();
+            }
+        });
+    }
+
+    private void rebuildEverywhere() {
+        rebuild();
+        bus.publish(REGION, null);
+    }
+
+    // Safety net for changes committed on other instances
+    @Scheduled(fixedDelayString = "${category.tree.refresh-ms:60000}")
+    public void refresh() {
+        rebuild();
+    }
+
+    public synchronized Snapshot rebuild() {
+        List<Category> categories = categoryRepo.findAll();
+        Snapshot previous = snapshot;
+        Snapshot built = build(categories, previous != null ? previous.version() + 1 : 1);
+
+        if (previous != null && previous.byId().equals(built.byId())) {
+            return previous;   // unchanged: keep the version
+        }
+        snapshot = built;
+        log.info("Category tree snapshot v{} built: {} categories", built.version(), built.byId().size());
+        return built;
+    }
+
+    static Snapshot build(List<Category> categories, long version) {
+        Map<Long, Category> byId = new HashMap<>();
+        Map<Long, List<Long>> children = new HashMap<>();
+        Map<Long, Long> parentOf = new HashMap<>();
+        for (Category c : categories) {
+            byId.put(c.getId(), c);
+            // getParent().getId() reads the proxy's id, no lazy load
+            Long parentId = c.getParent() != null ? c.getParent().getId() : null;
+            parentOf.put(c.getId(), parentId);
+            if (parentId != null) children.computeIfAbsent(parentId, p -> new ArrayList<>()).add(c.getId());
+        }
+        children.values().forEach(Collections::sort);
+
+        Map<Long, Node> nodes = new LinkedHashMap<>();
+        Map<String, Node> bySlug = new HashMap<>();
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        Collections.sort(ids);
+        for (Long id : ids) {
+            Category c = byId.get(id);
+            Node n = new Node(
+                    id,
+                    c.getName(),
+                    c.getSlug(),
+                    parentOf.get(id),
+                    List.copyOf(children.getOrDefault(id, List.of())),
+                    typeOf(id, byId, parentOf),
+                    Collections.unmodifiableSet(subtree(id, children)));
+            nodes.put(id, n);
+            if (c.getSlug() != null) bySlug.put(c.getSlug(), n);
+        }
+        return new Snapshot(version, Collections.unmodifiableMap(nodes), Map.copyOf(bySlug));
+    }
+
+    private static String typeOf(Long id, Map<Long, Category> byId, Map<Long, Long> parentOf) {
+        Long current = id;
+        for (int depth = 0; current != null && depth <= byId.size(); depth++) {   // bounded in case of a cycle
+            Category c = byId.get(current);
+            if (c == null) break;
+            String type = TYPE_BY_ROOT_SLUG.get(c.getSlug());
+            if (type != null) return type;
+            current = parentOf.get(current);
+        }
+        return GENERAL;
+    }
+
+    // Pre-order, iterative; the visited check stops a bad parent link from looping
+    private static Set<Long> subtree(Long id, Map<Long, List<Long>> children) {
+        Set<Long> result = new LinkedHashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(id);
+        while (!stack.isEmpty()) {
+            Long current = stack.pop();
+            if (!result.add(current)) continue;
+            List<Long> kids = children.getOrDefault(current, List.of());
+            for (int i = kids.size() - 1; i >= 0; i--) stack.push(kids.get(i));
+        }
+        return result;
+    }
+
+    public record Node(
+            Long id,
+            String name,
+            String slug,
+            Long parentId,
+            List<Long> childIds,
+            String productType,
+            Set<Long> subtreeIds
+    ) {}
+
+    /** byId is in id order. version goes up by one each time the tree actually changes. */
+    public record Snapshot(long version, Map<Long, Node> byId, Map<String, Node> bySlug) {}
+}
@@ -11,14 +11,17 @@ import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
-public class CloudinaryService {
+public class CloudinaryService implements ImageUploader {
 	private static final Logger log = LoggerFactory.getLogger(CloudinaryService.class);
     private Cloudinary cloudinary;
 
@@ -131,6 +134,43 @@ public class CloudinaryService {
     }
     
     
+    // ──────────────────────────────────────────────
+    // UPLOAD OF AN ALREADY VALIDATED IMAGE (used by ImageUploadPipeline)
+    // ──────────────────────────────────────────────
+    @Override
+    public String upload(byte[] image, String contentType) {
+        try {
+            Map<String, Object> options = ObjectUtils.asMap(
+                    "resource_type", "image",
+                    "folder", folder
+            );
+
+            Map uploadResult = cloudinary.uploader().upload(image, options);
+            String secureUrl = (String) uploadResult.get("secure_url");
+
+            if (secureUrl == null || secureUrl.isBlank()) {
+                throw new FileUploadException("Upload succeeded but no secure URL returned");
+            }
+            return secureUrl;
+
+        } catch (FileUploadException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Cloudinary upload failed", e);
+            throw new FileUploadException("Failed to upload image to Cloudinary: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void discard(String url) {
+        String publicId = extractPublicId(url);
+        if (publicId == null) {
+            log.warn("Failed to extract public_id from: {}", url);
+            return;
+        }
+        delete(publicId);
+    }
+
     // -------------------------------------------------------
     //  DELETE IMAGE FROM CLOUDINARY
     // -------------------------------------------------------
@@ -179,10 +219,36 @@ public class CloudinaryService {
             // throw new FileUploadException("Failed to delete image from Cloudinary", e);
         }
     }
+    // -------------------------------------------------------
+    //  BULK DELETE (Admin API, at most 100 public ids per call)
+    // -------------------------------------------------------
+    public static final int BULK_DELETE_LIMIT = 100;
+
+    /** Deletes the given images in one call; returns the ids that could not be deleted. */
+    public Set<String> deleteBatch(Collection<String> publicIds) {
+        if (publicIds.size() > BULK_DELETE_LIMIT) {
+            throw new IllegalArgumentException("At most " + BULK_DELETE_LIMIT + " public ids per call");
+        }
+        Set<String> failed = new HashSet<>(publicIds);
+        try {
+            Map result = cloudinary.api().deleteResources(publicIds, ObjectUtils.emptyMap());
+            Object deleted = result.get("deleted");
+            if (deleted instanceof Map<?, ?> statuses) {
+                // "deleted", or "not_found" when it is already gone – both are done
+                statuses.forEach((id, status) -> {
+                    if ("deleted".equals(status) || "not_found".equals(status)) failed.remove(String.valueOf(id));
+                });
+            }
+        } catch (Exception e) {
+            log.warn("Cloudinary bulk delete of {} images failed: {}", publicIds.size(), e.getMessage());
+        }
+        return failed;
+    }
+
     // -------------------------------------------------------
     //  EXTRACT PUBLIC ID FROM CLOUDINARY URL
     // -------------------------------------------------------
-    private String extractPublicId(String urlOrId) {
+    public String extractPublicId(String urlOrId) {
 
         if (urlOrId == null || urlOrId.isBlank()) return null;
 
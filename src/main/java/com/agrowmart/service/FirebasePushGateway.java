@@ -0,0 +1,48 @@
+package com.agrowmart.service;
+
+import com.google.firebase.messaging.*;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class FirebasePushGateway implements PushGateway {
+
+    // These won't get better by retrying
+    private static final Set<MessagingErrorCode> PERMANENT = Set.of(
+            MessagingErrorCode.UNREGISTERED,
+            MessagingErrorCode.INVALID_ARGUMENT,
+            MessagingErrorCode.SENDER_ID_MISMATCH,
+            MessagingErrorCode.THIRD_PARTY_AUTH_ERROR
+    );
+
+    @Override
+    public List<PushResult> sendEach(List<PushMessage> messages) throws FirebaseMessagingException {
+        List<Message> fcmMessages = new ArrayList<>(messages.size());
+        for (PushMessage m : messages) {
+            fcmMessages.add(Message.builder()
+                    .setToken(m.token())
+                    .putAllData(m.data())
+                    .build());
+        }
+
+        // One call for the whole batch (FCM allows up to 500 messages)
+        BatchResponse batch = FirebaseMessaging.getInstance().sendEach(fcmMessages);
+
+        List<PushResult> results = new ArrayList<>(messages.size());
+        for (SendResponse r : batch.getResponses()) {
+            if (r.isSuccessful()) {
+                results.add(new PushResult(true, r.getMessageId(), null, false));
+            } else {
+                FirebaseMessagingException e = r.getException();
+                MessagingErrorCode code = e != null ? e.getMessagingErrorCode() : null;
+                results.add(new PushResult(false, null,
+                        code != null ? code.name() + ": " + e.getMessage() : String.valueOf(e),
+                        code == null || !PERMANENT.contains(code)));
+            }
+        }
+        return results;
+    }
+}
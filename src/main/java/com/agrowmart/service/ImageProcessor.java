@@ -0,0 +1,155 @@
+package com.agrowmart.service;
+
+import com.agrowmart.exception.AuthExceptions.FileUploadException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Validates an uploaded image and shrinks it before it leaves the server: anything larger
+ * than {@code media.upload.max-dimension} on its long side is scaled down and re-encoded
+ * (JPEG, or PNG when it has transparency). Smaller images are uploaded as they are.
+ *
+ * The file is decoded straight from its stream with source subsampling, so a large photo
+ * is never held at full resolution in memory.
+ */
+@Component
+public class ImageProcessor {
+
+    static final long MAX_FILE_SIZE = 2 * 1024 * 1024; // 2MB, same limit as CloudinaryService
+    // Refuse to decode anything claiming more pixels than this (decompression bombs)
+    private static final long MAX_PIXELS = 50_000_000L;
+
+    private final int maxDimension;
+    private final float jpegQuality;
+
+    public ImageProcessor(@Value("${media.upload.max-dimension:1600}") int maxDimension,
+                          @Value("${media.upload.jpeg-quality:0.82}") float jpegQuality) {
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /** Same rules as {@link CloudinaryService#upload(MultipartFile)}; call on the request thread. */
+    public static void validate(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new FileUploadException("File is required and cannot be empty");
+        }
+        String contentType = file.getContentType();
+        if (contentType == null ||
+                !(contentType.equals("image/png") ||
+                  contentType.equals("image/jpeg") ||
+                  contentType.equals("image/jpg"))) {
+            throw new FileUploadException("Only PNG or JPG images are allowed");
+        }
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new FileUploadException("File too large. Maximum allowed size is 2 MB.");
+        }
+    }
+
+    /** The bytes to upload and their content type. */
+    public Prepared prepare(MultipartFile file) {
+        String contentType = "image/png".equals(file.getContentType()) ? "image/png" : "image/jpeg";
+        try {
+            BufferedImage scaled = readScaled(file);
+            if (scaled == null) {
+                // Small enough already, or a format ImageIO cannot decode (e.g. CMYK JPEG)
+                return new Prepared(file.getBytes(), contentType);
+            }
+            boolean alpha = scaled.getColorModel().hasAlpha();
+            byte[] encoded = alpha ? encodePng(scaled) : encodeJpeg(scaled);
+            return new Prepared(encoded, alpha ? "image/png" : "image/jpeg");
+        } catch (IOException e) {
+            throw new FileUploadException("Failed to read file during upload", e);
+        }
+    }
+
+    // Null when the image should go up unchanged
+    private BufferedImage readScaled(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream();
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new FileUploadException("Image dimensions are too large");
+                }
+                int longSide = Math.max(width, height);
+                if (longSide <= maxDimension) return null;
+
+                // Decode at no less than twice the target size, then scale the rest smoothly
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longSide / (2 * maxDimension));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+                return resize(decoded, maxDimension);
+            } catch (IOException | IllegalArgumentException e) {
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage src, int maxDimension) {
+        double scale = (double) maxDimension / Math.max(src.getWidth(), src.getHeight());
+        int w = Math.max(1, (int) Math.round(src.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(src.getHeight() * scale));
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage out = new BufferedImage(w, h, type);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, w, h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    public record Prepared(byte[] data, String contentType) {}
+}
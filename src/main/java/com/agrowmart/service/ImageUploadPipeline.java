@@ -0,0 +1,222 @@
+package com.agrowmart.service;
+
+import com.agrowmart.exception.AuthExceptions.FileUploadException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads the images of one request in parallel: each file is validated on the request
+ * thread, then downscaled ({@link ImageProcessor}) and uploaded ({@link ImageUploader}) on a
+ * shared pool of {@code media.upload.threads} threads, at most {@code media.upload.per-request}
+ * at a time for one request.
+ *
+ * All or nothing: when one file fails or the batch times out, the images already uploaded
+ * are discarded and the error is thrown. When the caller's transaction rolls back later,
+ * the batch is discarded as well.
+ */
+@Component
+public class ImageUploadPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageUploadPipeline.class);
+
+    private final ImageUploader uploader;
+    private final ImageProcessor processor;
+    private final ThreadPoolExecutor pool;
+    private final int perRequest;
+    private final long timeoutSeconds;
+
+    public ImageUploadPipeline(ImageUploader uploader,
+                               ImageProcessor processor,
+                               @Value("${media.upload.threads:8}") int threads,
+                               @Value("${media.upload.per-request:3}") int perRequest,
+                               @Value("${media.upload.timeout-seconds:60}") long timeoutSeconds) {
+        this.uploader = uploader;
+        this.processor = processor;
+        this.perRequest = perRequest;
+        this.timeoutSeconds = timeoutSeconds;
+        AtomicInteger n = new AtomicInteger();
+        // A full queue rejects the upload instead of piling up request threads behind it
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 16),
+                r -> {
+                    Thread t = new Thread(r, "image-upload-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /** URLs of the non-empty files, in order. */
+    public List<String> uploadAll(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) return new ArrayList<>();
+        List<MultipartFile> present = files.stream()
+                .filter(f -> f != null && !f.isEmpty())
+                .toList();
+        return new ArrayList<>(upload(present));
+    }
+
+    /** One URL per argument, null where the file is missing or empty. */
+    public List<String> uploadEach(MultipartFile... files) {
+        List<MultipartFile> present = Arrays.stream(files)
+                .filter(f -> f != null && !f.isEmpty())
+                .toList();
+        List<String> urls = upload(present);
+
+        List<String> result = new ArrayList<>(files.length);
+        int next = 0;
+        for (MultipartFile f : files) {
+            result.add(f != null && !f.isEmpty() ? urls.get(next++) : null);
+        }
+        return result;
+    }
+
+    public String uploadOne(MultipartFile file) {
+        return upload(List.of(file)).get(0);
+    }
+
+    /** Deletes replaced images once the transaction that replaced them has committed. */
+    public void discardAfterCommit(Collection<String> urls) {
+        List<String> gone = urls.stream().filter(Objects::nonNull).filter(u -> !u.isBlank()).toList();
+        if (gone.isEmpty()) return;
+        Runnable discard = () -> gone.forEach(uploader::discard);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            discard.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                discard.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    // ─────────────────────────────────────────────
+
+    private List<String> upload(List<MultipartFile> files) {
+        if (files.isEmpty()) return List.of();
+        files.forEach(ImageProcessor::validate);   // fail fast, before anything is uploaded
+
+        Batch batch = new Batch(files.size());
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(files.size());
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                int index = i;
+                MultipartFile file = files.get(i);
+                batch.slots.acquire();
+                if (batch.aborted.get()) break;
+                tasks.add(CompletableFuture.runAsync(() -> batch.run(index, file), pool));
+            }
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                    .get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            throw batch.fail(new FileUploadException("Image upload is busy, please try again in a moment", e));
+        } catch (TimeoutException e) {
+            throw batch.fail(new FileUploadException("Image upload timed out", e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw batch.fail(new FileUploadException("Image upload interrupted", e));
+        } catch (ExecutionException e) {
+            // Reported through batch.error below
+        }
+        if (batch.error != null) {
+            throw batch.fail(batch.error);
+        }
+
+        List<String> urls = Arrays.asList(batch.urls);
+        rollbackWithTransaction(urls);
+        return urls;
+    }
+
+    // The images belong to rows written in the current transaction: drop them if it rolls back
+    private void rollbackWithTransaction(List<String> urls) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    urls.forEach(uploader::discard);
+                }
+            }
+        });
+    }
+
+    private final class Batch {
+        private final String[] urls;
+        private final Semaphore slots = new Semaphore(perRequest);
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private volatile RuntimeException error;
+
+        private Batch(int size) {
+            this.urls = new String[size];
+        }
+
+        private void run(int index, MultipartFile file) {
+            try {
+                if (aborted.get()) return;
+                ImageProcessor.Prepared image = processor.prepare(file);
+                String url = uploader.upload(image.data(), image.contentType());
+                synchronized (this) {
+                    if (aborted.get()) {
+                        uploader.discard(url);   // the batch already failed; do not leave this one behind
+                    } else {
+                        urls[index] = url;
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    if (error == null) error = e;
+                }
+                aborted.set(true);
+                throw e;
+            } finally {
+                slots.release();
+            }
+        }
+
+        // Stops the remaining work and discards what was uploaded so far
+        private RuntimeException fail(RuntimeException cause) {
+            List<String> uploaded = new ArrayList<>();
+            synchronized (this) {
+                aborted.set(true);
+                for (String url : urls) {
+                    if (url != null) uploaded.add(url);
+                }
+            }
+            uploaded.forEach(uploader::discard);
+            if (!uploaded.isEmpty()) {
+                log.warn("Image batch failed ({}); discarded {} uploaded image(s)", cause.getMessage(), uploaded.size());
+            }
+            return cause instanceof FileUploadException ? cause
+                    : new FileUploadException("Image upload failed: " + cause.getMessage(), cause);
+        }
+    }
+}
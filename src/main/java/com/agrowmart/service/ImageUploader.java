@@ -0,0 +1,14 @@
+package com.agrowmart.service;
+
+/**
+ * Where {@link ImageUploadPipeline} stores prepared images. {@link CloudinaryService} in
+ * production; {@link LocalImageUploader} (media.uploader=local) for tests and local runs.
+ */
+public interface ImageUploader {
+
+    /** Stores one encoded image and returns its public URL. */
+    String upload(byte[] image, String contentType);
+
+    /** Removes an image previously returned by {@link #upload}; best effort, never throws. */
+    void discard(String url);
+}
@@ -0,0 +1,235 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.JobRun;
+import com.agrowmart.entity.ScheduledJob;
+import com.agrowmart.repository.JobRunRepository;
+import com.agrowmart.repository.ScheduledJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs scheduled maintenance jobs once across the cluster, in chunks.
+ *
+ * Every instance fires the same @Scheduled trigger; the first to take the job's lease in
+ * scheduled_jobs runs it and the others skip. The job is a {@link ChunkStep} called
+ * repeatedly, each call in its own transaction that also renews the lease and stores the
+ * checkpoint the step returned. A run that fails or dies therefore keeps everything up to
+ * its last chunk, and the next run continues from the checkpoint. Each run is recorded in
+ * job_runs with its duration and item count.
+ *
+ * A finished run keeps the lease until at least lockAtLeastFor after it started, so an
+ * instance whose trigger fires a little later (clock skew, startup) skips the same slot
+ * instead of running the job again.
+ */
+@Service
+public class JobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(JobRunner.class);
+
+    private static final int HISTORY_DAYS = 90;
+
+    private final ScheduledJobRepository jobRepo;
+    private final JobRunRepository runRepo;
+    private final TransactionTemplate tx;
+    private final Duration lease;
+    private final Duration lockAtLeastFor;
+    private final String node;
+    private final Set<String> runningLocally = ConcurrentHashMap.newKeySet();
+
+    public JobRunner(ScheduledJobRepository jobRepo,
+                     JobRunRepository runRepo,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${jobs.lease-seconds:900}") long leaseSeconds,
+                     @Value("${jobs.lock-at-least-seconds:300}") long lockAtLeastSeconds) {
+        this.jobRepo = jobRepo;
+        this.runRepo = runRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.lockAtLeastFor = Duration.ofSeconds(lockAtLeastSeconds);
+        this.node = nodeName();
+    }
+
+    /**
+     * One chunk of a job, run inside a transaction.
+     *
+     * @param checkpoint    where the previous chunk stopped; null for the first chunk of a fresh run
+     * @param runStartedAt  start of this run, for cut-off times that must not move between chunks
+     */
+    @FunctionalInterface
+    public interface ChunkStep {
+        Chunk next(String checkpoint, LocalDateTime runStartedAt);
+    }
+
+    /** @param checkpoint where to continue; null when the job has nothing left */
+    public record Chunk(String checkpoint, int items) {
+        public static Chunk done() {
+            return new Chunk(null, 0);
+        }
+    }
+
+    /** A delete of at most limit rows, e.g. {@code DELETE ... LIMIT :limit}; returns the rows removed. */
+    @FunctionalInterface
+    public interface BatchDelete {
+        int delete(LocalDateTime runStartedAt, int limit);
+    }
+
+    /** A purge as chunks: deletes up to limit rows per chunk until a chunk removes fewer. */
+    public static ChunkStep deleteInChunks(int limit, BatchDelete delete) {
+        return (checkpoint, runStartedAt) -> {
+            int removed = delete.delete(runStartedAt, limit);
+            return new Chunk(removed < limit ? null : "more", removed);
+        };
+    }
+
+    public void run(String jobName, ChunkStep step) {
+        run(jobName, lockAtLeastFor, step, null);
+    }
+
+    public void run(String jobName, ChunkStep step, Runnable finish) {
+        run(jobName, lockAtLeastFor, step, finish);
+    }
+
+    public void run(String jobName, Duration lockAtLeastFor, ChunkStep step) {
+        run(jobName, lockAtLeastFor, step, null);
+    }
+
+    /**
+     * Runs the job unless another instance holds it.
+     *
+     * @param lockAtLeastFor how long after the start other instances keep skipping the job, even
+     *                       when this run is done; shorter than the job's schedule period
+     * @param finish         optional step after the last chunk, outside any transaction (e.g.
+     *                       calls to an external API); runs under a freshly renewed lease
+     */
+    public void run(String jobName, Duration lockAtLeastFor, ChunkStep step, Runnable finish) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Boolean locked = tx.execute(status -> {
+            jobRepo.ensureExists(jobName);
+            return jobRepo.tryLock(jobName, node, startedAt, startedAt.plus(lease)) == 1;
+        });
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Job {} skipped: held by another instance", jobName);
+            return;
+        }
+
+        String checkpoint = jobRepo.findById(jobName).map(ScheduledJob::getCheckpoint).orElse(null);
+        JobRun run = runRepo.save(new JobRun(jobName, node, checkpoint, startedAt));
+        LocalDateTime holdUntil = startedAt.plus(lockAtLeastFor);
+        if (checkpoint != null) {
+            log.info("Job {} resuming after {}", jobName, checkpoint);
+        }
+
+        int chunks = 0;
+        long items = 0;
+        try {
+            while (true) {
+                String from = checkpoint;
+                int done = chunks + 1;
+                long total = items;
+                Chunk chunk = tx.execute(status -> {
+                    if (jobRepo.renewLease(jobName, node, LocalDateTime.now().plus(lease)) != 1) {
+                        throw new IllegalStateException("Lost the lease on job " + jobName);
+                    }
+                    Chunk result = step.next(from, startedAt);
+                    jobRepo.saveCheckpoint(jobName, node, result.checkpoint());
+                    runRepo.updateProgress(run.getId(), done, total + result.items());
+                    return result;
+                });
+                chunks = done;
+                items += chunk.items();
+                if (chunk.checkpoint() == null) break;
+                checkpoint = chunk.checkpoint();
+            }
+
+            if (finish != null) {
+                tx.executeWithoutResult(status -> {
+                    if (jobRepo.renewLease(jobName, node, LocalDateTime.now().plus(lease)) != 1) {
+                        throw new IllegalStateException("Lost the lease on job " + jobName);
+                    }
+                });
+                finish.run();
+            }
+            finishRun(run, "SUCCEEDED", chunks, items, null, holdUntil);
+            log.info("Job {} finished: {} items in {} chunks, {} ms",
+                    jobName, items, chunks, run.getDurationMs());
+        } catch (RuntimeException e) {
+            finishRun(run, "FAILED", chunks, items, e.getMessage(), holdUntil);
+            log.error("Job {} failed after {} chunks ({} items); next run resumes from the last checkpoint",
+                    jobName, chunks, items, e);
+        }
+    }
+
+    /**
+     * Runs work that every instance does for itself (e.g. rebuilding an in-memory index), without
+     * the cluster lease; only records it in job_runs. Skips when the previous run on this
+     * instance is still going.
+     *
+     * @param work returns the number of items it handled
+     */
+    public void runLocally(String jobName, IntSupplier work) {
+        if (!runningLocally.add(jobName)) {
+            log.info("Job {} skipped: previous run on this instance still going", jobName);
+            return;
+        }
+        try {
+            JobRun run = runRepo.save(new JobRun(jobName, node, null, LocalDateTime.now()));
+            try {
+                int items = work.getAsInt();
+                finishRun(run, "SUCCEEDED", 1, items, null, null);
+            } catch (RuntimeException e) {
+                finishRun(run, "FAILED", 0, 0, e.getMessage(), null);
+                log.error("Job {} failed on this instance", jobName, e);
+            }
+        } finally {
+            runningLocally.remove(jobName);
+        }
+    }
+
+    public String node() {
+        return node;
+    }
+
+    // ─────────────────────────────────────────────
+
+    // holdUntil: end of the slot the run keeps the job for; null for runs that hold no lease
+    private void finishRun(JobRun run, String status, int chunks, long items, String error,
+                           LocalDateTime holdUntil) {
+        LocalDateTime now = LocalDateTime.now();
+        run.setStatus(status);
+        run.setChunks(chunks);
+        run.setItems(items);
+        run.setFinishedAt(now);
+        run.setDurationMs(Duration.between(run.getStartedAt(), now).toMillis());
+        run.setError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        tx.executeWithoutResult(s -> {
+            runRepo.save(run);
+            if (holdUntil != null) {
+                jobRepo.release(run.getJobName(), node, status, now, holdUntil.isAfter(now) ? holdUntil : now);
+            }
+            runRepo.deleteByJobNameStartedBefore(run.getJobName(), now.minusDays(HISTORY_DAYS));
+        });
+    }
+
+    private static String nodeName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        if (host.length() > 50) host = host.substring(0, 50);
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.agrowmart.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in for Cloudinary that writes images to a local directory and returns file:
+ * URLs. Counts uploads and discards, so a test can check that a failed batch left
+ * nothing behind.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "media.uploader", havingValue = "local")
+public class LocalImageUploader implements ImageUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalImageUploader.class);
+
+    private final Path dir;
+    private final AtomicInteger uploads = new AtomicInteger();
+    private final AtomicInteger discards = new AtomicInteger();
+
+    public LocalImageUploader(@Value("${media.local.dir:${java.io.tmpdir}/agrowmart-media}") String dir) throws IOException {
+        this.dir = Files.createDirectories(Path.of(dir));
+        log.info("Images are stored locally in {}", this.dir);
+    }
+
+    @Override
+    public String upload(byte[] image, String contentType) {
+        String ext = "image/png".equals(contentType) ? ".png" : ".jpg";
+        Path file = dir.resolve(UUID.randomUUID() + ext);
+        try {
+            Files.write(file, image);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        uploads.incrementAndGet();
+        return file.toUri().toString();
+    }
+
+    @Override
+    public void discard(String url) {
+        try {
+            Files.deleteIfExists(Path.of(URI.create(url)));
+            discards.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("Could not discard local image {}: {}", url, e.getMessage());
+        }
+    }
+
+    public int uploadCount() { return uploads.get(); }
+    public int discardCount() { return discards.get(); }
+}
@@ -0,0 +1,170 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.MediaPurge;
+import com.agrowmart.repository.MediaPurgeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes Cloudinary images in bulk: public ids are grouped into Admin API calls of up to
+ * {@link CloudinaryService#BULK_DELETE_LIMIT}, at most {@code media.purge.parallelism} calls at a time.
+ *
+ * A failed id never fails the caller. It goes to media_purge_queue, which a job retries with
+ * growing delays until it is deleted or {@link #MAX_ATTEMPTS} is reached.
+ */
+@Service
+public class MediaPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaPurgeService.class);
+
+    private static final int MAX_ATTEMPTS = 10;
+
+    private final CloudinaryService cloudinary;
+    private final MediaPurgeRepository queue;
+    private final JobRunner jobs;
+    // REQUIRES_NEW: purge usually runs in afterCommit, where the caller's transaction has
+    // already committed and joining it would lose the INSERT
+    private final TransactionTemplate queueTx;
+    private final ExecutorService pool;
+
+    public MediaPurgeService(CloudinaryService cloudinary,
+                             MediaPurgeRepository queue,
+                             JobRunner jobs,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${media.purge.parallelism:4}") int parallelism) {
+        this.cloudinary = cloudinary;
+        this.queue = queue;
+        this.jobs = jobs;
+        this.queueTx = new TransactionTemplate(transactionManager);
+        this.queueTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "media-purge-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /** Purges the Cloudinary images among the URLs once the current transaction has committed. */
+    public void purgeAfterCommit(Collection<String> urls) {
+        List<String> copy = new ArrayList<>(urls);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            purge(copy);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                purge(copy);
+            }
+        });
+    }
+
+    /** Deletes the Cloudinary images among the URLs; anything not deleted is queued for retry. */
+    public void purge(Collection<String> urls) {
+        Set<String> publicIds = new LinkedHashSet<>();
+        for (String url : urls) {
+            if (url == null || !url.contains("cloudinary.com")) continue;   // not ours to delete
+            String publicId = cloudinary.extractPublicId(url.trim());
+            if (publicId != null) publicIds.add(publicId);
+        }
+        if (publicIds.isEmpty()) return;
+
+        Set<String> failed = deleteAll(new ArrayList<>(publicIds));
+        if (!failed.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                queueTx.executeWithoutResult(s -> failed.forEach(id -> queue.enqueue(id, now)));
+            } catch (RuntimeException e) {
+                // Never fails the caller: its delete has committed, the images are just orphaned
+                log.error("Media purge: could not queue {} images for retry: {}", failed.size(), failed, e);
+                return;
+            }
+            log.warn("Media purge: {} of {} images not deleted, queued for retry", failed.size(), publicIds.size());
+        } else {
+            log.info("Media purge: {} images deleted", publicIds.size());
+        }
+    }
+
+    // Hourly retry of the queue, one bulk call per chunk
+    @Scheduled(cron = "${media.purge.retry-cron:0 20 * * * *}", zone = "Asia/Kolkata")
+    public void retryQueued() {
+        jobs.run("media-purge-retry", this::retryChunk);
+    }
+
+    // ─────────────────────────────────────────────
+
+    // Checkpoint: id of the last queue row looked at
+    private JobRunner.Chunk retryChunk(String afterId, LocalDateTime runStartedAt) {
+        List<MediaPurge> due = queue.findDueAfter(runStartedAt, afterId != null ? Long.valueOf(afterId) : 0L,
+                PageRequest.of(0, CloudinaryService.BULK_DELETE_LIMIT));
+        if (due.isEmpty()) return JobRunner.Chunk.done();
+
+        Set<String> failed = cloudinary.deleteBatch(due.stream().map(MediaPurge::getPublicId).toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> done = new ArrayList<>();
+        for (MediaPurge row : due) {
+            if (!failed.contains(row.getPublicId())) {
+                done.add(row.getId());
+                continue;
+            }
+            row.setAttempts(row.getAttempts() + 1);
+            row.setUpdatedAt(now);
+            if (row.getAttempts() >= MAX_ATTEMPTS) {
+                row.setStatus("GAVE_UP");
+                log.error("Media purge gave up on {} after {} attempts", row.getPublicId(), row.getAttempts());
+            } else {
+                row.setNextAttemptAt(now.plusHours(1L << Math.min(row.getAttempts(), 6)));   // 2h, 4h … 64h
+            }
+        }
+        if (!done.isEmpty()) queue.deleteByIdIn(done);
+        return new JobRunner.Chunk(String.valueOf(due.get(due.size() - 1).getId()), done.size());
+    }
+
+    private Set<String> deleteAll(List<String> publicIds) {
+        List<Future<Set<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < publicIds.size(); i += CloudinaryService.BULK_DELETE_LIMIT) {
+            List<String> batch = publicIds.subList(i, Math.min(i + CloudinaryService.BULK_DELETE_LIMIT, publicIds.size()));
+            calls.add(pool.submit(() -> cloudinary.deleteBatch(batch)));
+        }
+
+        Set<String> failed = new HashSet<>();
+        for (int i = 0; i < calls.size(); i++) {
+            int from = i * CloudinaryService.BULK_DELETE_LIMIT;
+            try {
+                failed.addAll(calls.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.addAll(publicIds.subList(from, publicIds.size()));   // this call and all after it
+                break;
+            } catch (Exception e) {
+                failed.addAll(publicIds.subList(from, Math.min(from + CloudinaryService.BULK_DELETE_LIMIT, publicIds.size())));
+            }
+        }
+        return failed;
+    }
+}
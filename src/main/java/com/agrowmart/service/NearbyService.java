@@ -0,0 +1,221 @@
+package com.agrowmart.service;
+
+import com.agrowmart.config.CacheInvalidationBus;
+import com.agrowmart.dto.auth.product.NearbyProductDTO;
+import com.agrowmart.dto.auth.product.ProductResponseDTO;
+import com.agrowmart.dto.auth.shop.NearbyShopDTO;
+import com.agrowmart.entity.Product;
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.customer.CustomerAddress;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.exception.ResourceNotFoundException;
+import com.agrowmart.repository.ProductRepository;
+import com.agrowmart.repository.ShopRepository;
+import com.agrowmart.repository.customer.CustomerAddressRepository;
+import com.agrowmart.util.GeoHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "Near me" discovery: shops and products within a radius of the customer's selected
+ * address, nearest first, answered from {@link ShopGeoIndex}.
+ *
+ * The index is rebuilt at startup and periodically, and updated after commit whenever a
+ * shop is saved (on this instance directly, on the others through {@link CacheInvalidationBus}).
+ */
+@Service
+public class NearbyService {
+
+    private static final Logger log = LoggerFactory.getLogger(NearbyService.class);
+
+    public static final double MAX_RADIUS_KM = 50;
+    private static final String REGION = "shop-geo";
+    // Nearby products are collected from at most this many of the nearest shops, in chunks
+    private static final int MAX_PRODUCT_SHOPS = 200;
+    private static final int SHOP_CHUNK = 20;
+
+    private final ShopGeoIndex index;
+    private final ShopRepository shopRepo;
+    private final ShopService shopService;
+    private final ProductRepository productRepo;
+    private final ProductResponseAssembler assembler;
+    private final CustomerAddressRepository addressRepo;
+    private final CacheInvalidationBus bus;
+
+    public NearbyService(ShopGeoIndex index,
+                         ShopRepository shopRepo,
+                         ShopService shopService,
+                         ProductRepository productRepo,
+                         ProductResponseAssembler assembler,
+                         CustomerAddressRepository addressRepo,
+                         CacheInvalidationBus bus) {
+        this.index = index;
+        this.shopRepo = shopRepo;
+        this.shopService = shopService;
+        this.productRepo = productRepo;
+        this.assembler = assembler;
+        this.addressRepo = addressRepo;
+        this.bus = bus;
+        bus.subscribe(REGION, this::reloadShop);
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyShopDTO> nearbyShops(Long customerId, Long addressId, double radiusKm, int limit) {
+        CustomerAddress from = selectedAddress(customerId, addressId);
+        validateRadius(radiusKm);
+
+        List<ShopGeoIndex.Hit> hits = index.nearest(from.getLatitude(), from.getLongitude(), radiusKm, limit);
+        if (hits.isEmpty()) return List.of();
+
+        Map<Long, Shop> shops = shopRepo.findAllByUserIdIn(hits.stream().map(ShopGeoIndex.Hit::merchantId).toList())
+                .stream()
+                .collect(Collectors.toMap(Shop::getId, Function.identity()));
+
+        List<NearbyShopDTO> result = new ArrayList<>(hits.size());
+        for (ShopGeoIndex.Hit hit : hits) {
+            Shop shop = shops.get(hit.shopId());
+            if (shop == null) continue;   // removed since the index saw it
+            result.add(new NearbyShopDTO(shopService.toSummary(shop), round(hit.distanceKm())));
+        }
+        return result;
+    }
+
+    /** Public products of the nearest shops, nearest shop first, newest product first within a shop. */
+    @Transactional(readOnly = true)
+    public List<NearbyProductDTO> nearbyProducts(Long customerId, Long addressId, double radiusKm, int limit) {
+        CustomerAddress from = selectedAddress(customerId, addressId);
+        validateRadius(radiusKm);
+
+        List<ShopGeoIndex.Hit> hits = index.nearest(from.getLatitude(), from.getLongitude(), radiusKm, MAX_PRODUCT_SHOPS);
+
+        List<Product> picked = new ArrayList<>();
+        List<ShopGeoIndex.Hit> pickedFrom = new ArrayList<>();
+        for (int start = 0; start < hits.size() && picked.size() < limit; start += SHOP_CHUNK) {
+            List<ShopGeoIndex.Hit> chunk = hits.subList(start, Math.min(start + SHOP_CHUNK, hits.size()));
+            Map<Long, List<Product>> byMerchant = productRepo
+                    .findVisibleByMerchantIdIn(chunk.stream().map(ShopGeoIndex.Hit::merchantId).toList())
+                    .stream()
+                    .collect(Collectors.groupingBy(Product::getMerchantId));
+
+            for (ShopGeoIndex.Hit hit : chunk) {
+                for (Product p : byMerchant.getOrDefault(hit.merchantId(), List.of())) {
+                    if (picked.size() == limit) break;
+                    picked.add(p);
+                    pickedFrom.add(hit);
+                }
+            }
+        }
+
+        List<ProductResponseDTO> dtos = assembler.toResponseDtos(picked);
+        List<NearbyProductDTO> result = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            ShopGeoIndex.Hit hit = pickedFrom.get(i);
+            result.add(new NearbyProductDTO(dtos.get(i), hit.shopId(), round(hit.distanceKm())));
+        }
+        return result;
+    }
+
+    /** Called for every shop save / delete (see {@link ShopCacheListener}). */
+    public void shopChanged(Shop shop, boolean removed) {
+        Long shopId = shop.getId();
+        ShopGeoIndex.Point point = removed ? null : toPoint(shop);
+        Runnable apply = () -> {
+            if (point != null) index.upsert(point);
+            else index.remove(shopId);
+            bus.publish(REGION, String.valueOf(shopId));
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    // Full rebuild at startup, then periodically as a safety net for missed messages
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${shop.geo.refresh-ms:600000}", initialDelayString = "${shop.geo.refresh-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        index.rebuild(() -> {
+            List<ShopGeoIndex.Point> points = new ArrayList<>();
+            for (Object[] row : shopRepo.findGeoPoints()) {
+                double lat = ((Number) row[2]).doubleValue();
+                double lon = ((Number) row[3]).doubleValue();
+                if (GeoHash.isValid(lat, lon)) {
+                    points.add(new ShopGeoIndex.Point((Long) row[0], (Long) row[1], lat, lon));
+                }
+            }
+            return points;
+        });
+        log.info("Shop geo index rebuilt: {} shops in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    // ─────────────────────────────────────────────
+
+    // A shop saved on another instance
+    private void reloadShop(String shopId) {
+        if (shopId == null) {
+            rebuild();
+            return;
+        }
+        Long id = Long.valueOf(shopId);
+        ShopGeoIndex.Point point = shopRepo.findById(id).map(NearbyService::toPoint).orElse(null);
+        if (point != null) index.upsert(point);
+        else index.remove(id);
+    }
+
+    // Null when the shop should not be found by customers
+    private static ShopGeoIndex.Point toPoint(Shop shop) {
+        if (!shop.isApproved() || !shop.isActive() || shop.getUser() == null
+                || !GeoHash.isValid(shop.getLatitude(), shop.getLongitude())) {
+            return null;
+        }
+        return new ShopGeoIndex.Point(shop.getId(), shop.getUser().getId(), shop.getLatitude(), shop.getLongitude());
+    }
+
+    // The given address, or the customer's default one
+    private CustomerAddress selectedAddress(Long customerId, Long addressId) {
+        CustomerAddress address;
+        if (addressId != null) {
+            address = addressRepo.findById(addressId)
+                    .filter(a -> a.getCustomer().getId().equals(customerId))
+                    .orElseThrow(() -> new ResourceNotFoundException("Address not found with ID: " + addressId));
+        } else {
+            address = addressRepo.findByCustomerId(customerId).stream()
+                    .filter(CustomerAddress::isDefaultAddress)
+                    .findFirst()
+                    .orElseThrow(() -> new BusinessValidationException("Select a delivery address first"));
+        }
+        if (!GeoHash.isValid(address.getLatitude(), address.getLongitude())) {
+            throw new BusinessValidationException("The selected address has no location. Please update it on the map.");
+        }
+        return address;
+    }
+
+    private static void validateRadius(double radiusKm) {
+        if (!(radiusKm > 0 && radiusKm <= MAX_RADIUS_KM)) {
+            throw new BusinessValidationException("Radius must be more than 0 and at most " + (int) MAX_RADIUS_KM + " km");
+        }
+    }
+
+    private static double round(double km) {
+        return Math.round(km * 100) / 100.0;
+    }
+}
@@ -0,0 +1,252 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Notification;
+import com.agrowmart.entity.NotificationOutbox;
+import com.agrowmart.entity.User;
+import com.agrowmart.repository.NotificationOutboxRepository;
+import com.agrowmart.repository.NotificationRepository;
+import com.agrowmart.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Drains {@code notification_outbox} to FCM in the background.
+ *
+ * Each drain claims up to one FCM batch of due rows (FOR UPDATE SKIP LOCKED, so several
+ * workers / instances never take the same row), sends them in a single sendEach call,
+ * then writes all outcomes and delivery logs in one transaction. Transient failures are
+ * retried with exponential backoff; permanent ones (bad / unregistered token) are not.
+ */
+@Component
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int FCM_BATCH = 500;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 30 * 60;
+    // How long a claimed row stays invisible before another worker may retry it
+    private static final long CLAIM_LEASE_SECONDS = 120;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final PushGateway pushGateway;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor workers;
+    private final JobRunner jobs;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationRepository notificationRepository,
+                                  UserRepository userRepository,
+                                  PushGateway pushGateway,
+                                  PlatformTransactionManager transactionManager,
+                                  JobRunner jobs,
+                                  @Value("${notification.dispatch.workers:4}") int workerCount) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.pushGateway = pushGateway;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.jobs = jobs;
+
+        AtomicInteger n = new AtomicInteger();
+        // Bounded: extra wake-ups are dropped, the rows stay in the outbox for the next poll
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerCount),
+                r -> {
+                    Thread t = new Thread(r, "notification-dispatch-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /** Ask for a drain soon (called after a transaction that queued notifications commits). */
+    public void wakeUp() {
+        workers.execute(this::drain);
+    }
+
+    // Safety net: picks up retries that came due and anything a dropped wake-up left behind
+    @Scheduled(fixedDelayString = "${notification.dispatch.poll-ms:2000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    // Delivered rows are already in the notifications log; FAILED ones are kept for inspection
+    @Scheduled(cron = "${notification.outbox.cleanup-cron:0 15 4 * * *}", zone = "Asia/Kolkata")
+    public void purgeFinished() {
+        jobs.run("notification-outbox-purge", JobRunner.deleteInChunks(1000, (runStartedAt, limit) ->
+                outboxRepository.deleteFinishedBefore(runStartedAt.minusDays(7), limit)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    void drain() {
+        try {
+            int sent;
+            do {
+                sent = dispatchBatch();
+            } while (sent == FCM_BATCH);
+        } catch (Exception e) {
+            log.error("Notification dispatch failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Returns how many rows were claimed
+    int dispatchBatch() {
+        List<NotificationOutbox> claimed = tx.execute(status -> claim());
+        if (claimed == null || claimed.isEmpty()) return 0;
+
+        Map<Long, User> users = userRepository.findAllById(
+                        claimed.stream().map(NotificationOutbox::getUserId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<NotificationOutbox> toSend = new ArrayList<>();
+        List<PushGateway.PushMessage> messages = new ArrayList<>();
+        List<NotificationOutbox> skipped = new ArrayList<>();
+
+        for (NotificationOutbox row : claimed) {
+            User user = users.get(row.getUserId());
+            String token = user != null ? user.getFcmToken() : null;
+            if (token == null || token.isBlank()) {
+                skipped.add(row);
+                continue;
+            }
+            toSend.add(row);
+            messages.add(new PushGateway.PushMessage(token, payload(row)));
+        }
+
+        List<PushGateway.PushResult> results;
+        if (messages.isEmpty()) {
+            results = List.of();
+        } else {
+            try {
+                results = pushGateway.sendEach(messages);
+            } catch (Exception e) {
+                // Whole batch failed (FCM down, Firebase not initialised, ...) – retry all of it
+                String error = e.getMessage();
+                results = messages.stream()
+                        .map(m -> new PushGateway.PushResult(false, null, error, true))
+                        .toList();
+            }
+        }
+
+        record(toSend, messages, results, skipped, users);
+        return claimed.size();
+    }
+
+    private List<NotificationOutbox> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> due = outboxRepository.lockDue(now, FCM_BATCH);
+        for (NotificationOutbox row : due) {
+            row.setStatus("SENDING");
+            row.setNextAttemptAt(now.plusSeconds(CLAIM_LEASE_SECONDS));
+            row.setUpdatedAt(now);
+        }
+        return outboxRepository.saveAll(due);
+    }
+
+    private void record(List<NotificationOutbox> sentRows,
+                        List<PushGateway.PushMessage> messages,
+                        List<PushGateway.PushResult> results,
+                        List<NotificationOutbox> skipped,
+                        Map<Long, User> users) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NotificationOutbox> updated = new ArrayList<>(sentRows.size() + skipped.size());
+        List<Notification> deliveryLogs = new ArrayList<>();
+        int ok = 0;
+        int retrying = 0;
+
+        for (int i = 0; i < sentRows.size(); i++) {
+            NotificationOutbox row = sentRows.get(i);
+            PushGateway.PushResult r = results.get(i);
+            row.setAttempts(row.getAttempts() + 1);
+            row.setUpdatedAt(now);
+
+            if (r.success()) {
+                row.setStatus("SENT");
+                row.setLastError(null);
+                ok++;
+            } else if (r.retryable() && row.getAttempts() < MAX_ATTEMPTS) {
+                row.setStatus("PENDING");
+                row.setNextAttemptAt(now.plusSeconds(backoffSeconds(row.getAttempts())));
+                row.setLastError(truncate(r.error()));
+                retrying++;
+            } else {
+                row.setStatus("FAILED");
+                row.setLastError(truncate(r.error()));
+            }
+            updated.add(row);
+
+            if (!"PENDING".equals(row.getStatus())) {
+                Notification entry = new Notification(users.get(row.getUserId()), messages.get(i).token(),
+                        row.getTitle(), row.getBody());
+                entry.setSuccess(r.success());
+                entry.setMessageId(r.success() ? r.messageId() : truncate("FAILED: " + r.error()));
+                deliveryLogs.add(entry);
+            }
+        }
+
+        for (NotificationOutbox row : skipped) {
+            row.setStatus("SKIPPED");
+            row.setUpdatedAt(now);
+            updated.add(row);
+        }
+
+        tx.executeWithoutResult(status -> {
+            outboxRepository.saveAll(updated);
+            notificationRepository.saveAll(deliveryLogs);
+        });
+
+        log.info("Notifications dispatched: {} sent, {} retrying, {} failed, {} skipped (no token)",
+                ok, retrying, sentRows.size() - ok - retrying, skipped.size());
+    }
+
+    private static Map<String, String> payload(NotificationOutbox row) {
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("title", row.getTitle());
+        data.put("body", row.getBody());
+        data.put("click_action", "FLUTTER_NOTIFICATION_CLICK");
+        if (row.getDataJson() != null) {
+            try {
+                data.putAll(MAPPER.readValue(row.getDataJson(), new TypeReference<Map<String, String>>() {}));
+            } catch (Exception e) {
+                log.warn("Ignoring unreadable data for notification {}: {}", row.getId(), e.getMessage());
+            }
+        }
+        return data;
+    }
+
+    private static long backoffSeconds(int attempts) {
+        return Math.min(BASE_BACKOFF_SECONDS << (attempts - 1), MAX_BACKOFF_SECONDS);
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() <= 250 ? s : s.substring(0, 250);
+    }
+}
@@ -1,13 +1,14 @@
 package com.agrowmart.service;
 
-import com.agrowmart.entity.Notification;
-import com.agrowmart.entity.User;
+import com.agrowmart.entity.NotificationOutbox;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
-import com.agrowmart.repository.NotificationRepository;
+import com.agrowmart.repository.NotificationOutboxRepository;
 import com.agrowmart.repository.UserRepository;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.*;
@@ -15,18 +16,24 @@ import java.util.*;
 @Service
 public class NotificationService {
 	private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final UserRepository userRepository;
-    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationDispatcher dispatcher;
 
-    public NotificationService(UserRepository userRepository, 
-                              NotificationRepository notificationRepository) {
+    public NotificationService(UserRepository userRepository,
+                               NotificationOutboxRepository outboxRepository,
+                               NotificationDispatcher dispatcher) {
         this.userRepository = userRepository;
-        this.notificationRepository = notificationRepository;
+        this.outboxRepository = outboxRepository;
+        this.dispatcher = dispatcher;
     }
 
     /**
-     * Sends a push notification via FCM and logs it.
-     * The extra data map is optional (can be null).
+     * Queues a push notification; {@link NotificationDispatcher} sends it via FCM in the background.
+     * The row is written in the caller's transaction, so nothing is sent if that rolls back,
+     * and the caller never waits on Firebase.
      *
      * @param userId Recipient user ID
      * @param title Notification title
@@ -34,8 +41,6 @@ public class NotificationService {
      * @param data Optional extra key-value data (can be null)
      */
     public void sendNotification(Long userId, String title, String body, Map<String, String> data) {
-        // Find user
-    	
     	if (userId == null) {
             log.warn("Cannot send notification: userId is null");
             return;
@@ -44,56 +49,9 @@ public class NotificationService {
         if (title == null || title.trim().isEmpty() || body == null || body.trim().isEmpty()) {
             throw new BusinessValidationException("Notification title and body are required");
         }
-    	
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) {
-            log.warn("User not found for notification: userId={}", userId);
-            return;
-        }
-
-        String token = user.getFcmToken();
-        if (token == null || token.trim().isEmpty()) {
-            log.info("Skipped notification → User ID: {} (No valid FCM token)", userId);
-            return;
-        }
-        // Create log entry
-        Notification log = new Notification(user, token, title, body);
-        log.setSuccess(false);
-        notificationRepository.save(log);
-
-        try {
-            // Build FCM message
-            Message.Builder msgBuilder = Message.builder()
-                    .setToken(token)
-                    .putData("title", title)
-                    .putData("body", body)
-                    .putData("click_action", "FLUTTER_NOTIFICATION_CLICK");
-
-            // Add optional data safely
-            if (data != null && !data.isEmpty()) {
-                data.forEach(msgBuilder::putData);
-            }
-
-            // Send message
-            String messageId = FirebaseMessaging.getInstance().send(msgBuilder.build());
-
-            // Update log on success
-            log.setSuccess(true);
-            log.setMessageId(messageId);
-            notificationRepository.save(log);
 
-            System.out.println("Notification sent → User: " + user.getName() + 
-                             " | Title: " + title + " | FCM ID: " + messageId);
-        } catch (Exception e) {
-            // Log failure
-            log.setMessageId("FAILED: " + e.getMessage());
-            notificationRepository.save(log);
-
-            System.err.println("FCM send failed for user " + user.getName() + 
-                             ": " + e.getMessage());
-            // Optional: rethrow if you want calling code to handle it
-            // throw new RuntimeException("Failed to send notification", e);
-        }
+        outboxRepository.save(new NotificationOutbox(userId, title, body, toJson(data)));
+        wakeDispatcherAfterCommit();
     }
 
     /**
@@ -113,16 +71,42 @@ public class NotificationService {
             throw new BusinessValidationException("Title and body are required for notification");
         }
 
-        List<User> users = userRepository.findByRoleName(roleName);
-        if (users == null || users.isEmpty()) {
+        List<Long> userIds = userRepository.findIdsByRoleName(roleName);
+        if (userIds.isEmpty()) {
             log.info("No users found with role: {}", roleName);
             return;
         }
 
-        log.info("Sending notification to {} users with role: {}", users.size(), roleName);
+        log.info("Queueing notification for {} users with role: {}", userIds.size(), roleName);
+
+        String dataJson = toJson(data);
+        List<NotificationOutbox> rows = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            rows.add(new NotificationOutbox(userId, title, body, dataJson));
+        }
+        outboxRepository.saveAll(rows);
+        wakeDispatcherAfterCommit();
+    }
 
-        for (User user : users) {
-            sendNotification(user.getId(), title, body, data);
+    private void wakeDispatcherAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatcher.wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+
+    private static String toJson(Map<String, String> data) {
+        if (data == null || data.isEmpty()) return null;
+        try {
+            return MAPPER.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new BusinessValidationException("Invalid notification data");
         }
     }
-}
\ No newline at end of file
+}
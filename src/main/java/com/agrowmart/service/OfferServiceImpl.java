@@ -24,12 +24,12 @@ import java.util.List;
 public class OfferServiceImpl implements OfferService {
 	private static final Logger log = LoggerFactory.getLogger(OfferServiceImpl.class);
     private final OfferRepository offerRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ImageUploadPipeline images;
 
     public OfferServiceImpl(OfferRepository offerRepository,
-                            CloudinaryService cloudinaryService) {
+                            ImageUploadPipeline images) {
         this.offerRepository = offerRepository;
-        this.cloudinaryService = cloudinaryService;
+        this.images = images;
     }
 
     // =====================================================
@@ -93,7 +93,7 @@ public class OfferServiceImpl implements OfferService {
 
         String imageUrl;
         try {
-            imageUrl = cloudinaryService.upload(image);
+            imageUrl = images.uploadOne(image);
         } catch (FileUploadException e) {
             throw e; // already meaningful from CloudinaryService
         } catch (Exception e) {
@@ -164,7 +164,9 @@ public class OfferServiceImpl implements OfferService {
      // Handle image update (optional)
         if (image != null && !image.isEmpty()) {
             try {
-                offer.setFreeProductImageUrl(cloudinaryService.upload(image));
+                String oldImageUrl = offer.getFreeProductImageUrl();
+                offer.setFreeProductImageUrl(images.uploadOne(image));
+                if (oldImageUrl != null) images.discardAfterCommit(List.of(oldImageUrl));
             } catch (FileUploadException e) {
                 throw e;
             } catch (Exception e) {
@@ -0,0 +1,196 @@
+package com.agrowmart.service;
+
+import com.agrowmart.config.StompFanout;
+import com.agrowmart.dto.auth.order.OrderStatusUpdateDTO;
+import com.agrowmart.entity.order.Order;
+import com.agrowmart.entity.order.OrderEvent;
+import com.agrowmart.repository.OrderEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for real-time order updates.
+ *
+ * {@link #record} stores the update in the caller's (order) transaction; nothing reaches
+ * a client until that commits, and a rollback leaves no phantom event. The relay then
+ * publishes over STOMP, oldest first per order, and marks rows PUBLISHED in the same
+ * transaction that held their row locks. A crash between publish and commit means the
+ * event goes out again (at-least-once); clients dedupe on eventId.
+ *
+ * A failed publish is retried with exponential backoff, holding back that order's later
+ * events meanwhile; after MAX_ATTEMPTS the event is marked FAILED and the order moves on.
+ *
+ * Push notifications for the same changes already go through notification_outbox
+ * (NotificationService), which has the same commit-then-send guarantee.
+ */
+@Component
+public class OrderEventRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventRelay.class);
+
+    private static final int BATCH = 200;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long BASE_BACKOFF_SECONDS = 2;
+    private static final long MAX_BACKOFF_SECONDS = 5 * 60;
+
+    private final OrderEventRepository eventRepository;
+    private final OrderWebSocketService webSocketService;
+    private final TransactionTemplate tx;
+    private final JobRunner jobs;
+    // One relay thread per instance; at most one queued wake-up is enough
+    private final ThreadPoolExecutor relayThread = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1), r -> {
+                Thread t = new Thread(r, "order-event-relay");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    public OrderEventRelay(OrderEventRepository eventRepository,
+                           OrderWebSocketService webSocketService,
+                           PlatformTransactionManager transactionManager,
+                           JobRunner jobs) {
+        this.eventRepository = eventRepository;
+        this.webSocketService = webSocketService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.jobs = jobs;
+    }
+
+    /** Queues a real-time update for everyone involved in the order. Call inside the order's transaction. */
+    public void record(Order order, String message, String type) {
+        OrderEvent e = new OrderEvent();
+        e.setOrderId(order.getId());
+        e.setType(type != null ? type : "STATUS_UPDATE");
+        e.setOrderStatus(order.getStatus().name());
+        e.setMessage(message);
+        e.setDeliveryPartnerName(order.getDeliveryPartner() != null ? order.getDeliveryPartner().getName() : null);
+
+        StringJoiner recipients = new StringJoiner(",");
+        if (order.getCustomer() != null) recipients.add(StompFanout.customer(order.getCustomer().getId()));
+        if (order.getMerchant() != null) recipients.add(StompFanout.user(order.getMerchant().getId()));
+        if (order.getDeliveryPartner() != null) recipients.add(StompFanout.user(order.getDeliveryPartner().getId()));
+        e.setRecipientIds(recipients.toString());
+
+        e.setBroadcastPickup(order.getStatus() == Order.OrderStatus.READY_FOR_PICKUP);
+        eventRepository.save(e);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    public void wakeUp() {
+        relayThread.execute(this::drain);
+    }
+
+    // Safety net for wake-ups lost to a restart or another instance's commit
+    @Scheduled(fixedDelayString = "${order.events.poll-ms:1000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    // FAILED events are kept longer, for inspection
+    @Scheduled(cron = "${order.events.cleanup-cron:0 45 4 * * *}", zone = "Asia/Kolkata")
+    public void purgePublished() {
+        jobs.run("order-events-purge", JobRunner.deleteInChunks(1000, (runStartedAt, limit) -> {
+            int deleted = eventRepository.deletePublishedBefore(runStartedAt.minusDays(3), limit);
+            if (deleted < limit) {
+                deleted += eventRepository.deleteFailedBefore(runStartedAt.minusDays(30), limit - deleted);
+            }
+            return deleted;
+        }));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relayThread.shutdown();
+    }
+
+    void drain() {
+        try {
+            Integer published;
+            do {
+                published = tx.execute(status -> publishBatch());
+            } while (published != null && published > 0);
+        } catch (Exception e) {
+            log.error("Order event relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // Runs in one transaction: the claimed rows stay locked until they are marked PUBLISHED
+    private int publishBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderEvent> events = eventRepository.lockNextPending(now, BATCH);
+        int published = 0;
+
+        for (OrderEvent e : events) {
+            try {
+                publish(e);
+                e.setStatus("PUBLISHED");
+                e.setPublishedAt(now);
+                e.setNextAttemptAt(null);
+                e.setLastError(null);
+                published++;
+            } catch (Exception ex) {
+                e.setAttempts(e.getAttempts() + 1);
+                e.setLastError(ex.getMessage() != null && ex.getMessage().length() > 500
+                        ? ex.getMessage().substring(0, 500) : ex.getMessage());
+                if (e.getAttempts() < MAX_ATTEMPTS) {
+                    // Stays PENDING; its later events wait behind it until the retry
+                    e.setNextAttemptAt(now.plusSeconds(backoffSeconds(e.getAttempts())));
+                } else {
+                    e.setStatus("FAILED");
+                    log.error("Order event {} for order {} dropped after {} attempts: {}",
+                            e.getEventId(), e.getOrderId(), e.getAttempts(), ex.getMessage());
+                }
+            }
+        }
+        eventRepository.saveAll(events);
+        return published;
+    }
+
+    private static long backoffSeconds(int attempts) {
+        return Math.min(BASE_BACKOFF_SECONDS << (attempts - 1), MAX_BACKOFF_SECONDS);
+    }
+
+    private void publish(OrderEvent e) {
+        OrderStatusUpdateDTO update = new OrderStatusUpdateDTO(
+                e.getOrderId(),
+                e.getOrderStatus(),
+                e.getMessage() != null ? e.getMessage() : "Order status updated to " + e.getOrderStatus(),
+                e.getCreatedAt(),
+                e.getType(),
+                e.getDeliveryPartnerName(),
+                e.getEventId()
+        );
+
+        for (String userId : e.getRecipientIds().split(",")) {
+            if (!userId.isBlank()) webSocketService.sendToUser(userId, update);
+        }
+
+        // Broadcast to all delivery partners when new pickup is ready
+        if (e.isBroadcastPickup()) {
+            webSocketService.broadcastNewPickup(update);
+        }
+    }
+}
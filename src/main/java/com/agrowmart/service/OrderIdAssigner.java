@@ -0,0 +1,26 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.Order;
+import jakarta.persistence.PrePersist;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives a new {@link Order} its id from the configured {@link OrderIdGenerator}.
+ * Runs before the entity's own {@code @PrePersist}; an id set by the caller is kept.
+ */
+@Component
+public class OrderIdAssigner {
+
+    private final OrderIdGenerator idGenerator;
+
+    public OrderIdAssigner(OrderIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    @PrePersist
+    public void assignId(Order order) {
+        if (order.getId() == null) {
+            order.setId(idGenerator.nextId());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.agrowmart.service;
+
+/**
+ * Source of primary keys for new orders ({@code ORD-...}).
+ * Ids must be unique across all running instances.
+ */
+public interface OrderIdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,172 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.*;
+import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
+import com.agrowmart.entity.Product.ProductStatus;
+import com.agrowmart.entity.order.OrderItem;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.exception.ResourceNotFoundException;
+import com.agrowmart.repository.*;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves all line items of a single-vendor basket in one go.
+ *
+ * Lookup order per product ID is the same as the old per-item code:
+ * regular catalog first, then women products, then agri products.
+ * Each catalog is queried once for the whole basket (plus one query per
+ * detail table for pricing), instead of up to three queries per item.
+ */
+@Service
+public class OrderProductResolver {
+
+    private final ProductRepository productRepository;
+    private final WomenProductRepository womenProductRepository;
+    private final AgriProductRepository agriProductRepository;
+    private final VegetableDetailRepository vegetableDetailRepository;
+    private final DairyDetailRepository dairyDetailRepository;
+    private final MeatDetailRepository meatDetailRepository;
+    private final CategoryTreeCache categoryTree;
+
+    public OrderProductResolver(ProductRepository productRepository,
+                                WomenProductRepository womenProductRepository,
+                                AgriProductRepository agriProductRepository,
+                                VegetableDetailRepository vegetableDetailRepository,
+                                DairyDetailRepository dairyDetailRepository,
+                                MeatDetailRepository meatDetailRepository,
+                                CategoryTreeCache categoryTree) {
+        this.productRepository = productRepository;
+        this.womenProductRepository = womenProductRepository;
+        this.agriProductRepository = agriProductRepository;
+        this.vegetableDetailRepository = vegetableDetailRepository;
+        this.dairyDetailRepository = dairyDetailRepository;
+        this.meatDetailRepository = meatDetailRepository;
+        this.categoryTree = categoryTree;
+    }
+
+    /**
+     * Loads and prices every requested product of the given merchant.
+     *
+     * @throws ResourceNotFoundException if any ID is not an active/approved product of this merchant
+     */
+    public Map<Long, ResolvedProduct> resolve(Long merchantId, Collection<Long> productIds) {
+        Set<Long> pending = new LinkedHashSet<>(productIds);
+        Map<Long, ResolvedProduct> resolved = new HashMap<>();
+
+        if (pending.isEmpty()) {
+            return resolved;
+        }
+
+        // 1. Regular products
+        List<Product> products = productRepository.findAllByIdsForMerchant(
+                pending, merchantId, ProductStatus.ACTIVE, ApprovalStatus.APPROVED);
+        Map<Long, BigDecimal> prices = priceRegularProducts(products);
+        for (Product p : products) {
+            resolved.put(p.getId(), new ResolvedProduct("NORMAL", p, null, null, prices.get(p.getId())));
+            pending.remove(p.getId());
+        }
+
+        // 2. Women products
+        if (!pending.isEmpty()) {
+            for (WomenProduct wp : womenProductRepository.findByIdInAndSeller_IdAndStatusAndApprovalStatus(
+                    pending, merchantId, ProductStatus.ACTIVE, ApprovalStatus.APPROVED)) {
+                resolved.put(wp.getId(), new ResolvedProduct("WOMEN", null, wp, null, wp.getMinPrice()));
+            }
+            pending.removeAll(resolved.keySet());
+        }
+
+        // 3. Agri products
+        if (!pending.isEmpty()) {
+            for (BaseAgriProduct ap : agriProductRepository.findByIdInAndVendor_Id(pending, merchantId)) {
+                resolved.put(ap.getId(), new ResolvedProduct("AGRI", null, null, ap, ap.getAgriprice()));
+            }
+            pending.removeAll(resolved.keySet());
+        }
+
+        if (!pending.isEmpty()) {
+            throw new ResourceNotFoundException("Product not found or not approved/active for this merchant");
+        }
+        return resolved;
+    }
+
+    // One query per detail table; the type comes from the category tree, as when the detail row was written
+    private Map<Long, BigDecimal> priceRegularProducts(List<Product> products) {
+        Map<String, List<Long>> idsByType = products.stream()
+                .collect(Collectors.groupingBy(
+                        p -> categoryTree.productType(p.getCategory()),
+                        Collectors.mapping(Product::getId, Collectors.toList())));
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        idsByType.forEach((type, ids) -> {
+            switch (type) {
+                case "VEGETABLE" -> vegetableDetailRepository.findByProductIdIn(ids)
+                        .forEach(d -> prices.put(d.getProduct().getId(), d.getMinPrice()));
+                case "DAIRY" -> dairyDetailRepository.findByProductIdIn(ids)
+                        .forEach(d -> prices.put(d.getProduct().getId(), d.getMinPrice()));
+                case "MEAT" -> meatDetailRepository.findByProductIdIn(ids)
+                        .forEach(d -> prices.put(d.getProduct().getId(), d.getMinPrice()));
+                default -> throw new IllegalArgumentException("Unsupported category");
+            }
+        });
+
+        for (Product p : products) {
+            if (prices.get(p.getId()) == null) {
+                throw new BusinessValidationException("Price missing");
+            }
+        }
+        return prices;
+    }
+
+    // ──────────────────────────────────────────────
+    // One resolved basket line (exactly one of product / womenProduct / agriProduct is set)
+    // ──────────────────────────────────────────────
+    public record ResolvedProduct(
+            String productType,
+            Product product,
+            WomenProduct womenProduct,
+            BaseAgriProduct agriProduct,
+            BigDecimal price
+    ) {
+
+        public double availableStock() {
+            return switch (productType) {
+                case "NORMAL" -> product.getStockQuantity() != null ? product.getStockQuantity() : 0.0;
+                case "WOMEN" -> womenProduct.getStock() != null ? womenProduct.getStock() : 0.0;
+                default -> agriProduct.getAgriquantity() != null ? agriProduct.getAgriquantity() : 0.0;
+            };
+        }
+
+        public String name() {
+            return switch (productType) {
+                case "NORMAL" -> product.getProductName();
+                case "WOMEN" -> womenProduct.getName();
+                default -> agriProduct.getAgriproductName();
+            };
+        }
+
+        public void attachTo(OrderItem item) {
+            switch (productType) {
+                case "NORMAL" -> item.setProduct(product);
+                case "WOMEN" -> item.setWomenProduct(womenProduct);
+                default -> item.setAgriProduct(agriProduct);
+            }
+        }
+
+        public Long productId() {
+            return switch (productType) {
+                case "NORMAL" -> product.getId();
+                case "WOMEN" -> womenProduct.getId();
+                default -> agriProduct.getId();
+            };
+        }
+
+        /** Line for {@link StockReservationService#reserve}; the actual decrement is a conditional UPDATE. */
+        public StockReservationService.StockLine stockLine(int quantity) {
+            return new StockReservationService.StockLine(productType, productId(), name(), quantity);
+        }
+    }
+}
@@ -34,6 +34,7 @@
 //    OrderResponseDTO markAsDelivered(String orderId, User vendor);
 //   
 //    List<OrderResponseDTO> getAllVendorOrders(User vendor);
+    CursorPage<OrderResponseDTO> getVendorInbox(User vendor, List<String> statuses, String cursor, int size);
 //    
 //    
 //    
@@ -60,6 +61,7 @@ import com.agrowmart.dto.auth.order.OrderRequestDTO;
 import com.agrowmart.dto.auth.order.OrderResponseDTO;
 import com.agrowmart.dto.auth.order.OrderStatusResponseDTO;
 import com.agrowmart.dto.auth.order.ScanRequestDTO;
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.entity.order.Order;
 import com.agrowmart.entity.User;
@@ -19,10 +19,14 @@ import com.agrowmart.repository.*;
 import com.agrowmart.entity.customer.Cart;
 import com.agrowmart.entity.customer.CartItem;
 import com.agrowmart.repository.customer.CartRepository;
+import com.agrowmart.dto.auth.product.CursorPage;
+import com.agrowmart.util.OrderCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -38,21 +42,22 @@ public class OrderServiceImpl implements OrderService {
 	private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
 	
 	
-    private final OrderWebSocketService orderWebSocketService;
+    private final OrderEventRelay orderEventRelay;
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final OrderStatusHistoryRepository statusHistoryRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
-    private final VegetableDetailRepository vegetableDetailRepository;
-    private final DairyDetailRepository dairyDetailRepository;
-    private final MeatDetailRepository meatDetailRepository;
     private final WomenProductRepository womenProductRepository;
     private final OfferRepository offerRepository;
     private final OfferUsageRepository offerUsageRepository;
     private final NotificationService notificationService;
     private final CartRepository cartRepository;
     private final AgriProductRepository agriProductRepository;
+    private final OrderProductResolver orderProductResolver;
+    private final StockReservationService stockReservationService;
+    private final ShopRepository shopRepository;
+    private final CatalogLookupService catalogLookup;
 
 
  
@@ -62,32 +67,34 @@ public class OrderServiceImpl implements OrderService {
             OrderStatusHistoryRepository statusHistoryRepository,
             UserRepository userRepository,
             ProductRepository productRepository,
-            VegetableDetailRepository vegetableDetailRepository,
-            DairyDetailRepository dairyDetailRepository,
-            MeatDetailRepository meatDetailRepository,
             WomenProductRepository womenProductRepository,
             OfferRepository offerRepository,
             OfferUsageRepository offerUsageRepository,
             NotificationService notificationService,
-            OrderWebSocketService  orderWebSocketService,
+            OrderEventRelay orderEventRelay,
             CartRepository cartRepository,
-            AgriProductRepository agriProductRepository
+            AgriProductRepository agriProductRepository,
+            OrderProductResolver orderProductResolver,
+            StockReservationService stockReservationService,
+            ShopRepository shopRepository,
+            CatalogLookupService catalogLookup
     		) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.statusHistoryRepository = statusHistoryRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
-        this.vegetableDetailRepository = vegetableDetailRepository;
-        this.dairyDetailRepository = dairyDetailRepository;
-        this.meatDetailRepository = meatDetailRepository;
         this.womenProductRepository = womenProductRepository;
         this.offerRepository = offerRepository;
         this.offerUsageRepository = offerUsageRepository;
         this.notificationService = notificationService;
-        this.orderWebSocketService=orderWebSocketService;
+        this.orderEventRelay = orderEventRelay;
         this.cartRepository = cartRepository;
         this.agriProductRepository = agriProductRepository;
+        this.orderProductResolver = orderProductResolver;
+        this.stockReservationService = stockReservationService;
+        this.shopRepository = shopRepository;
+        this.catalogLookup = catalogLookup;
 
     }
 
@@ -417,99 +424,35 @@ public class OrderServiceImpl implements OrderService {
 //                        ? womenProduct.getStock()
 //                        : 0;
 //            }
-        for (OrderItemRequestDTO reqItem : items) {
-            Long productId = reqItem.productId();
-            BigDecimal price;
-            double availableStock;
-            String productType;
-
-            // Try normal product
-            Product normalProduct = productRepository
-                    .findByIdAndMerchantIdAndStatusAndApprovalStatus(
-                            productId,
-                            merchantId,
-                            ProductStatus.ACTIVE,
-                            ApprovalStatus.APPROVED
-                    )
-                    .orElse(null);
+        // Resolve + price the whole basket up front (one query per catalog)
+        Map<Long, OrderProductResolver.ResolvedProduct> resolved = orderProductResolver.resolve(
+                merchantId,
+                items.stream().map(OrderItemRequestDTO::productId).toList()
+        );
 
-            WomenProduct womenProduct = null;
-            BaseAgriProduct agriProduct = null;
-
-            if (normalProduct != null) {
-                productType = "NORMAL";
-                price = getProductPrice(normalProduct);
-                availableStock = normalProduct.getStockQuantity() != null ? normalProduct.getStockQuantity() : 0.0;
-            } else {
-                // Try women product
-                womenProduct = womenProductRepository
-                        .findByIdAndSeller_IdAndStatusAndApprovalStatus(
-                                productId,
-                                merchantId,
-                                ProductStatus.ACTIVE,
-                                ApprovalStatus.APPROVED
-                        )
-                        .orElse(null);
-
-                if (womenProduct != null) {
-                    productType = "WOMEN";
-                    price = womenProduct.getMinPrice();
-                    availableStock = womenProduct.getStock() != null ? womenProduct.getStock() : 0.0;
-                } else {
-                    // Try agri product
-                    agriProduct = agriProductRepository.findById(productId).orElse(null);
-                    if (agriProduct != null && agriProduct.getVendor().getId().equals(merchantId)) {
-                        productType = "AGRI";
-                        price = agriProduct.getAgriprice();
-                        availableStock = agriProduct.getAgriquantity() != null ? agriProduct.getAgriquantity() : 0.0;
-                    } else {
-                        throw new ResourceNotFoundException("Product not found or not approved/active for this merchant");
-                    }
-                }
-            }
+        List<StockReservationService.StockLine> stockLines = new ArrayList<>();
 
-            // ✅ STOCK CHECK
-            if (availableStock < reqItem.quantity()) {
-                String name = normalProduct != null
-                        ? normalProduct.getProductName()
-                        : womenProduct.getName();
-                throw new BusinessValidationException("Not enough stock for: " + name);
+        for (OrderItemRequestDTO reqItem : items) {
+            OrderProductResolver.ResolvedProduct product = resolved.get(reqItem.productId());
+
+            // ✅ Quick STOCK CHECK – the authoritative one is the conditional update in reserve()
+            if (product.availableStock() < reqItem.quantity()) {
+                throw new BusinessValidationException("Not enough stock for: " + product.name());
             }
 
             BigDecimal itemTotal =
-                    price.multiply(BigDecimal.valueOf(reqItem.quantity()));
+                    product.price().multiply(BigDecimal.valueOf(reqItem.quantity()));
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
             orderItem.setQuantity(reqItem.quantity());
-            orderItem.setPricePerUnit(price);
+            orderItem.setPricePerUnit(product.price());
             orderItem.setTotalPrice(itemTotal);
-//
-//            if ("NORMAL".equals(productType)) {
-//                orderItem.setProduct(normalProduct);
-//                normalProduct.updateStock(reqItem.quantity());
-//                productRepository.save(normalProduct);
-//            } else {
-//                orderItem.setWomenProduct(womenProduct);
-//                womenProduct.setStock(womenProduct.getStock() - reqItem.quantity());
-//                womenProductRepository.save(womenProduct);
-//            }
 
-         // Attach correct product & reduce stock
-            if ("NORMAL".equals(productType)) {
-                orderItem.setProduct(normalProduct);
-                normalProduct.updateStock(reqItem.quantity());
-                productRepository.save(normalProduct);
-            } else if ("WOMEN".equals(productType)) {
-                orderItem.setWomenProduct(womenProduct);
-                womenProduct.setStock(womenProduct.getStock() - reqItem.quantity());
-                womenProductRepository.save(womenProduct);
-            } else if ("AGRI".equals(productType)) {
-                orderItem.setAgriProduct(agriProduct);
-                agriProduct.setAgriquantity(agriProduct.getAgriquantity() - reqItem.quantity());
-                agriProductRepository.save(agriProduct);
-            }
-            
+            // Attach correct product; stock is taken after the order is saved
+            product.attachTo(orderItem);
+            stockLines.add(product.stockLine(reqItem.quantity()));
+
             order.getItems().add(orderItem);
             subtotal = subtotal.add(itemTotal);
         }
@@ -551,6 +494,7 @@ public class OrderServiceImpl implements OrderService {
 
         // Save this order
         order = orderRepository.save(order);
+        stockReservationService.reserve(order, stockLines);
         addStatusHistory(order, order.getStatus().name());
 
         // Notify this specific vendor + WebSocket
@@ -581,9 +525,15 @@ public class OrderServiceImpl implements OrderService {
                 .findFirst()
                 .orElseThrow(() -> new BusinessValidationException("Invalid delivery address"));
 
+        // Every cart product in one batch (at most one query per catalog, or none when cached)
+        Map<CatalogLookupService.Key, CatalogLookupService.CatalogSnapshot> catalog = catalogLookup.lookup(
+                cart.getItems().stream()
+                        .map(i -> CatalogLookupService.Key.of(i.getProductType(), i.getProductId()))
+                        .toList());
+
         Map<Long, List<CartItem>> itemsByVendor =
                 cart.getItems().stream()
-                        .collect(Collectors.groupingBy(this::resolveMerchantId));
+                        .collect(Collectors.groupingBy(i -> snapshotOf(catalog, i).merchantId()));
 
         Order firstOrder = null;
 
@@ -593,6 +543,7 @@ public class OrderServiceImpl implements OrderService {
                     customer,
                     entry.getKey(),
                     entry.getValue(),
+                    catalog,
                     request,
                     deliveryAddress
             );
@@ -612,6 +563,7 @@ public class OrderServiceImpl implements OrderService {
             Customer customer,
             Long merchantId,
             List<CartItem> cartItems,
+            Map<CatalogLookupService.Key, CatalogLookupService.CatalogSnapshot> catalog,
             OrderRequestDTO request,
             CustomerAddress deliveryAddress
     ) {
@@ -632,6 +584,7 @@ public class OrderServiceImpl implements OrderService {
         order.setUpdatedAt(LocalDateTime.now());
 
         BigDecimal subtotal = BigDecimal.ZERO;
+        List<StockReservationService.StockLine> stockLines = new ArrayList<>();
 
         for (CartItem cartItem : cartItems) {
 
@@ -644,71 +597,28 @@ public class OrderServiceImpl implements OrderService {
             orderItem.setPricePerUnit(price);
             orderItem.setTotalPrice(price.multiply(BigDecimal.valueOf(qty)));
 
-            switch (cartItem.getProductType().toUpperCase()) {
-
-                case "REGULAR" -> {
-                    Product product = productRepository.findById(cartItem.getProductId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-
-                    if (!product.getMerchantId().equals(merchantId)) {
-                        throw new BusinessValidationException("Product does not belong to this merchant");
-                    }
-
-                    if (product.getStockQuantity() < qty) {
-                        throw new BusinessValidationException("Insufficient stock");
-                    }
-
-                    product.setStockQuantity(product.getStockQuantity() - qty);
-                    productRepository.save(product);
+            CatalogLookupService.CatalogSnapshot product = snapshotOf(catalog, cartItem);
+            if (!merchantId.equals(product.merchantId())) {
+                throw new BusinessValidationException("Product does not belong to this merchant");
+            }
 
-                    orderItem.setProduct(product);
+            // A reference is enough; stock is taken (and checked) by a conditional UPDATE once the order is saved
+            switch (product.productType()) {
+                case CatalogLookupService.REGULAR -> {
+                    stockLines.add(new StockReservationService.StockLine(
+                            "NORMAL", product.productId(), product.name(), qty));
+                    orderItem.setProduct(productRepository.getReferenceById(product.productId()));
                 }
-
-                case "WOMEN" -> {
-                    WomenProduct product = womenProductRepository.findById(cartItem.getProductId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Women product not found"));
-
-                    if (!product.getSeller().getId().equals(merchantId)) {
-                        throw new BusinessValidationException("Women product does not belong to this merchant");
-                    }
-
-                    if (product.getStock() < qty) {
-                        throw new BusinessValidationException("Insufficient stock");
-                    }
-
-                    product.setStock(product.getStock() - qty);
-                    womenProductRepository.save(product);
-
-                    orderItem.setWomenProduct(product);
+                case CatalogLookupService.WOMEN -> {
+                    stockLines.add(new StockReservationService.StockLine(
+                            "WOMEN", product.productId(), product.name(), qty));
+                    orderItem.setWomenProduct(womenProductRepository.getReferenceById(product.productId()));
                 }
-
-                case "AGRI" -> {
-
-                    BaseAgriProduct product = agriProductRepository.findById(cartItem.getProductId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Agri product not found"));
-
-                    // ✅ vendor check (NOT merchant)
-                    if (!product.getVendor().getId().equals(merchantId)) {
-                        throw new BusinessValidationException("Agri product does not belong to this vendor");
-                    }
-
-                    Integer availableQty = product.getAgriquantity();
-
-                    if (availableQty == null || availableQty < qty) {
-                        throw new BusinessValidationException("Insufficient stock for agri product");
-                    }
-
-                    // ✅ reduce stock
-                    product.setAgriquantity(availableQty - qty);
-                    agriProductRepository.save(product);
-
-                    // ✅ attach product to order item
-                    orderItem.setAgriProduct(product);
+                default -> {
+                    stockLines.add(new StockReservationService.StockLine(
+                            "AGRI", product.productId(), product.name(), qty));
+                    orderItem.setAgriProduct(agriProductRepository.getReferenceById(product.productId()));
                 }
-
-                default -> throw new BusinessValidationException(
-                        "Invalid product type: " + cartItem.getProductType()
-                );
             }
 
             order.getItems().add(orderItem);
@@ -721,6 +631,7 @@ public class OrderServiceImpl implements OrderService {
         order.setTotalPrice(subtotal);
 
         orderRepository.save(order);
+        stockReservationService.reserve(order, stockLines);
         addStatusHistory(order, order.getStatus().name());
 
         notificationService.sendNotification(
@@ -733,30 +644,17 @@ public class OrderServiceImpl implements OrderService {
         return order;
     }
 
-    private Long resolveMerchantId(CartItem item) {
-
-        return switch (item.getProductType().toUpperCase()) {
-
-            case "REGULAR" -> productRepository.findById(item.getProductId())
-                    .map(Product::getMerchantId)
-                    .orElseThrow(() ->
-                            new ResourceNotFoundException("Product not found"));
-
-            case "WOMEN" -> womenProductRepository.findById(item.getProductId())
-                    .map(p -> p.getSeller().getId())
-                    .orElseThrow(() ->
-                            new ResourceNotFoundException("Women product not found"));
-
-            case "AGRI" -> agriProductRepository.findById(item.getProductId())
-                    .map(BaseAgriProduct::getVendor)   // ✅ vendor (not merchant)
-                    .map(User::getId)
-                    .orElseThrow(() ->
-                            new ResourceNotFoundException("Agri product not found"));
-
-            default -> throw new BusinessValidationException(
-                    "Invalid product type: " + item.getProductType()
-            );
-        };
+    private static CatalogLookupService.CatalogSnapshot snapshotOf(
+            Map<CatalogLookupService.Key, CatalogLookupService.CatalogSnapshot> catalog, CartItem item) {
+        CatalogLookupService.CatalogSnapshot snapshot =
+                catalog.get(CatalogLookupService.Key.of(item.getProductType(), item.getProductId()));
+        if (snapshot == null) {
+            throw new ResourceNotFoundException("Product not found: " + item.getProductId());
+        }
+        if (snapshot.merchantId() == null) {
+            throw new BusinessValidationException("Product has no merchant: " + item.getProductId());
+        }
+        return snapshot;
     }
 
 
@@ -901,6 +799,7 @@ public class OrderServiceImpl implements OrderService {
 
             orderRepository.save(order);
             addStatusHistory(order, "DELIVERED");
+            shopRepository.incrementDeliveredOrderCount(order.getMerchant().getId());
 
             notificationService.sendNotification(
                     order.getCustomer().getId(),
@@ -1028,6 +927,7 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(Order.OrderStatus.REJECTED);
         order.setUpdatedAt(LocalDateTime.now());
         orderRepository.save(order);
+        stockReservationService.release(order.getId());
         addStatusHistory(order, "REJECTED");
         notificationService.sendNotification(
                 order.getCustomer().getId(),
@@ -1050,6 +950,7 @@ public class OrderServiceImpl implements OrderService {
         order.setUpdatedAt(LocalDateTime.now());
         orderRepository.save(order);
         addStatusHistory(order, "DELIVERED");
+        shopRepository.incrementDeliveredOrderCount(order.getMerchant().getId());
         notificationService.sendNotification(
                 order.getCustomer().getId(),
                 "Order Delivered",
@@ -1100,6 +1001,7 @@ public class OrderServiceImpl implements OrderService {
         order.setCancelledBy("CUSTOMER");
         order.setCancelledAt(LocalDateTime.now());
         orderRepository.save(order);
+        stockReservationService.release(order.getId());
         addStatusHistory(order, "CANCELLED");
         notificationService.sendNotification(
                 order.getMerchant().getId(),
@@ -1139,6 +1041,7 @@ public class OrderServiceImpl implements OrderService {
         order.setCancelledBy("VENDOR");
         order.setCancelledAt(LocalDateTime.now());
         orderRepository.save(order);
+        stockReservationService.release(order.getId());
         addStatusHistory(order, "CANCELLED");
         notificationService.sendNotification(
                 order.getCustomer().getId(),
@@ -1213,39 +1116,6 @@ public class OrderServiceImpl implements OrderService {
         return discount;
     }
 
-    private BigDecimal getProductPrice(Product product) {
-        String type = determineProductType(product.getCategory());
-        return switch (type) {
-            case "VEGETABLE" -> vegetableDetailRepository.findByProductId(product.getId())
-                    .map(VegetableDetail::getMinPrice)
-                    .orElseThrow(() -> new BusinessValidationException("Price missing"));
-            case "DAIRY" -> dairyDetailRepository.findByProductId(product.getId())
-                    .map(DairyDetail::getMinPrice)
-                    .orElseThrow(() -> new BusinessValidationException("Price missing"));
-            case "MEAT" -> meatDetailRepository.findByProductId(product.getId())
-                    .map(MeatDetail::getMinPrice)
-                    .orElseThrow(() -> new BusinessValidationException("Price missing"));
-            case "WOMEN"      -> womenProductRepository.findById(product.getId())   // ← This line
-            .map(WomenProduct::getMinPrice)
-            
-           
-                    .orElseThrow(() -> new BusinessValidationException("Price missing"));
-            default -> throw new IllegalArgumentException("Unsupported category");
-        };
-    }
-
-    private String determineProductType(Category category) {
-        if (category == null) return "GENERAL";
-        Category root = category;
-        while (root.getParent() != null) root = root.getParent();
-        String name = root.getName().toLowerCase();
-        if (name.contains("vegetable") || name.contains("fruit") || name.contains("fresh")) return "VEGETABLE";
-        if (name.contains("dairy") || name.contains("milk")) return "DAIRY";
-        if (name.contains("meat") || name.contains("chicken") || name.contains("fish") || name.contains("seafood")) return "MEAT";
-        if (name.contains("women") || name.contains("handicraft")) return "WOMEN";
-        return "GENERAL";
-    }
-
     @Override
     public List<OrderResponseDTO> getCustomerOrders(Customer customer) {
         return orderRepository.findByCustomer(customer)
@@ -1281,6 +1151,80 @@ public class OrderServiceImpl implements OrderService {
     
 
     }
+
+    /**
+     * One keyset page of a vendor's orders, newest first. The page's ids come from one short,
+     * index-ordered query per status (limit applied in SQL), merged here; then one query loads
+     * those orders with items, products and address.
+     *
+     * @param statuses order statuses to include; empty means all
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponseDTO> getVendorInbox(User vendor, List<String> statuses, String cursor, int size) {
+        List<Order.OrderStatus> wanted = parseStatuses(statuses);
+        OrderCursor after = OrderCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);   // one extra row tells us if there is a next page
+
+        List<Object[]> keys = new ArrayList<>();
+        for (Order.OrderStatus status : wanted) {
+            keys.addAll(after == null
+                    ? orderRepository.findVendorInboxKeys(vendor.getId(), status, limit)
+                    : orderRepository.findVendorInboxKeysAfter(vendor.getId(), status, after.createdAt(), after.orderId(), limit));
+        }
+        List<String> ids = newestFirst(keys, size + 1);
+
+        boolean hasMore = ids.size() > size;
+        List<String> pageIds = hasMore ? ids.subList(0, size) : ids;
+        if (pageIds.isEmpty()) return new CursorPage<>(List.of(), null, false);
+
+        Map<String, Order> byId = new HashMap<>();
+        for (Order o : orderRepository.findWithItemsByIdIn(pageIds)) {
+            byId.put(o.getId(), o);
+        }
+
+        List<OrderResponseDTO> items = new ArrayList<>(pageIds.size());
+        Order last = null;
+        for (String id : pageIds) {
+            Order o = byId.get(id);
+            if (o == null) continue;   // deleted between the two queries
+            items.add(mapToResponse(o));
+            last = o;
+        }
+
+        String next = null;
+        if (hasMore && last != null) {
+            next = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, next, hasMore);
+    }
+
+    // Merge of the per-status lists: ids of the newest `limit` rows, by (createdAt, id) descending
+    static List<String> newestFirst(List<Object[]> keys, int limit) {
+        return keys.stream()
+                .sorted(Comparator.comparing((Object[] row) -> (LocalDateTime) row[1])
+                        .thenComparing(row -> (String) row[0])
+                        .reversed())
+                .limit(limit)
+                .map(row -> (String) row[0])
+                .toList();
+    }
+
+    private static List<Order.OrderStatus> parseStatuses(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return Arrays.asList(Order.OrderStatus.values());
+        }
+        List<Order.OrderStatus> result = new ArrayList<>();
+        for (String raw : statuses) {
+            if (raw == null || raw.isBlank()) continue;
+            try {
+                result.add(Order.OrderStatus.valueOf(raw.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessValidationException("Invalid order status: " + raw);
+            }
+        }
+        return result.isEmpty() ? Arrays.asList(Order.OrderStatus.values()) : result.stream().distinct().toList();
+    }
     
     @Override
     @Transactional
@@ -1362,34 +1306,8 @@ public class OrderServiceImpl implements OrderService {
     
  // ← New helper method for real-time notifications
     private void notifyOrderUpdate(Order order, String customMessage, String type) {
-        OrderStatusUpdateDTO update = new OrderStatusUpdateDTO(
-            order.getId(),
-            order.getStatus().name(),
-            customMessage != null ? customMessage : "Order status updated to " + order.getStatus().name(),
-            LocalDateTime.now(),
-            type != null ? type : "STATUS_UPDATE",
-            order.getDeliveryPartner() != null ? order.getDeliveryPartner().getName() : null
-        );
-
-        // Send private update to customer
-        if (order.getCustomer() != null) {
-            orderWebSocketService.sendToUser(order.getCustomer().getId().toString(), update);
-        }
-
-        // Send private update to vendor
-        if (order.getMerchant() != null) {
-            orderWebSocketService.sendToUser(order.getMerchant().getId().toString(), update);
-        }
-
-        // Send private update to delivery partner (if assigned)
-        if (order.getDeliveryPartner() != null) {
-            orderWebSocketService.sendToUser(order.getDeliveryPartner().getId().toString(), update);
-        }
-
-        // Broadcast to all delivery partners when new pickup is ready
-        if (Order.OrderStatus.READY_FOR_PICKUP.equals(order.getStatus())) {
-            orderWebSocketService.broadcastNewPickup(update);
-        }
+        // Stored with the order change; clients only see it once that transaction commits
+        orderEventRelay.record(order, customMessage, type);
     }
    
     
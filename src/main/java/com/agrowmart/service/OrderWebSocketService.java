@@ -1,28 +1,30 @@
 package com.agrowmart.service;
 
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import com.agrowmart.config.StompFanout;
+
 import com.agrowmart.dto.auth.order.OrderStatusUpdateDTO;
 
 @Service
 public class OrderWebSocketService {
 
-    private final SimpMessagingTemplate template;
+    // Reaches the user / subscribers on whichever instance they are connected to
+    private final StompFanout fanout;
 
-    public OrderWebSocketService(SimpMessagingTemplate template) {
-        this.template = template;
+    public OrderWebSocketService(StompFanout fanout) {
+        this.fanout = fanout;
     }
 
     // Send private message to specific user
     public void sendToUser(String userId, OrderStatusUpdateDTO update) {
-        template.convertAndSendToUser(userId, "/queue/orders", update);
+        fanout.toUser(userId, "/queue/orders", update);
     }
 
     // Broadcast to all delivery partners
     public void broadcastToDeliveryPartners(OrderStatusUpdateDTO update) {
-        template.convertAndSend("/topic/delivery/pickups", update);
+        fanout.toTopic("/topic/delivery/pickups", update);
     }
 
 	public void broadcastNewPickup(OrderStatusUpdateDTO update) {
@@ -16,6 +16,7 @@ import com.agrowmart.repository.OrderRepository;
 import com.agrowmart.repository.ProductRatingRepository;
 import com.agrowmart.repository.ProductRepository;
 import com.agrowmart.repository.WomenProductRepository;
+import com.agrowmart.service.RatingAggregateService.Summary;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,16 +34,19 @@ public class ProductRatingService {
     private final ProductRepository productRepo;
     private final WomenProductRepository womenProductRepo;
     private final OrderRepository orderRepo;
+    private final RatingAggregateService aggregates;
 
     public ProductRatingService(
             ProductRatingRepository ratingRepo,
             ProductRepository productRepo,
             WomenProductRepository womenProductRepo,
-            OrderRepository orderRepo) {
+            OrderRepository orderRepo,
+            RatingAggregateService aggregates) {
         this.ratingRepo = ratingRepo;
         this.productRepo = productRepo;
         this.womenProductRepo = womenProductRepo;
         this.orderRepo = orderRepo;
+        this.aggregates = aggregates;
     }
 
     /**
@@ -91,11 +95,12 @@ public class ProductRatingService {
         }
 
         // 4. Find existing rating or create new
-        ProductRating rating = ratingRepo.findByCustomerIdAndProductOrWomenProduct(
+        ProductRating rating = ratingRepo.lockByCustomerIdAndProductOrWomenProduct(
                 customer.getId(),
                 normalProduct != null ? normalProduct.getId() : null,
                 womenProduct != null ? womenProduct.getId() : null
         ).orElse(new ProductRating());
+        Integer previousStars = rating.getId() != null ? rating.getStars() : null;
 
         // 5. Set values properly
         rating.setCustomer(customer);
@@ -111,6 +116,7 @@ public class ProductRatingService {
 
         // 6. Save - now works because columns are nullable
         ratingRepo.save(rating);
+        aggregates.recordChange(subjectType(rating), productId, previousStars, rating.getStars());
         log.info("Rating {} for product ID: {} by customer ID: {}", 
                 rating.getId(), productId, customer.getId());
         return mapToResponse(rating);
@@ -125,13 +131,10 @@ public class ProductRatingService {
             throw new BusinessValidationException("Product ID is required");
         }
     	
-        Product normalProduct = productRepo.findById(productId).orElse(null);
-        if (normalProduct != null) {
+        if (productRepo.existsById(productId)) {
             return buildSummary(productId, true);
         }
-
-        WomenProduct womenProduct = womenProductRepo.findById(productId).orElse(null);
-        if (womenProduct != null) {
+        if (womenProductRepo.existsById(productId)) {
             return buildSummary(productId, false);
         }
 
@@ -139,43 +142,20 @@ public class ProductRatingService {
     }
 
     private ProductRatingSummaryDTO buildSummary(Long productId, boolean isNormalProduct) {
-        Double avg;
-        List<ProductRating> ratings;
-        long totalReviews;
-
-        if (isNormalProduct) {
-            avg = ratingRepo.findAverageRatingByProductId(productId);
-            ratings = ratingRepo.findByProductIdOrderByCreatedAtDesc(productId);
-            totalReviews = ratingRepo.countByProductId(productId);
-        } else {
-            avg = ratingRepo.findAverageRatingByWomenProductId(productId);
-            ratings = ratingRepo.findByWomenProductIdOrderByCreatedAtDesc(productId);
-            totalReviews = ratingRepo.countByWomenProductId(productId);
-        }
-
-        Map<Integer, Long> starCounts = new HashMap<>();
-        for (int i = 1; i <= 5; i++) starCounts.put(i, 0L);
-
-        List<Object[]> distribution = isNormalProduct
-                ? ratingRepo.starDistributionByProductId(productId)
-                : ratingRepo.starDistributionByWomenProductId(productId);
-
-        for (Object[] row : distribution) {
-            Integer star = (Integer) row[0];
-            Long count = (Long) row[1];
-            starCounts.put(star, count);
-        }
+        Summary summary = aggregates.get(
+                isNormalProduct ? RatingAggregateService.PRODUCT : RatingAggregateService.WOMEN_PRODUCT, productId);
+        List<ProductRating> ratings = isNormalProduct
+                ? ratingRepo.findByProductIdOrderByCreatedAtDesc(productId)
+                : ratingRepo.findByWomenProductIdOrderByCreatedAtDesc(productId);
 
         List<ProductRatingResponseDTO> reviews = ratings.stream()
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
 
-        double average = (avg != null) ? Math.round(avg * 10.0) / 10.0 : 0.0;
-
         return new ProductRatingSummaryDTO(
-                average,
-                totalReviews,           // Now using correct count
-                starCounts,
+                summary.averageRating(),
+                summary.totalReviews(),
+                summary.starCounts(),
                 reviews
         );
     }
@@ -184,7 +164,7 @@ public class ProductRatingService {
     	if (customer == null) {
             throw new AuthenticationFailedException("Customer must be authenticated to delete rating");
         }
-        ProductRating rating = ratingRepo.findById(ratingId)
+        ProductRating rating = ratingRepo.lockById(ratingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rating not found"));
 
         if (!rating.getCustomer().getId().equals(customer.getId())) {
@@ -192,9 +172,15 @@ public class ProductRatingService {
         }
 
         ratingRepo.delete(rating);
+        Long productId = rating.getProduct() != null ? rating.getProduct().getId() : rating.getWomenProduct().getId();
+        aggregates.recordChange(subjectType(rating), productId, rating.getStars(), null);
         log.info("Rating {} deleted by customer ID: {}", ratingId, customer.getId());
     }
 
+    private static String subjectType(ProductRating rating) {
+        return rating.getProduct() != null ? RatingAggregateService.PRODUCT : RatingAggregateService.WOMEN_PRODUCT;
+    }
+
     private void validateStars(Integer stars) {
         if (stars == null || stars < 1 || stars > 5) {
             throw new IllegalArgumentException("Stars must be between 1 and 5");
@@ -0,0 +1,185 @@
+package com.agrowmart.service;
+
+import com.agrowmart.dto.auth.product.ProductResponseDTO;
+import com.agrowmart.dto.auth.shop.ShopSummaryDTO;
+import com.agrowmart.entity.*;
+import com.agrowmart.repository.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link ProductResponseDTO}s for a whole list/page at once.
+ *
+ * Query count per call is fixed, whatever the page size:
+ * at most 3 for detail rows (veg / dairy / meat), 1 for shops and 1 for rating totals.
+ * Categories come from {@link CategoryTreeCache}.
+ * Each shop's summary is built once per call, not once per product.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductResponseAssembler {
+
+    private final CategoryTreeCache categoryTree;
+    private final VegetableDetailRepository vegRepo;
+    private final DairyDetailRepository dairyRepo;
+    private final MeatDetailRepository meatRepo;
+    private final ShopRepository shopRepo;
+    private final ShopScheduleCache shopSchedules;
+    private final RatingAggregateService ratings;
+
+    public ProductResponseAssembler(CategoryTreeCache categoryTree,
+                                    VegetableDetailRepository vegRepo,
+                                    DairyDetailRepository dairyRepo,
+                                    MeatDetailRepository meatRepo,
+                                    ShopRepository shopRepo,
+                                    ShopScheduleCache shopSchedules,
+                                    RatingAggregateService ratings) {
+        this.categoryTree = categoryTree;
+        this.vegRepo = vegRepo;
+        this.dairyRepo = dairyRepo;
+        this.meatRepo = meatRepo;
+        this.shopRepo = shopRepo;
+        this.shopSchedules = shopSchedules;
+        this.ratings = ratings;
+    }
+
+    public ProductResponseDTO toResponseDto(Product product) {
+        return toResponseDtos(List.of(product)).get(0);
+    }
+
+    public List<ProductResponseDTO> toResponseDtos(List<Product> products) {
+        if (products == null || products.isEmpty()) return List.of();
+
+        Map<Long, String> typeByProduct = new HashMap<>();
+        for (Product p : products) {
+            typeByProduct.put(p.getId(), categoryTree.productType(p.getCategory()));
+        }
+
+        Map<Long, Object> details = loadDetails(typeByProduct);
+        Map<Long, ShopSummaryDTO> shopByMerchant = loadShopSummaries(products);
+        Map<Long, RatingAggregateService.Summary> ratingByProduct = ratings.getAll(RatingAggregateService.PRODUCT,
+                products.stream().map(Product::getId).toList());
+
+        List<ProductResponseDTO> result = new ArrayList<>(products.size());
+        for (Product p : products) {
+            RatingAggregateService.Summary rating = ratingByProduct.get(p.getId());
+            CategoryTreeCache.Node category = categoryTree.node(p.getCategory());
+
+            result.add(new ProductResponseDTO(
+                    p.getId(),
+                    p.getProductName(),
+                    p.getShortDescription(),
+                    p.getStatus().name(),
+                    p.getCategory() != null ? p.getCategory().getId() : null,
+                    category != null ? category.name() : p.getCategory() != null ? p.getCategory().getName() : null,
+                    getImageList(p.getImagePaths()),
+                    p.getMerchantId(),
+                    typeByProduct.get(p.getId()),
+                    details.get(p.getId()),
+                    Boolean.TRUE.equals(p.getInStock()) ? "In Stock" : "Out of Stock",
+                    p.getSerialNo(),
+                    shopByMerchant.get(p.getMerchantId()),
+                    rating.averageRating(),
+                    rating.totalReviews()
+            ));
+        }
+        return result;
+    }
+
+    /** Min price per product (detail tables), for price sorting without per-product lookups. */
+    public Map<Long, BigDecimal> minPrices(List<Product> products) {
+        if (products == null || products.isEmpty()) return Map.of();
+
+        Map<Long, String> typeByProduct = new HashMap<>();
+        for (Product p : products) {
+            typeByProduct.put(p.getId(), categoryTree.productType(p.getCategory()));
+        }
+
+        Map<Long, BigDecimal> prices = new HashMap<>();
+        loadDetails(typeByProduct).forEach((productId, detail) -> {
+            BigDecimal price = null;
+            if (detail instanceof VegetableDetail v) price = v.getMinPrice();
+            else if (detail instanceof DairyDetail d) price = d.getMinPrice();
+            else if (detail instanceof MeatDetail m) price = m.getMinPrice();
+            prices.put(productId, price != null ? price : BigDecimal.ZERO);
+        });
+        for (Product p : products) {
+            prices.putIfAbsent(p.getId(), BigDecimal.ZERO);
+        }
+        return prices;
+    }
+
+    public ShopSummaryDTO toShopSummary(Shop shop) {
+        if (shop == null) return null;
+        return new ShopSummaryDTO(
+                shop.getId(),
+                shop.getShopName(),
+                shop.getShopPhoto(),
+                shop.getShopAddress(),
+                shop.getShopType(),
+                extractCity(shop.getShopAddress()),
+                extractPincode(shop.getShopAddress()),
+                0.0,
+                shopSchedules.isOpen(shop)
+        );
+    }
+
+    // ===================== BATCH LOADERS =====================
+
+    private Map<Long, Object> loadDetails(Map<Long, String> typeByProduct) {
+        Map<String, List<Long>> idsByType = typeByProduct.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+
+        Map<Long, Object> details = new HashMap<>();
+        idsByType.forEach((type, ids) -> {
+            switch (type) {
+                case "VEGETABLE" -> vegRepo.findByProductIdIn(ids)
+                        .forEach(d -> details.put(d.getProduct().getId(), d));
+                case "DAIRY" -> dairyRepo.findByProductIdIn(ids)
+                        .forEach(d -> details.put(d.getProduct().getId(), d));
+                case "MEAT" -> meatRepo.findByProductIdIn(ids)
+                        .forEach(d -> details.put(d.getProduct().getId(), d));
+                default -> { }
+            }
+        });
+        return details;
+    }
+
+    private Map<Long, ShopSummaryDTO> loadShopSummaries(List<Product> products) {
+        Set<Long> merchantIds = products.stream()
+                .map(Product::getMerchantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (merchantIds.isEmpty()) return Map.of();
+
+        Map<Long, ShopSummaryDTO> result = new HashMap<>();
+        for (Shop shop : shopRepo.findAllByUserIdIn(merchantIds)) {
+            result.put(shop.getUser().getId(), toShopSummary(shop));
+        }
+        return result;
+    }
+
+    // ===================== HELPERS (moved from ProductService) =====================
+
+    private List<String> getImageList(String imagePaths) {
+        if (!StringUtils.hasText(imagePaths)) return new ArrayList<>();
+        return Arrays.stream(imagePaths.split(","))
+                .filter(StringUtils::hasText)
+                .toList();
+    }
+
+    private String extractCity(String address) {
+        if (address == null || address.isBlank()) return null;
+        return address;
+    }
+
+    private String extractPincode(String address) {
+        return null;
+    }
+}
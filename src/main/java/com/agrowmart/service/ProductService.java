@@ -1,18 +1,14 @@
 package com.agrowmart.service;
 
 import com.agrowmart.dto.auth.product.*;
-import com.agrowmart.dto.auth.shop.ShopSummaryDTO;
-import com.agrowmart.dto.auth.shop.WorkingHourDTO;
 import com.agrowmart.entity.*;
 import com.agrowmart.entity.Product.ProductStatus;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
-import com.agrowmart.exception.AuthExceptions.FileUploadException;
 import com.agrowmart.exception.ForbiddenException;
 import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.*;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.agrowmart.util.FeedCursor;
+import com.agrowmart.util.LikePattern;
 
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
@@ -22,12 +18,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 @Service
@@ -44,13 +37,21 @@ public class ProductService {
     private final CloudinaryService cloudinary;
      private final ShopRepository shopRepo;
     private final   UserRepository userRepo;
+    private final ProductResponseAssembler assembler;
+    private final CategoryTreeCache categoryTree;
+    private final PublicCatalogCache publicCache;
+    private final ImageUploadPipeline images;
     
     public ProductService(ProductRepository productRepo, CategoryRepository categoryRepo,
 
     		VegetableDetailRepository vegRepo,DairyDetailRepository dairyRepo,MeatDetailRepository
 
     		meatRepo,   CloudinaryService cloudinary,ShopRepository shopRepo,
-    		UserRepository userRepo
+    		UserRepository userRepo,
+    		ProductResponseAssembler assembler,
+    		CategoryTreeCache categoryTree,
+    		PublicCatalogCache publicCache,
+    		ImageUploadPipeline images
     		   
     		
     		) {
@@ -69,6 +70,10 @@ this.cloudinary = cloudinary;
 
 this.shopRepo =shopRepo;
 this.userRepo=userRepo;
+this.assembler=assembler;
+this.categoryTree=categoryTree;
+this.publicCache=publicCache;
+this.images=images;
 
 
 }
@@ -134,47 +139,10 @@ this.userRepo=userRepo;
 
         product = productRepo.save(product); // ID generated
 
-        Object details = createDetailsEntity(dto, product, type);
-     // 9️⃣ Seller → Shop
-        User seller = userRepo.findById(merchantId).orElse(null);
-        Shop shop = seller != null ? seller.getShop() : null;
-     // Build shop DTO safely
-        ShopSummaryDTO shopDTO = null;
-
-        if (shop != null) {
-        	 Boolean open = isShopOpenFromWorkingHours(shop);
-
-            shopDTO = new ShopSummaryDTO(
-                    shop.getId(),                          // Long
-                    shop.getShopName(),                    // String
-                    shop.getShopPhoto(),                   // String
-                    shop.getShopAddress(),                 // String
-                    shop.getShopType(),                    // String
-                    extractCity(shop.getShopAddress()),    // String
-                    extractPincode(shop.getShopAddress()), // String
-                    0.0,                                   // Double rating
-                    open                                   // Boolean open
-            );
-        }
+        createDetailsEntity(dto, product, type);
 
-        // 🔟 Final response
-        return new ProductResponseDTO(
-                product.getId(),
-                product.getProductName(),
-                product.getShortDescription(),
-                product.getStatus().name(),
-                product.getCategory().getId(),
-                product.getCategory().getName(),
-                imageUrls,
-                merchantId,
-                type,
-                details,
-                product.getInStock() ? "In Stock" : "Out of Stock",
-                product.getSerialNo(),
-                shopDTO
-        );
-    
-        
+        // Same batched shop / rating / details lookup as every other product response
+        return toResponseDto(product);
     }
    
  // ===================== UPDATE - FINAL & FULL =====================
@@ -217,18 +185,11 @@ this.userRepo=userRepo;
 
         // 2. Image handling — FULL REPLACE if new images are sent
         if (dto.images() != null && !dto.images().isEmpty()) {
-            // Delete old images (best effort — don't fail if delete fails)
-            getImageList(product.getImagePaths()).forEach(oldUrl -> {
-                try {
-                    cloudinary.delete(oldUrl);
-                } catch (Exception e) {
-                    System.err.println("Failed to delete old image: " + oldUrl);
-                }
-            });
-
-            // Upload and replace with new images
+            // Upload the new images first; the old ones are deleted only once this update commits
+            List<String> oldImageUrls = getImageList(product.getImagePaths());
             List<String> newImageUrls = uploadImages(dto.images());
             product.setImagePaths(String.join(",", newImageUrls));
+            images.discardAfterCommit(oldImageUrls);
         }
 
         // 3. Save core product entity (name, description, category, images)
@@ -319,17 +280,9 @@ this.userRepo=userRepo;
     }
 
 
-    private List<String> uploadImages(List<MultipartFile> files) throws Exception {
-        if (files == null || files.isEmpty()) return List.of();
-        return files.stream()
-                .map(file -> {
-                    try {
-                        return cloudinary.upload(file);
-                    } catch (Exception e) {
-                        throw new FileUploadException("Image upload failed: " + e.getMessage(), e);
-                    }
-                })
-                .toList();
+    // Parallel, all-or-nothing; see ImageUploadPipeline
+    private List<String> uploadImages(List<MultipartFile> files) {
+        return images.uploadAll(files);
     }
 
     private List<String> getImageList(String imagePaths) {
@@ -342,24 +295,7 @@ this.userRepo=userRepo;
 
     
     private String determineProductType(Category category) {
-        if (category == null) return "GENERAL";
-
-        Category current = category;
-        while (current != null) {
-            String slug = current.getSlug();
-            if ("vegetable-root".equals(slug)) {
-                return "VEGETABLE";
-            }
-            if ("dairy-root".equals(slug)) {
-                return "DAIRY";
-            }
-            if ("seafoodmeat-root".equals(slug)) {
-                return "MEAT";
-            }
-            // Add more roots if needed later (women-root, etc.)
-            current = current.getParent();
-        }
-        return "GENERAL";
+        return categoryTree.productType(category);
     }
   
 
@@ -379,7 +315,11 @@ this.userRepo=userRepo;
                     cb.like(cb.lower(root.get("productName")), "%" + filter.name().toLowerCase() + "%"));
         }
         if (filter.categoryId() != null) {
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("category").get("id"), filter.categoryId()));
+            // The category and everything under it, ids taken from the in-memory tree
+            Set<Long> subtree = categoryTree.subtreeIds(filter.categoryId());
+            spec = spec.and((root, query, cb) -> subtree.isEmpty()
+                    ? cb.equal(root.get("category").get("id"), filter.categoryId())
+                    : root.get("category").get("id").in(subtree));
         }
         if (StringUtils.hasText(filter.status())) {
             spec = spec.and((root, query, cb) ->
@@ -389,65 +329,18 @@ this.userRepo=userRepo;
         // THIS IS THE ONLY CORRECT WAY WHEN METHOD REFERENCE DOESN'T WORK
         Page<Product> productPage = productRepo.findAll(spec, pageable);
 
-        return productPage.map(product -> toResponseDto(product));
+        return new PageImpl<>(assembler.toResponseDtos(productPage.getContent()), pageable, productPage.getTotalElements());
     }
 
  // ===================== MAPPER (🔥 SINGLE SOURCE OF TRUTH 🔥) =====================
  // ===================== MAPPER (🔥 SINGLE SOURCE OF TRUTH 🔥) =====================
+    // Single product → same path as lists (see ProductResponseAssembler)
     public ProductResponseDTO toResponseDto(Product p) {
-
-        List<String> images = getImageList(p.getImagePaths());
-        String type = determineProductType(p.getCategory());
-        Object details = fetchDetailsEntity(p.getId(), type);
-
-        User seller = p.getMerchantId() != null
-                ? userRepo.findById(p.getMerchantId()).orElse(null)
-                : null;
-
-        Shop shop = seller != null ? seller.getShop() : null;
-
-     // Build shop DTO safely
-        ShopSummaryDTO shopDTO = null;
-
-        if (shop != null) {
-        	 Boolean open = isShopOpenFromWorkingHours(shop);
-
-            shopDTO = new ShopSummaryDTO(
-                    shop.getId(),                          // Long
-                    shop.getShopName(),                    // String
-                    shop.getShopPhoto(),                   // String
-                    shop.getShopAddress(),                 // String
-                    shop.getShopType(),                    // String
-                    extractCity(shop.getShopAddress()),    // String
-                    extractPincode(shop.getShopAddress()), // String
-                    0.0,                                   // Double rating
-                    open                                   // Boolean open
-            );
-        }
-
-        // 🔟 Final response
-        return new ProductResponseDTO(
-                p.getId(),
-                p.getProductName(),
-                p.getShortDescription(),
-                p.getStatus().name(),
-                p.getCategory().getId(),
-                p.getCategory().getName(),
-                images,
-                p.getMerchantId(),
-                type,
-                details,
-                p.getInStock() ? "In Stock" : "Out of Stock",
-                p.getSerialNo(),
-                shopDTO
-        );
+        return assembler.toResponseDto(p);
     }
-    
+
     public List<ProductResponseDTO> getVendorProducts(Long merchantId) {
-        return productRepo.findByMerchantId(merchantId)
-                .stream()
-                .map(this::toResponseDto)
-                .toList();
+        return assembler.toResponseDtos(productRepo.findByMerchantId(merchantId));
     }
 
 
@@ -521,7 +414,7 @@ this.userRepo=userRepo;
     public VendorProductPaginatedResponse getVendorProductsPaginated(Long merchantId, int page, int size, String status) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("serialNo").ascending());
         Page<Product> productPage = productRepo.findByMerchantId(merchantId, pageable);  // Changed - no status filter
-        List<ProductResponseDTO> products = productPage.getContent().stream().map(this::toResponseDto).toList();
+        List<ProductResponseDTO> products = assembler.toResponseDtos(productPage.getContent());
         return new VendorProductPaginatedResponse(
                 products,
                 productPage.getNumber(),
@@ -533,15 +426,36 @@ this.userRepo=userRepo;
 
     
 
+    // ===================== PUBLIC HOME FEED (keyset pages, search in DB) =====================
+    // search is a plain substring match on the name (a scan of the visible rows, fine for the
+    // feed's filter box); ranked / typo-tolerant search is /api/public/search on the CatalogSearchIndex
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponseDTO> getHomeFeed(String search, String cursor, int size) {
+        String pattern = LikePattern.contains(search);
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);   // one extra row tells us if there is a next page
+
+        List<Product> rows = after == null
+                ? productRepo.findHomeFeed(pattern, limit)
+                : productRepo.findHomeFeedAfter(pattern, java.sql.Timestamp.valueOf(after.createdAt()), after.id(), limit);
+
+        boolean hasMore = rows.size() > size;
+        List<Product> page = hasMore ? rows.subList(0, size) : rows;
+
+        String next = null;
+        if (hasMore) {
+            Product last = page.get(page.size() - 1);
+            next = new FeedCursor(last.getCreatedAt().toLocalDateTime(), last.getId()).encode();
+        }
+        return new CursorPage<>(assembler.toResponseDtos(page), next, hasMore);
+    }
+
     public List<ProductResponseDTO> getAllActiveProducts() {
-        return productRepo
+        return assembler.toResponseDtos(productRepo
                 .findByStatusAndApprovalStatus(
                         Product.ProductStatus.ACTIVE,
                         ApprovalStatus.APPROVED
-                )
-                .stream()
-                .map(this::toResponseDto)
-                .toList();
+                ));
     }
 
     
@@ -563,14 +477,15 @@ this.userRepo=userRepo;
 
         List<Product> products = productRepo.findAll(spec);
 
-        // Sorting
+        // Sorting (min prices loaded in one go)
         if (filter.sortBy() != null) {
             boolean ascending = filter.sortBy().endsWith("_low_high");
+            Map<Long, BigDecimal> minPrices = assembler.minPrices(products);
             products = products.stream()
                     .sorted((p1, p2) -> {
                         return switch (filter.sortBy()) {
                             case "price_low_high", "price_high_low" ->
-                                FilterHelper.comparePrice(getMinPrice(p1), getMinPrice(p2), ascending);
+                                FilterHelper.comparePrice(minPrices.get(p1.getId()), minPrices.get(p2.getId()), ascending);
                           //  case "rating_low_high", "rating_high_low" ->
                             //    FilterHelper.compareRating(p1.getAverageRating(), p2.getAverageRating(), ascending);
                             default -> 0;
@@ -579,29 +494,14 @@ this.userRepo=userRepo;
                     .toList();
         }
 
-        return products.stream()
-                .map(this::toResponseDto)
-                .toList();
+        return assembler.toResponseDtos(products);
     }
     
-    private BigDecimal getMinPrice(Product p) {
-    	String type = determineProductType(p.getCategory());
-        return switch (type) {
-            case "VEGETABLE" -> vegRepo.findByProductId(p.getId())
-                    .map(VegetableDetail::getMinPrice).orElse(BigDecimal.ZERO);
-            case "DAIRY" -> dairyRepo.findByProductId(p.getId())
-                    .map(DairyDetail::getMinPrice).orElse(BigDecimal.ZERO);
-            case "MEAT" -> meatRepo.findByProductId(p.getId())
-                    .map(MeatDetail::getMinPrice).orElse(BigDecimal.ZERO);
-            default -> BigDecimal.ZERO;
-        };
-    }
-
-    
     public ProductResponseDTO getPublicProductById(Long productId) throws Exception {
-        Product product = productRepo.findApprovedProductById(productId)
-                .orElseThrow(() -> new Exception("Product not found or not approved"));
-        return toResponseDto(product);
+        ProductResponseDTO dto = publicCache.product(productId, () ->
+                productRepo.findApprovedProductById(productId).map(this::toResponseDto).orElse(null));
+        if (dto == null) throw new Exception("Product not found or not approved");
+        return dto;
     }
 
     
@@ -609,26 +509,22 @@ this.userRepo=userRepo;
 
  // ================= PUBLIC - RECENT PRODUCTS =================
     public List<ProductResponseDTO> getRecentlyAddedPublicProducts(int limit) {
-        return productRepo.findAllActiveFromOnlineVendors()
+        return publicCache.recentProducts(limit, () -> assembler.toResponseDtos(productRepo.findAllActiveFromOnlineVendors()
                 .stream()
                 .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
                 .limit(limit)
-                .map(this::toResponseDto)
-                .toList();
+                .toList()));
     }
 
     
 
     public List<ProductResponseDTO> getProductsByShop(Long shopUserId) {
-        return productRepo
+        return assembler.toResponseDtos(productRepo
                 .findByMerchantIdAndStatusAndApprovalStatus(
                         shopUserId,
                         ProductStatus.ACTIVE,
                         ApprovalStatus.APPROVED
-                )
-                .stream()
-                .map(this::toResponseDto)
-                .toList();
+                ));
     }
 
     
@@ -638,10 +534,7 @@ this.userRepo=userRepo;
     // (approval filter NOT required here)
 
     public List<ProductResponseDTO> getMerchantProductsForAdmin(Long merchantId) {
-        return productRepo.findByMerchantId(merchantId)
-                .stream()
-                .map(this::toResponseDto)
-                .toList();
+        return assembler.toResponseDtos(productRepo.findByMerchantId(merchantId));
     }
     
     // 21 Jan 
@@ -679,10 +572,7 @@ this.userRepo=userRepo;
     // ===================== ADMIN METHODS =====================
  // ===================== ADMIN: FULL PRODUCTS WITH DETAILS =====================
     public List<ProductResponseDTO> getAllProductsForAdminDTO() {
-        return productRepo.findAllByOrderByCreatedAtDesc()
-                .stream()
-                .map(this::toResponseDto)   // ⭐ DETAILS HERE
-                .toList();
+        return assembler.toResponseDtos(productRepo.findAllByOrderByCreatedAtDesc());   // ⭐ DETAILS HERE
     }
     
     
@@ -783,102 +673,4 @@ this.userRepo=userRepo;
 	}
 
 
-   // ===================== ADDRESS HELPERS =====================
-   private String extractCity(String address) {
-       if (address == null || address.isBlank()) return null;
-       return address;
-   }
-
-   private String extractPincode(String address) {
-       return null;
-   }
-
-   private Boolean isShopOpenFromWorkingHours(Shop shop) {
-       if (shop == null || shop.getWorkingHoursJson() == null || shop.getWorkingHoursJson().trim().isEmpty()) {
-    	   log.warn("Shop {} has no working hours JSON", shop != null ? shop.getId() : "null");
-           return false;
-       }
-
-       try {
-           ObjectMapper mapper = new ObjectMapper();
-           List<WorkingHourDTO> hours = mapper.readValue(
-                   shop.getWorkingHoursJson(),
-                   new TypeReference<List<WorkingHourDTO>>() {}
-           );
-
-           if (hours.isEmpty()) {
-               System.out.println("Shop " + shop.getId() + " has empty working hours list");
-               return false;
-           }
-
-           String today = LocalDate.now(ZoneId.of("Asia/Kolkata"))
-                   .getDayOfWeek()
-                   .name();  // MONDAY, TUESDAY, ...
-
-           LocalTime now = LocalTime.now(ZoneId.of("Asia/Kolkata"));
-
-           // Debug info (you can switch to proper logger later)
-           System.out.println("Shop ID: " + shop.getId() +
-                   " | Today: " + today +
-                   " | Current time: " + now);
-
-           System.out.println("Working hours JSON: " + shop.getWorkingHoursJson());
-
-           for (WorkingHourDTO h : hours) {
-               String storedDay = h.getDay();
-               if (storedDay == null || storedDay.trim().isEmpty()) {
-                   continue;
-               }
-
-               String normalizedDay = storedDay.trim().toUpperCase();
-
-               System.out.println("  Checking day: " + storedDay + " → normalized: " + normalizedDay);
-
-               if (today.equals(normalizedDay)) {
-                   String openStr = h.getOpen();
-                   String closeStr = h.getClose();
-
-                   if (openStr == null || closeStr == null || openStr.trim().isEmpty() || closeStr.trim().isEmpty()) {
-                       System.out.println("  Invalid time format for " + normalizedDay);
-                       continue;
-                   }
-
-                   LocalTime openTime = LocalTime.parse(openStr.trim());
-                   LocalTime closeTime = LocalTime.parse(closeStr.trim());
-
-                   System.out.println("  → Found matching day: " + normalizedDay +
-                           " | Open: " + openTime +
-                           " | Close: " + closeTime +
-                           " | Now: " + now);
-
-                   // Normal opening hours (open < close)
-                   if (closeTime.isAfter(openTime)) {
-                       boolean isOpen = !now.isBefore(openTime) && !now.isAfter(closeTime);
-                       System.out.println("  → Normal hours → isOpen = " + isOpen);
-                       return isOpen;
-                   }
-                   // Overnight hours (e.g. 22:00 – 06:00)
-                   else {
-                       boolean isOpen = !now.isBefore(openTime) || !now.isAfter(closeTime);
-                       System.out.println("  → Overnight hours → isOpen = " + isOpen);
-                       return isOpen;
-                   }
-               }
-           }
-
-           System.out.println("No matching day found for shop " + shop.getId() + " (today is " + today + ")");
-           return false;
-
-       } catch (JsonProcessingException e) {
-           System.err.println("Invalid JSON format for shop " + shop.getId() + ": " + e.getMessage());
-           return false;
-       } catch (DateTimeParseException e) {
-           System.err.println("Time parsing error for shop " + shop.getId() + ": " + e.getMessage());
-           return false;
-       } catch (Exception e) {
-           System.err.println("Unexpected error checking shop " + shop.getId() + ": " + e.getMessage());
-           e.printStackTrace();
-           return false;
-       }
-   }
 }
\ No newline at end of file
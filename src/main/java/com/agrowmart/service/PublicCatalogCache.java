@@ -0,0 +1,108 @@
+package com.agrowmart.service;
+
+import com.agrowmart.config.TwoTierCache;
+import com.agrowmart.dto.auth.product.ProductResponseDTO;
+import com.agrowmart.dto.auth.shop.ShopResponse;
+import com.agrowmart.dto.auth.women.WomenProductResponseDTO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cached responses of the public catalog endpoints: product detail, recently added lists
+ * and popular-shop rankings.
+ *
+ * Product, shop and category changes drop the affected entries after commit (on every
+ * instance). Values also embed data that changes without such an event – stock, ratings,
+ * a shop's open flag, delivered-order counts – so the TTLs are kept short.
+ */
+@Component
+public class PublicCatalogCache {
+
+    private final TwoTierCache.Region<ProductResponseDTO> products;
+    private final TwoTierCache.Region<List<ProductResponseDTO>> recentProducts;
+    private final TwoTierCache.Region<List<WomenProductResponseDTO>> recentWomenProducts;
+    private final TwoTierCache.Region<List<ShopResponse>> popularShops;
+
+    public PublicCatalogCache(TwoTierCache cache,
+                              @Value("${public-cache.max-entries:5000}") int maxEntries,
+                              @Value("${public-cache.local-ttl-seconds:30}") long localTtlSeconds,
+                              @Value("${public-cache.remote-ttl-seconds:120}") long remoteTtlSeconds) {
+        Duration localTtl = Duration.ofSeconds(localTtlSeconds);
+        Duration remoteTtl = Duration.ofSeconds(remoteTtlSeconds);
+        this.products = cache.region("public-product",
+                new TypeReference<ProductResponseDTO>() {}, maxEntries, localTtl, remoteTtl);
+        this.recentProducts = cache.region("public-recent-products",
+                new TypeReference<List<ProductResponseDTO>>() {}, 100, localTtl, remoteTtl);
+        this.recentWomenProducts = cache.region("public-recent-women-products",
+                new TypeReference<List<WomenProductResponseDTO>>() {}, 100, localTtl, remoteTtl);
+        this.popularShops = cache.region("public-popular-shops",
+                new TypeReference<List<ShopResponse>>() {}, 100, localTtl, remoteTtl);
+    }
+
+    /** Approved product detail; a null from the loader (not found) is not cached. */
+    public ProductResponseDTO product(Long productId, Supplier<ProductResponseDTO> loader) {
+        return products.get(String.valueOf(productId), loader);
+    }
+
+    public List<ProductResponseDTO> recentProducts(int limit, Supplier<List<ProductResponseDTO>> loader) {
+        return recentProducts.get(String.valueOf(limit), loader);
+    }
+
+    public List<WomenProductResponseDTO> recentWomenProducts(int limit, Supplier<List<WomenProductResponseDTO>> loader) {
+        return recentWomenProducts.get(String.valueOf(limit), loader);
+    }
+
+    public List<ShopResponse> popularShops(int size, Supplier<List<ShopResponse>> loader) {
+        return popularShops.get(String.valueOf(size), loader);
+    }
+
+    /** @param type {@link CatalogSearchIndex#REGULAR}, WOMEN or AGRI */
+    public void productChanged(String type, Long productId) {
+        afterCommit(() -> {
+            if (CatalogSearchIndex.REGULAR.equals(type)) {
+                products.evict(String.valueOf(productId));
+                recentProducts.clear();
+            } else if (CatalogSearchIndex.WOMEN.equals(type)) {
+                recentWomenProducts.clear();
+            }
+        });
+    }
+
+    // Shop summaries are embedded in the product DTOs and the lists, so everything goes
+    public void shopChanged() {
+        afterCommit(() -> {
+            popularShops.clear();
+            products.clear();
+            recentProducts.clear();
+            recentWomenProducts.clear();
+        });
+    }
+
+    // Category names are embedded in the product DTOs
+    public void categoriesChanged() {
+        afterCommit(() -> {
+            products.clear();
+            recentProducts.clear();
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
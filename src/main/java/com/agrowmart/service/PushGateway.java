@@ -0,0 +1,19 @@
+package com.agrowmart.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends a batch of push messages. The production implementation is {@link FirebasePushGateway};
+ * tests can register a stub bean instead of talking to FCM.
+ */
+public interface PushGateway {
+
+    /** Results come back in the same order as the messages. Throws if the whole batch could not be sent. */
+    List<PushResult> sendEach(List<PushMessage> messages) throws Exception;
+
+    record PushMessage(String token, Map<String, String> data) {}
+
+    /** retryable = worth trying again later (FCM unavailable, quota, internal error). */
+    record PushResult(boolean success, String messageId, String error, boolean retryable) {}
+}
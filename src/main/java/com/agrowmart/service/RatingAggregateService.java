@@ -0,0 +1,215 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Rating.RatingAggregate;
+import com.agrowmart.repository.ProductRatingRepository;
+import com.agrowmart.repository.RatingAggregateRepository;
+import com.agrowmart.repository.RatingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Rating totals per vendor and per product, read as one row instead of AVG / COUNT /
+ * GROUP BY over the rating tables.
+ *
+ * {@link #recordChange} must run in the transaction that saves or deletes the rating, so
+ * the totals commit or roll back with it. The nightly (and startup) reconciliation
+ * recounts everything from the rating tables and corrects any row that drifted. Each
+ * correction recounts its subject again while holding the aggregate row, so a rating
+ * change that commits during the run is never overwritten.
+ */
+@Service
+public class RatingAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregateService.class);
+
+    public static final String VENDOR = "VENDOR";
+    public static final String PRODUCT = "PRODUCT";
+    public static final String WOMEN_PRODUCT = "WOMEN_PRODUCT";
+
+    private final RatingAggregateRepository aggregateRepo;
+    private final RatingRepository ratingRepo;
+    private final ProductRatingRepository productRatingRepo;
+    private final JobRunner jobs;
+    // One short transaction per corrected subject, outside the chunk's transaction: its
+    // recount must see ratings committed after the chunk started reading
+    private final TransactionTemplate fixTx;
+
+    public RatingAggregateService(RatingAggregateRepository aggregateRepo,
+                                  RatingRepository ratingRepo,
+                                  ProductRatingRepository productRatingRepo,
+                                  JobRunner jobs,
+                                  PlatformTransactionManager transactionManager) {
+        this.aggregateRepo = aggregateRepo;
+        this.ratingRepo = ratingRepo;
+        this.productRatingRepo = productRatingRepo;
+        this.jobs = jobs;
+        this.fixTx = new TransactionTemplate(transactionManager);
+        this.fixTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * One rating was added, changed or removed.
+     *
+     * @param oldStars stars before the change, null for a new rating
+     * @param newStars stars after the change, null for a deleted rating
+     */
+    @Transactional
+    public void recordChange(String subjectType, Long subjectId, Integer oldStars, Integer newStars) {
+        if (subjectId == null || Objects.equals(oldStars, newStars)) return;
+
+        long[] perStar = new long[6];
+        long count = 0;
+        long sum = 0;
+        if (oldStars != null) {
+            perStar[oldStars]--;
+            count--;
+            sum -= oldStars;
+        }
+        if (newStars != null) {
+            perStar[newStars]++;
+            count++;
+            sum += newStars;
+        }
+        aggregateRepo.applyDelta(subjectType, subjectId, count, sum,
+                perStar[1], perStar[2], perStar[3], perStar[4], perStar[5]);
+    }
+
+    @Transactional(readOnly = true)
+    public Summary get(String subjectType, Long subjectId) {
+        return aggregateRepo.findBySubjectTypeAndSubjectId(subjectType, subjectId)
+                .map(Summary::of)
+                .orElse(Summary.EMPTY);
+    }
+
+    /** Summaries for a page of subjects in one query; subjects without ratings get {@link Summary#EMPTY}. */
+    @Transactional(readOnly = true)
+    public Map<Long, Summary> getAll(String subjectType, Collection<Long> subjectIds) {
+        if (subjectIds == null || subjectIds.isEmpty()) return Map.of();
+        Map<Long, Summary> result = new HashMap<>();
+        for (RatingAggregate a : aggregateRepo.findBySubjectTypeAndSubjectIdIn(subjectType, subjectIds)) {
+            result.put(a.getSubjectId(), Summary.of(a));
+        }
+        for (Long id : subjectIds) {
+            result.putIfAbsent(id, Summary.EMPTY);
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RatingAggregate> topRated(String subjectType, long minRatings, int limit) {
+        return aggregateRepo.findTopRated(subjectType, minRatings, PageRequest.of(0, limit));
+    }
+
+    // Recount from the rating tables, nightly and once at startup
+    // (fills the table after it is first added, and covers manual DB fixes).
+    // Once across the cluster, one chunk per subject type
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${rating.aggregate.reconcile-cron:0 40 3 * * *}", zone = "Asia/Kolkata")
+    public void reconcile() {
+        jobs.run("rating-aggregate-reconcile", Duration.ofHours(1), this::reconcileChunk);
+    }
+
+    // Checkpoint: the subject type reconciled last
+    private JobRunner.Chunk reconcileChunk(String done, LocalDateTime runStartedAt) {
+        if (done == null) {
+            return new JobRunner.Chunk(VENDOR, reconcile(VENDOR, ratingRepo.countStarsByVendor(),
+                    ratingRepo::countStarsForVendor));
+        }
+        if (VENDOR.equals(done)) {
+            return new JobRunner.Chunk(PRODUCT, reconcile(PRODUCT, productRatingRepo.countStarsByProduct(),
+                    productRatingRepo::countStarsForProduct));
+        }
+        if (PRODUCT.equals(done)) {
+            return new JobRunner.Chunk(null, reconcile(WOMEN_PRODUCT, productRatingRepo.countStarsByWomenProduct(),
+                    productRatingRepo::countStarsForWomenProduct));
+        }
+        return JobRunner.Chunk.done();
+    }
+
+    // rows: {subjectId, stars, count}; only picks the candidates, see fix()
+    private int reconcile(String subjectType, List<Object[]> rows, Function<Long, List<Object[]>> recount) {
+        Map<Long, long[]> actual = new HashMap<>();
+        for (Object[] row : rows) {
+            int stars = ((Number) row[1]).intValue();
+            if (stars < 1 || stars > 5) continue;
+            actual.computeIfAbsent((Long) row[0], id -> new long[6])[stars] = ((Number) row[2]).longValue();
+        }
+
+        Map<Long, RatingAggregate> stored = new HashMap<>();
+        for (RatingAggregate a : aggregateRepo.findBySubjectType(subjectType)) {
+            stored.put(a.getSubjectId(), a);
+            actual.putIfAbsent(a.getSubjectId(), new long[6]);   // ratings all gone: zero the row
+        }
+
+        int fixed = 0;
+        for (Map.Entry<Long, long[]> e : actual.entrySet()) {
+            RatingAggregate current = stored.get(e.getKey());
+            if (current != null && matches(current, e.getValue())) continue;
+            if (Boolean.TRUE.equals(fixTx.execute(status -> fix(subjectType, e.getKey(), recount)))) fixed++;
+        }
+        return fixed;
+    }
+
+    // Recounts one subject while holding its aggregate row. A rating change committed before
+    // the lock is in the recount; one still open has not applied its delta yet (it would
+    // hold the row) and adds it on top of the corrected totals once this commits
+    private boolean fix(String subjectType, Long subjectId, Function<Long, List<Object[]>> recount) {
+        RatingAggregate current = aggregateRepo.lockBySubject(subjectType, subjectId).orElse(null);
+
+        // rows: {stars, count}
+        long[] perStar = new long[6];
+        for (Object[] row : recount.apply(subjectId)) {
+            int stars = ((Number) row[0]).intValue();
+            if (stars >= 1 && stars <= 5) perStar[stars] = ((Number) row[1]).longValue();
+        }
+
+        long count = 0;
+        long sum = 0;
+        for (int s = 1; s <= 5; s++) {
+            count += perStar[s];
+            sum += s * perStar[s];
+        }
+        if (current != null ? matches(current, perStar) : count == 0) return false;
+
+        aggregateRepo.overwrite(subjectType, subjectId, count, sum,
+                perStar[1], perStar[2], perStar[3], perStar[4], perStar[5]);
+        return true;
+    }
+
+    private static boolean matches(RatingAggregate a, long[] perStar) {
+        long count = 0;
+        for (int s = 1; s <= 5; s++) {
+            if (a.countFor(s) != perStar[s]) return false;
+            count += perStar[s];
+        }
+        return a.getRatingCount() == count;
+    }
+
+    public record Summary(double averageRating, long totalReviews, Map<Integer, Long> starCounts) {
+
+        public static final Summary EMPTY = new Summary(0.0, 0, Map.of(5, 0L, 4, 0L, 3, 0L, 2, 0L, 1, 0L));
+
+        static Summary of(RatingAggregate a) {
+            Map<Integer, Long> stars = new HashMap<>();
+            for (int s = 1; s <= 5; s++) stars.put(s, a.countFor(s));
+            double average = a.getRatingCount() > 0
+                    ? Math.round((double) a.getStarSum() / a.getRatingCount() * 10.0) / 10.0
+                    : 0.0;
+            return new Summary(average, a.getRatingCount(), stars);
+        }
+    }
+}
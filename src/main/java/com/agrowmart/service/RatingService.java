@@ -4,9 +4,11 @@ package com.agrowmart.service;
 
 import com.agrowmart.dto.auth.rating.RatingCreateRequestDTO;
 import com.agrowmart.dto.auth.rating.RatingResponseDTO;
+import com.agrowmart.dto.auth.rating.TopRatedVendorDTO;
 import com.agrowmart.dto.auth.rating.VendorRatingSummaryDTO;
 import com.agrowmart.entity.User;
 import com.agrowmart.entity.Rating.Rating;
+import com.agrowmart.entity.Rating.RatingAggregate;
 import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.exception.AuthExceptions.AuthenticationFailedException;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
@@ -15,13 +17,14 @@ import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.RatingRepository;
 import com.agrowmart.repository.UserRepository;
 import com.agrowmart.repository.customer.CustomerRepository;
+import com.agrowmart.service.RatingAggregateService.Summary;
 
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.awt.print.Pageable;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 @Service
@@ -34,13 +37,19 @@ public class RatingService {
     private final RatingRepository ratingRepo;
     private final UserRepository userRepo;
     private final CustomerRepository customerRepo;
+    private final RatingAggregateService aggregates;
+
+    // Vendors need this many ratings before they can appear in the top-rated list
+    private static final long TOP_RATED_MIN_RATINGS = 3;
 
     public RatingService(RatingRepository ratingRepo,
                          UserRepository userRepo,
-                         CustomerRepository customerRepo) {
+                         CustomerRepository customerRepo,
+                         RatingAggregateService aggregates) {
         this.ratingRepo = ratingRepo;
         this.userRepo = userRepo;
         this.customerRepo = customerRepo;
+        this.aggregates = aggregates;
     }
 
 
@@ -63,8 +72,9 @@ public class RatingService {
         	throw new BusinessValidationException("You can only rate registered vendors");
         }
 
-        Rating rating = ratingRepo.findByRaterIdAndRatedId(customer.getId(), vendor.getId())
+        Rating rating = ratingRepo.lockByRaterIdAndRatedId(customer.getId(), vendor.getId())
                 .orElse(new Rating());
+        Integer previousStars = rating.getId() != null ? rating.getStars() : null;
 
         rating.setRater(customer);
         rating.setRated(vendor);
@@ -77,6 +87,7 @@ public class RatingService {
         rating.setUpdatedAt(new Date());
 
         rating = ratingRepo.save(rating);
+        aggregates.recordChange(RatingAggregateService.VENDOR, vendor.getId(), previousStars, rating.getStars());
         log.info("Rating {} {} stars for vendor {} by customer {}", 
                 rating.getId(), rating.getStars(), vendor.getId(), customer.getId());
         return mapToResponse(rating);
@@ -87,45 +98,32 @@ public class RatingService {
     	if (customer == null) {
             throw new AuthenticationFailedException("Customer must be authenticated to delete rating");
         }
-    	Rating rating = ratingRepo.findById(ratingId)
+    	Rating rating = ratingRepo.lockById(ratingId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rating not found with ID: " + ratingId));
 
         if (!rating.getRater().getId().equals(customer.getId())) {
             throw new ForbiddenException("You can only delete your own rating");
         }
         ratingRepo.delete(rating);
+        aggregates.recordChange(RatingAggregateService.VENDOR, rating.getRated().getId(), rating.getStars(), null);
         log.info("Rating {} deleted by customer {}", ratingId, customer.getId());
     }
 
+    @Transactional(readOnly = true)
     public VendorRatingSummaryDTO getVendorRatingSummary(Long vendorId) {
     	if (vendorId == null) {
             throw new BusinessValidationException("Vendor ID is required");
         }
-    	User vendor = userRepo.findById(vendorId)
-                .orElseThrow(() -> new ResourceNotFoundException("Vendor not found with ID: " + vendorId));
-    	
-        Double avg = ratingRepo.findAverageRatingByVendorId(vendorId);
-        Long total = ratingRepo.findTotalRatingsByVendorId(vendorId);
-        List<Rating> reviews = ratingRepo.findByRatedIdOrderByCreatedAtDesc(vendorId);
-
-        Map<Integer, Long> starCounts = new HashMap<>();
-        for (int i = 1; i <= 5; i++) starCounts.put(i, 0L);
-
-        List<Object[]> distribution = ratingRepo.findStarDistributionByVendorId(vendorId);
-        for (Object[] row : distribution) {
-            int stars = (Integer) row[0];
-            long count = (Long) row[1];
-            starCounts.put(stars, count);
+    	if (!userRepo.existsById(vendorId)) {
+            throw new ResourceNotFoundException("Vendor not found with ID: " + vendorId);
         }
 
-        List<RatingResponseDTO> reviewDTOs = reviews.stream()
+        Summary summary = aggregates.get(RatingAggregateService.VENDOR, vendorId);
+        List<RatingResponseDTO> reviewDTOs = ratingRepo.findByRatedIdOrderByCreatedAtDesc(vendorId).stream()
                 .map(this::mapToResponse)
                 .toList();
 
-        double average = avg != null ? Math.round(avg * 10.0) / 10.0 : 0.0;
-        long totalRatings = total != null ? total : 0;
-
-        return new VendorRatingSummaryDTO(average, totalRatings, starCounts, reviewDTOs);
+        return new VendorRatingSummaryDTO(summary.averageRating(), summary.totalReviews(), summary.starCounts(), reviewDTOs);
     }
 
     private RatingResponseDTO mapToResponse(Rating r) {
@@ -140,13 +138,22 @@ public class RatingService {
         );
     }
     
-    public List<VendorRatingSummaryDTO> getTopRatedVendors(int limit) {
-        Pageable pageable = (Pageable) PageRequest.of(0, limit);
-        return ratingRepo.findTopRatedVendorsLimited(pageable)
-            .stream()
-            .map(row -> {
-                Long vendorId = (Long) row[0];
-                return getVendorRatingSummary(vendorId);
+    // Index read on rating_aggregates plus one query for the vendor names
+    @Transactional(readOnly = true)
+    public List<TopRatedVendorDTO> getTopRatedVendors(int limit) {
+        List<RatingAggregate> top = aggregates.topRated(RatingAggregateService.VENDOR, TOP_RATED_MIN_RATINGS, limit);
+        if (top.isEmpty()) return List.of();
+
+        Map<Long, User> vendors = userRepo.findAllById(top.stream().map(RatingAggregate::getSubjectId).toList())
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        return top.stream()
+            .filter(a -> vendors.containsKey(a.getSubjectId()))
+            .map(a -> {
+                Summary summary = Summary.of(a);
+                return new TopRatedVendorDTO(a.getSubjectId(), vendors.get(a.getSubjectId()).getBusinessName(),
+                        summary.averageRating(), summary.totalReviews());
             })
             .toList();
     }// ──────────────────────────────────────────────
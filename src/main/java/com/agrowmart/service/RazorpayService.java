@@ -5,12 +5,14 @@ import com.agrowmart.entity.VendorPaymentDetails;
 import com.agrowmart.entity.order.Order;
 import com.agrowmart.entity.order.Payment;
 import com.agrowmart.entity.order.Settlement;
+import com.agrowmart.entity.order.VendorPayout;
 import com.agrowmart.exception.AuthExceptions.AuthenticationFailedException;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
 import com.agrowmart.repository.OrderRepository;
 import com.agrowmart.repository.PaymentRepository;
 import com.agrowmart.repository.SettlementRepository;
 import com.agrowmart.repository.VendorPaymentDetailsRepository;
+import com.agrowmart.repository.VendorPayoutRepository;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -24,6 +26,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Map;
@@ -39,6 +42,8 @@ public class RazorpayService {
     private final VendorPaymentDetailsRepository vendorPaymentDetailsRepository;
     private final SettlementRepository settlementRepository;
     private final NotificationService notificationService;
+    private final StockReservationService stockReservationService;
+    private final VendorPayoutRepository vendorPayoutRepository;
 
     // Match your properties file (add _id and _secret suffixes)
     @Value("${razorpay.key}")
@@ -50,17 +55,25 @@ public class RazorpayService {
     @Value("${razorpayx.account}")
     private String razorpayxAccountNumber;
 
+    // Overridable so settlement runs can be pointed at a local stub
+    @Value("${razorpay.api-base-url:https://api.razorpay.com}")
+    private String apiBaseUrl;
+
     public RazorpayService(
             OrderRepository orderRepository,
             PaymentRepository paymentRepository,
             VendorPaymentDetailsRepository vendorPaymentDetailsRepository,
             SettlementRepository settlementRepository,
-            NotificationService notificationService) {
+            NotificationService notificationService,
+            StockReservationService stockReservationService,
+            VendorPayoutRepository vendorPayoutRepository) {
         this.orderRepository = orderRepository;
         this.paymentRepository = paymentRepository;
         this.vendorPaymentDetailsRepository = vendorPaymentDetailsRepository;
         this.settlementRepository = settlementRepository;
         this.notificationService = notificationService;
+        this.stockReservationService = stockReservationService;
+        this.vendorPayoutRepository = vendorPayoutRepository;
     }
 
     private HttpHeaders getAuthHeaders() {
@@ -72,6 +85,10 @@ public class RazorpayService {
         return headers;
     }
 
+    /**
+     * Applies one webhook. Called by {@link WebhookEventProcessor}; a failure is thrown so the
+     * whole event rolls back and is retried, instead of being left half applied.
+     */
     @Transactional
     public void processWebhookEvent(JSONObject event) {
         if (event == null || !event.has("event")) {
@@ -80,29 +97,26 @@ public class RazorpayService {
         }
         String eventType = event.getString("event");
         log.info("Processing Razorpay webhook: {}", eventType);
-        try {
-            JSONObject payload = event.getJSONObject("payload");
-            JSONObject entity = null;
-            if (payload.has("payment")) {
-                entity = payload.getJSONObject("payment").getJSONObject("entity");
-            } else if (payload.has("payout")) {
-                entity = payload.getJSONObject("payout").getJSONObject("entity");
-            } else if (payload.has("refund")) {
-                entity = payload.getJSONObject("refund").getJSONObject("entity");
-            }
-            if (entity == null) {
-                log.warn("No entity in webhook for event: {}", eventType);
-                return;
-            }
-            switch (eventType) {
-                case "payment.captured" -> handlePaymentCaptured(entity);
-                case "payout.processed" -> handlePayoutProcessed(entity);
-                case "payout.failed" -> handlePayoutFailed(entity);
-                case "refund.processed" -> handleRefundProcessed(entity);
-                default -> log.debug("Ignored event: {}", eventType);
-            }
-        } catch (Exception e) {
-            log.error("Webhook processing failed for event {}: {}", eventType, e.getMessage(), e);
+
+        JSONObject payload = event.getJSONObject("payload");
+        JSONObject entity = null;
+        if (payload.has("payment")) {
+            entity = payload.getJSONObject("payment").getJSONObject("entity");
+        } else if (payload.has("payout")) {
+            entity = payload.getJSONObject("payout").getJSONObject("entity");
+        } else if (payload.has("refund")) {
+            entity = payload.getJSONObject("refund").getJSONObject("entity");
+        }
+        if (entity == null) {
+            log.warn("No entity in webhook for event: {}", eventType);
+            return;
+        }
+        switch (eventType) {
+            case "payment.captured" -> handlePaymentCaptured(entity);
+            case "payout.processed" -> handlePayoutProcessed(entity);
+            case "payout.failed" -> handlePayoutFailed(entity);
+            case "refund.processed" -> handleRefundProcessed(entity);
+            default -> log.debug("Ignored event: {}", eventType);
         }
     }
 
@@ -124,6 +138,7 @@ public class RazorpayService {
         if (order != null) {
             order.setPaymentStatus("SUCCESS");
             orderRepository.save(order);
+            stockReservationService.confirm(order.getId());
             notificationService.sendNotification(
                     order.getMerchant().getId(),
                     "Payment Success",
@@ -137,8 +152,19 @@ public class RazorpayService {
         String payoutId = entity.getString("id");
         log.info("Payout success: ID={}", payoutId);
 
-        Settlement settlement = settlementRepository.findByRazorpayPayoutId(payoutId).orElse(null);
-        if (settlement == null) return;
+        VendorPayout payout = findVendorPayout(entity);
+        if (payout != null) {
+            finishVendorPayout(payout, "PAID", null);
+            notificationService.sendNotification(
+                    payout.getVendorId(),
+                    "Payout Credited",
+                    "₹" + payout.getAmount() + " credited for " + payout.getOrderCount() + " orders",
+                    Map.of("type", "payout_success")
+                );
+            return;
+        }
+
+        Settlement settlement = findSettlement(entity);
 
         settlement.setStatus("PAID");
         settlement.setPayoutDate(LocalDateTime.now());
@@ -163,8 +189,19 @@ public class RazorpayService {
         String reason = entity.optString("failure_reason", "Unknown");
         log.error("Payout failed: ID={}, Reason={}", payoutId, reason);
 
-        Settlement settlement = settlementRepository.findByRazorpayPayoutId(payoutId).orElse(null);
-        if (settlement == null) return;
+        VendorPayout payout = findVendorPayout(entity);
+        if (payout != null) {
+            finishVendorPayout(payout, "FAILED", reason);
+            notificationService.sendNotification(
+                    payout.getVendorId(),
+                    "Payout Failed",
+                    "Payout failed: " + reason,
+                    Map.of("type", "payout_failed")
+                );
+            return;
+        }
+
+        Settlement settlement = findSettlement(entity);
 
         settlement.setStatus("FAILED");
         settlementRepository.save(settlement);
@@ -183,6 +220,49 @@ public class RazorpayService {
             );
     }
 
+    // The payout id is only stored once the create call returns. A webhook can arrive before
+    // that, or after a crash that lost the id, so fall back to reference_id (our idempotency key)
+    private VendorPayout findVendorPayout(JSONObject entity) {
+        String payoutId = entity.getString("id");
+        VendorPayout payout = vendorPayoutRepository.findByRazorpayPayoutId(payoutId).orElse(null);
+        if (payout != null) return payout;
+
+        String referenceId = entity.optString("reference_id", null);
+        if (referenceId == null || referenceId.isEmpty()) return null;
+        payout = vendorPayoutRepository.findByIdempotencyKey(referenceId).orElse(null);
+        if (payout != null) payout.setRazorpayPayoutId(payoutId);
+        return payout;
+    }
+
+    // Per-order payouts from the manual path use reference_id "settlement_<orderId>". Throws when
+    // nothing matches, so WebhookEventProcessor retries the event instead of dropping it
+    private Settlement findSettlement(JSONObject entity) {
+        String payoutId = entity.getString("id");
+        Settlement settlement = settlementRepository.findByRazorpayPayoutId(payoutId).orElse(null);
+        if (settlement != null) return settlement;
+
+        String referenceId = entity.optString("reference_id", "");
+        if (referenceId.startsWith("settlement_")) {
+            settlement = settlementRepository.findByOrderId(referenceId.substring("settlement_".length())).orElse(null);
+        }
+        if (settlement == null) {
+            throw new IllegalStateException("No payout or settlement found for Razorpay payout " + payoutId);
+        }
+        settlement.setRazorpayPayoutId(payoutId);
+        return settlement;
+    }
+
+    // Applies a final payout state to the payout and all of its settlement / order rows
+    private void finishVendorPayout(VendorPayout payout, String status, String reason) {
+        LocalDateTime now = LocalDateTime.now();
+        payout.setStatus(status);
+        payout.setLastError(reason);
+        payout.setUpdatedAt(now);
+        vendorPayoutRepository.save(payout);
+        settlementRepository.updateStatusByVendorPayoutId(payout.getId(), status, now);
+        orderRepository.updateSettlementStatusByVendorPayoutId(payout.getId(), status);
+    }
+
     private void handleRefundProcessed(JSONObject entity) {
         log.info("Refund processed: {}", entity.toString());
     }
@@ -276,7 +356,7 @@ public class RazorpayService {
         HttpEntity<String> entity = new HttpEntity<>(req.toString(), headers);
 
         ResponseEntity<String> response = restTemplate.exchange(
-                "https://api.razorpay.com/v1/payouts", HttpMethod.POST, entity, String.class);
+                apiBaseUrl + "/v1/payouts", HttpMethod.POST, entity, String.class);
 
         JSONObject payoutJson = new JSONObject(response.getBody());
         String payoutId = payoutJson.getString("id");
@@ -284,4 +364,41 @@ public class RazorpayService {
         log.info("Payout created: ID={}", payoutId);
         return payoutId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a payout that is safe to retry: Razorpay answers a repeated idempotency key
+     * with the payout it already created instead of paying again.
+     *
+     * @return the Razorpay payout id
+     */
+    public String createVendorPayout(String fundAccountId, BigDecimal amountInRupees, String idempotencyKey) {
+        if (fundAccountId == null || fundAccountId.isEmpty()) {
+            throw new BusinessValidationException("Fund account ID is required for payout");
+        }
+        if (amountInRupees == null || amountInRupees.signum() <= 0) {
+            throw new BusinessValidationException("Payout amount must be greater than zero");
+        }
+        log.info("Creating payout: ₹{} ({})", amountInRupees, idempotencyKey);
+
+        JSONObject req = new JSONObject();
+        req.put("account_number", razorpayxAccountNumber);
+        req.put("fund_account_id", fundAccountId);
+        req.put("amount", amountInRupees.movePointRight(2).setScale(0, java.math.RoundingMode.HALF_UP).longValueExact());
+        req.put("currency", "INR");
+        req.put("mode", "IMPS");
+        req.put("purpose", "payout");
+        req.put("reference_id", idempotencyKey);
+        req.put("narration", "AgrowMart Vendor Settlement");
+
+        HttpHeaders headers = getAuthHeaders();
+        headers.set("X-Payout-Idempotency", idempotencyKey);
+        HttpEntity<String> entity = new HttpEntity<>(req.toString(), headers);
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                apiBaseUrl + "/v1/payouts", HttpMethod.POST, entity, String.class);
+
+        String payoutId = new JSONObject(response.getBody()).getString("id");
+        log.info("Payout created: ID={}", payoutId);
+        return payoutId;
+    }
+}
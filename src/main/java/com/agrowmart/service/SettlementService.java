@@ -3,85 +3,304 @@ package com.agrowmart.service;
 import com.agrowmart.entity.VendorPaymentDetails;
 import com.agrowmart.entity.order.Order;
 import com.agrowmart.entity.order.Settlement;
+import com.agrowmart.entity.order.VendorPayout;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
 import com.agrowmart.repository.OrderRepository;
 import com.agrowmart.repository.SettlementRepository;
 import com.agrowmart.repository.VendorPaymentDetailsRepository;
+import com.agrowmart.repository.VendorPayoutRepository;
 import com.razorpay.RazorpayException;
 
-import jakarta.transaction.Transactional;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Vendor settlement.
+ *
+ * Runs in two phases:
+ * 1. Batching. Eligible orders are walked in id order, in chunks that each commit on their own.
+ *    A chunk adds every order to its vendor's open {@link VendorPayout} (one that was never
+ *    submitted; otherwise a new payout with a new key is started) and moves the order
+ *    out of settlementStatus PENDING. That status is the checkpoint: after a crash the
+ *    next run carries on with the orders that are still PENDING, and nothing is counted twice.
+ * 2. Payout. Every open payout becomes one Razorpay payout per vendor. At most
+ *    {@code settlement.payout.parallelism} calls run at once, and each carries the payout's
+ *    own idempotency key, so retrying after a timeout or crash cannot pay twice.
+ *    Before the call the payout is moved to SUBMITTING in its own transaction. From then
+ *    on its amount is fixed: batching never adds orders to it, and a send cut short by a
+ *    crash is repeated by the next run under the same key and for the same amount.
+ *
+ * The run goes through {@link JobRunner}, so only one instance settles at a time.
+ */
 @Service
 public class SettlementService {
+
+    private static final Logger log = LoggerFactory.getLogger(SettlementService.class);
+
+    private static final BigDecimal COMMISSION_RATE = new BigDecimal("0.10");   // 10%
+    private static final int MAX_PAYOUT_ATTEMPTS = 5;
+
     private final OrderRepository orderRepository;
     private final VendorPaymentDetailsRepository vendorPaymentDetailsRepository;
     private final SettlementRepository settlementRepository;
+    private final VendorPayoutRepository vendorPayoutRepository;
     private final RazorpayService razorpayService;
+    private final TransactionTemplate tx;
+    private final ExecutorService payoutPool;
+    private final JobRunner jobs;
+
+    @Value("${settlement.chunk-size:500}")
+    private int chunkSize;
 
     public SettlementService(
             OrderRepository orderRepository,
             VendorPaymentDetailsRepository vendorPaymentDetailsRepository,
             SettlementRepository settlementRepository,
-            RazorpayService razorpayService) {
+            VendorPayoutRepository vendorPayoutRepository,
+            RazorpayService razorpayService,
+            PlatformTransactionManager transactionManager,
+            JobRunner jobs,
+            @Value("${settlement.payout.parallelism:4}") int parallelism) {
         this.orderRepository = orderRepository;
         this.vendorPaymentDetailsRepository = vendorPaymentDetailsRepository;
         this.settlementRepository = settlementRepository;
+        this.vendorPayoutRepository = vendorPayoutRepository;
         this.razorpayService = razorpayService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.jobs = jobs;
+
+        AtomicInteger n = new AtomicInteger();
+        this.payoutPool = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "settlement-payout-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        payoutPool.shutdown();
     }
 
     /**
      * Daily cron job: Runs every day at 2:00 AM
-     * Processes settlements for orders delivered 7+ days ago
+     * Settles orders delivered 7+ days ago, one payout per vendor
      */
     @Scheduled(cron = "0 0 2 * * ?")
-    @Transactional
     public void processDailySettlements() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(7);
-        List<Order> eligibleOrders = orderRepository.findEligibleForSettlement(cutoff);
-        for (Order order : eligibleOrders) {
-            // Only process if payment successful and order delivered
-            if (!"SUCCESS".equals(order.getPaymentStatus()) ||
-                !"DELIVERED".equals(order.getStatus())) {
-                continue;
-            }
-            VendorPaymentDetails details = vendorPaymentDetailsRepository
-                    .findByUser(order.getMerchant())
-                    .orElse(null);
-            if (details == null || details.getRazorpayFundAccountId() == null) {
-                // Vendor not onboarded for payouts
-                continue;
+        jobs.run("daily-settlement", this::batchChunk, this::submitOpenPayouts);
+    }
+
+    // ==================== PHASE 1: BATCHING ====================
+
+    // Checkpoint: id of the last order looked at
+    private JobRunner.Chunk batchChunk(String afterId, LocalDateTime runStartedAt) {
+        LocalDateTime cutoff = runStartedAt.minusDays(7);
+        LocalDate cycle = runStartedAt.toLocalDate();
+        List<Order> orders = orderRepository.findEligibleForSettlementAfter(
+                cutoff, afterId != null ? afterId : "", PageRequest.of(0, chunkSize));
+        if (orders.isEmpty()) return JobRunner.Chunk.done();
+
+        Set<Long> vendorIds = new HashSet<>();
+        for (Order o : orders) vendorIds.add(o.getMerchant().getId());
+
+        Map<Long, String> fundAccounts = new HashMap<>();
+        for (VendorPaymentDetails d : vendorPaymentDetailsRepository.findByUserIdIn(vendorIds)) {
+            if (d.getRazorpayFundAccountId() != null) fundAccounts.put(d.getUser().getId(), d.getRazorpayFundAccountId());
+        }
+
+        Map<Long, VendorPayout> openPayouts = new HashMap<>();
+        // Locked, so a payout being moved to SUBMITTING waits for this chunk and sends its final amount
+        for (VendorPayout p : vendorPayoutRepository.lockOpenByVendorIdIn(vendorIds)) {
+            openPayouts.putIfAbsent(p.getVendorId(), p);
+        }
+
+        // Orders of one vendor, kept together so their settlement rows can point at the saved payout
+        Map<Long, List<Order>> byVendor = new LinkedHashMap<>();
+        for (Order order : orders) {
+            // Only process if payment successful
+            if (!"SUCCESS".equals(order.getPaymentStatus())) continue;
+            Long vendorId = order.getMerchant().getId();
+            // Vendor not onboarded for payouts – order stays PENDING until they are
+            if (!fundAccounts.containsKey(vendorId)) continue;
+            byVendor.computeIfAbsent(vendorId, v -> new ArrayList<>()).add(order);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Settlement> settlements = new ArrayList<>();
+        List<Order> settledOrders = new ArrayList<>();
+
+        byVendor.forEach((vendorId, vendorOrders) -> {
+            VendorPayout payout = openPayouts.get(vendorId);
+            if (payout == null) {
+                payout = new VendorPayout();
+                payout.setVendorId(vendorId);
+                payout.setCycleDate(cycle);
+                payout.setIdempotencyKey(newIdempotencyKey(vendorId, cycle));
             }
-            BigDecimal commission = order.getTotalPrice().multiply(BigDecimal.valueOf(0.10)); // 10%
-            BigDecimal payoutAmount = order.getTotalPrice().subtract(commission);
-            try {
-                String payoutId = razorpayService.createPayout(
-                        details.getRazorpayFundAccountId(),
-                        payoutAmount.doubleValue(),
-                        order.getId()
-                );
+
+            BigDecimal amount = payout.getAmount();
+            BigDecimal commission = payout.getCommission();
+            List<Settlement> rows = new ArrayList<>();
+            for (Order order : vendorOrders) {
+                BigDecimal orderCommission = order.getTotalPrice().multiply(COMMISSION_RATE).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal orderPayout = order.getTotalPrice().subtract(orderCommission);
+                amount = amount.add(orderPayout);
+                commission = commission.add(orderCommission);
+
                 Settlement settlement = new Settlement();
                 settlement.setOrderId(order.getId());
-                settlement.setVendorId(order.getMerchant().getId());
-                settlement.setPayoutAmount(payoutAmount.doubleValue());
-                settlement.setRazorpayPayoutId(payoutId);
+                settlement.setVendorId(vendorId);
+                settlement.setPayoutAmount(orderPayout.doubleValue());
                 settlement.setStatus("PROCESSING");
-                settlement.setPayoutDate(LocalDateTime.now());
-                settlementRepository.save(settlement);
+                rows.add(settlement);
+
                 order.setSettlementStatus("PROCESSING");
-                orderRepository.save(order);
-            } catch (RazorpayException e) {
-                System.err.println("Razorpay payout failed for order " + order.getId() + ": " + e.getMessage());
-                e.printStackTrace();
-                // Optionally notify admin
+                settledOrders.add(order);
+            }
+            payout.setAmount(amount);
+            payout.setCommission(commission);
+            payout.setOrderCount(payout.getOrderCount() + vendorOrders.size());
+            payout.setUpdatedAt(now);
+            payout = vendorPayoutRepository.save(payout);
+
+            for (Settlement row : rows) row.setVendorPayoutId(payout.getId());
+            settlements.addAll(rows);
+        });
+
+        settlementRepository.saveAll(settlements);
+        orderRepository.saveAll(settledOrders);
+        return new JobRunner.Chunk(orders.get(orders.size() - 1).getId(), settledOrders.size());
+    }
+
+    // ==================== PHASE 2: PAYOUTS ====================
+
+    private void submitOpenPayouts() {
+        // SUBMITTING rows are sends a crash cut short; repeating them under the same key is safe
+        List<VendorPayout> open = vendorPayoutRepository.findByStatusInOrderByIdAsc(List.of("PENDING", "SUBMITTING"));
+        if (open.isEmpty()) return;
+
+        Set<Long> vendorIds = new HashSet<>();
+        for (VendorPayout p : open) vendorIds.add(p.getVendorId());
+        Map<Long, String> fundAccounts = new HashMap<>();
+        for (VendorPaymentDetails d : vendorPaymentDetailsRepository.findByUserIdIn(vendorIds)) {
+            if (d.getRazorpayFundAccountId() != null) fundAccounts.put(d.getUser().getId(), d.getRazorpayFundAccountId());
+        }
+
+        List<Future<?>> running = new ArrayList<>(open.size());
+        for (VendorPayout payout : open) {
+            running.add(payoutPool.submit(() -> submitPayout(payout.getId(), fundAccounts.get(payout.getVendorId()))));
+        }
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             } catch (Exception e) {
-                System.err.println("Unexpected error during settlement for order " + order.getId() + ": " + e.getMessage());
-                e.printStackTrace();
+                log.error("Settlement payout task failed: {}", e.getMessage(), e);
+            }
+        }
+        log.info("Settlement: {} vendor payouts submitted", open.size());
+    }
+
+    private void submitPayout(Long payoutRowId, String fundAccountId) {
+        // Committed before the call, so the amount sent is the amount stored, whatever happens next
+        VendorPayout payout = tx.execute(status -> claimForSubmission(payoutRowId));
+        if (payout == null) return;
+
+        String payoutId = null;
+        String error = null;
+        boolean retryable = true;
+        try {
+            if (fundAccountId == null) {
+                error = "Vendor has no fund account";
+                retryable = false;
+            } else {
+                payoutId = razorpayService.createVendorPayout(fundAccountId, payout.getAmount(), payout.getIdempotencyKey());
             }
+        } catch (BusinessValidationException e) {
+            // Rejected before any call (e.g. amount <= 0): the same payout would be rejected again
+            error = e.getMessage();
+            retryable = false;
+        } catch (HttpClientErrorException e) {
+            // 4xx other than rate limiting will not succeed on retry
+            error = e.getStatusCode() + " " + e.getResponseBodyAsString();
+            retryable = e.getStatusCode().value() == 429;
+        } catch (Exception e) {
+            error = e.getMessage();
         }
+
+        String finalPayoutId = payoutId;
+        String finalError = error;
+        boolean finalRetryable = retryable;
+        tx.executeWithoutResult(status -> recordSubmission(payout.getId(), finalPayoutId, finalError, finalRetryable));
+    }
+
+    // Null when the payout is no longer open (already sent, paid or failed in the meantime)
+    private VendorPayout claimForSubmission(Long payoutRowId) {
+        if (vendorPayoutRepository.markSubmitting(payoutRowId, LocalDateTime.now()) == 0) return null;
+        return vendorPayoutRepository.findById(payoutRowId).orElse(null);
+    }
+
+    private void recordSubmission(Long payoutRowId, String payoutId, String error, boolean retryable) {
+        VendorPayout payout = vendorPayoutRepository.lockById(payoutRowId).orElse(null);
+        // A payout webhook that overtook this call has already settled the row
+        if (payout == null || !"SUBMITTING".equals(payout.getStatus())) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        payout.setUpdatedAt(now);
+
+        if (payoutId != null) {
+            // Webhook (payout.processed / payout.failed) moves it on from here
+            payout.setStatus("PROCESSING");
+            payout.setRazorpayPayoutId(payoutId);
+            payout.setLastError(null);
+            vendorPayoutRepository.save(payout);
+            return;
+        }
+
+        payout.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        if (retryable && payout.getAttempts() < MAX_PAYOUT_ATTEMPTS) {
+            // Back to PENDING: the next run retries with the same idempotency key
+            payout.setStatus("PENDING");
+            vendorPayoutRepository.save(payout);
+            log.warn("Payout {} for vendor {} failed (attempt {}), will retry: {}",
+                    payout.getId(), payout.getVendorId(), payout.getAttempts(), error);
+            return;
+        }
+
+        payout.setStatus("FAILED");
+        vendorPayoutRepository.save(payout);
+        settlementRepository.updateStatusByVendorPayoutId(payout.getId(), "FAILED", now);
+        orderRepository.updateSettlementStatusByVendorPayoutId(payout.getId(), "FAILED");
+        log.error("Payout {} for vendor {} failed: {}", payout.getId(), payout.getVendorId(), error);
+    }
+
+    private static String newIdempotencyKey(Long vendorId, LocalDate cycle) {
+        // Unique per payout attempt series; Razorpay limits reference_id to 40 chars
+        String random = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        return "stl_" + vendorId + "_" + cycle.toString().replace("-", "") + "_" + random;
     }
 
     // ==================== ADMIN METHODS ====================
@@ -98,10 +317,18 @@ public class SettlementService {
                 .orElseThrow(() -> new RuntimeException("Vendor wallet not found"));
     }
 
-    @Transactional
+    /**
+     * Admin retry of one settlement. Runs outside any transaction, like the batch payout: the
+     * Razorpay call must not hold locks on the settlement or payout rows while it waits.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void manualPayout(Long settlementId) {
         Settlement settlement = settlementRepository.findById(settlementId)
                 .orElseThrow(() -> new RuntimeException("Settlement not found"));
+        if (settlement.getVendorPayoutId() != null) {
+            retryVendorPayout(settlement.getVendorPayoutId());
+            return;
+        }
         Order order = orderRepository.findById(settlement.getOrderId())
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         VendorPaymentDetails details = vendorPaymentDetailsRepository
@@ -115,16 +342,46 @@ public class SettlementService {
                     payoutAmount.doubleValue(),
                     order.getId()
             );
+        } catch (RazorpayException e) {
+            throw new RuntimeException("Manual payout failed due to Razorpay error: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Unexpected error during manual payout: " + e.getMessage(), e);
+        }
+        tx.executeWithoutResult(status -> {
             settlement.setRazorpayPayoutId(payoutId);
             settlement.setStatus("PROCESSING");
             settlement.setPayoutDate(LocalDateTime.now());
             settlementRepository.save(settlement);
             order.setSettlementStatus("PROCESSING");
             orderRepository.save(order);
-        } catch (RazorpayException e) {
-            throw new RuntimeException("Manual payout failed due to Razorpay error: " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new RuntimeException("Unexpected error during manual payout: " + e.getMessage(), e);
-        }
+        });
+    }
+
+    /**
+     * Re-sends a FAILED aggregated payout under a fresh idempotency key
+     * (the old key would only return the failed payout again).
+     */
+    private void retryVendorPayout(Long vendorPayoutId) {
+        VendorPayout payout = tx.execute(status -> {
+            VendorPayout p = vendorPayoutRepository.findById(vendorPayoutId)
+                    .orElseThrow(() -> new RuntimeException("Vendor payout not found"));
+            if ("PAID".equals(p.getStatus()) || "PROCESSING".equals(p.getStatus()) || "SUBMITTING".equals(p.getStatus())) {
+                throw new RuntimeException("Payout is already " + p.getStatus());
+            }
+            if ("FAILED".equals(p.getStatus())) {
+                p.setIdempotencyKey(newIdempotencyKey(p.getVendorId(), LocalDate.now()));
+                p.setAttempts(0);
+            }
+            p.setStatus("PENDING");
+            p.setUpdatedAt(LocalDateTime.now());
+            settlementRepository.updateStatusByVendorPayoutId(p.getId(), "PROCESSING", null);
+            orderRepository.updateSettlementStatusByVendorPayoutId(p.getId(), "PROCESSING");
+            return vendorPayoutRepository.save(p);
+        });
+
+        String fundAccountId = vendorPaymentDetailsRepository.findByUserId(payout.getVendorId())
+                .map(VendorPaymentDetails::getRazorpayFundAccountId)
+                .orElse(null);
+        submitPayout(payout.getId(), fundAccountId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Shop;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the shop-derived caches in step whenever a shop is created, edited, approved /
+ * blocked or deleted – from any service: drops the cached public catalog responses that
+ * embed shop data, and moves the shop in {@link ShopGeoIndex}. The delivered-order
+ * counter is bumped by a bulk update that does not pass through here; the popular-shop
+ * lists pick that up when their TTL runs out.
+ */
+@Component
+public class ShopCacheListener {
+
+    private final PublicCatalogCache publicCache;
+    private final NearbyService nearby;
+
+    public ShopCacheListener(PublicCatalogCache publicCache, NearbyService nearby) {
+        this.publicCache = publicCache;
+        this.nearby = nearby;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Shop shop) {
+        publicCache.shopChanged();
+        nearby.shopChanged(shop, false);
+    }
+
+    @PostRemove
+    public void onRemove(Shop shop) {
+        publicCache.shopChanged();
+        nearby.shopChanged(shop, true);
+    }
+}
@@ -0,0 +1,179 @@
+package com.agrowmart.service;
+
+import com.agrowmart.util.GeoHash;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process spatial index of the shops customers can order from (approved, active, with
+ * coordinates).
+ *
+ * Shops are bucketed by their geohash cell at {@link #PRECISION} (about 4.9 x 4.9 km) in a
+ * sorted map, so any coarser cell is a prefix range scan. A radius query covers the circle
+ * with at most {@link #MAX_QUERY_CELLS} cells of the finest precision that allows it, then
+ * measures only the shops in those cells: the work depends on how many shops are nearby,
+ * not on how many shops there are.
+ */
+@Component
+public class ShopGeoIndex {
+
+    static final int PRECISION = 5;
+    private static final int MAX_QUERY_CELLS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, List<Point>> cells = new TreeMap<>();
+    private Map<Long, Point> byShop = new HashMap<>();
+    // Changes applied while a rebuild reads the DB, replayed over its result (the read may
+    // predate them); null when no rebuild is running
+    private List<Change> changedDuringRebuild;
+
+    public void upsert(Point point) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(point.shopId(), point));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long shopId) {
+        lock.writeLock().lock();
+        try {
+            apply(new Change(shopId, null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds from a full read of the DB. Upserts and removes that arrive while {@code load}
+     * runs go to the current index as usual and are replayed over the new one, so a shop saved
+     * after the read saw its row is not reverted until the next rebuild.
+     */
+    public void rebuild(Supplier<? extends Collection<Point>> load) {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Collection<Point> points;
+        try {
+            points = load.get();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        replaceAll(points);
+    }
+
+    /**
+     * Swaps in a freshly built index. Building happens outside the lock, so queries keep running.
+     * Changes recorded since {@link #rebuild} started are replayed over it.
+     */
+    public void replaceAll(Collection<Point> points) {
+        NavigableMap<String, List<Point>> newCells = new TreeMap<>();
+        Map<Long, Point> newByShop = new HashMap<>();
+        for (Point p : points) {
+            addInternal(p, newCells, newByShop);
+        }
+
+        lock.writeLock().lock();
+        try {
+            cells = newCells;
+            byShop = newByShop;
+            List<Change> replay = changedDuringRebuild;
+            changedDuringRebuild = null;
+            if (replay != null) replay.forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void apply(Change change) {
+        removeInternal(change.shopId());
+        if (change.point() != null) addInternal(change.point(), cells, byShop);
+        if (changedDuringRebuild != null) changedDuringRebuild.add(change);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byShop.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Shops within radiusKm of the point, nearest first, at most limit of them. */
+    public List<Hit> nearest(double latitude, double longitude, double radiusKm, int limit) {
+        int precision = GeoHash.coveringPrecision(latitude, radiusKm, PRECISION, MAX_QUERY_CELLS);
+        Set<String> queryCells = GeoHash.coveringCells(latitude, longitude, radiusKm, precision);
+
+        // Max-heap on distance holding the best `limit` so far
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::distanceKm).reversed());
+        lock.readLock().lock();
+        try {
+            for (String cell : queryCells) {
+                // Every index cell starting with this (possibly coarser) cell
+                for (List<Point> bucket : cells.subMap(cell, true, cell + Character.MAX_VALUE, false).values()) {
+                    for (Point p : bucket) {
+                        double d = GeoHash.distanceKm(latitude, longitude, p.latitude(), p.longitude());
+                        if (d > radiusKm) continue;
+                        if (best.size() < limit) {
+                            best.add(new Hit(p.shopId(), p.merchantId(), d));
+                        } else if (d < best.peek().distanceKm()) {
+                            best.poll();
+                            best.add(new Hit(p.shopId(), p.merchantId(), d));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::shopId));
+        return result;
+    }
+
+    // ─────────────────────────────────────────────
+
+    private void removeInternal(Long shopId) {
+        Point old = byShop.remove(shopId);
+        if (old == null) return;
+        String cell = cellOf(old);
+        List<Point> bucket = cells.get(cell);
+        if (bucket == null) return;
+        bucket.removeIf(p -> p.shopId().equals(shopId));
+        if (bucket.isEmpty()) cells.remove(cell);
+    }
+
+    private static void addInternal(Point p, NavigableMap<String, List<Point>> cells, Map<Long, Point> byShop) {
+        cells.computeIfAbsent(cellOf(p), c -> new ArrayList<>()).add(p);
+        byShop.put(p.shopId(), p);
+    }
+
+    private static String cellOf(Point p) {
+        return GeoHash.encode(p.latitude(), p.longitude(), PRECISION);
+    }
+
+    public record Point(Long shopId, Long merchantId, double latitude, double longitude) {}
+
+    public record Hit(Long shopId, Long merchantId, double distanceKm) {}
+
+    // A point of null is a removal
+    private record Change(Long shopId, Point point) {}
+}
@@ -0,0 +1,139 @@
+package com.agrowmart.service;
+
+import com.agrowmart.dto.auth.shop.WorkingHourDTO;
+import com.agrowmart.entity.Shop;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Open / closed status of a shop from its {@code workingHoursJson}.
+ *
+ * The JSON is compiled once per shop into sorted [open, close] ranges measured in
+ * seconds from Monday 00:00 (IST). An overnight range such as FRIDAY 22:00–02:00 is
+ * split into Friday 22:00–24:00 and Saturday 00:00–02:00. After that, a lookup is a
+ * short array scan with no parsing and no allocation.
+ *
+ * Entries remember the JSON they were built from, so a shop whose hours changed
+ * (here or on another instance) is recompiled on its next lookup; {@link #evict(Long)}
+ * drops it straight away.
+ */
+@Component
+public class ShopScheduleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ShopScheduleCache.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Asia/Kolkata has been UTC+05:30 with no DST since 1945
+    private static final int IST_OFFSET_SECONDS = 5 * 3600 + 30 * 60;
+    private static final int SECONDS_PER_DAY = 24 * 3600;
+    private static final int SECONDS_PER_WEEK = 7 * SECONDS_PER_DAY;
+
+    private static final int[] CLOSED = new int[0];
+
+    private final Map<Long, Compiled> cache = new ConcurrentHashMap<>();
+
+    public boolean isOpen(Shop shop) {
+        return isOpen(shop, System.currentTimeMillis());
+    }
+
+    public boolean isOpen(Shop shop, long epochMillis) {
+        if (shop == null) return false;
+        int[] ranges = rangesFor(shop);
+        if (ranges.length == 0) return false;
+
+        int now = secondOfWeek(epochMillis);
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (now < ranges[i]) return false;       // sorted: nothing later can match
+            if (now <= ranges[i + 1]) return true;
+        }
+        return false;
+    }
+
+    public void evict(Long shopId) {
+        if (shopId != null) cache.remove(shopId);
+    }
+
+    // ─────────────────────────────────────────────
+
+    private int[] rangesFor(Shop shop) {
+        String json = shop.getWorkingHoursJson();
+        if (shop.getId() == null) return compile(shop.getId(), json);
+
+        Compiled c = cache.get(shop.getId());
+        if (c == null || !sameSource(c.source(), json)) {
+            c = new Compiled(json, compile(shop.getId(), json));
+            cache.put(shop.getId(), c);
+        }
+        return c.ranges();
+    }
+
+    private static boolean sameSource(String cached, String current) {
+        return cached == null ? current == null : cached.equals(current);
+    }
+
+    static int[] compile(Long shopId, String json) {
+        if (json == null || json.isBlank()) return CLOSED;
+
+        List<WorkingHourDTO> hours;
+        try {
+            hours = MAPPER.readValue(json, new TypeReference<List<WorkingHourDTO>>() {});
+        } catch (JsonProcessingException e) {
+            log.warn("Invalid working hours JSON for shop {}: {}", shopId, e.getMessage());
+            return CLOSED;
+        }
+
+        List<int[]> ranges = new ArrayList<>();
+        for (WorkingHourDTO h : hours) {
+            if (h.getDay() == null || h.getOpen() == null || h.getClose() == null
+                    || h.getOpen().isBlank() || h.getClose().isBlank()) {
+                continue;
+            }
+            try {
+                int dayStart = (DayOfWeek.valueOf(h.getDay().trim().toUpperCase(Locale.ROOT)).getValue() - 1) * SECONDS_PER_DAY;
+                int open = LocalTime.parse(h.getOpen().trim()).toSecondOfDay();
+                int close = LocalTime.parse(h.getClose().trim()).toSecondOfDay();
+
+                if (close > open) {
+                    ranges.add(new int[]{dayStart + open, dayStart + close});
+                } else {
+                    // Overnight: rest of this day, then the start of the next (Sunday wraps to Monday)
+                    ranges.add(new int[]{dayStart + open, dayStart + SECONDS_PER_DAY - 1});
+                    int nextDay = (dayStart + SECONDS_PER_DAY) % SECONDS_PER_WEEK;
+                    ranges.add(new int[]{nextDay, nextDay + close});
+                }
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                log.warn("Skipping bad working hours entry for shop {}: {}", shopId, e.getMessage());
+            }
+        }
+        if (ranges.isEmpty()) return CLOSED;
+
+        ranges.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] flat = new int[ranges.size() * 2];
+        for (int i = 0; i < ranges.size(); i++) {
+            flat[2 * i] = ranges.get(i)[0];
+            flat[2 * i + 1] = ranges.get(i)[1];
+        }
+        return flat;
+    }
+
+    // Seconds since Monday 00:00 IST; 1970-01-01 was a Thursday (3 days after a Monday)
+    static int secondOfWeek(long epochMillis) {
+        long local = Math.floorDiv(epochMillis, 1000L) + IST_OFFSET_SECONDS + 3L * SECONDS_PER_DAY;
+        return (int) Math.floorMod(local, (long) SECONDS_PER_WEEK);
+    }
+
+    private record Compiled(String source, int[] ranges) {}
+}
@@ -6,7 +6,6 @@ import com.agrowmart.dto.auth.shop.ShopRequest;
 import com.agrowmart.dto.auth.shop.ShopResponse;
 import com.agrowmart.dto.auth.shop.ShopSearchDTO;
 import com.agrowmart.dto.auth.shop.ShopSummaryDTO;
-import com.agrowmart.dto.auth.shop.WorkingHourDTO;
 import com.agrowmart.entity.Shop;
 import com.agrowmart.entity.User;
 import com.agrowmart.exception.AuthExceptions.AuthenticationFailedException;
@@ -15,12 +14,15 @@ import com.agrowmart.exception.AuthExceptions.FileUploadException;
 import com.agrowmart.exception.ForbiddenException;
 import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.ShopRepository;
+import com.agrowmart.util.GeoHash;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -28,12 +30,11 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.data.domain.Pageable;
 
 import java.io.IOException;
-import java.time.LocalDate;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import org.slf4j.Logger;
@@ -45,12 +46,24 @@ public class ShopService {
 	private static final Logger log = LoggerFactory.getLogger(ShopService.class);
  private final ShopRepository shopRepository;
  private final CloudinaryService cloudinaryService; // ✅ ONLY cloudinary
+ private final ShopScheduleCache shopSchedules;
+ private final PublicCatalogCache publicCache;
+ private final ImageUploadPipeline images;
+ private final JobRunner jobs;
  
 // ✅ MANUAL CONSTRUCTOR (REQUIRED)
  public ShopService(ShopRepository shopRepository,
-                    CloudinaryService cloudinaryService) {
+                    CloudinaryService cloudinaryService,
+                    ShopScheduleCache shopSchedules,
+                    PublicCatalogCache publicCache,
+                    ImageUploadPipeline images,
+                    JobRunner jobs) {
      this.shopRepository = shopRepository;
      this.cloudinaryService = cloudinaryService;
+     this.shopSchedules = shopSchedules;
+     this.publicCache = publicCache;
+     this.images = images;
+     this.jobs = jobs;
  }
 
  
@@ -86,11 +99,13 @@ public class ShopService {
 
      shop.setOpensAt(req.opensAt());
      shop.setClosesAt(req.closesAt());
+     applyLocation(shop, req.latitude(), req.longitude());
 
-     // ✅ CLOUDINARY UPLOAD
-     shop.setShopPhoto(uploadIfPresent(req.shopPhoto()));
-     shop.setShopCoverPhoto(uploadIfPresent(req.shopCoverPhoto()));
-     shop.setShopLicensePhoto(uploadIfPresent(req.shopLicensePhoto()));
+     // ✅ CLOUDINARY UPLOAD (the three photos in parallel)
+     List<String> photos = images.uploadEach(req.shopPhoto(), req.shopCoverPhoto(), req.shopLicensePhoto());
+     shop.setShopPhoto(photos.get(0));
+     shop.setShopCoverPhoto(photos.get(1));
+     shop.setShopLicensePhoto(photos.get(2));
      log.info("Shop created successfully for user {} → Shop ID: {}", user.getId(), shop.getId());
      return shopRepository.save(shop);
  }
@@ -118,6 +133,7 @@ public class ShopService {
 
      shop.setOpensAt(req.opensAt());
      shop.setClosesAt(req.closesAt());
+     applyLocation(shop, req.latitude(), req.longitude());
 
   // ── Working hours JSON ────────────────────────────────
      if (req.workingHoursJson() != null && !req.workingHoursJson().trim().isEmpty()) {
@@ -131,31 +147,26 @@ public class ShopService {
          }
      }
      
-     // ✅ Replace image only if new one is provided
-     if (req.shopPhoto() != null && !req.shopPhoto().isEmpty()) {
-         if (shop.getShopPhoto() != null) {
-             cloudinaryService.delete(shop.getShopPhoto());
-         }
-         shop.setShopPhoto(uploadIfPresent(req.shopPhoto()));
+     // ✅ Replace image only if new one is provided; the old one is deleted after commit
+     List<String> photos = images.uploadEach(req.shopPhoto(), req.shopCoverPhoto(), req.shopLicensePhoto());
+     List<String> replaced = new ArrayList<>();
+     if (photos.get(0) != null) {
+         replaced.add(shop.getShopPhoto());
+         shop.setShopPhoto(photos.get(0));
      }
-
- 
-     
-     if (req.shopCoverPhoto() != null && !req.shopCoverPhoto().isEmpty()) {
-         if (shop.getShopCoverPhoto() != null) {
-             cloudinaryService.delete(shop.getShopCoverPhoto());
-         }
-         shop.setShopCoverPhoto(uploadIfPresent(req.shopCoverPhoto()));
+     if (photos.get(1) != null) {
+         replaced.add(shop.getShopCoverPhoto());
+         shop.setShopCoverPhoto(photos.get(1));
      }
-
-     if (req.shopLicensePhoto() != null && !req.shopLicensePhoto().isEmpty()) {
-         if (shop.getShopLicensePhoto() != null) {
-             cloudinaryService.delete(shop.getShopLicensePhoto());
-         }
-         shop.setShopLicensePhoto(uploadIfPresent(req.shopLicensePhoto()));
+     if (photos.get(2) != null) {
+         replaced.add(shop.getShopLicensePhoto());
+         shop.setShopLicensePhoto(photos.get(2));
      }
+     images.discardAfterCommit(replaced);
      log.info("Shop updated successfully → Shop ID: {}", shop.getId());
-     return shopRepository.save(shop);
+     Shop saved = shopRepository.save(shop);
+     shopSchedules.evict(saved.getId());
+     return saved;
  }
  
 // ===================== DELETE MY SHOP =====================
@@ -200,7 +211,7 @@ public class ShopService {
          return null;
      }
      try {
-         return cloudinaryService.upload(file);
+         return images.uploadOne(file);
      } catch (FileUploadException e) {
          throw e;
      } catch (Exception e) {
@@ -256,7 +267,9 @@ public class ShopService {
              u.getRole().getName(),
              u.getPhotoUrl(),
              s.getOpensAt(),
-             s.getClosesAt()
+             s.getClosesAt(),
+             s.getLatitude(),
+             s.getLongitude()
      );
  }
 
@@ -268,19 +281,21 @@ public class ShopService {
 //Add these methods to your existing ShopService class
 
 public List<ShopResponse> getPopularShops() {
-  return shopRepository.findPopularShops()
-      .stream()
-      .limit(20)
-      .map(this::toResponse)
-      .toList();
+  return publicCache.popularShops(20, () -> getPopularShopsPaginated(0, 20));
 }
 
 public List<ShopResponse> getTop10PopularShops() {
-  return shopRepository.findPopularShops()
-      .stream()
-      .limit(10)
-      .map(this::toResponse)
-      .toList();
+  return publicCache.popularShops(10, () -> getPopularShopsPaginated(0, 10));
+}
+
+// Recount of the delivered-order counters, nightly and once at startup
+// (fills the column after it is first added, and covers missed increments / manual DB fixes).
+// Once across the cluster: during a rolling deploy only the first instance to start recounts
+@EventListener(ApplicationReadyEvent.class)
+@Scheduled(cron = "${shop.popularity.reconcile-cron:0 30 3 * * *}", zone = "Asia/Kolkata")
+public void reconcilePopularityCounters() {
+  jobs.run("shop-popularity-reconcile", Duration.ofHours(1),
+          (checkpoint, runStartedAt) -> new JobRunner.Chunk(null, shopRepository.reconcileDeliveredOrderCounts()));
 }
 
 
@@ -311,24 +326,38 @@ public Shop createOrUpdateShop(ShopRequest req, User user) throws IOException {
     if (req.shopLicense()     != null) shop.setShopLicense(req.shopLicense());
     if (req.opensAt()         != null) shop.setOpensAt(req.opensAt());
     if (req.closesAt()        != null) shop.setClosesAt(req.closesAt());
+    applyLocation(shop, req.latitude(), req.longitude());
 
     // Images — replace only if sent
     if (req.shopPhoto() != null && !req.shopPhoto().isEmpty()) {
-        if (shop.getShopPhoto() != null) cloudinaryService.delete(shop.getShopPhoto());
-        shop.setShopPhoto(cloudinaryService.upload(req.shopPhoto()));
+        String oldPhoto = shop.getShopPhoto();
+        shop.setShopPhoto(uploadIfPresent(req.shopPhoto()));
+        if (oldPhoto != null) images.discardAfterCommit(List.of(oldPhoto));
     }
     // same for cover & license photo...
 
-    return shopRepository.save(shop);
+    Shop saved = shopRepository.save(shop);
+    shopSchedules.evict(saved.getId());
+    return saved;
+}
+
+// Both or neither; a request without coordinates keeps the stored location
+private void applyLocation(Shop shop, Double latitude, Double longitude) {
+    if (latitude == null && longitude == null) return;
+    if (!GeoHash.isValid(latitude, longitude)) {
+        throw new BusinessValidationException("Shop location needs a latitude (-90 to 90) and a longitude (-180 to 180)");
+    }
+    shop.setLatitude(latitude);
+    shop.setLongitude(longitude);
 }
 
-private ShopSummaryDTO toSummary(Shop shop) {
+ShopSummaryDTO toSummary(Shop shop) {
 
     if (shop == null) {
         return null;
     }
 
-    Boolean open = isShopOpenFromWorkingHours(shop);
+    Boolean open = shopSchedules.isOpen(shop);
 
     return new ShopSummaryDTO(
             shop.getId(),                         // Long shopId
@@ -342,95 +371,6 @@ private ShopSummaryDTO toSummary(Shop shop) {
             open                                  // Boolean open
     );
 }
-private Boolean isShopOpenFromWorkingHours(Shop shop) {
-    if (shop == null || shop.getWorkingHoursJson() == null || shop.getWorkingHoursJson().trim().isEmpty()) {
-        System.out.println("Shop " + (shop != null ? shop.getId() : "null") + " has no working hours JSON");
-        return false;
-    }
-
-    try {
-        ObjectMapper mapper = new ObjectMapper();
-        List<WorkingHourDTO> hours = mapper.readValue(
-                shop.getWorkingHoursJson(),
-                new TypeReference<List<WorkingHourDTO>>() {}
-        );
-
-        if (hours.isEmpty()) {
-            System.out.println("Shop " + shop.getId() + " has empty working hours list");
-            return false;
-        }
-
-        String today = LocalDate.now(ZoneId.of("Asia/Kolkata"))
-                .getDayOfWeek()
-                .name();  // MONDAY, TUESDAY, ...
-
-        LocalTime now = LocalTime.now(ZoneId.of("Asia/Kolkata"));
-
-        // Debug info (you can switch to proper logger later)
-        System.out.println("Shop ID: " + shop.getId() +
-                " | Today: " + today +
-                " | Current time: " + now);
-
-        System.out.println("Working hours JSON: " + shop.getWorkingHoursJson());
-
-        for (WorkingHourDTO h : hours) {
-            String storedDay = h.getDay();
-            if (storedDay == null || storedDay.trim().isEmpty()) {
-                continue;
-            }
-
-            String normalizedDay = storedDay.trim().toUpperCase();
-
-            System.out.println("  Checking day: " + storedDay + " → normalized: " + normalizedDay);
-
-            if (today.equals(normalizedDay)) {
-                String openStr = h.getOpen();
-                String closeStr = h.getClose();
-
-                if (openStr == null || closeStr == null || openStr.trim().isEmpty() || closeStr.trim().isEmpty()) {
-                    System.out.println("  Invalid time format for " + normalizedDay);
-                    continue;
-                }
-
-                LocalTime openTime = LocalTime.parse(openStr.trim());
-                LocalTime closeTime = LocalTime.parse(closeStr.trim());
-
-                System.out.println("  → Found matching day: " + normalizedDay +
-                        " | Open: " + openTime +
-                        " | Close: " + closeTime +
-                        " | Now: " + now);
-
-                // Normal opening hours (open < close)
-                if (closeTime.isAfter(openTime)) {
-                    boolean isOpen = !now.isBefore(openTime) && !now.isAfter(closeTime);
-                    System.out.println("  → Normal hours → isOpen = " + isOpen);
-                    return isOpen;
-                }
-                // Overnight hours (e.g. 22:00 – 06:00)
-                else {
-                    boolean isOpen = !now.isBefore(openTime) || !now.isAfter(closeTime);
-                    System.out.println("  → Overnight hours → isOpen = " + isOpen);
-                    return isOpen;
-                }
-            }
-        }
-
-        System.out.println("No matching day found for shop " + shop.getId() + " (today is " + today + ")");
-        return false;
-
-    } catch (JsonProcessingException e) {
-        System.err.println("Invalid JSON format for shop " + shop.getId() + ": " + e.getMessage());
-        return false;
-    } catch (DateTimeParseException e) {
-        System.err.println("Time parsing error for shop " + shop.getId() + ": " + e.getMessage());
-        return false;
-    } catch (Exception e) {
-        System.err.println("Unexpected error checking shop " + shop.getId() + ": " + e.getMessage());
-        e.printStackTrace();
-        return false;
-    }
-}
-
 // ===================== SEARCH =====================
 public Page<ShopSummaryDTO> searchShops(ShopSearchDTO filter) {
 
@@ -0,0 +1,182 @@
+package com.agrowmart.service;
+
+import com.agrowmart.repository.OrderIdNodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order ids: {@code ORD-} + 19 zero-padded digits of
+ * [41 bits ms since 2025-01-01 | 10 bits node | 12 bits sequence].
+ *
+ * Fixed width keeps string order equal to numeric order, so new rows are appended
+ * at the end of the {@code orders} primary key instead of landing at random pages.
+ *
+ * Up to 4096 ids per millisecond per node. Past that, or when the wall clock steps
+ * back, the generator keeps counting on its own last timestamp (running slightly
+ * ahead of the clock) rather than blocking or repeating an id.
+ *
+ * The node id is {@code order.id.node-id} when set. Otherwise the instance leases a free
+ * one from {@code order_id_nodes} at startup and renews the lease while it runs; it stops
+ * issuing ids before the lease could run out, so no two running instances share a node id.
+ */
+@Component
+public class SnowflakeOrderIdGenerator implements OrderIdGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeOrderIdGenerator.class);
+
+    static final String PREFIX = "ORD-";
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+
+    private final OrderIdNodeRepository nodeRepo;
+    private final TransactionTemplate tx;
+    private final long leaseMillis;
+    private final String holder;
+    // Node id in use and the time (epoch ms) after which it must no longer be used
+    private volatile NodeLease lease;
+    // (ms since EPOCH << SEQUENCE_BITS) | sequence of the last issued id; +1 carries into the next ms
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderIdGenerator(OrderIdNodeRepository nodeRepo,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${order.id.node-id:-1}") long nodeId,
+                                     @Value("${order.id.lease-seconds:600}") long leaseSeconds) {
+        this.nodeRepo = nodeRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.leaseMillis = leaseSeconds * 1000;
+        this.holder = holderName();
+        this.lease = nodeId >= 0 ? new NodeLease(checkNode(nodeId), Long.MAX_VALUE) : acquire(preferredNode());
+    }
+
+    // Fixed node id, no lease
+    SnowflakeOrderIdGenerator(long nodeId) {
+        this.nodeRepo = null;
+        this.tx = null;
+        this.leaseMillis = 0;
+        this.holder = null;
+        this.lease = new NodeLease(checkNode(nodeId), Long.MAX_VALUE);
+    }
+
+    @Override
+    public String nextId() {
+        NodeLease current = lease;
+        long clock = System.currentTimeMillis();
+        if (clock >= current.validUntil()) {
+            throw new IllegalStateException("Order id node " + current.node() + " lease has lapsed; refusing to issue ids");
+        }
+
+        long now = clock - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            long fresh = now << SEQUENCE_BITS;
+            next = fresh > prev ? fresh : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+
+        long id = ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                | (current.node() << SEQUENCE_BITS)
+                | (next & ((1L << SEQUENCE_BITS) - 1));
+        return format(id);
+    }
+
+    /** Extends the node id lease; leases a different node id if another instance took this one over. */
+    @Scheduled(fixedDelayString = "${order.id.lease-renew-ms:60000}", initialDelayString = "${order.id.lease-renew-ms:60000}")
+    public void renewLease() {
+        NodeLease current = lease;
+        if (nodeRepo == null || current.validUntil() == Long.MAX_VALUE) return;
+
+        long start = System.currentTimeMillis();
+        LocalDateTime until = LocalDateTime.now().plusNanos(leaseMillis * 1_000_000);
+        try {
+            Integer renewed = tx.execute(s -> nodeRepo.renewLease((int) current.node(), holder, until));
+            if (renewed != null && renewed == 1) {
+                lease = new NodeLease(current.node(), validUntil(start));
+                return;
+            }
+            log.warn("Order id node {} was leased by another instance; leasing a new node id", current.node());
+            lease = acquire(current.node() + 1);
+        } catch (DataAccessException | IllegalStateException e) {
+            // Keep issuing ids until the current lease runs out; the next renewal tries again
+            log.warn("Could not renew order id node {} lease: {}", current.node(), e.getMessage());
+        }
+    }
+
+    public long node() {
+        return lease.node();
+    }
+
+    static String format(long id) {
+        String digits = Long.toString(id);
+        StringBuilder sb = new StringBuilder(PREFIX.length() + 19).append(PREFIX);
+        for (int i = digits.length(); i < 19; i++) sb.append('0');
+        return sb.append(digits).toString();
+    }
+
+    // ─────────────────────────────────────────────
+
+    // First free node id from `from` on, wrapping around; fails startup when all are taken
+    private NodeLease acquire(long from) {
+        for (int i = 0; i <= MAX_NODE; i++) {
+            int candidate = (int) ((from + i) & MAX_NODE);
+            long start = System.currentTimeMillis();
+            LocalDateTime now = LocalDateTime.now();
+            Integer leased = tx.execute(s -> {
+                nodeRepo.ensureExists(candidate);
+                return nodeRepo.tryLease(candidate, holder, now, now.plusNanos(leaseMillis * 1_000_000));
+            });
+            if (leased != null && leased == 1) {
+                log.info("Leased order id node {} as {}", candidate, holder);
+                return new NodeLease(candidate, validUntil(start));
+            }
+        }
+        throw new IllegalStateException("No free order id node (0-" + MAX_NODE + "); set order.id.node-id explicitly");
+    }
+
+    // Stops a fifth of the lease early, so ids are never issued near a lease another instance may take next
+    private long validUntil(long leasedAt) {
+        return leasedAt + leaseMillis - leaseMillis / 5;
+    }
+
+    private static long checkNode(long nodeId) {
+        if (nodeId > MAX_NODE) {
+            throw new IllegalStateException("order.id.node-id must be between 0 and " + MAX_NODE + ", got " + nodeId);
+        }
+        return nodeId;
+    }
+
+    // Where the search for a free node id starts, so instances starting together rarely contend
+    private static long preferredNode() {
+        return (ProcessHandle.current().pid() * 31 + UUID.randomUUID().hashCode()) & MAX_NODE;
+    }
+
+    private static String holderName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        if (host.length() > 50) host = host.substring(0, 50);
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private record NodeLease(long node, long validUntil) {}
+}
@@ -0,0 +1,268 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.Order;
+import com.agrowmart.entity.order.OrderStatusHistory;
+import com.agrowmart.entity.order.StockReservation;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Oversell-proof stock handling for orders.
+ *
+ * Stock is taken with a conditional UPDATE (... WHERE stock >= qty), so two
+ * buyers racing for the last unit cannot both succeed. Every decrement is
+ * recorded as a {@link StockReservation} so it can be given back on
+ * cancel / reject, or when an ONLINE order is never paid. Reservations change status
+ * with conditional UPDATEs too, so stock moves exactly once per status change even
+ * when a cancel, the expiry sweep and a payment capture race each other.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final WomenProductRepository womenProductRepository;
+    private final AgriProductRepository agriProductRepository;
+    private final OrderRepository orderRepository;
+    private final OrderStatusHistoryRepository statusHistoryRepository;
+    private final JobRunner jobs;
+
+    // How long an unpaid ONLINE order may hold stock
+    @Value("${stock.reservation.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${jobs.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${stock.reservation.sweep-ms:60000}")
+    private long sweepMs;
+
+    public StockReservationService(StockReservationRepository reservationRepository,
+                                   ProductRepository productRepository,
+                                   WomenProductRepository womenProductRepository,
+                                   AgriProductRepository agriProductRepository,
+                                   OrderRepository orderRepository,
+                                   OrderStatusHistoryRepository statusHistoryRepository,
+                                   JobRunner jobs) {
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.womenProductRepository = womenProductRepository;
+        this.agriProductRepository = agriProductRepository;
+        this.orderRepository = orderRepository;
+        this.statusHistoryRepository = statusHistoryRepository;
+        this.jobs = jobs;
+    }
+
+    /**
+     * Takes stock for every line of a saved order. Must run inside the order's transaction:
+     * if any line is short, the exception rolls back the order and all earlier decrements.
+     *
+     * ONLINE orders are HELD until payment capture; COD orders are CONFIRMED straight away.
+     */
+    @Transactional
+    public void reserve(Order order, List<StockLine> lines) {
+        boolean awaitingPayment = "ONLINE".equalsIgnoreCase(order.getPaymentMode());
+        LocalDateTime now = LocalDateTime.now();
+
+        // One UPDATE per distinct product, always in the same order so concurrent checkouts don't deadlock
+        Map<String, StockLine> merged = new TreeMap<>();
+        for (StockLine line : lines) {
+            merged.merge(line.productType() + ":" + line.productId(), line, StockLine::plus);
+        }
+
+        List<StockReservation> reservations = new ArrayList<>();
+        for (StockLine line : merged.values()) {
+            if (decrement(line.productType(), line.productId(), line.quantity()) == 0) {
+                throw new BusinessValidationException("Not enough stock for: " + line.productName());
+            }
+
+            StockReservation r = new StockReservation();
+            r.setOrderId(order.getId());
+            r.setProductType(line.productType());
+            r.setProductId(line.productId());
+            r.setQuantity(line.quantity());
+            r.setStatus(awaitingPayment ? "HELD" : "CONFIRMED");
+            r.setExpiresAt(awaitingPayment ? now.plusMinutes(ttlMinutes) : null);
+            reservations.add(r);
+        }
+        reservationRepository.saveAll(reservations);
+    }
+
+    /**
+     * Payment captured – the stock now stays with the order.
+     *
+     * A capture can arrive after the sweep already released the stock and cancelled the order.
+     * The stock is then taken again and the order reinstated; if it has been sold in the
+     * meantime the order stays cancelled and is flagged REFUND_DUE.
+     */
+    @Transactional
+    public void confirm(String orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (reservationRepository.confirmHeld(orderId, now) > 0) return;
+
+        List<StockReservation> reservations = reservationRepository.findByOrderId(orderId);
+        if (reservations.isEmpty()) {
+            log.warn("No stock reservation for order {}", orderId);
+            return;
+        }
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) return;
+
+        // Cancelled by the customer or vendor, or rejected: the payment is owed back, not the stock
+        boolean cancelledByPerson = order.getStatus() == Order.OrderStatus.REJECTED
+                || (order.getStatus() == Order.OrderStatus.CANCELLED && !"SYSTEM".equals(order.getCancelledBy()));
+        if (cancelledByPerson) {
+            if ("REFUND_INITIATED".equals(order.getPaymentStatus())) return;
+            flagRefundDue(order, now, "Payment received for an order that was already " + order.getStatus());
+            return;
+        }
+
+        List<StockReservation> retaken = new ArrayList<>();
+        for (StockReservation r : reservations) {
+            // 0 when the row is already CONFIRMED (duplicate capture) or another capture took it back
+            if (reservationRepository.markRetaken(r.getId(), now) != 1) continue;
+            if (decrement(r.getProductType(), r.getProductId(), r.getQuantity()) == 0) {
+                reservationRepository.markReleased(r.getId(), now);
+                for (StockReservation taken : retaken) {
+                    reservationRepository.markReleased(taken.getId(), now);
+                    increment(taken.getProductType(), taken.getProductId(), taken.getQuantity());
+                }
+                flagRefundDue(order, now, "Payment received after the reservation expired; stock is no longer available");
+                return;
+            }
+            retaken.add(r);
+        }
+        if (retaken.isEmpty()) return;
+
+        log.warn("Late payment for order {}: took back stock for {} lines", orderId, retaken.size());
+        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            order.setStatus(order.isScheduled() ? Order.OrderStatus.SCHEDULED : Order.OrderStatus.PENDING);
+            order.setCancelledBy(null);
+            order.setCancelReason(null);
+            order.setCancelledAt(null);
+            order.setUpdatedAt(now);
+            orderRepository.save(order);
+            saveHistory(order, order.getStatus().name(), now);
+        }
+    }
+
+    /** Order cancelled / rejected – give the stock back. Safe to call more than once, concurrently too. */
+    @Transactional
+    public void release(String orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        for (StockReservation r : reservationRepository.findByOrderId(orderId)) {
+            // Only the caller whose update flipped the row gives its stock back
+            if (reservationRepository.markReleased(r.getId(), now) == 1) {
+                increment(r.getProductType(), r.getProductId(), r.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * Cancels ONLINE orders whose payment never arrived and releases their stock.
+     * Once across the cluster, in chunks that each commit on their own (see JobRunner).
+     */
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-ms:60000}")
+    public void releaseExpiredReservations() {
+        // Held for half the period, so a sweep skipped on one instance is picked up by the next trigger
+        jobs.run("stock-reservation-sweep", Duration.ofMillis(sweepMs / 2), this::expireChunk);
+    }
+
+    private JobRunner.Chunk expireChunk(String afterOrderId, LocalDateTime runStartedAt) {
+        List<String> orderIds = reservationRepository.findExpiredHeldOrderIds(
+                runStartedAt, afterOrderId != null ? afterOrderId : "", PageRequest.of(0, chunkSize));
+        if (orderIds.isEmpty()) return JobRunner.Chunk.done();
+
+        int cancelled = 0;
+        for (String orderId : orderIds) {
+            if (expire(orderId)) cancelled++;
+        }
+        if (cancelled > 0) {
+            log.info("Cancelled {} unpaid orders and released their stock", cancelled);
+        }
+        return new JobRunner.Chunk(orderIds.get(orderIds.size() - 1), orderIds.size());
+    }
+
+    // True when this call cancelled the order
+    private boolean expire(String orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        // The order is checked before any stock moves: only an order still unpaid and not accepted is cancelled
+        if (orderRepository.cancelUnpaid(orderId, "Payment not completed in time", now) == 1) {
+            saveHistory(orderRepository.getReferenceById(orderId), "CANCELLED", now);
+            release(orderId);
+            return true;
+        }
+
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null
+                || order.getStatus() == Order.OrderStatus.CANCELLED
+                || order.getStatus() == Order.OrderStatus.REJECTED) {
+            // Cancelled elsewhere; that path released already, this catches a crash in between
+            release(orderId);
+        } else {
+            // Paid (confirm was missed) or already accepted by the vendor: the stock stays with the order
+            reservationRepository.confirmHeld(orderId, now);
+        }
+        return false;
+    }
+
+    private void flagRefundDue(Order order, LocalDateTime now, String reason) {
+        log.error("Order {} needs a refund: {}", order.getId(), reason);
+        if (order.getStatus() != Order.OrderStatus.CANCELLED && order.getStatus() != Order.OrderStatus.REJECTED) {
+            order.setStatus(Order.OrderStatus.CANCELLED);
+            order.setCancelledBy("SYSTEM");
+            order.setCancelledAt(now);
+        }
+        order.setCancelReason(reason);
+        order.setUpdatedAt(now);
+        orderRepository.save(order);
+        saveHistory(order, "REFUND_DUE", now);
+    }
+
+    private void saveHistory(Order order, String status, LocalDateTime now) {
+        OrderStatusHistory history = new OrderStatusHistory();
+        history.setOrder(order);
+        history.setStatus(status);
+        history.setChangedAt(now);
+        statusHistoryRepository.save(history);
+    }
+
+    private int decrement(String productType, Long productId, int qty) {
+        return switch (productType) {
+            case "NORMAL" -> productRepository.decrementStockIfAvailable(productId, qty);
+            case "WOMEN" -> womenProductRepository.decrementStockIfAvailable(productId, qty);
+            case "AGRI" -> agriProductRepository.decrementStockIfAvailable(productId, qty);
+            default -> throw new BusinessValidationException("Invalid product type: " + productType);
+        };
+    }
+
+    private void increment(String productType, Long productId, int qty) {
+        switch (productType) {
+            case "NORMAL" -> productRepository.incrementStock(productId, qty);
+            case "WOMEN" -> womenProductRepository.incrementStock(productId, qty);
+            case "AGRI" -> agriProductRepository.incrementStock(productId, qty);
+            default -> log.error("Cannot release stock for unknown product type {}", productType);
+        }
+    }
+
+    // One requested line. productType is NORMAL / WOMEN / AGRI.
+    public record StockLine(String productType, Long productId, String productName, int quantity) {
+
+        StockLine plus(StockLine other) {
+            return new StockLine(productType, productId, productName, quantity + other.quantity);
+        }
+    }
+}
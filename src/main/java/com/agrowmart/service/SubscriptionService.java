@@ -4,6 +4,7 @@ package com.agrowmart.service;
 import com.agrowmart.dto.auth.subscription.SubscriptionResponse;
 import com.agrowmart.entity.Subscription;
 import com.agrowmart.entity.User;
+import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
 import com.agrowmart.enums.SubscriptionPlan;
 import com.agrowmart.exception.AuthExceptions.AuthenticationFailedException;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
@@ -17,6 +18,7 @@ import com.razorpay.RazorpayException;
 import org.hibernate.Hibernate;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -35,6 +37,7 @@ public class SubscriptionService {
     private final AgriProductRepository agriProductRepo;
     private final UserRepository userRepo;
     private final RazorpayClient razorpay;
+    private final JobRunner jobs;
 
     @Value("${razorpay.key}")
     private String razorpayKeyId;
@@ -42,13 +45,18 @@ public class SubscriptionService {
     @Value("${razorpay.secret}")
     private String razorpayKeySecret;
 
+    @Value("${jobs.chunk-size:200}")
+    private int chunkSize;
+
     public SubscriptionService(
             SubscriptionRepository subscriptionRepo,
             AgriProductRepository agriProductRepo,
-            UserRepository userRepo) throws RazorpayException {
+            UserRepository userRepo,
+            JobRunner jobs) throws RazorpayException {
         this.subscriptionRepo = subscriptionRepo;
         this.agriProductRepo = agriProductRepo;
         this.userRepo = userRepo;
+        this.jobs = jobs;
         this.razorpay = new RazorpayClient(razorpayKeyId, razorpayKeySecret);
     }
 
@@ -258,20 +266,27 @@ public class SubscriptionService {
     }
     
     
+    // Once across the cluster, in chunks that each commit on their own (see JobRunner)
     @Scheduled(cron = "0 5 0 * * ?") // every day at 00:05
-    @Transactional
     public void handleExpiredSubscriptions() {
-        List<Subscription> expired = subscriptionRepo.findAllExpiredActiveSubscriptions(LocalDateTime.now());
+        jobs.run("subscription-expiry", this::expireChunk);
+    }
+
+    // Checkpoint: id of the last subscription looked at
+    private JobRunner.Chunk expireChunk(String afterId, LocalDateTime runStartedAt) {
+        List<Subscription> expired = subscriptionRepo.findExpiredActiveAfter(
+                runStartedAt, afterId != null ? Long.valueOf(afterId) : 0L, PageRequest.of(0, chunkSize));
+        if (expired.isEmpty()) return JobRunner.Chunk.done();
 
         for (Subscription s : expired) {
             s.setActive(false);
             subscriptionRepo.save(s);
 
             // Hide all products of this vendor
-            User vendor = s.getUser();
-            agriProductRepo.findByVendor(vendor)
-                    .forEach(p -> p.setVisibleToCustomers(false));
-            agriProductRepo.saveAll(agriProductRepo.findByVendor(vendor));
+            List<BaseAgriProduct> products = agriProductRepo.findByVendor(s.getUser());
+            products.forEach(p -> p.setVisibleToCustomers(false));
+            agriProductRepo.saveAll(products);
         }
+        return new JobRunner.Chunk(String.valueOf(expired.get(expired.size() - 1).getId()), expired.size());
     }
 }
\ No newline at end of file
@@ -1,19 +1,35 @@
 package com.agrowmart.service;
 
+import com.agrowmart.config.AuthPrincipalCache;
+import com.agrowmart.entity.Shop;
 import com.agrowmart.entity.User;
+import com.agrowmart.repository.ShopRepository;
 import com.agrowmart.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Scheduled service that permanently deletes users who have been soft-deleted
  * for more than 7 days (including their associated Cloudinary images).
+ *
+ * Runs through {@link JobRunner}: once across the cluster, in chunks of users that each
+ * commit on their own. A chunk removes its shops and users with one bulk delete each; its
+ * images are then purged in bulk by {@link MediaPurgeService}, which queues any it cannot
+ * delete for retry instead of failing the chunk. If the bulk delete fails (a row elsewhere
+ * still references a user), the chunk deletes its users one by one and skips, with an error
+ * log, those that still cannot go, so one stuck user does not stop the cleanup.
  */
 @Service
 public class UserCleanupService {
@@ -21,13 +37,32 @@ public class UserCleanupService {
     private static final Logger log = LoggerFactory.getLogger(UserCleanupService.class);
 
     private final UserRepository userRepository;
-    private final CloudinaryService cloudinaryService;
+    private final ShopRepository shopRepository;
+    private final ShopCacheListener shopCache;
+    private final MediaPurgeService mediaPurge;
+    private final JobRunner jobs;
+    private final AuthPrincipalCache principalCache;
+    private final TransactionTemplate deleteTx;
+
+    @Value("${jobs.chunk-size:200}")
+    private int chunkSize;
 
     public UserCleanupService(
             UserRepository userRepository,
-            CloudinaryService cloudinaryService) {
+            ShopRepository shopRepository,
+            ShopCacheListener shopCache,
+            MediaPurgeService mediaPurge,
+            JobRunner jobs,
+            AuthPrincipalCache principalCache,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.cloudinaryService = cloudinaryService;
+        this.shopRepository = shopRepository;
+        this.shopCache = shopCache;
+        this.mediaPurge = mediaPurge;
+        this.jobs = jobs;
+        this.principalCache = principalCache;
+        this.deleteTx = new TransactionTemplate(transactionManager);
+        this.deleteTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     /**
@@ -35,77 +70,78 @@ public class UserCleanupService {
      * Deletes users soft-deleted more than 7 days ago.
      */
     @Scheduled(cron = "0 15 3 * * *")   // 03:15 every day
-    @Transactional
     public void permanentlyDeleteOldMarkedUsers() {
+        jobs.run("user-cleanup", this::deleteChunk);
+    }
 
-        LocalDateTime threshold = LocalDateTime.now().minusDays(7);
-
-        // Make sure this method exists in UserRepository
-        List<User> toDelete = userRepository.findAllByDeletedTrueAndDeletedAtBefore(threshold);
+    // Checkpoint: id of the last user looked at; users that cannot be deleted are skipped
+    private JobRunner.Chunk deleteChunk(String afterId, LocalDateTime runStartedAt) {
+        LocalDateTime threshold = runStartedAt.minusDays(7);
+        List<User> toDelete = userRepository.findDeletedBeforeAfterId(
+                threshold, afterId != null ? Long.valueOf(afterId) : 0L, PageRequest.of(0, chunkSize));
+        if (toDelete.isEmpty()) return JobRunner.Chunk.done();
 
-        if (toDelete.isEmpty()) {
-            log.info("No soft-deleted users older than 7 days found. Cleanup skipped.");
-            return;
+        String checkpoint = String.valueOf(toDelete.get(toDelete.size() - 1).getId());
+        try {
+            deleteAll(toDelete);
+            return new JobRunner.Chunk(checkpoint, toDelete.size());
+        } catch (DataAccessException e) {
+            // Usually a row elsewhere still points at one of them; find out which, one by one
+            log.warn("Bulk delete of {} users failed, deleting one at a time: {}", toDelete.size(), e.getMessage());
         }
 
-        log.info("Starting permanent deletion of {} soft-deleted users older than 7 days", toDelete.size());
-
-        int successCount = 0;
-        int failureCount = 0;
-
+        int deleted = 0;
         for (User user : toDelete) {
             try {
-                // 1. Clean up Cloudinary images
-                deleteCloudinaryImageIfExists(user.getPhotoUrl(), "profile photo");
-                deleteCloudinaryImageIfExists(user.getAadhaarImagePath(), "Aadhaar");
-                deleteCloudinaryImageIfExists(user.getPanImagePath(), "PAN");
-                deleteCloudinaryImageIfExists(user.getUdyamRegistrationImagePath(), "Udyam");
-                deleteCloudinaryImageIfExists(user.getFssaiLicensePath(), "FSSAI");
-
-                // 2. Shop related images
-                if (user.getShop() != null) {
-                    deleteCloudinaryImageIfExists(user.getShop().getShopPhoto(), "shop photo");
-                    deleteCloudinaryImageIfExists(user.getShop().getShopCoverPhoto(), "shop cover");
-                    deleteCloudinaryImageIfExists(user.getShop().getShopLicensePhoto(), "shop license");
-                }
-
-                // 3. Finally delete the user entity
-                userRepository.delete(user);
-
-                successCount++;
-                log.info("Permanently deleted user id={} | phone={} | deletedAt={}",
-                        user.getId(), user.getPhone(), user.getDeletedAt());
-
-            } catch (Exception e) {
-                failureCount++;
-                log.error("Failed to permanently delete user id={} | phone={}. Reason: {}",
-                        user.getId(), user.getPhone(), e.getMessage(), e);
-                // Optional: collect failed IDs → send alert / retry later
+                deleteAll(List.of(user));
+                deleted++;
+            } catch (DataAccessException e) {
+                log.error("Cannot delete user id={} (deletedAt={}), skipped: {}",
+                        user.getId(), user.getDeletedAt(), e.getMessage());
             }
         }
-
-        log.info("Cleanup finished → Success: {}, Failed: {}", successCount, failureCount);
+        return new JobRunner.Chunk(checkpoint, deleted);
     }
 
-    /**
-     * Safely attempts to delete a Cloudinary asset if the URL looks valid.
-     */
-    private void deleteCloudinaryImageIfExists(String url, String description) {
-        if (url == null || url.trim().isEmpty()) {
-            return;
-        }
-
-        if (!url.contains("cloudinary.com") && !url.contains("res.cloudinary.com")) {
-            log.debug("Skipping non-Cloudinary URL for {}: {}", description, url);
-            return;
+    // Deletes the users and their shops in a transaction of their own, so a failure leaves
+    // the chunk's transaction usable for the one-by-one retry
+    private void deleteAll(List<User> users) {
+        List<Long> userIds = new ArrayList<>(users.size());
+        List<Shop> shops = new ArrayList<>();
+        List<String> images = new ArrayList<>();
+        for (User user : users) {
+            userIds.add(user.getId());
+
+            // 1. Collect Cloudinary images (purged once the delete has committed)
+            images.add(user.getPhotoUrl());
+            images.add(user.getAadhaarImagePath());
+            images.add(user.getPanImagePath());
+            images.add(user.getUdyamRegistrationImagePath());
+            images.add(user.getFssaiLicensePath());
+
+            // 2. Shop related images
+            Shop shop = user.getShop();
+            if (shop != null) {
+                shops.add(shop);
+                images.add(shop.getShopPhoto());
+                images.add(shop.getShopCoverPhoto());
+                images.add(shop.getShopLicensePhoto());
+            }
         }
 
-        try {
-            cloudinaryService.deleteByUrl(url);
-            log.debug("Deleted Cloudinary asset for {}: {}", description, url);
-        } catch (Exception e) {
-            log.warn("Failed to delete Cloudinary asset for {}: {} → {}", description, url, e.getMessage());
-            // Not critical — continue with DB deletion
+        // 3. Bulk delete shops, then users; a failing delete rolls both back, images included
+        deleteTx.executeWithoutResult(status -> {
+            if (!shops.isEmpty()) shopRepository.deleteByUserIdIn(userIds);
+            userRepository.deleteAllByIdInBatch(userIds);
+            mediaPurge.purgeAfterCommit(images);
+        });
+
+        // Bulk deletes bypass the entity listeners, so the caches are told here
+        shops.forEach(shopCache::onRemove);
+        userIds.forEach(principalCache::evictVendor);
+        for (User user : users) {
+            log.info("Permanently deleted user id={} | phone={} | deletedAt={}",
+                    user.getId(), user.getPhone(), user.getDeletedAt());
         }
     }
-}
\ No newline at end of file
+}
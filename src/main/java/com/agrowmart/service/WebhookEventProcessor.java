@@ -0,0 +1,231 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.WebhookEvent;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.repository.WebhookEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable Razorpay webhook intake.
+ *
+ * {@link #accept} only stores the raw event (one INSERT, deduplicated on the Razorpay event
+ * id) so the webhook can be acknowledged at once. A small worker pool then applies events
+ * through {@link RazorpayService#processWebhookEvent}, each in its own transaction, one at a
+ * time per payment / payout and in arrival order. Failures are retried with backoff.
+ */
+@Component
+public class WebhookEventProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookEventProcessor.class);
+
+    private static final int BATCH = 50;
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_SECONDS = 15;
+    private static final long CLAIM_LEASE_SECONDS = 120;
+
+    private final WebhookEventRepository eventRepository;
+    private final RazorpayService razorpayService;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor workers;
+    private final JobRunner jobs;
+
+    public WebhookEventProcessor(WebhookEventRepository eventRepository,
+                                 RazorpayService razorpayService,
+                                 PlatformTransactionManager transactionManager,
+                                 JobRunner jobs,
+                                 @Value("${webhook.workers:2}") int workerCount) {
+        this.eventRepository = eventRepository;
+        this.razorpayService = razorpayService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.jobs = jobs;
+
+        AtomicInteger n = new AtomicInteger();
+        // Bounded: extra wake-ups are dropped, the events stay in the table for the next poll
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(workerCount),
+                r -> {
+                    Thread t = new Thread(r, "webhook-worker-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Stores a verified webhook. Returns false when the event was already received.
+     *
+     * @param eventId X-Razorpay-Event-Id; when missing, a hash of the payload is used instead
+     * @throws BusinessValidationException when the payload is not a JSON object (400)
+     */
+    public boolean accept(String eventId, String payload) {
+        JSONObject json;
+        try {
+            json = new JSONObject(payload);
+        } catch (JSONException e) {
+            throw new BusinessValidationException("Webhook payload is not valid JSON");
+        }
+
+        String key = eventId != null && !eventId.isBlank() ? eventId.trim() : "sha256:" + sha256(payload);
+        // Cheap check first: a burst of redeliveries should not turn into a burst of failed INSERTs
+        if (eventRepository.existsByEventId(key)) return false;
+
+        WebhookEvent event = new WebhookEvent();
+        event.setEventId(key);
+        event.setEventType(json.optString("event", null));
+        event.setEntityKey(entityKey(json, key));
+        event.setPayload(payload);
+        try {
+            eventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            return false;   // the same event arrived concurrently
+        }
+        wakeUp();
+        return true;
+    }
+
+    public void wakeUp() {
+        workers.execute(this::drain);
+    }
+
+    // Safety net: retries that came due and anything a dropped wake-up left behind
+    @Scheduled(fixedDelayString = "${webhook.poll-ms:2000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    @Scheduled(cron = "${webhook.cleanup-cron:0 30 4 * * *}", zone = "Asia/Kolkata")
+    public void purgeProcessed() {
+        jobs.run("webhook-events-purge", JobRunner.deleteInChunks(1000, (runStartedAt, limit) ->
+                eventRepository.deleteProcessedBefore(runStartedAt.minusDays(7), limit)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    void drain() {
+        try {
+            List<WebhookEvent> claimed;
+            do {
+                claimed = tx.execute(status -> claim());
+                if (claimed == null) return;
+                for (WebhookEvent event : claimed) {
+                    process(event);
+                }
+            } while (!claimed.isEmpty());
+        } catch (Exception e) {
+            log.error("Webhook processing failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<WebhookEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<WebhookEvent> due = eventRepository.lockDue(now, BATCH);
+        List<WebhookEvent> claimed = new ArrayList<>(due.size());
+        for (WebhookEvent e : due) {
+            if ("PROCESSING".equals(e.getStatus())) {
+                // Its claim ran out: the worker died on it (possibly because of this very event),
+                // so it counts as a failed attempt and cannot take down workers forever
+                e.setAttempts(e.getAttempts() + 1);
+                e.setLastError("Claim expired before processing finished");
+                if (e.getAttempts() >= MAX_ATTEMPTS) {
+                    e.setStatus("FAILED");
+                    log.error("Giving up on webhook {} ({}) after {} attempts", e.getEventId(),
+                            e.getEventType(), e.getAttempts());
+                    continue;
+                }
+            }
+            e.setStatus("PROCESSING");
+            e.setNextAttemptAt(now.plusSeconds(CLAIM_LEASE_SECONDS));
+            claimed.add(e);
+        }
+        eventRepository.saveAll(due);
+        return claimed;
+    }
+
+    private void process(WebhookEvent event) {
+        try {
+            tx.executeWithoutResult(status -> {
+                razorpayService.processWebhookEvent(new JSONObject(event.getPayload()));
+                event.setStatus("PROCESSED");
+                event.setProcessedAt(LocalDateTime.now());
+                event.setLastError(null);
+                event.setAttempts(event.getAttempts() + 1);
+                eventRepository.save(event);
+            });
+        } catch (Exception e) {
+            log.warn("Webhook {} ({}) failed: {}", event.getEventId(), event.getEventType(), e.getMessage());
+            tx.executeWithoutResult(status -> recordFailure(event.getId(), e.getMessage()));
+        }
+    }
+
+    private void recordFailure(Long id, String error) {
+        WebhookEvent event = eventRepository.findById(id).orElse(null);
+        if (event == null) return;
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        if (event.getAttempts() >= MAX_ATTEMPTS) {
+            // Later events for the same payment / payout are no longer held back
+            event.setStatus("FAILED");
+            log.error("Giving up on webhook {} ({}) after {} attempts", event.getEventId(),
+                    event.getEventType(), event.getAttempts());
+        } else {
+            event.setStatus("RECEIVED");
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(BASE_BACKOFF_SECONDS << (event.getAttempts() - 1)));
+        }
+        eventRepository.save(event);
+    }
+
+    // payment:<id> / payout:<id>; refunds queue behind their payment
+    static String entityKey(JSONObject event, String fallback) {
+        JSONObject payload = event.optJSONObject("payload");
+        if (payload != null) {
+            JSONObject payment = entity(payload, "payment");
+            if (payment != null && payment.has("id")) return "payment:" + payment.getString("id");
+            JSONObject payout = entity(payload, "payout");
+            if (payout != null && payout.has("id")) return "payout:" + payout.getString("id");
+            JSONObject refund = entity(payload, "refund");
+            if (refund != null) {
+                if (refund.has("payment_id")) return "payment:" + refund.getString("payment_id");
+                if (refund.has("id")) return "refund:" + refund.getString("id");
+            }
+        }
+        return "event:" + fallback;
+    }
+
+    private static JSONObject entity(JSONObject payload, String name) {
+        JSONObject wrapper = payload.optJSONObject(name);
+        return wrapper != null ? wrapper.optJSONObject("entity") : null;
+    }
+
+    private static String sha256(String payload) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.agrowmart.service;
 
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.dto.auth.product.ProductFilterDTO;
 import com.agrowmart.dto.auth.shop.ShopSummaryDTO;
-import com.agrowmart.dto.auth.shop.WorkingHourDTO;
 import com.agrowmart.dto.auth.women.WomenProductCreateDTO;
 import com.agrowmart.dto.auth.women.WomenProductResponseDTO;
 import com.agrowmart.entity.ApprovalStatus;
@@ -15,25 +15,22 @@ import com.agrowmart.exception.ForbiddenException;
 import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.UserRepository;
 import com.agrowmart.repository.WomenProductRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.agrowmart.util.FeedCursor;
+import com.agrowmart.util.LikePattern;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,11 +43,19 @@ public class WomenProductService {
     private final WomenProductRepository productRepo;
     private final UserRepository userRepo;
     private final CloudinaryService cloudinaryService;
+    private final ShopScheduleCache shopSchedules;
+    private final PublicCatalogCache publicCache;
+    private final ImageUploadPipeline images;
     
-    public WomenProductService(WomenProductRepository productRepo,UserRepository userRepo,CloudinaryService cloudinaryService ) {
+    public WomenProductService(WomenProductRepository productRepo,UserRepository userRepo,CloudinaryService cloudinaryService,
+                               ShopScheduleCache shopSchedules, PublicCatalogCache publicCache,
+                               ImageUploadPipeline images) {
         this.productRepo = productRepo;
         this.userRepo =userRepo;
         this.cloudinaryService=cloudinaryService;
+        this.shopSchedules = shopSchedules;
+        this.publicCache = publicCache;
+        this.images = images;
     }
     
     
@@ -151,13 +156,37 @@ public class WomenProductService {
                 .toList();
     }
 
+    // ========================= HOME FEED (PUBLIC) - keyset pages, search in DB
+    // Substring match on the name, like the product feed; ranked search is /api/public/search
+    @Transactional(readOnly = true)
+    public CursorPage<WomenProductResponseDTO> getHomeFeed(String search, String cursor, int size) {
+        String pattern = LikePattern.contains(search);
+        FeedCursor after = FeedCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);   // one extra row tells us if there is a next page
+
+        List<WomenProduct> rows = after == null
+                ? productRepo.findHomeFeed(pattern, limit)
+                : productRepo.findHomeFeedAfter(pattern, after.createdAt(), after.id(), limit);
+
+        boolean hasMore = rows.size() > size;
+        List<WomenProduct> page = hasMore ? rows.subList(0, size) : rows;
+
+        String next = null;
+        if (hasMore) {
+            WomenProduct last = page.get(page.size() - 1);
+            next = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(page.stream().map(this::toDTO).toList(), next, hasMore);
+    }
+
     // ========================= RECENTLY ADDED (PUBLIC) - ONLY APPROVED
     public List<WomenProductResponseDTO> getRecentlyAddedWomenProducts(int limit) {
-        return productRepo.findByApprovalStatusOrderByCreatedAtDesc(ApprovalStatus.APPROVED)  // ← ONLY APPROVED
-                .stream()
-                .limit(limit)
-                .map(this::toDTO)
-                .toList();
+        return publicCache.recentWomenProducts(limit, () ->
+                productRepo.findByApprovalStatusOrderByCreatedAtDesc(ApprovalStatus.APPROVED)  // ← ONLY APPROVED
+                        .stream()
+                        .limit(limit)
+                        .map(this::toDTO)
+                        .toList());
     }
 
     // ========================= FILTERED (PUBLIC) - ONLY APPROVED
@@ -245,27 +274,15 @@ public class WomenProductService {
 
         if (newImages != null && !newImages.isEmpty() && newImages.stream().anyMatch(file -> !file.isEmpty())) {
             // Case 1: User sent at least one valid new image → REPLACE ALL
-        	  System.out.println("New images received for product {}. Deleting old images..."+ productId);
-
-            // Delete ALL old images from Cloudinary (only if they exist)
-            if (product.getImageUrls() != null && !product.getImageUrls().isBlank()) {
-                Arrays.stream(product.getImageUrls().split(","))
-                        .filter(url -> url != null && !url.trim().isEmpty())
-                        .map(this::extractPublicId)
-                        .forEach(publicId -> {
-                            try {
-                                cloudinaryService.delete(publicId);
-                                System.out.println("Deleted old Cloudinary image: {}"+ publicId);
-                            } catch (Exception e) {
-                            	 System.out.println("Failed to delete old Cloudinary image {}: {}. Continuing..."+ publicId + e.getMessage());
-                            }
-                        });
-            }
-
             // Upload only the new valid images
             List<String> uploadedUrls = uploadFiles(newImages);
             finalImageUrls.addAll(uploadedUrls);
-            System.out.println("Uploaded {} new images for product {}"+ uploadedUrls.size() + productId);
+            log.info("Uploaded {} new images for women product {}", uploadedUrls.size(), productId);
+
+            // Old images are deleted from Cloudinary only once this update commits
+            if (product.getImageUrls() != null && !product.getImageUrls().isBlank()) {
+                images.discardAfterCommit(Arrays.asList(product.getImageUrls().split(",")));
+            }
 
         } else {
             // Case 2: No new images (or empty files) → KEEP ALL OLD IMAGES
@@ -287,16 +304,9 @@ public class WomenProductService {
 
     // ========================= HELPER METHODS =========================
 
-    private List<String> uploadFiles(List<MultipartFile> files) throws Exception {
-        List<String> urls = new ArrayList<>();
-        if (files != null && !files.isEmpty()) {
-            for (MultipartFile file : files) {
-                if (!file.isEmpty()) {
-                    urls.add(cloudinaryService.upload(file));
-                }
-            }
-        }
-        return urls;
+    // Skips empty parts; parallel and all-or-nothing (see ImageUploadPipeline)
+    private List<String> uploadFiles(List<MultipartFile> files) {
+        return images.uploadAll(files);
     }
 
     private String extractPublicId(String url) {
@@ -325,7 +335,7 @@ public class WomenProductService {
         ShopSummaryDTO shopDTO = null;
 
         if (shop != null) {
-        	 Boolean open = isShopOpenFromWorkingHours(shop);
+        	 Boolean open = shopSchedules.isOpen(shop);
 
             shopDTO = new ShopSummaryDTO(
                     shop.getId(),                          // Long shopId
@@ -380,94 +390,6 @@ public class WomenProductService {
     
     
 
-    private Boolean isShopOpenFromWorkingHours(Shop shop) {
-        if (shop == null || shop.getWorkingHoursJson() == null || shop.getWorkingHoursJson().trim().isEmpty()) {
-            System.out.println("Shop " + (shop != null ? shop.getId() : "null") + " has no working hours JSON");
-            return false;
-        }
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            List<WorkingHourDTO> hours = mapper.readValue(
-                    shop.getWorkingHoursJson(),
-                    new TypeReference<List<WorkingHourDTO>>() {}
-            );
-
-            if (hours.isEmpty()) {
-                System.out.println("Shop " + shop.getId() + " has empty working hours list");
-                return false;
-            }
-
-            String today = LocalDate.now(ZoneId.of("Asia/Kolkata"))
-                    .getDayOfWeek()
-                    .name();  // MONDAY, TUESDAY, ...
-
-            LocalTime now = LocalTime.now(ZoneId.of("Asia/Kolkata"));
-
-            // Debug info (you can switch to proper logger later)
-            System.out.println("Shop ID: " + shop.getId() +
-                    " | Today: " + today +
-                    " | Current time: " + now);
-
-            System.out.println("Working hours JSON: " + shop.getWorkingHoursJson());
-
-            for (WorkingHourDTO h : hours) {
-                String storedDay = h.getDay();
-                if (storedDay == null || storedDay.trim().isEmpty()) {
-                    continue;
-                }
-
-                String normalizedDay = storedDay.trim().toUpperCase();
-
-                System.out.println("  Checking day: " + storedDay + " → normalized: " + normalizedDay);
-
-                if (today.equals(normalizedDay)) {
-                    String openStr = h.getOpen();
-                    String closeStr = h.getClose();
-
-                    if (openStr == null || closeStr == null || openStr.trim().isEmpty() || closeStr.trim().isEmpty()) {
-                        System.out.println("  Invalid time format for " + normalizedDay);
-                        continue;
-                    }
-
-                    LocalTime openTime = LocalTime.parse(openStr.trim());
-                    LocalTime closeTime = LocalTime.parse(closeStr.trim());
-
-                    System.out.println("  → Found matching day: " + normalizedDay +
-                            " | Open: " + openTime +
-                            " | Close: " + closeTime +
-                            " | Now: " + now);
-
-                    // Normal opening hours (open < close)
-                    if (closeTime.isAfter(openTime)) {
-                        boolean isOpen = !now.isBefore(openTime) && !now.isAfter(closeTime);
-                        System.out.println("  → Normal hours → isOpen = " + isOpen);
-                        return isOpen;
-                    }
-                    // Overnight hours (e.g. 22:00 – 06:00)
-                    else {
-                        boolean isOpen = !now.isBefore(openTime) || !now.isAfter(closeTime);
-                        System.out.println("  → Overnight hours → isOpen = " + isOpen);
-                        return isOpen;
-                    }
-                }
-            }
-
-            System.out.println("No matching day found for shop " + shop.getId() + " (today is " + today + ")");
-            return false;
-
-        } catch (JsonProcessingException e) {
-            System.err.println("Invalid JSON format for shop " + shop.getId() + ": " + e.getMessage());
-            return false;
-        } catch (DateTimeParseException e) {
-            System.err.println("Time parsing error for shop " + shop.getId() + ": " + e.getMessage());
-            return false;
-        } catch (Exception e) {
-            System.err.println("Unexpected error checking shop " + shop.getId() + ": " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
-    }
     
     
     
@@ -269,15 +269,14 @@
 package com.agrowmart.service.customer;
 
 import com.agrowmart.dto.auth.customer.*;
-import com.agrowmart.entity.*;
-import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
 import com.agrowmart.entity.customer.Cart;
 import com.agrowmart.entity.customer.CartItem;
 import com.agrowmart.entity.customer.Customer;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
 import com.agrowmart.exception.ResourceNotFoundException;
-import com.agrowmart.repository.*;
 import com.agrowmart.repository.customer.CartRepository;
+import com.agrowmart.service.CatalogLookupService;
+import com.agrowmart.service.CatalogLookupService.CatalogSnapshot;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -290,29 +289,14 @@ import java.util.stream.Collectors;
 public class CartService {
 
     private final CartRepository cartRepository;
-    private final ProductRepository productRepository;
-    private final WomenProductRepository womenProductRepository;
-    private final AgriProductRepository agriProductRepository;
-    private final VegetableDetailRepository vegRepo;
-    private final DairyDetailRepository dairyRepo;
-    private final MeatDetailRepository meatRepo;
+    private final CatalogLookupService catalogLookup;
 
     public CartService(
             CartRepository cartRepository,
-            ProductRepository productRepository,
-            WomenProductRepository womenProductRepository,
-            AgriProductRepository agriProductRepository,
-            VegetableDetailRepository vegRepo,
-            DairyDetailRepository dairyRepo,
-            MeatDetailRepository meatRepo
+            CatalogLookupService catalogLookup
     ) {
         this.cartRepository = cartRepository;
-        this.productRepository = productRepository;
-        this.womenProductRepository = womenProductRepository;
-        this.agriProductRepository = agriProductRepository;
-        this.vegRepo = vegRepo;
-        this.dairyRepo = dairyRepo;
-        this.meatRepo = meatRepo;
+        this.catalogLookup = catalogLookup;
     }
 
     // ===================== ADD TO CART =====================
@@ -405,111 +389,24 @@ public class CartService {
     }
 
     private CartItem createCartItem(AddToCartRequest request) {
+        // Name, price and image come from one cached snapshot instead of a lookup each
+        CatalogSnapshot product = catalogLookup.get(request.productType(), request.productId());
+        if (product.price() == null) {
+            throw "GENERAL".equals(product.detailType())
+                    ? new BusinessValidationException("Unsupported product category for price lookup")
+                    : new ResourceNotFoundException("Price not found for product: " + request.productId());
+        }
+
         CartItem item = new CartItem();
         item.setProductId(request.productId());
         item.setProductType(request.productType().toUpperCase());
         item.setQuantity(request.quantity());
-        item.setPriceAtAdd(fetchPrice(request.productId(), request.productType()));
-        item.setNameSnapshot(fetchName(request.productId(), request.productType()));
-        item.setImageSnapshot(fetchImage(request.productId(), request.productType()));
+        item.setPriceAtAdd(product.price());
+        item.setNameSnapshot(product.name());
+        item.setImageSnapshot(product.image());
         return item;
     }
 
-    // ===================== PRICE / NAME / IMAGE SNAPSHOT =====================
-    private BigDecimal fetchPrice(Long productId, String productType) {
-        if (productId == null || productType == null) {
-            throw new BusinessValidationException("Product ID and type are required to fetch price");
-        }
-
-        String upperType = productType.toUpperCase();
-
-        return switch (upperType) {
-            case "REGULAR" -> {
-                Product product = productRepository.findById(productId)
-                        .orElseThrow(() -> new ResourceNotFoundException("Regular product not found: " + productId));
-
-                String categoryType = determineProductType(product.getCategory());
-
-                yield switch (categoryType) {
-                    case "VEGETABLE" -> vegRepo.findByProductId(productId)
-                            .map(VegetableDetail::getMinPrice)
-                            .orElseThrow(() -> new ResourceNotFoundException("Vegetable detail/price not found for product: " + productId));
-                    case "DAIRY" -> dairyRepo.findByProductId(productId)
-                            .map(DairyDetail::getMinPrice)
-                            .orElseThrow(() -> new ResourceNotFoundException("Dairy detail/price not found for product: " + productId));
-                    case "MEAT" -> meatRepo.findByProductId(productId)
-                            .map(MeatDetail::getMinPrice)
-                            .orElseThrow(() -> new ResourceNotFoundException("Meat detail/price not found for product: " + productId));
-                    default -> throw new BusinessValidationException("Unsupported product category for price lookup");
-                };
-            }
-            case "WOMEN" -> womenProductRepository.findById(productId)
-                    .map(WomenProduct::getMinPrice)
-                    .orElseThrow(() -> new ResourceNotFoundException("Women product not found: " + productId));
-            case "AGRI" -> agriProductRepository.findById(productId)
-                    .map(BaseAgriProduct::getAgriprice)
-                    .orElseThrow(() -> new ResourceNotFoundException("Agri product not found: " + productId));
-            default -> throw new BusinessValidationException("Invalid product type: " + productType);
-        };
-    }
-
-    private String fetchName(Long id, String type) {
-        if (id == null || type == null) return "Unknown";
-
-        return switch (type.toUpperCase()) {
-            case "REGULAR" -> productRepository.findById(id)
-                    .map(Product::getProductName)
-                    .orElse("Unknown Product");
-            case "WOMEN" -> womenProductRepository.findById(id)
-                    .map(WomenProduct::getName)
-                    .orElse("Unknown Women Product");
-            case "AGRI" -> agriProductRepository.findById(id)
-                    .map(BaseAgriProduct::getAgriproductName)
-                    .orElse("Unknown Agri Product");
-            default -> "Unknown";
-        };
-    }
-
-    private String fetchImage(Long id, String type) {
-        if (id == null || type == null) return null;
-
-        return switch (type.toUpperCase()) {
-            case "REGULAR" -> productRepository.findById(id)
-                    .map(p -> p.getImagePaths() != null && !p.getImagePaths().isBlank()
-                            ? p.getImagePaths().split(",")[0].trim()
-                            : null)
-                    .orElse(null);
-            case "WOMEN" -> womenProductRepository.findById(id)
-                    .map(w -> w.getImageUrls() != null && !w.getImageUrls().isBlank()
-                            ? w.getImageUrls().split(",")[0].trim()
-                            : null)
-                    .orElse(null);
-            case "AGRI" -> agriProductRepository.findById(id)
-                    .map(a -> a.getAgriImageUrls() != null && !a.getAgriImageUrls().isEmpty()
-                            ? a.getAgriImageUrls().get(0)
-                            : null)
-                    .orElse(null);
-            default -> null;
-        };
-    }
-
-    // ===================== CATEGORY → TYPE =====================
-    private String determineProductType(Category category) {
-        if (category == null) return "GENERAL";
-
-        Category current = category;
-        while (current != null) {
-            String slug = current.getSlug();
-            if (slug != null) {
-                if ("vegetable-root".equals(slug)) return "VEGETABLE";
-                if ("dairy-root".equals(slug)) return "DAIRY";
-                if ("seafoodmeat-root".equals(slug)) return "MEAT";
-            }
-            current = current.getParent();
-        }
-        return "GENERAL";
-    }
-
     // ===================== DTO MAPPER =====================
     private CartSummaryDTO toSummaryDTO(Cart cart) {
         List<CartItemDTO> items = cart.getItems().stream()
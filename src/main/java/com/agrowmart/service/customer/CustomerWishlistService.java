@@ -208,58 +208,56 @@ package com.agrowmart.service.customer;
 
 import com.agrowmart.dto.auth.customer.WishlistAddRequest;
 import com.agrowmart.dto.auth.customer.WishlistProductDTO;
-import com.agrowmart.entity.DairyDetail;
-import com.agrowmart.entity.MeatDetail;
-import com.agrowmart.entity.Product;
+import com.agrowmart.dto.auth.product.CursorPage;
 import com.agrowmart.entity.Shop;
 import com.agrowmart.entity.User;
-import com.agrowmart.entity.VegetableDetail;
-import com.agrowmart.entity.WomenProduct;
 import com.agrowmart.entity.customer.CustomerWishlist;
 import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
-import com.agrowmart.exception.ResourceNotFoundException;
 import com.agrowmart.repository.*;
 import com.agrowmart.repository.customer.CustomerWishlistRepository;
+import com.agrowmart.service.CatalogLookupService;
+import com.agrowmart.service.CatalogLookupService.CatalogSnapshot;
+import com.agrowmart.service.CatalogLookupService.Key;
+import com.agrowmart.util.FeedCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
-
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Customer wishlist.
+ *
+ * Lists are hydrated a page at a time with a fixed number of queries: one for the
+ * entries, the batched catalog lookup, one for vendors and one for shops.
+ */
 @Service
 @Transactional
 public class CustomerWishlistService {
 
     private static final Logger log = LoggerFactory.getLogger(CustomerWishlistService.class);
 
+    private static final int MAX_BULK_CHECK = 200;
+
     private final CustomerWishlistRepository wishlistRepo;
-    private final ProductRepository productRepo;
-    private final WomenProductRepository womenProductRepo;
-    private final VegetableDetailRepository vegRepo;
-    private final DairyDetailRepository dairyRepo;
-    private final MeatDetailRepository meatRepo;
+    private final CatalogLookupService catalogLookup;
     private final ShopRepository shopRepo;
     private final UserRepository userRepo;
 
     public CustomerWishlistService(
             CustomerWishlistRepository wishlistRepo,
-            ProductRepository productRepo,
-            WomenProductRepository womenProductRepo,
-            VegetableDetailRepository vegRepo,
-            DairyDetailRepository dairyRepo,
-            MeatDetailRepository meatRepo,
+            CatalogLookupService catalogLookup,
             ShopRepository shopRepo,
             UserRepository userRepo) {
         this.wishlistRepo = wishlistRepo;
-        this.productRepo = productRepo;
-        this.womenProductRepo = womenProductRepo;
-        this.vegRepo = vegRepo;
-        this.dairyRepo = dairyRepo;
-        this.meatRepo = meatRepo;
+        this.catalogLookup = catalogLookup;
         this.shopRepo = shopRepo;
         this.userRepo = userRepo;
     }
@@ -270,7 +268,7 @@ public class CustomerWishlistService {
             throw new BusinessValidationException("Product ID and product type are required");
         }
 
-        String type = req.productType().trim().toUpperCase();
+        String type = requireWishlistType(req.productType());
         log.info("Add to wishlist attempt - Customer ID: {}, Product ID: {}, Type: {}", customerId, req.productId(), type);
 
         if (wishlistRepo.existsByCustomerIdAndProductIdAndProductType(customerId, req.productId(), type)) {
@@ -278,12 +276,15 @@ public class CustomerWishlistService {
             throw new BusinessValidationException("This product is already in your wishlist");
         }
 
+        // Fails with 404 before anything is saved if the product does not exist
+        catalogLookup.get(type, req.productId());
+
         CustomerWishlist wishlist = new CustomerWishlist(customerId, req.productId(), type);
         wishlistRepo.save(wishlist);
 
         log.info("Product added to wishlist - Wishlist ID: {}, Customer ID: {}", wishlist.getId(), customerId);
 
-        return buildWishlistProduct(customerId, req.productId(), type);
+        return hydrate(List.of(wishlist)).get(0);
     }
 
     public void removeFromWishlist(Long customerId, Long productId, String productType) {
@@ -307,10 +308,30 @@ public class CustomerWishlistService {
 
         log.debug("Fetching wishlist for customer ID: {}", customerId);
 
-        return wishlistRepo.findByCustomerIdOrderByAddedAtDesc(customerId)
-                .stream()
-                .map(w -> buildWishlistProduct(customerId, w.getProductId(), w.getProductType()))
-                .toList();
+        return hydrate(wishlistRepo.findByCustomerIdOrderByAddedAtDesc(customerId));
+    }
+
+    /** Newest first, {@code size} entries per page; pass the previous page's nextCursor for the next one. */
+    @Transactional(readOnly = true)
+    public CursorPage<WishlistProductDTO> getWishlistPage(Long customerId, String cursor, int size) {
+        if (customerId == null) {
+            throw new BusinessValidationException("Customer ID is required");
+        }
+
+        FeedCursor after = FeedCursor.decode(cursor);
+        PageRequest limit = PageRequest.of(0, size + 1);   // one extra row tells us if there is a next page
+
+        List<CustomerWishlist> rows = after == null
+                ? wishlistRepo.findPage(customerId, limit)
+                : wishlistRepo.findPageAfter(customerId, after.createdAt(), after.id(), limit);
+
+        boolean hasMore = rows.size() > size;
+        List<CustomerWishlist> page = hasMore ? rows.subList(0, size) : rows;
+        if (page.isEmpty()) return new CursorPage<>(List.of(), null, false);
+
+        CustomerWishlist last = page.get(page.size() - 1);
+        String next = hasMore ? new FeedCursor(last.getAddedAt(), last.getId()).encode() : null;
+        return new CursorPage<>(hydrate(page), next, hasMore);
     }
 
     public boolean isInWishlist(Long customerId, Long productId, String productType) {
@@ -324,87 +345,95 @@ public class CustomerWishlistService {
         return exists;
     }
 
-    private WishlistProductDTO buildWishlistProduct(Long customerId, Long productId, String productType) {
+    /** Wishlist flag for every product on a listing page, in one query. Keys keep the request order. */
+    @Transactional(readOnly = true)
+    public Map<Long, Boolean> checkMany(Long customerId, String productType, List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return Map.of();
+        if (productIds.size() > MAX_BULK_CHECK) {
+            throw new BusinessValidationException("At most " + MAX_BULK_CHECK + " products can be checked at once");
+        }
+        if (customerId == null || productType == null) {
+            throw new BusinessValidationException("Customer ID and product type are required");
+        }
+
         String type = productType.trim().toUpperCase();
+        Set<Long> saved = new HashSet<>(wishlistRepo.findProductIdsIn(customerId, type, new HashSet<>(productIds)));
 
-        CustomerWishlist entry = wishlistRepo.findByCustomerIdAndProductIdAndProductType(customerId, productId, type)
-                .orElseThrow(() -> {
-                    log.warn("Wishlist entry not found - Customer ID: {}, Product ID: {}, Type: {}", customerId, productId, type);
-                    return new ResourceNotFoundException("Wishlist entry not found for this product");
-                });
-
-        String timeAgo = formatTimeAgo(entry.getAddedAt());
-
-        if ("REGULAR".equals(type)) {
-            Product p = productRepo.findById(productId)
-                    .orElseThrow(() -> {
-                        log.warn("Regular product not found during wishlist build - Product ID: {}", productId);
-                        return new ResourceNotFoundException("Product not found");
-                    });
-
-            Shop shop = p.getMerchantId() != null ? shopRepo.findById(p.getMerchantId()).orElse(null) : null;
-            User vendor = p.getMerchantId() != null ? userRepo.findById(p.getMerchantId()).orElse(null) : null;
-
-            String determinedType = determineType(p.getCategory() != null ? p.getCategory().getName() : null);
-            BigDecimal minPrice = getMinPriceFromDetails(p, determinedType);
-            BigDecimal maxPrice = getMaxPriceFromDetails(p, determinedType);
-
-            return new WishlistProductDTO(
-                    entry.getId(),
-                    p.getId(),
-                    p.getProductName(),
-                    getFirstImage(p.getImagePaths()),
-                    shop != null ? shop.getShopName() : "Unknown Shop",
-                    vendor != null ? vendor.getBusinessName() : "Unknown Vendor",
-                    minPrice,
-                    maxPrice,
-                    p.getCategory() != null ? p.getCategory().getName() : "Uncategorized",
-                    determinedType,
-                    p.getInStock(),
-                    entry.getAddedAt(),
-                    timeAgo
-            );
-        } else if ("WOMEN".equals(type)) {
-            WomenProduct wp = womenProductRepo.findById(productId)
-                    .orElseThrow(() -> {
-                        log.warn("Women product not found during wishlist build - Product ID: {}", productId);
-                        return new ResourceNotFoundException("Women product not found");
-                    });
-
-            User vendor = wp.getSeller();
-            Shop shop = vendor != null ? shopRepo.findById(vendor.getId()).orElse(null) : null;
-
-            String firstImage = wp.getImageUrlList() != null && !wp.getImageUrlList().isEmpty()
-                    ? wp.getImageUrlList().get(0)
-                    : null;
-
-            return new WishlistProductDTO(
-                    entry.getId(),
-                    wp.getId(),
-                    wp.getName(),
-                    firstImage,
-                    shop != null ? shop.getShopName() : (vendor != null ? vendor.getBusinessName() : "Unknown"),
-                    vendor != null ? vendor.getBusinessName() : "Unknown Vendor",
-                    wp.getMinPrice(),
-                    wp.getMaxPrice(),
-                    wp.getCategory(),
-                    "WOMEN",
-                    wp.getStock() > 0,
-                    entry.getAddedAt(),
-                    timeAgo
-            );
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        for (Long id : productIds) {
+            if (id != null) result.put(id, saved.contains(id));
         }
+        return result;
+    }
 
-        log.warn("Invalid product type during wishlist build: {}", type);
-        throw new BusinessValidationException("Invalid product type: " + type);
+    private WishlistProductDTO toDto(CustomerWishlist entry, CatalogSnapshot p,
+                                     Map<Long, User> vendors, Map<Long, Shop> shops) {
+        User vendor = p.merchantId() != null ? vendors.get(p.merchantId()) : null;
+        Shop shop = p.merchantId() != null ? shops.get(p.merchantId()) : null;
+        String vendorName = vendor != null ? vendor.getBusinessName() : null;
+
+        String shopName = shop != null ? shop.getShopName() : (vendorName != null ? vendorName : "Unknown Shop");
+
+        return new WishlistProductDTO(
+                entry.getId(),
+                p.productId(),
+                p.name(),
+                p.image(),
+                shopName,
+                vendorName != null ? vendorName : "Unknown Vendor",
+                p.price() != null ? p.price() : BigDecimal.ZERO,
+                p.maxPrice() != null ? p.maxPrice() : BigDecimal.ZERO,
+                p.categoryName() != null ? p.categoryName() : "Uncategorized",
+                p.detailType(),
+                p.inStock(),
+                entry.getAddedAt(),
+                formatTimeAgo(entry.getAddedAt())
+        );
     }
 
-    private String getFirstImage(String imagePaths) {
-        if (imagePaths == null || imagePaths.isBlank()) {
-            return null;
+    // Entries whose product has since been deleted are left out rather than failing the whole list
+    private List<WishlistProductDTO> hydrate(List<CustomerWishlist> entries) {
+        if (entries.isEmpty()) return List.of();
+
+        Map<CustomerWishlist, Key> keys = new LinkedHashMap<>();
+        for (CustomerWishlist entry : entries) {
+            keys.put(entry, Key.of(entry.getProductType(), entry.getProductId()));
+        }
+        Map<Key, CatalogSnapshot> catalog = catalogLookup.lookup(keys.values());
+
+        Set<Long> merchantIds = catalog.values().stream()
+                .map(CatalogSnapshot::merchantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> vendors = new HashMap<>();
+        Map<Long, Shop> shops = new HashMap<>();
+        if (!merchantIds.isEmpty()) {
+            vendors = userRepo.findAllById(merchantIds).stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            for (Shop shop : shopRepo.findAllByUserIdIn(merchantIds)) {
+                shops.put(shop.getUser().getId(), shop);
+            }
+        }
+
+        List<WishlistProductDTO> result = new ArrayList<>(entries.size());
+        for (Map.Entry<CustomerWishlist, Key> e : keys.entrySet()) {
+            CatalogSnapshot p = catalog.get(e.getValue());
+            if (p == null) {
+                log.debug("Skipping wishlist entry {} - product {} no longer exists", e.getKey().getId(), e.getValue());
+                continue;
+            }
+            result.add(toDto(e.getKey(), p, vendors, shops));
+        }
+        return result;
+    }
+
+    private static String requireWishlistType(String productType) {
+        String type = productType.trim().toUpperCase();
+        if (!"REGULAR".equals(type) && !"WOMEN".equals(type)) {
+            log.warn("Invalid wishlist product type: {}", type);
+            throw new BusinessValidationException("Invalid product type: " + type);
         }
-        String[] paths = imagePaths.split(",");
-        return paths.length > 0 ? paths[0].trim() : null;
+        return type;
     }
 
     private String formatTimeAgo(LocalDateTime dateTime) {
@@ -426,44 +455,4 @@ public class CustomerWishlistService {
         }
         return "More than a week ago";
     }
-
-    private String determineType(String categoryName) {
-        if (categoryName == null) return "GENERAL";
-
-        String lower = categoryName.toLowerCase();
-        if (lower.contains("vegetable") || lower.contains("root")) return "VEGETABLE";
-        if (lower.contains("dairy")) return "DAIRY";
-        if (lower.contains("meat") || lower.contains("seafood")) return "MEAT";
-        return "GENERAL";
-    }
-
-    private BigDecimal getMinPriceFromDetails(Product p, String type) {
-        return switch (type) {
-            case "VEGETABLE" -> vegRepo.findByProductId(p.getId())
-                    .map(VegetableDetail::getMinPrice)
-                    .orElse(BigDecimal.ZERO);
-            case "DAIRY" -> dairyRepo.findByProductId(p.getId())
-                    .map(DairyDetail::getMinPrice)
-                    .orElse(BigDecimal.ZERO);
-            case "MEAT" -> meatRepo.findByProductId(p.getId())
-                    .map(MeatDetail::getMinPrice)
-                    .orElse(BigDecimal.ZERO);
-            default -> BigDecimal.ZERO;
-        };
-    }
-
-    private BigDecimal getMaxPriceFromDetails(Product p, String type) {
-        return switch (type) {
-            case "VEGETABLE" -> vegRepo.findByProductId(p.getId())
-                    .map(VegetableDetail::getMaxPrice)
-                    .orElse(BigDecimal.ZERO);
-            case "DAIRY" -> dairyRepo.findByProductId(p.getId())
-                    .map(DairyDetail::getMaxPrice)
-                    .orElse(BigDecimal.ZERO);
-            case "MEAT" -> meatRepo.findByProductId(p.getId())
-                    .map(MeatDetail::getMaxPrice)
-                    .orElse(BigDecimal.ZERO);
-            default -> BigDecimal.ZERO;
-        };
-    }
 }
\ No newline at end of file
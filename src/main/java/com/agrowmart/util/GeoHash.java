@@ -0,0 +1,142 @@
+package com.agrowmart.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash encoding and the small amount of geometry the shop geo index needs.
+ *
+ * A geohash interleaves longitude and latitude bits (longitude first) and writes them
+ * five at a time in base 32, so points that share a prefix share a grid cell and a
+ * prefix of length p names a cell of {@link #cellWidth(int)} x {@link #cellHeight(int)} degrees.
+ */
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    // A degree of latitude is 110.57–111.69 km; the low end keeps covering boxes on the safe side
+    private static final double KM_PER_DEGREE = 110.5;
+
+    private GeoHash() {}
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true;
+        int bits = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+            if (++bits == 5) {
+                hash.append(BASE32[ch]);
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    public static double cellWidth(int precision) {
+        int lonBits = (5 * precision + 1) / 2;
+        return 360.0 / (1L << lonBits);
+    }
+
+    public static double cellHeight(int precision) {
+        int latBits = (5 * precision) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    /**
+     * The longest prefix length, up to maxPrecision, whose cells cover a circle of radiusKm
+     * with at most maxCells cells.
+     */
+    public static int coveringPrecision(double latitude, double radiusKm, int maxPrecision, int maxCells) {
+        double dLat = latitudeSpan(radiusKm);
+        double dLon = longitudeSpan(latitude, radiusKm);
+        for (int p = maxPrecision; p > 1; p--) {
+            double rows = Math.ceil(2 * dLat / cellHeight(p)) + 1;
+            double cols = Math.ceil(2 * dLon / cellWidth(p)) + 1;
+            if (rows * cols <= maxCells) return p;
+        }
+        return 1;
+    }
+
+    /**
+     * The cells of the given precision that cover the box around a circle of radiusKm.
+     * Every point within radiusKm of the centre lies in one of them.
+     */
+    public static Set<String> coveringCells(double latitude, double longitude, double radiusKm, int precision) {
+        double dLat = latitudeSpan(radiusKm);
+        double dLon = longitudeSpan(latitude, radiusKm);
+
+        double minLat = Math.max(-90.0, latitude - dLat);
+        double maxLat = Math.min(89.999999, latitude + dLat);
+        double width = cellWidth(precision);
+        double height = cellHeight(precision);
+
+        Set<String> cells = new LinkedHashSet<>();
+        // Step one cell at a time and always include the far edge, so no partial cell is skipped
+        for (double lat = minLat; ; lat = Math.min(lat + height, maxLat)) {
+            for (double lon = longitude - dLon; ; lon = Math.min(lon + width, longitude + dLon)) {
+                cells.add(encode(lat, wrapLongitude(lon), precision));
+                if (lon >= longitude + dLon) break;
+            }
+            if (lat >= maxLat) break;
+        }
+        return cells;
+    }
+
+    /** Great-circle distance in km (haversine). */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    public static boolean isValid(Double latitude, Double longitude) {
+        return latitude != null && longitude != null
+                && latitude >= -90 && latitude <= 90
+                && longitude >= -180 && longitude <= 180;
+    }
+
+    private static double latitudeSpan(double radiusKm) {
+        return radiusKm / KM_PER_DEGREE;
+    }
+
+    // Measured at the box edge nearest a pole, where a degree of longitude is shortest
+    private static double longitudeSpan(double latitude, double radiusKm) {
+        double edge = Math.min(89.0, Math.abs(latitude) + latitudeSpan(radiusKm));
+        double cos = Math.max(Math.cos(Math.toRadians(edge)), 0.01);
+        return Math.min(180.0, radiusKm / (KM_PER_DEGREE * cos));
+    }
+
+    private static double wrapLongitude(double lon) {
+        if (lon < -180) return lon + 360;
+        if (lon >= 180) return lon - 360;
+        return lon;
+    }
+}
@@ -5,8 +5,10 @@ import com.agrowmart.admin_seller_management.entity.Admin;
 import com.agrowmart.entity.User;
 import com.agrowmart.entity.customer.Customer;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -22,8 +24,18 @@ public class JwtUtil {
     @Value("${jwt.expiration-ms}")
     private long expirationMs;
 
+    // Built once: the HMAC key and the (thread-safe) parser are the same for every token
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     // ==================== GENERATE TOKENS ====================
@@ -52,12 +64,16 @@ public class JwtUtil {
 
     // ==================== EXTRACT CLAIMS ====================
 
+    /**
+     * Verifies signature and expiry and returns the claims, in one parse.
+     * Throws a JwtException for a bad or expired token.
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
 
     public Long extractUserId(String token) {
@@ -0,0 +1,28 @@
+package com.agrowmart.util;
+
+/**
+ * LIKE patterns built from user input.
+ *
+ * The input's own {@code %} and {@code _} are matched literally: they are escaped with a
+ * backslash, MySQL's default LIKE escape character, so queries need no ESCAPE clause.
+ */
+public final class LikePattern {
+
+    private LikePattern() {}
+
+    /** Lower-cased "contains" pattern for a search term, or null when the term is blank. */
+    public static String contains(String search) {
+        if (search == null || search.isBlank()) return null;
+        return "%" + escape(search.trim().toLowerCase()) + "%";
+    }
+
+    static String escape(String term) {
+        StringBuilder sb = new StringBuilder(term.length() + 8);
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') sb.append('\\');
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
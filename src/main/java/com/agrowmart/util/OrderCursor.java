@@ -0,0 +1,34 @@
+package com.agrowmart.util;
+
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a "newest first" order list: the (createdAt, id) of the last order sent.
+ * Same wire format as {@link FeedCursor}, for the String order ids.
+ */
+public record OrderCursor(LocalDateTime createdAt, String orderId) {
+
+    public String encode() {
+        String raw = createdAt + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns null for a blank cursor (first page). */
+    public static OrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            String orderId = raw.substring(sep + 1);
+            if (orderId.isBlank()) throw new IllegalArgumentException("empty order id");
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, sep)), orderId);
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw new BusinessValidationException("Invalid cursor");
+        }
+    }
+}
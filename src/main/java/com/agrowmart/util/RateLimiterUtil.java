@@ -1,19 +1,23 @@
 package com.agrowmart.util;
 
-import java.util.concurrent.TimeUnit;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import com.agrowmart.config.RateLimitBackend;
 import org.springframework.stereotype.Component;
 
+/**
+ * Fixed-window limit for business-level keys (e.g. OTPs per phone number). Route-level
+ * limits are applied by {@link com.agrowmart.config.RateLimitFilter}.
+ */
 @Component
 public class RateLimiterUtil {
-    @Autowired private RedisTemplate<String, String> redisTemplate;
 
+    private final RateLimitBackend backend;
+
+    public RateLimiterUtil(RateLimitBackend backend) {
+        this.backend = backend;
+    }
+
+    // Count and expiry are set in one atomic call, so a counter can never outlive its window
     public boolean isAllowed(String key, long maxRequests, long windowSeconds) {
-        String rateKey = "rate:" + key;
-        Long count = redisTemplate.opsForValue().increment(rateKey);
-        if (count == 1) redisTemplate.expire(rateKey, windowSeconds, TimeUnit.SECONDS);
-        return count <= maxRequests;
+        return backend.incrementWindow("rate:" + key, windowSeconds) <= maxRequests;
     }
-}
\ No newline at end of file
+}
@@ -5,22 +5,26 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 @Component
 public class RazorpaySignatureUtil {
     @Value("${razorpay.webhook.secret}")
     private String webhookSecret;
 
-    public static boolean verify(String payload, String receivedSignature) {
+    public boolean verify(String payload, String receivedSignature) {
+        if (payload == null || receivedSignature == null) return false;
         try {
             Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKeySpec = new SecretKeySpec(null, null);
+            SecretKeySpec secretKeySpec = new SecretKeySpec(webhookSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
             mac.init(secretKeySpec);
             byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
             StringBuilder generatedSignature = new StringBuilder();
             for (byte b : hash) {
                 generatedSignature.append(String.format("%02x", b));
             }
-            return generatedSignature.toString().equals(receivedSignature);
+            return MessageDigest.isEqual(
+                    generatedSignature.toString().getBytes(StandardCharsets.UTF_8),
+                    receivedSignature.getBytes(StandardCharsets.UTF_8));
         } catch (Exception e) {
             return false;
         }
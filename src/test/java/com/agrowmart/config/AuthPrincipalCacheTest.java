@@ -0,0 +1,140 @@
+package com.agrowmart.config;
+
+import com.agrowmart.entity.Role;
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthPrincipalCacheTest {
+
+    private final AuthPrincipalCache cache = new AuthPrincipalCache(60, 100);
+
+    @Test
+    void everyRequestGetsItsOwnCopy() {
+        AuthPrincipalCache.CachedPrincipal cached = cache.get("vendor", 5L, () -> AuthPrincipalCache.CachedPrincipal.of(vendor(5L)));
+
+        User first = (User) cached.newPrincipal();
+        first.setName("changed by request 1");
+        first.getShop().setShopName("changed too");
+        User second = (User) cache.get("vendor", 5L, () -> null).newPrincipal();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getName()).isEqualTo("Vendor 5");
+        assertThat(second.getShop().getShopName()).isEqualTo("Shop 5");
+        assertThat(second.getShop().getUser()).isSameAs(second);
+        assertThat(cached.role()).isEqualTo("VENDOR");
+        assertThat(cached.authorities()).extracting(Object::toString).containsExactly("VENDOR");
+    }
+
+    @Test
+    void customerCopiesDoNotShareTheAddressList() {
+        Customer customer = new Customer();
+        customer.setId(5L);
+        customer.setFullName("Customer 5");
+        AuthPrincipalCache.CachedPrincipal cached = cache.get("customer", 5L, () -> AuthPrincipalCache.CachedPrincipal.of(customer));
+
+        Customer first = (Customer) cached.newPrincipal();
+        first.getAddresses().add(null);
+
+        assertThat(((Customer) cached.newPrincipal()).getAddresses()).isEmpty();
+        assertThat(cached.status()).isEqualTo("ACTIVE");
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+
+        List<Future<AuthPrincipalCache.CachedPrincipal>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(pool.submit(() -> cache.get("vendor", 7L, () -> {
+                loads.incrementAndGet();
+                loaderEntered.countDown();
+                await(release);
+                return AuthPrincipalCache.CachedPrincipal.of(vendor(7L));
+            })));
+        }
+        loaderEntered.await(5, TimeUnit.SECONDS);
+        Thread.sleep(100);   // let the other callers pile up behind the load
+        release.countDown();
+
+        AuthPrincipalCache.CachedPrincipal first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<AuthPrincipalCache.CachedPrincipal> f : results) {
+            assertThat(f.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        pool.shutdown();
+    }
+
+    @Test
+    void loadThatRacesAnEvictionIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("vendor", 9L, () -> {
+            loads.incrementAndGet();
+            cache.evictVendor(9L);   // the row changed while it was being read
+            return AuthPrincipalCache.CachedPrincipal.of(vendor(9L));
+        });
+        cache.get("vendor", 9L, () -> {
+            loads.incrementAndGet();
+            return AuthPrincipalCache.CachedPrincipal.of(vendor(9L));
+        });
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    // 2,000 requests over 200 vendors from 16 threads: each vendor is read from the DB once
+    @Test
+    void repeatedRequestsLoadEachVendorOnce() throws Exception {
+        int requests = 2_000;
+        int vendors = 200;
+        AuthPrincipalCache roomy = new AuthPrincipalCache(60, vendors);
+        AtomicInteger loads = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<User>> results = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            long id = i % vendors;
+            results.add(pool.submit(() -> (User) roomy.get("vendor", id, () -> {
+                loads.incrementAndGet();
+                return AuthPrincipalCache.CachedPrincipal.of(vendor(id));
+            }).newPrincipal()));
+        }
+        for (int i = 0; i < requests; i++) {
+            assertThat(results.get(i).get(30, TimeUnit.SECONDS).getId()).isEqualTo((long) (i % vendors));
+        }
+        pool.shutdown();
+
+        assertThat(loads.get()).isEqualTo(vendors);
+    }
+
+    static User vendor(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Vendor " + id);
+        user.setRole(new Role("VENDOR"));
+        Shop shop = new Shop();
+        shop.setShopName("Shop " + id);
+        shop.setUser(user);
+        user.setShop(shop);
+        return user;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
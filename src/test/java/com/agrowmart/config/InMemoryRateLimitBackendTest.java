@@ -0,0 +1,36 @@
+package com.agrowmart.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryRateLimitBackendTest {
+
+    private final InMemoryRateLimitBackend backend = new InMemoryRateLimitBackend();
+    private final RateLimitPolicy policy = RateLimitPolicy.of("login", "2,1", Set.of(), "/api/auth/login");
+
+    @Test
+    void limitsEachKeySeparately() {
+        assertThat(backend.tryAcquire("rl:login:ip1", policy)).isZero();
+        assertThat(backend.tryAcquire("rl:login:ip1", policy)).isZero();
+        assertThat(backend.tryAcquire("rl:login:ip1", policy)).isPositive();
+
+        assertThat(backend.tryAcquire("rl:login:ip2", policy)).isZero();
+    }
+
+    @Test
+    void windowCountsUpWithinTheWindow() {
+        assertThat(backend.incrementWindow("otp:phone", 60)).isEqualTo(1);
+        assertThat(backend.incrementWindow("otp:phone", 60)).isEqualTo(2);
+        assertThat(backend.incrementWindow("otp:other", 60)).isEqualTo(1);
+    }
+
+    @Test
+    void expiredWindowStartsOver() {
+        backend.incrementWindow("otp:phone", 0);
+
+        assertThat(backend.incrementWindow("otp:phone", 0)).isEqualTo(1);
+    }
+}
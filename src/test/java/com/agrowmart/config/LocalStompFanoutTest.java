@@ -0,0 +1,72 @@
+package com.agrowmart.config;
+
+import com.agrowmart.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.security.Principal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LocalStompFanoutTest {
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final StompMetrics metrics = new StompMetrics();
+    private final LocalStompFanout fanout = new LocalStompFanout(template, metrics);
+
+    @Test
+    void customerAndUserWithTheSameIdGetSeparateQueues() {
+        Object update = Map.of("orderId", "ORD-1");
+
+        fanout.toUser(StompFanout.customer(5L), "/queue/orders", update);
+
+        verify(template).convertAndSendToUser("c5", "/queue/orders", update);
+        verify(template, never()).convertAndSendToUser(eq("u5"), anyString(), any());
+        verify(template, never()).convertAndSendToUser(eq("5"), anyString(), any());
+        assertThat(metrics.snapshot().get("deliveredLocal")).isEqualTo(1L);
+    }
+
+    @Test
+    void topicGoesToTheBroker() {
+        Object update = Map.of("orderId", "ORD-2");
+
+        fanout.toTopic("/topic/delivery/pickups", update);
+
+        verify(template).convertAndSend("/topic/delivery/pickups", update);
+    }
+
+    @Test
+    void sessionPrincipalCarriesTheTokenType() {
+        assertThat(connect("customer", 5L)).isEqualTo("c5");
+        assertThat(connect("vendor", 5L)).isEqualTo("u5");
+        assertThat(connect("admin", 5L)).isNull();
+    }
+
+    // Principal name a CONNECT with a token of this type ends up with
+    private static String connect(String type, Long userId) {
+        Claims claims = mock(Claims.class);
+        when(claims.get("userId", Long.class)).thenReturn(userId);
+        when(claims.get("type", String.class)).thenReturn(type);
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.parseClaims("token")).thenReturn(claims);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.addNativeHeader("Authorization", "Bearer token");
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+
+        Message<?> result = new StompAuthInterceptor(jwtUtil).preSend(message, mock(MessageChannel.class));
+        Principal user = MessageHeaderAccessor.getAccessor(result, StompHeaderAccessor.class).getUser();
+        return user != null ? user.getName() : null;
+    }
+}
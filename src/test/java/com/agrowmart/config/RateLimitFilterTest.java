@@ -0,0 +1,59 @@
+package com.agrowmart.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final RateLimitPolicies policies = new RateLimitPolicies("2,1", "2,1", "60,120", "10,20");
+
+    @Test
+    void spoofedForwardedForDoesNotGetAFreshBucket() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(policies, new InMemoryRateLimitBackend(), new RateLimitMetrics(), 1000);
+
+        assertThat(login(filter, "1.1.1.1")).isEqualTo(200);
+        assertThat(login(filter, "2.2.2.2")).isEqualTo(200);
+        assertThat(login(filter, "3.3.3.3")).isEqualTo(429);
+    }
+
+    @Test
+    void forgotPasswordIsLimitedOnEveryAccountType() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(policies, new InMemoryRateLimitBackend(), new RateLimitMetrics(), 1000);
+
+        assertThat(post(filter, "/api/customer/auth/forgot-password")).isEqualTo(200);
+        assertThat(post(filter, "/api/farmer/forgot-password")).isEqualTo(200);
+        assertThat(post(filter, "/api/doctor/forgot-password")).isEqualTo(429);
+    }
+
+    @Test
+    void fullLocalTableFallsBackToTheBackend() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(policies, new InMemoryRateLimitBackend(), new RateLimitMetrics(), 0);
+
+        assertThat(login(filter, null)).isEqualTo(200);
+        assertThat(login(filter, null)).isEqualTo(200);
+        assertThat(login(filter, null)).isEqualTo(429);
+    }
+
+    private static int login(RateLimitFilter filter, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr("10.0.0.7");
+        if (forwardedFor != null) request.addHeader("X-Forwarded-For", forwardedFor);
+        return run(filter, request);
+    }
+
+    private static int post(RateLimitFilter filter, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setRemoteAddr("10.0.0.8");
+        return run(filter, request);
+    }
+
+    private static int run(RateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,73 @@
+package com.agrowmart.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class StompOutboundLimiterTest {
+
+    private final StompMetrics metrics = new StompMetrics();
+    private final StompOutboundLimiter limiter = new StompOutboundLimiter(2, metrics);
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+
+    @Test
+    void fullQueueDropsMessagesButNotControlFrames() {
+        connect("s1");
+
+        assertThat(limiter.preSend(frame(SimpMessageType.MESSAGE, "s1"), channel)).isNotNull();
+        Message<?> second = frame(SimpMessageType.MESSAGE, "s1");
+        assertThat(limiter.preSend(second, channel)).isNotNull();
+        assertThat(limiter.preSend(frame(SimpMessageType.MESSAGE, "s1"), channel)).isNull();
+        assertThat(limiter.preSend(frame(SimpMessageType.HEARTBEAT, "s1"), channel)).isNotNull();
+
+        limiter.afterMessageHandled(second, channel, handler, null);
+        limiter.afterMessageHandled(second, channel, handler, null);
+        assertThat(limiter.preSend(frame(SimpMessageType.MESSAGE, "s1"), channel)).isNotNull();
+        assertThat(metrics.snapshot().get("dropped")).isEqualTo(1L);
+    }
+
+    @Test
+    void framesAfterDisconnectDoNotBringTheSessionBack() {
+        connect("s1");
+        limiter.onDisconnect(new SessionDisconnectEvent(this, frame(SimpMessageType.DISCONNECT, "s1"), "s1",
+                CloseStatus.NORMAL));
+
+        Message<?> late = frame(SimpMessageType.MESSAGE, "s1");
+        assertThat(limiter.preSend(late, channel)).isSameAs(late);
+        limiter.afterMessageHandled(late, channel, handler, null);
+
+        assertThat(metrics.snapshot().get("sessions")).isZero();
+    }
+
+    @Test
+    void onlyConnectedSessionsAreTracked() {
+        Message<?> beforeConnect = frame(SimpMessageType.MESSAGE, "s2");
+        assertThat(limiter.preSend(beforeConnect, channel)).isSameAs(beforeConnect);
+        assertThat(metrics.snapshot().get("sessions")).isZero();
+
+        connect("s2");
+        assertThat(metrics.snapshot().get("sessions")).isEqualTo(1L);
+    }
+
+    private void connect(String sessionId) {
+        Message<?> ack = frame(SimpMessageType.CONNECT_ACK, sessionId);
+        assertThat(limiter.preSend(ack, channel)).isSameAs(ack);
+        limiter.afterMessageHandled(ack, channel, handler, null);
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,49 @@
+package com.agrowmart.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsTheBurstThenRefillsAtTheRate() {
+        TokenBucket bucket = new TokenBucket(3, 60, 0);   // one token a second
+
+        assertThat(bucket.tryTake(0)).isZero();
+        assertThat(bucket.tryTake(0)).isZero();
+        assertThat(bucket.tryTake(0)).isZero();
+        assertThat(bucket.tryTake(0)).isEqualTo(1000);
+        assertThat(bucket.tryTake(400)).isEqualTo(600);
+
+        assertThat(bucket.tryTake(1000)).isZero();
+        assertThat(bucket.tryTake(1000)).isPositive();
+    }
+
+    @Test
+    void neverHoldsMoreThanCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 60, 0);
+
+        // An hour of quiet refills to the capacity, not 3600 tokens
+        assertThat(bucket.tryTake(3_600_000)).isZero();
+        assertThat(bucket.tryTake(3_600_000)).isZero();
+        assertThat(bucket.tryTake(3_600_000)).isPositive();
+    }
+
+    @Test
+    void isIdleOnlyOnceFullAgain() {
+        TokenBucket bucket = new TokenBucket(2, 60, 0);
+        bucket.tryTake(0);
+
+        assertThat(bucket.isIdle(500)).isFalse();
+        assertThat(bucket.isIdle(1000)).isTrue();
+    }
+
+    @Test
+    void clockGoingBackwardsDoesNotAddTokens() {
+        TokenBucket bucket = new TokenBucket(1, 60, 10_000);
+        bucket.tryTake(10_000);
+
+        assertThat(bucket.tryTake(5_000)).isPositive();
+    }
+}
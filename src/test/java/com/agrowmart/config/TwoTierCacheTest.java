@@ -0,0 +1,110 @@
+package com.agrowmart.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private static final String VALUE_KEY = "cache:products:0:{a}";
+    private static final String VERSION_KEY = "cache:products:version:{a}";
+
+    // Stands in for Redis, shared by all "instances"
+    private final Map<String, String> store = new ConcurrentHashMap<>();
+    private TwoTierCache.Region<String> region;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        when(ops.get(anyString())).thenAnswer(inv -> store.get(inv.<String>getArgument(0)));
+        when(ops.multiGet(anyList())).thenAnswer(inv ->
+                inv.<List<String>>getArgument(0).stream().map(store::get).toList());
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(redis.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+            RedisScript<Long> script = inv.getArgument(0);
+            List<String> keys = inv.getArgument(1);
+            Object[] args = inv.getRawArguments()[2] instanceof Object[] raw ? raw : new Object[0];
+            if (script.getScriptAsString().contains("INCR")) {
+                bumpVersion(keys.get(0), keys.get(1));
+                return 1L;
+            }
+            if (!store.getOrDefault(keys.get(1), "0").equals(args[0])) return 0L;
+            store.put(keys.get(0), (String) args[1]);
+            return 1L;
+        });
+
+        TwoTierCache cache = new TwoTierCache(redis, new ObjectMapper(), mock(CacheInvalidationBus.class));
+        region = cache.region("products", new TypeReference<String>() {}, 100, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void loadIsStoredInBothTiers() {
+        assertThat(region.get("a", () -> "A1")).isEqualTo("A1");
+
+        assertThat(store).containsEntry(VALUE_KEY, "\"A1\"");
+        assertThat(region.get("a", failing())).isEqualTo("A1");
+    }
+
+    @Test
+    void evictingAnotherKeyDoesNotDropTheLoad() {
+        region.get("a", () -> {
+            region.evict("b");
+            return "A1";
+        });
+
+        assertThat(region.get("a", failing())).isEqualTo("A1");
+        assertThat(store).containsKey(VALUE_KEY);
+    }
+
+    @Test
+    void evictingTheKeyDuringItsLoadStoresNothing() {
+        region.get("a", () -> {
+            region.evict("a");
+            return "A1";
+        });
+
+        assertThat(store).doesNotContainKey(VALUE_KEY);
+        assertThat(region.get("a", () -> "A2")).isEqualTo("A2");
+    }
+
+    @Test
+    void evictionOnAnotherInstanceDuringTheLoadBlocksTheRedisWrite() {
+        // The other instance's invalidation bumps the version before this instance hears about it
+        region.get("a", () -> {
+            bumpVersion(VALUE_KEY, VERSION_KEY);
+            return "A1";
+        });
+
+        assertThat(store).doesNotContainKey(VALUE_KEY).containsEntry(VERSION_KEY, "1");
+        assertThat(region.get("b", () -> "B1")).isEqualTo("B1");
+        assertThat(store).containsKey("cache:products:0:{b}");
+    }
+
+    private void bumpVersion(String valueKey, String versionKey) {
+        store.remove(valueKey);
+        store.merge(versionKey, "1", (old, one) -> String.valueOf(Long.parseLong(old) + 1));
+    }
+
+    private static Supplier<String> failing() {
+        return () -> {
+            throw new AssertionError("should have been served from the cache");
+        };
+    }
+}
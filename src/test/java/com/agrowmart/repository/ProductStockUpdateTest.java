@@ -0,0 +1,140 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.config.AuthPrincipalEvictionListener;
+import com.agrowmart.service.CatalogIndexListener;
+import com.agrowmart.service.OrderIdAssigner;
+import com.agrowmart.service.ShopCacheListener;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the conditional stock UPDATEs that stop overselling against MySQL, from many
+ * connections at once. Each call commits on its own, as it does under StockReservationService.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockUpdateTest {
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    // Entity listeners are Spring beans; their collaborators are outside this slice
+    @MockitoBean CatalogIndexListener catalogIndexListener;
+    @MockitoBean AuthPrincipalEvictionListener authPrincipalEvictionListener;
+    @MockitoBean ShopCacheListener shopCacheListener;
+    @MockitoBean OrderIdAssigner orderIdAssigner;
+
+    @Autowired ProductRepository productRepository;
+    @Autowired EntityManager entityManager;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    void fiveHundredBuyersNeverOversell() throws Exception {
+        long productId = product(100);
+
+        int sold = buyConcurrently(productId, 500, 1);
+
+        assertThat(sold).isEqualTo(100);
+        assertThat(stock(productId)).isZero();
+        assertThat(inStock(productId)).isFalse();
+    }
+
+    @Test
+    void unitsThatDoNotCoverAWholeLineAreNotSold() throws Exception {
+        long productId = product(10);
+
+        int sold = buyConcurrently(productId, 40, 3);
+
+        assertThat(sold).isEqualTo(3);
+        assertThat(stock(productId)).isEqualTo(1.0);
+        assertThat(inStock(productId)).isTrue();
+    }
+
+    @Test
+    void releasedStockCanBeSoldAgain() throws Exception {
+        long productId = product(0);
+        tx().executeWithoutResult(s -> productRepository.incrementStock(productId, 5));
+
+        assertThat(buyConcurrently(productId, 20, 1)).isEqualTo(5);
+        assertThat(stock(productId)).isZero();
+    }
+
+    // Returns how many buyers got their quantity
+    private int buyConcurrently(long productId, int buyers, double qty) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                Integer updated = tx().execute(s -> productRepository.decrementStockIfAvailable(productId, qty));
+                if (updated != null && updated == 1) sold.incrementAndGet();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return sold.get();
+    }
+
+    private long product(int stock) {
+        return tx().execute(s -> {
+            entityManager.createNativeQuery("INSERT INTO categories (name, slug) VALUES ('Vegetables', :slug)")
+                    .setParameter("slug", "vegetables-" + System.nanoTime())
+                    .executeUpdate();
+            Number categoryId = (Number) entityManager.createNativeQuery("SELECT LAST_INSERT_ID()").getSingleResult();
+            entityManager.createNativeQuery("""
+                    INSERT INTO products (merchant_id, category_id, product_name, status, approval_status,
+                                          stock_quantity, in_stock)
+                    VALUES (1, :categoryId, 'Tomato', 'ACTIVE', 'APPROVED', :stock, true)
+                    """)
+                    .setParameter("categoryId", categoryId.longValue())
+                    .setParameter("stock", (double) stock)
+                    .executeUpdate();
+            return ((Number) entityManager.createNativeQuery("SELECT LAST_INSERT_ID()").getSingleResult()).longValue();
+        });
+    }
+
+    private double stock(long productId) {
+        return ((Number) tx().execute(s -> entityManager
+                .createNativeQuery("SELECT stock_quantity FROM products WHERE id = :id")
+                .setParameter("id", productId)
+                .getSingleResult())).doubleValue();
+    }
+
+    private boolean inStock(long productId) {
+        Object value = tx().execute(s -> entityManager
+                .createNativeQuery("SELECT in_stock FROM products WHERE id = :id")
+                .setParameter("id", productId)
+                .getSingleResult());
+        return value instanceof Boolean b ? b : ((Number) value).intValue() == 1;
+    }
+
+    private TransactionTemplate tx() {
+        return new TransactionTemplate(transactionManager);
+    }
+}
@@ -0,0 +1,165 @@
+package com.agrowmart.repository;
+
+import com.agrowmart.config.AuthPrincipalEvictionListener;
+import com.agrowmart.entity.Role;
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.Customer;
+import com.agrowmart.entity.customer.CustomerAddress;
+import com.agrowmart.entity.order.Order;
+import com.agrowmart.service.CatalogIndexListener;
+import com.agrowmart.service.OrderIdAssigner;
+import com.agrowmart.service.ShopCacheListener;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the delivered-order counter behind popular shops (increment, ranking, nightly recount)
+ * against MySQL; the recount is a native multi-table UPDATE.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ShopPopularityTest {
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    // Entity listeners are Spring beans; their collaborators are outside this slice
+    @MockitoBean CatalogIndexListener catalogIndexListener;
+    @MockitoBean AuthPrincipalEvictionListener authPrincipalEvictionListener;
+    @MockitoBean ShopCacheListener shopCacheListener;
+    @MockitoBean OrderIdAssigner orderIdAssigner;
+
+    @Autowired ShopRepository shopRepository;
+    @Autowired EntityManager entityManager;
+
+    @Test
+    void approvedActiveShopsRankByDeliveredOrders() {
+        Shop a = shop(true, true);
+        Shop b = shop(true, true);
+        Shop c = shop(true, true);
+        Shop unapproved = shop(false, true);
+        Shop inactive = shop(true, false);
+        entityManager.flush();
+
+        shopRepository.incrementDeliveredOrderCount(a.getUser().getId());
+        for (int i = 0; i < 3; i++) shopRepository.incrementDeliveredOrderCount(b.getUser().getId());
+        for (int i = 0; i < 5; i++) {
+            shopRepository.incrementDeliveredOrderCount(unapproved.getUser().getId());
+            shopRepository.incrementDeliveredOrderCount(inactive.getUser().getId());
+        }
+
+        assertThat(shopRepository.findPopularShops(PageRequest.of(0, 10)))
+                .extracting(Shop::getId).containsExactly(b.getId(), a.getId(), c.getId());
+        assertThat(shopRepository.findPopularShops(PageRequest.of(0, 2)))
+                .extracting(Shop::getId).containsExactly(b.getId(), a.getId());
+        assertThat(counter(b)).isEqualTo(3);
+    }
+
+    @Test
+    void recountFixesOnlyTheCountersThatDrifted() {
+        Customer customer = customer();
+        CustomerAddress address = address(customer);
+        Shop missedIncrements = shop(true, true);
+        Shop overCounted = shop(true, true);
+        Shop correct = shop(true, true);
+        order(missedIncrements, customer, address, Order.OrderStatus.DELIVERED);
+        order(missedIncrements, customer, address, Order.OrderStatus.DELIVERED);
+        order(missedIncrements, customer, address, Order.OrderStatus.PENDING);
+        order(correct, customer, address, Order.OrderStatus.DELIVERED);
+        entityManager.flush();
+        shopRepository.incrementDeliveredOrderCount(correct.getUser().getId());
+        for (int i = 0; i < 4; i++) shopRepository.incrementDeliveredOrderCount(overCounted.getUser().getId());
+
+        assertThat(shopRepository.reconcileDeliveredOrderCounts()).isEqualTo(2);
+
+        assertThat(counter(missedIncrements)).isEqualTo(2);
+        assertThat(counter(overCounted)).isZero();
+        assertThat(counter(correct)).isEqualTo(1);
+        assertThat(shopRepository.reconcileDeliveredOrderCounts()).isZero();
+    }
+
+    // ─────────────────────────────────────────────
+
+    private Shop shop(boolean approved, boolean active) {
+        User vendor = new User();
+        vendor.setName("Vendor");
+        vendor.setPasswordHash("x");
+        vendor.setRole(role());
+        entityManager.persist(vendor);
+
+        Shop shop = new Shop();
+        shop.setShopName("Shop");
+        shop.setShopType("GROCERY");
+        shop.setShopAddress("Pune 411001");
+        shop.setShopLicense("LIC-" + UUID.randomUUID());
+        shop.setApproved(approved);
+        shop.setActive(active);
+        shop.setUser(vendor);
+        entityManager.persist(shop);
+        return shop;
+    }
+
+    private Role role() {
+        return entityManager.createQuery("SELECT r FROM Role r WHERE r.name = 'VENDOR'", Role.class)
+                .getResultStream().findFirst()
+                .orElseGet(() -> {
+                    Role role = new Role("VENDOR");
+                    entityManager.persist(role);
+                    return role;
+                });
+    }
+
+    private Customer customer() {
+        Customer customer = new Customer();
+        customer.setFullName("Customer");
+        customer.setPhone("9" + System.nanoTime() % 1_000_000_000L);
+        customer.setPasswordHash("x");
+        entityManager.persist(customer);
+        return customer;
+    }
+
+    private CustomerAddress address(Customer customer) {
+        CustomerAddress address = new CustomerAddress();
+        address.setCustomer(customer);
+        address.setPincode("411001");
+        address.setState("Maharashtra");
+        entityManager.persist(address);
+        return address;
+    }
+
+    private void order(Shop shop, Customer customer, CustomerAddress address, Order.OrderStatus status) {
+        Order order = new Order();
+        order.setId("ORD-" + UUID.randomUUID());   // OrderIdAssigner is mocked here
+        order.setCustomer(customer);
+        order.setMerchant(shop.getUser());
+        order.setDeliveryAddress(address);
+        order.setTotalPrice(BigDecimal.TEN);
+        order.setPaymentMode("COD");
+        order.setStatus(status);
+        entityManager.persist(order);
+    }
+
+    private long counter(Shop shop) {
+        return ((Number) entityManager
+                .createNativeQuery("SELECT delivered_order_count FROM shops WHERE id = :id")
+                .setParameter("id", shop.getId())
+                .getSingleResult()).longValue();
+    }
+}
@@ -0,0 +1,183 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.ApprovalStatus;
+import com.agrowmart.entity.Category;
+import com.agrowmart.entity.Product;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.VegetableDetail;
+import com.agrowmart.entity.WomenProduct;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.exception.ResourceNotFoundException;
+import com.agrowmart.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogLookupServiceTest {
+
+    private final Map<Long, Product> products = new HashMap<>();
+    private final Map<Long, WomenProduct> womenProducts = new HashMap<>();
+    private final Map<Long, VegetableDetail> vegDetails = new HashMap<>();
+
+    private ProductRepository productRepo;
+    private WomenProductRepository womenProductRepo;
+    private AgriProductRepository agriProductRepo;
+    private VegetableDetailRepository vegRepo;
+    private CatalogLookupService lookup;
+
+    @BeforeEach
+    void setUp() {
+        productRepo = mock(ProductRepository.class);
+        when(productRepo.findAllById(anyIterable())).thenAnswer(inv -> pick(products, inv.getArgument(0)));
+        womenProductRepo = mock(WomenProductRepository.class);
+        when(womenProductRepo.findAllById(anyIterable())).thenAnswer(inv -> pick(womenProducts, inv.getArgument(0)));
+        agriProductRepo = mock(AgriProductRepository.class);
+        vegRepo = mock(VegetableDetailRepository.class);
+        when(vegRepo.findByProductIdIn(anyCollection())).thenAnswer(inv -> pick(vegDetails, inv.getArgument(0)));
+
+        CategoryTreeCache categoryTree = mock(CategoryTreeCache.class);
+        when(categoryTree.productType(any())).thenReturn("VEGETABLE");
+        when(categoryTree.node(any(Category.class))).thenReturn(new CategoryTreeCache.Node(
+                1L, "Vegetables", "vegetables", null, List.of(), "VEGETABLE", Set.of(1L)));
+
+        lookup = new CatalogLookupService(productRepo, womenProductRepo, agriProductRepo, categoryTree,
+                vegRepo, mock(DairyDetailRepository.class), mock(MeatDetailRepository.class), 60, 100);
+    }
+
+    @Test
+    void aMixedBasketCostsOneQueryPerCatalog() {
+        for (long id = 1; id <= 20; id++) regular(id, "50.00");
+        for (long id = 1; id <= 10; id++) women(id);
+        List<CatalogLookupService.Key> keys = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) keys.add(CatalogLookupService.Key.of("REGULAR", id));
+        for (long id = 1; id <= 10; id++) keys.add(CatalogLookupService.Key.of("WOMEN", id));
+
+        Map<CatalogLookupService.Key, CatalogLookupService.CatalogSnapshot> found = lookup.lookup(keys);
+
+        assertThat(found).hasSize(30);
+        verify(productRepo, times(1)).findAllById(anyIterable());
+        verify(vegRepo, times(1)).findByProductIdIn(anyCollection());
+        verify(womenProductRepo, times(1)).findAllById(anyIterable());
+        verifyNoInteractions(agriProductRepo);
+
+        CatalogLookupService.CatalogSnapshot tomato = found.get(CatalogLookupService.Key.of("REGULAR", 3L));
+        assertThat(tomato.name()).isEqualTo("Product 3");
+        assertThat(tomato.price()).isEqualByComparingTo("50.00");
+        assertThat(tomato.image()).isEqualTo("https://img/3a.jpg");
+        assertThat(tomato.merchantId()).isEqualTo(103L);
+        assertThat(tomato.categoryName()).isEqualTo("Vegetables");
+        assertThat(tomato.visible()).isTrue();
+        assertThat(found.get(CatalogLookupService.Key.of("WOMEN", 4L)).merchantId()).isEqualTo(204L);
+    }
+
+    @Test
+    void snapshotsAreServedFromCacheUntilEvicted() {
+        regular(1L, "50.00");
+        regular(2L, "60.00");
+        List<CatalogLookupService.Key> keys = List.of(
+                CatalogLookupService.Key.of("REGULAR", 1L), CatalogLookupService.Key.of("REGULAR", 2L));
+        lookup.lookup(keys);
+        lookup.lookup(keys);
+        verify(productRepo, times(1)).findAllById(anyIterable());
+
+        regular(1L, "55.00");
+        lookup.evict("REGULAR", 1L);
+
+        assertThat(lookup.get("REGULAR", 1L).price()).isEqualByComparingTo("55.00");
+        verify(productRepo).findAllById(Set.of(1L));   // only the evicted product is read again
+        assertThat(lookup.get("REGULAR", 2L).price()).isEqualByComparingTo("60.00");
+        verify(productRepo, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    void missingProductsAreAbsentAndGetThrows() {
+        regular(1L, "50.00");
+
+        assertThat(lookup.lookup(List.of(
+                CatalogLookupService.Key.of("REGULAR", 1L), CatalogLookupService.Key.of("REGULAR", 99L))))
+                .containsOnlyKeys(CatalogLookupService.Key.of("REGULAR", 1L));
+        assertThatThrownBy(() -> lookup.get("WOMEN", 99L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Women product not found: 99");
+    }
+
+    @Test
+    void regularProductWithoutPriceRowHasNoPrice() {
+        regular(1L, null);
+
+        CatalogLookupService.CatalogSnapshot snapshot = lookup.get("REGULAR", 1L);
+
+        assertThat(snapshot.price()).isNull();
+        assertThat(snapshot.maxPrice()).isNull();
+        assertThat(snapshot.detailType()).isEqualTo("VEGETABLE");
+    }
+
+    @Test
+    void keysNormaliseTheProductType() {
+        assertThat(CatalogLookupService.Key.of(" normal ", 1L)).isEqualTo(CatalogLookupService.Key.of("REGULAR", 1L));
+        assertThat(CatalogLookupService.Key.of("agri", 1L).productType()).isEqualTo("AGRI");
+        assertThatThrownBy(() -> CatalogLookupService.Key.of("FURNITURE", 1L))
+                .isInstanceOf(BusinessValidationException.class);
+        assertThatThrownBy(() -> CatalogLookupService.Key.of("REGULAR", null))
+                .isInstanceOf(BusinessValidationException.class);
+    }
+
+    // ─────────────────────────────────────────────
+
+    private void regular(long id, String price) {
+        Category category = new Category();
+        category.setId(1L);
+        Product p = new Product();
+        p.setId(id);
+        p.setProductName("Product " + id);
+        p.setMerchantId(100 + id);
+        p.setCategory(category);
+        p.setImagePaths("https://img/" + id + "a.jpg,https://img/" + id + "b.jpg");
+        p.setStockQuantity(10.0);
+        p.setInStock(true);
+        p.setStatus(Product.ProductStatus.ACTIVE);
+        p.setApprovalStatus(ApprovalStatus.APPROVED);
+        products.put(id, p);
+
+        if (price == null) {
+            vegDetails.remove(id);
+            return;
+        }
+        VegetableDetail detail = new VegetableDetail();
+        detail.setProduct(p);
+        detail.setMinPrice(new BigDecimal(price));
+        detail.setMaxPrice(new BigDecimal(price));
+        vegDetails.put(id, detail);
+    }
+
+    private void women(long id) {
+        User seller = new User();
+        seller.setId(200 + id);
+        WomenProduct w = new WomenProduct();
+        w.setId(id);
+        w.setName("Pickle " + id);
+        w.setSeller(seller);
+        w.setMinPrice(new BigDecimal("120.00"));
+        w.setMaxPrice(new BigDecimal("150.00"));
+        w.setStock(5);
+        w.setIsAvailable(true);
+        w.setApprovalStatus(ApprovalStatus.APPROVED);
+        womenProducts.put(id, w);
+    }
+
+    private static <T> List<T> pick(Map<Long, T> rows, Iterable<Long> ids) {
+        List<T> result = new ArrayList<>();
+        for (Long id : ids) {
+            T row = rows.get(id);
+            if (row != null) result.add(row);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.agrowmart.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSearchIndexTest {
+
+    private static final List<String> WORDS = List.of(
+            "tomato", "potato", "onion", "organic", "fresh", "milk", "paneer", "ghee",
+            "chicken", "mutton", "pickle", "papad", "wheat", "basmati", "rice", "mango");
+    private static final List<String> TYPES = List.of(
+            CatalogSearchIndex.REGULAR, CatalogSearchIndex.WOMEN, CatalogSearchIndex.AGRI);
+
+    private final CatalogSearchIndex index = new CatalogSearchIndex();
+
+    @Test
+    void renamedProductIsOnlyFoundByItsNewName() {
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Fresh Tomato", true));
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Red Onion", true));
+
+        assertThat(index.search("tomato", Set.of())).isEmpty();
+        assertThat(index.search("onion", Set.of())).extracting(CatalogSearchIndex.Hit::id).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void hiddenOrRemovedProductsLeaveTheIndex() {
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Mango Pickle", true));
+        index.upsert(doc(CatalogSearchIndex.WOMEN, 1L, "Mango Pickle", true));
+
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Mango Pickle", false));
+        assertThat(index.search("mango", Set.of())).extracting(CatalogSearchIndex.Hit::type)
+                .containsExactly(CatalogSearchIndex.WOMEN);
+
+        index.remove(CatalogSearchIndex.WOMEN, 1L);
+        assertThat(index.search("mango", Set.of())).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    // The rebuild's read of the DB predates changes that commit while it runs
+    @Test
+    void changesDuringARebuildSurviveTheStaleSnapshot() {
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Fresh Tomato", true));
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 2L, "Red Onion", true));
+
+        int loaded = index.rebuild(() -> {
+            List<CatalogSearchIndex.Document> snapshot = List.of(
+                    doc(CatalogSearchIndex.REGULAR, 1L, "Fresh Tomato", true),
+                    doc(CatalogSearchIndex.REGULAR, 2L, "Red Onion", true));
+            // Commit after the rows above were read
+            index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Cherry Tomato", true));
+            index.remove(CatalogSearchIndex.REGULAR, 2L);
+            index.upsert(doc(CatalogSearchIndex.AGRI, 3L, "Onion Seeds", true));
+            return snapshot;
+        });
+
+        assertThat(loaded).isEqualTo(2);
+        assertThat(index.search("cherry", Set.of())).extracting(CatalogSearchIndex.Hit::id).containsExactly(1L);
+        assertThat(index.search("onion", Set.of())).extracting(CatalogSearchIndex.Hit::type)
+                .containsExactly(CatalogSearchIndex.AGRI);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void failedRebuildKeepsTheIndexAndStopsRecording() {
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 1L, "Fresh Tomato", true));
+
+        assertThatThrownBy(() -> index.rebuild(() -> {
+            throw new IllegalStateException("DB unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        index.upsert(doc(CatalogSearchIndex.REGULAR, 2L, "Red Onion", true));
+        index.replaceAll(List.of(doc(CatalogSearchIndex.REGULAR, 1L, "Fresh Tomato", true)));
+
+        // Nothing was left recording, so the later replaceAll replays nothing
+        assertThat(index.search("onion", Set.of())).isEmpty();
+        assertThat(index.search("tomato", Set.of())).extracting(CatalogSearchIndex.Hit::id).containsExactly(1L);
+    }
+
+    // After any mix of upserts, visibility changes and removes, the index answers exactly
+    // like one rebuilt from the final state of the catalog
+    @Test
+    void incrementalUpdatesMatchAFullRebuild() {
+        Random random = new Random(7);
+        Map<String, CatalogSearchIndex.Document> catalog = new HashMap<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            String type = TYPES.get(random.nextInt(TYPES.size()));
+            long id = 1 + random.nextInt(200);
+            if (random.nextInt(10) == 0) {
+                index.remove(type, id);
+                catalog.remove(type + ":" + id);
+            } else {
+                CatalogSearchIndex.Document doc = doc(type, id,
+                        word(random) + " " + word(random), random.nextInt(5) != 0);
+                index.upsert(doc);
+                catalog.put(type + ":" + id, doc);
+            }
+        }
+
+        CatalogSearchIndex rebuilt = new CatalogSearchIndex();
+        rebuilt.replaceAll(catalog.values());
+
+        assertThat(index.size()).isEqualTo(rebuilt.size())
+                .isEqualTo((int) catalog.values().stream().filter(CatalogSearchIndex.Document::visible).count());
+        for (String query : List.of("tomato", "tomatto", "pot", "organic milk", "basmati rice", "pickle", "gh")) {
+            assertThat(ranked(index.search(query, Set.of()))).as(query)
+                    .isEqualTo(ranked(rebuilt.search(query, Set.of())));
+            assertThat(ranked(index.search(query, Set.of(CatalogSearchIndex.AGRI)))).as(query)
+                    .isEqualTo(ranked(rebuilt.search(query, Set.of(CatalogSearchIndex.AGRI))));
+        }
+    }
+
+    // Hits with the same score and id (different catalogs) may come in either order
+    private static List<CatalogSearchIndex.Hit> ranked(List<CatalogSearchIndex.Hit> hits) {
+        return hits.stream()
+                .sorted(Comparator.comparingDouble(CatalogSearchIndex.Hit::score).reversed()
+                        .thenComparing(CatalogSearchIndex.Hit::id)
+                        .thenComparing(CatalogSearchIndex.Hit::type))
+                .toList();
+    }
+
+    private static String word(Random random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+    }
+
+    private static CatalogSearchIndex.Document doc(String type, Long id, String name, boolean visible) {
+        return new CatalogSearchIndex.Document(type, id, name, "Description of " + name, visible);
+    }
+}
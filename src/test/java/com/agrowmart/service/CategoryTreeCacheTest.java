@@ -0,0 +1,157 @@
+package com.agrowmart.service;
+
+import com.agrowmart.config.CacheInvalidationBus;
+import com.agrowmart.entity.Category;
+import com.agrowmart.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CategoryTreeCacheTest {
+
+    private final List<Category> rows = new ArrayList<>();
+    private CategoryRepository categoryRepo;
+    private CacheInvalidationBus bus;
+    private CategoryTreeCache tree;
+
+    private Category vegetables, dairy, leafy, spinach, cheese, misc, miscChild;
+
+    @BeforeEach
+    void setUp() {
+        vegetables = category(1L, "vegetable-root", null);
+        dairy = category(2L, "dairy-root", null);
+        leafy = category(3L, "leafy", vegetables);
+        spinach = category(4L, "spinach", leafy);
+        cheese = category(5L, "cheese", dairy);
+        misc = category(6L, "misc", null);
+        miscChild = category(7L, "misc-child", misc);
+
+        categoryRepo = mock(CategoryRepository.class);
+        when(categoryRepo.findAll()).thenAnswer(inv -> List.copyOf(rows));
+        bus = mock(CacheInvalidationBus.class);
+        tree = new CategoryTreeCache(categoryRepo, bus);
+    }
+
+    @Test
+    void typeAndSubtreeComeFromTheSnapshot() {
+        assertThat(tree.productType(spinach)).isEqualTo("VEGETABLE");
+        assertThat(tree.productType(cheese)).isEqualTo("DAIRY");
+        assertThat(tree.productType(miscChild)).isEqualTo(CategoryTreeCache.GENERAL);
+        assertThat(tree.productType(null)).isEqualTo(CategoryTreeCache.GENERAL);
+
+        assertThat(tree.subtreeIds(1L)).containsExactly(1L, 3L, 4L);
+        assertThat(tree.subtreeIds(99L)).isEmpty();
+        assertThat(tree.node(3L).childIds()).containsExactly(4L);
+        assertThat(tree.node(4L).parentId()).isEqualTo(3L);
+
+        assertThat(tree.isUnder(spinach, "vegetable-root")).isTrue();
+        assertThat(tree.isUnder(cheese, "vegetable-root")).isFalse();
+        // One findAll for all of the above
+        verify(categoryRepo, times(1)).findAll();
+    }
+
+    @Test
+    void categoryNotYetInTheSnapshotFallsBackToItsParents() {
+        tree.snapshot();
+        // Created on another instance after this snapshot was built
+        Category fresh = new Category();
+        fresh.setId(99L);
+        fresh.setSlug("paneer");
+        fresh.setParent(cheese);
+
+        assertThat(tree.productType(fresh)).isEqualTo("DAIRY");
+        assertThat(tree.isUnder(fresh, "dairy-root")).isTrue();
+        verify(categoryRepo, times(1)).findAll();
+    }
+
+    @Test
+    void snapshotIsImmutable() {
+        CategoryTreeCache.Snapshot snapshot = tree.snapshot();
+
+        assertThatThrownBy(() -> snapshot.byId().remove(1L)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> tree.subtreeIds(1L).add(9L)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> tree.node(3L).childIds().add(9L)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void versionMovesOnlyWhenTheTreeChanges() {
+        CategoryTreeCache.Snapshot first = tree.rebuild();
+
+        assertThat(tree.rebuild()).isSameAs(first);
+
+        category(8L, "kale", leafy);
+        CategoryTreeCache.Snapshot second = tree.rebuild();
+        assertThat(second.version()).isEqualTo(first.version() + 1);
+        assertThat(second.byId().get(1L).subtreeIds()).containsExactly(1L, 3L, 4L, 8L);
+        assertThat(tree.productType(rows.get(rows.size() - 1))).isEqualTo("VEGETABLE");
+    }
+
+    @Test
+    void aParentCycleDoesNotHangTheBuild() {
+        Category a = category(10L, "a", null);
+        Category b = category(11L, "b", a);
+        a.setParent(b);
+
+        CategoryTreeCache.Snapshot snapshot = tree.rebuild();
+
+        assertThat(snapshot.byId().get(10L).productType()).isEqualTo(CategoryTreeCache.GENERAL);
+        assertThat(snapshot.byId().get(10L).subtreeIds()).containsExactlyInAnyOrder(10L, 11L);
+    }
+
+    @Test
+    void changesRebuildAndNotifyOtherInstancesOnlyAfterCommit() {
+        CategoryTreeCache.Snapshot before = tree.snapshot();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            category(8L, "kale", leafy);
+            tree.rebuildAfterCommit();
+
+            verify(bus, never()).publish(anyString(), any());
+            assertThat(tree.snapshot()).isSameAs(before);
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(tree.snapshot().version()).isEqualTo(before.version() + 1);
+        verify(bus).publish("category-tree", null);
+    }
+
+    @Test
+    void aMessageFromAnotherInstanceRebuilds() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Consumer<String>> handler = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus).subscribe(eq("category-tree"), handler.capture());
+        CategoryTreeCache.Snapshot before = tree.snapshot();
+
+        category(8L, "kale", leafy);
+        handler.getValue().accept(null);
+
+        assertThat(tree.node(8L)).isNotNull();
+        assertThat(tree.snapshot().version()).isEqualTo(before.version() + 1);
+        verify(bus, never()).publish(anyString(), any());
+    }
+
+    // Added to the rows findAll returns
+    private Category category(Long id, String slug, Category parent) {
+        Category c = new Category();
+        c.setId(id);
+        c.setName(slug);
+        c.setSlug(slug);
+        c.setParent(parent);
+        rows.add(c);
+        return c;
+    }
+}
@@ -0,0 +1,127 @@
+package com.agrowmart.service;
+
+import com.agrowmart.exception.AuthExceptions.FileUploadException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageUploadPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private LocalImageUploader uploader;
+    private final AtomicInteger calls = new AtomicInteger();
+    private ImageUploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploader = spy(new LocalImageUploader(dir.toString()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) pipeline.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void uploadsEveryFileInOrder() throws IOException {
+        pipeline = pipeline(60);
+
+        List<String> urls = pipeline.uploadAll(files(6));
+
+        assertThat(urls).hasSize(6).doesNotContainNull();
+        assertThat(storedFiles()).hasSize(6);
+        for (int i = 0; i < urls.size(); i++) {
+            assertThat(Files.readString(Path.of(java.net.URI.create(urls.get(i))))).isEqualTo("image-" + i);
+        }
+    }
+
+    @Test
+    void failedBatchLeavesNothingBehind() throws IOException {
+        doAnswer(inv -> {
+            if (calls.incrementAndGet() == 3) throw new IllegalStateException("storage rejected the file");
+            return inv.callRealMethod();
+        }).when(uploader).upload(any(), anyString());
+        pipeline = pipeline(60);
+
+        assertThatThrownBy(() -> pipeline.uploadAll(files(6)))
+                .isInstanceOf(FileUploadException.class)
+                .hasMessageContaining("storage rejected the file");
+
+        assertThat(storedFiles()).isEmpty();
+        assertThat(uploader.discardCount()).isEqualTo(uploader.uploadCount());
+    }
+
+    @Test
+    void uploadFinishingAfterTheTimeoutIsDiscarded() throws Exception {
+        doAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) Thread.sleep(2_000);
+            return inv.callRealMethod();
+        }).when(uploader).upload(any(), anyString());
+        pipeline = pipeline(1);
+
+        assertThatThrownBy(() -> pipeline.uploadAll(files(3)))
+                .isInstanceOf(FileUploadException.class)
+                .hasMessageContaining("timed out");
+
+        Thread.sleep(2_500);   // let the slow upload land
+        assertThat(storedFiles()).isEmpty();
+        assertThat(uploader.uploadCount()).isEqualTo(3);
+        assertThat(uploader.discardCount()).isEqualTo(3);
+    }
+
+    @Test
+    void rolledBackTransactionDiscardsTheBatch() throws IOException {
+        pipeline = pipeline(60);
+        TransactionSynchronizationManager.initSynchronization();
+
+        pipeline.uploadAll(files(4));
+        assertThat(storedFiles()).hasSize(4);
+
+        for (TransactionSynchronization s : TransactionSynchronizationManager.getSynchronizations()) {
+            s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertThat(storedFiles()).isEmpty();
+    }
+
+    private ImageUploadPipeline pipeline(long timeoutSeconds) {
+        return new ImageUploadPipeline(uploader, new ImageProcessor(1600, 0.82f), 4, 3, timeoutSeconds);
+    }
+
+    // Not decodable as an image, so they are uploaded unchanged
+    private static List<MultipartFile> files(int n) {
+        List<MultipartFile> files = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            files.add(new MockMultipartFile("images", "img" + i + ".png", "image/png", ("image-" + i).getBytes()));
+        }
+        return files;
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.toList();
+        }
+    }
+}
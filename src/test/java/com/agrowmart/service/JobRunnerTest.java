@@ -0,0 +1,94 @@
+package com.agrowmart.service;
+
+import com.agrowmart.repository.JobRunRepository;
+import com.agrowmart.repository.ScheduledJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobRunnerTest {
+
+    private ScheduledJobRepository jobRepo;
+    private JobRunRepository runRepo;
+    private JobRunner runner;
+
+    @BeforeEach
+    void setUp() {
+        jobRepo = mock(ScheduledJobRepository.class);
+        runRepo = mock(JobRunRepository.class);
+        when(runRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(jobRepo.findById(anyString())).thenReturn(Optional.empty());
+        when(jobRepo.tryLock(anyString(), anyString(), any(), any())).thenReturn(1);
+        when(jobRepo.renewLease(anyString(), anyString(), any())).thenReturn(1);
+        runner = new JobRunner(jobRepo, runRepo, mock(PlatformTransactionManager.class), 900, 300);
+    }
+
+    @Test
+    void finishedRunKeepsTheJobUntilLockAtLeastFor() {
+        LocalDateTime before = LocalDateTime.now();
+
+        runner.run("nightly", Duration.ofMinutes(10), (checkpoint, startedAt) -> JobRunner.Chunk.done());
+
+        ArgumentCaptor<LocalDateTime> holdUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepo).release(eq("nightly"), eq(runner.node()), eq("SUCCEEDED"), any(), holdUntil.capture());
+        assertThat(holdUntil.getValue()).isAfterOrEqualTo(before.plusMinutes(10));
+    }
+
+    @Test
+    void finishStepRunsUnderARenewedLease() {
+        Runnable finish = mock(Runnable.class);
+
+        runner.run("settle", (checkpoint, startedAt) -> JobRunner.Chunk.done(), finish);
+
+        InOrder order = inOrder(jobRepo, finish);
+        order.verify(jobRepo, times(2)).renewLease(eq("settle"), eq(runner.node()), any());
+        order.verify(finish).run();
+    }
+
+    @Test
+    void finishIsSkippedWhenTheLeaseWasLost() {
+        Runnable finish = mock(Runnable.class);
+        when(jobRepo.renewLease(anyString(), anyString(), any())).thenReturn(1, 0);
+
+        runner.run("settle", (checkpoint, startedAt) -> JobRunner.Chunk.done(), finish);
+
+        verify(finish, never()).run();
+        verify(jobRepo).release(eq("settle"), eq(runner.node()), eq("FAILED"), any(), any());
+    }
+
+    @Test
+    void skipsWhenAnotherInstanceHoldsTheJob() {
+        when(jobRepo.tryLock(anyString(), anyString(), any(), any())).thenReturn(0);
+        JobRunner.ChunkStep step = mock(JobRunner.ChunkStep.class);
+
+        runner.run("nightly", step);
+
+        verifyNoInteractions(step);
+        verify(runRepo, never()).save(any());
+    }
+
+    @Test
+    void deleteInChunksStopsOnAShortChunk() {
+        int[] remaining = {2500};
+        JobRunner.ChunkStep step = JobRunner.deleteInChunks(1000, (startedAt, limit) -> {
+            int removed = Math.min(limit, remaining[0]);
+            remaining[0] -= removed;
+            return removed;
+        });
+
+        runner.run("purge", step);
+
+        assertThat(remaining[0]).isZero();
+        verify(runRepo).updateProgress(any(), eq(3), eq(2500L));
+    }
+}
@@ -0,0 +1,94 @@
+package com.agrowmart.service;
+
+import com.agrowmart.repository.MediaPurgeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MediaPurgeServiceTest {
+
+    private CloudinaryService cloudinary;
+    private MediaPurgeRepository queue;
+    private PlatformTransactionManager txManager;
+    private MediaPurgeService service;
+
+    @BeforeEach
+    void setUp() {
+        cloudinary = mock(CloudinaryService.class);
+        when(cloudinary.extractPublicId(anyString()))
+                .thenAnswer(inv -> inv.<String>getArgument(0).replaceAll(".*/upload/", ""));
+        queue = mock(MediaPurgeRepository.class);
+        txManager = mock(PlatformTransactionManager.class);
+        service = new MediaPurgeService(cloudinary, queue, mock(JobRunner.class), txManager, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void failedDeletesAfterCommitAreQueuedInATransactionOfTheirOwn() {
+        when(cloudinary.deleteBatch(anyCollection())).thenReturn(Set.of("users/b"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.purgeAfterCommit(Arrays.asList(url("users/a"), url("users/b"), "https://example.com/x.png", null));
+            verifyNoInteractions(cloudinary, queue);
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(cloudinary).deleteBatch(List.of("users/a", "users/b"));
+        verify(queue).enqueue(eq("users/b"), any());
+        verify(queue, never()).enqueue(eq("users/a"), any());
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(txManager).getTransaction(definition.capture());
+        assertThat(definition.getValue().getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Test
+    void aFailedBulkCallQueuesItsWholeBatch() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 250; i++) urls.add(url("img/" + i));
+        when(cloudinary.deleteBatch(anyCollection())).thenAnswer(inv -> {
+            if (inv.<Collection<String>>getArgument(0).contains("img/100")) throw new IllegalStateException("Rate limited");
+            return Set.of();
+        });
+
+        service.purge(urls);
+
+        verify(cloudinary, times(3)).deleteBatch(anyCollection());
+        verify(queue, times(CloudinaryService.BULK_DELETE_LIMIT)).enqueue(anyString(), any());
+        verify(queue).enqueue(eq("img/100"), any());
+        verify(queue).enqueue(eq("img/199"), any());
+    }
+
+    @Test
+    void queueFailureNeverReachesTheCaller() {
+        when(cloudinary.deleteBatch(anyCollection())).thenReturn(Set.of("users/a"));
+        when(queue.enqueue(anyString(), any())).thenThrow(new QueryTimeoutException("Lock wait timeout"));
+
+        assertThatCode(() -> service.purge(List.of(url("users/a")))).doesNotThrowAnyException();
+    }
+
+    private static String url(String publicId) {
+        return "https://res.cloudinary.com/agrowmart/image/upload/" + publicId;
+    }
+}
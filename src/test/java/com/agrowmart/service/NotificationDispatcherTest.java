@@ -0,0 +1,117 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.NotificationOutbox;
+import com.agrowmart.entity.User;
+import com.agrowmart.repository.NotificationOutboxRepository;
+import com.agrowmart.repository.NotificationRepository;
+import com.agrowmart.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NotificationDispatcherTest {
+
+    private NotificationOutboxRepository outboxRepository;
+    private UserRepository userRepository;
+    private PushGateway pushGateway;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository = mock(NotificationOutboxRepository.class);
+        userRepository = mock(UserRepository.class);
+        pushGateway = mock(PushGateway.class);
+        when(outboxRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        dispatcher = new NotificationDispatcher(outboxRepository, mock(NotificationRepository.class), userRepository,
+                pushGateway, mock(PlatformTransactionManager.class), mock(JobRunner.class), 1);
+    }
+
+    @Test
+    void outcomesFollowTheGatewayResults() throws Exception {
+        NotificationOutbox sent = row(1L, 10L, 0);
+        NotificationOutbox retried = row(2L, 10L, 0);
+        NotificationOutbox rejected = row(3L, 10L, 0);
+        NotificationOutbox noToken = row(4L, 11L, 0);
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(sent, retried, rejected, noToken));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user(10L, "token"), user(11L, null)));
+        when(pushGateway.sendEach(anyList())).thenReturn(List.of(
+                new PushGateway.PushResult(true, "m-1", null, false),
+                new PushGateway.PushResult(false, null, "UNAVAILABLE", true),
+                new PushGateway.PushResult(false, null, "UNREGISTERED", false)));
+        LocalDateTime before = LocalDateTime.now();
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(4);
+
+        assertThat(sent.getStatus()).isEqualTo("SENT");
+        assertThat(retried.getStatus()).isEqualTo("PENDING");
+        assertThat(retried.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(30));
+        assertThat(rejected.getStatus()).isEqualTo("FAILED");
+        assertThat(noToken.getStatus()).isEqualTo("SKIPPED");
+        assertThat(List.of(sent.getAttempts(), retried.getAttempts(), rejected.getAttempts(), noToken.getAttempts()))
+                .containsExactly(1, 1, 1, 0);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() throws Exception {
+        NotificationOutbox third = row(1L, 10L, 2);
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(third));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user(10L, "token")));
+        when(pushGateway.sendEach(anyList())).thenReturn(List.of(new PushGateway.PushResult(false, null, "QUOTA", true)));
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.dispatchBatch();
+
+        // Third attempt failed: 30s << 2
+        assertThat(third.getNextAttemptAt()).isBetween(before.plusSeconds(120), LocalDateTime.now().plusSeconds(120));
+    }
+
+    @Test
+    void gatewayOutageRetriesTheWholeBatchUntilTheLastAttempt() throws Exception {
+        NotificationOutbox fresh = row(1L, 10L, 0);
+        NotificationOutbox last = row(2L, 10L, 4);
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(fresh, last));
+        when(userRepository.findAllById(any())).thenReturn(List.of(user(10L, "token")));
+        when(pushGateway.sendEach(anyList())).thenThrow(new IllegalStateException("FCM down"));
+
+        dispatcher.dispatchBatch();
+
+        assertThat(fresh.getStatus()).isEqualTo("PENDING");
+        assertThat(fresh.getLastError()).isEqualTo("FCM down");
+        assertThat(last.getStatus()).isEqualTo("FAILED");
+        assertThat(last.getAttempts()).isEqualTo(5);
+    }
+
+    @Test
+    void emptyClaimSendsNothing() throws Exception {
+        when(outboxRepository.lockDue(any(), anyInt())).thenReturn(List.of());
+
+        assertThat(dispatcher.dispatchBatch()).isZero();
+
+        verifyNoInteractions(pushGateway, userRepository);
+    }
+
+    private static NotificationOutbox row(Long id, Long userId, int attempts) {
+        NotificationOutbox row = new NotificationOutbox();
+        row.setId(id);
+        row.setUserId(userId);
+        row.setTitle("Order update");
+        row.setBody("Your order is on the way");
+        row.setStatus("PENDING");
+        row.setAttempts(attempts);
+        return row;
+    }
+
+    private static User user(Long id, String fcmToken) {
+        User user = new User();
+        user.setId(id);
+        user.setFcmToken(fcmToken);
+        return user;
+    }
+}
@@ -0,0 +1,96 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.OrderEvent;
+import com.agrowmart.repository.OrderEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderEventRelayTest {
+
+    private OrderEventRepository eventRepository;
+    private OrderWebSocketService webSocketService;
+    private OrderEventRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(OrderEventRepository.class);
+        webSocketService = mock(OrderWebSocketService.class);
+        relay = new OrderEventRelay(eventRepository, webSocketService,
+                mock(PlatformTransactionManager.class), mock(JobRunner.class));
+    }
+
+    @Test
+    void failedPublishIsRetriedLater() {
+        OrderEvent event = event(0);
+        when(eventRepository.lockNextPending(any(), anyInt())).thenReturn(List.of(event));
+        doThrow(new IllegalStateException("broker down")).when(webSocketService).sendToUser(anyString(), any());
+        LocalDateTime before = LocalDateTime.now();
+
+        relay.drain();
+
+        assertThat(event.getStatus()).isEqualTo("PENDING");
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getNextAttemptAt()).isAfter(before);
+        assertThat(event.getLastError()).isEqualTo("broker down");
+        // A batch with nothing published ends the drain instead of spinning on the same row
+        verify(eventRepository, times(1)).lockNextPending(any(), anyInt());
+    }
+
+    @Test
+    void backoffGrowsWithEachAttempt() {
+        OrderEvent second = event(1);
+        OrderEvent fifth = event(4);
+        when(eventRepository.lockNextPending(any(), anyInt())).thenReturn(List.of(second, fifth));
+        doThrow(new IllegalStateException("broker down")).when(webSocketService).sendToUser(anyString(), any());
+
+        relay.drain();
+
+        assertThat(fifth.getNextAttemptAt()).isAfter(second.getNextAttemptAt());
+    }
+
+    @Test
+    void givesUpAfterTooManyAttempts() {
+        OrderEvent event = event(7);
+        when(eventRepository.lockNextPending(any(), anyInt())).thenReturn(List.of(event));
+        doThrow(new IllegalStateException("broker down")).when(webSocketService).sendToUser(anyString(), any());
+
+        relay.drain();
+
+        assertThat(event.getStatus()).isEqualTo("FAILED");
+        assertThat(event.getAttempts()).isEqualTo(8);
+    }
+
+    @Test
+    void publishedEventClearsTheRetryState() {
+        OrderEvent event = event(3);
+        event.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        event.setLastError("broker down");
+        when(eventRepository.lockNextPending(any(), anyInt())).thenReturn(List.of(event), List.of());
+
+        relay.drain();
+
+        assertThat(event.getStatus()).isEqualTo("PUBLISHED");
+        assertThat(event.getNextAttemptAt()).isNull();
+        assertThat(event.getLastError()).isNull();
+        verify(webSocketService).sendToUser(eq("c5"), any());
+    }
+
+    private static OrderEvent event(int attempts) {
+        OrderEvent e = new OrderEvent();
+        e.setId(1L + attempts);
+        e.setOrderId("ORD-1");
+        e.setType("STATUS_UPDATE");
+        e.setOrderStatus("CONFIRMED");
+        e.setRecipientIds("c5");
+        e.setAttempts(attempts);
+        return e;
+    }
+}
@@ -0,0 +1,140 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Category;
+import com.agrowmart.entity.Product;
+import com.agrowmart.entity.VegetableDetail;
+import com.agrowmart.entity.WomenProduct;
+import com.agrowmart.entity.AgriProduct.BaseAgriProduct;
+import com.agrowmart.entity.AgriProduct.Seeds;
+import com.agrowmart.exception.ResourceNotFoundException;
+import com.agrowmart.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderProductResolverTest {
+
+    private static final Long MERCHANT = 9L;
+
+    // Catalog contents by id: 1-20 regular, 21-30 women, 31-40 agri; 5 is also a women product id
+    private ProductRepository productRepository;
+    private WomenProductRepository womenProductRepository;
+    private AgriProductRepository agriProductRepository;
+    private VegetableDetailRepository vegetableDetailRepository;
+    private OrderProductResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        Category vegetables = new Category();
+        vegetables.setId(1L);
+        CategoryTreeCache categoryTree = mock(CategoryTreeCache.class);
+        when(categoryTree.productType(any())).thenReturn("VEGETABLE");
+
+        productRepository = mock(ProductRepository.class);
+        when(productRepository.findAllByIdsForMerchant(anyCollection(), eq(MERCHANT), any(), any())).thenAnswer(inv -> {
+            List<Product> found = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                if (id <= 20) {
+                    Product p = new Product();
+                    p.setId(id);
+                    p.setCategory(vegetables);
+                    found.add(p);
+                }
+            }
+            return found;
+        });
+        vegetableDetailRepository = mock(VegetableDetailRepository.class);
+        when(vegetableDetailRepository.findByProductIdIn(anyCollection())).thenAnswer(inv -> {
+            List<VegetableDetail> details = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                Product p = new Product();
+                p.setId(id);
+                VegetableDetail d = new VegetableDetail();
+                d.setProduct(p);
+                d.setMinPrice(BigDecimal.valueOf(id));
+                details.add(d);
+            }
+            return details;
+        });
+        womenProductRepository = mock(WomenProductRepository.class);
+        when(womenProductRepository.findByIdInAndSeller_IdAndStatusAndApprovalStatus(anyCollection(), eq(MERCHANT), any(), any()))
+                .thenAnswer(inv -> {
+                    List<WomenProduct> found = new ArrayList<>();
+                    for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                        if (id == 5 || (id > 20 && id <= 30)) {
+                            WomenProduct wp = new WomenProduct();
+                            wp.setId(id);
+                            wp.setMinPrice(BigDecimal.valueOf(100 + id));
+                            found.add(wp);
+                        }
+                    }
+                    return found;
+                });
+        agriProductRepository = mock(AgriProductRepository.class);
+        when(agriProductRepository.findByIdInAndVendor_Id(anyCollection(), eq(MERCHANT))).thenAnswer(inv -> {
+            List<BaseAgriProduct> found = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) {
+                if (id > 30 && id <= 40) {
+                    Seeds s = new Seeds();
+                    s.setId(id);
+                    s.setAgriprice(BigDecimal.valueOf(200 + id));
+                    found.add(s);
+                }
+            }
+            return found;
+        });
+
+        resolver = new OrderProductResolver(productRepository, womenProductRepository, agriProductRepository,
+                vegetableDetailRepository, mock(DairyDetailRepository.class), mock(MeatDetailRepository.class),
+                categoryTree);
+    }
+
+    @Test
+    void wholeBasketCostsOneQueryPerCatalogAndDetailTable() {
+        List<Long> basket = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) basket.add(id);
+
+        Map<Long, OrderProductResolver.ResolvedProduct> resolved = resolver.resolve(MERCHANT, basket);
+
+        assertThat(resolved).hasSize(40);
+        verify(productRepository, times(1)).findAllByIdsForMerchant(anyCollection(), any(), any(), any());
+        verify(vegetableDetailRepository, times(1)).findByProductIdIn(anyCollection());
+        verify(womenProductRepository, times(1)).findByIdInAndSeller_IdAndStatusAndApprovalStatus(anyCollection(), any(), any(), any());
+        verify(agriProductRepository, times(1)).findByIdInAndVendor_Id(anyCollection(), any());
+    }
+
+    @Test
+    void catalogsAreTriedInTheOldOrder() {
+        Map<Long, OrderProductResolver.ResolvedProduct> resolved = resolver.resolve(MERCHANT, List.of(5L, 25L, 35L));
+
+        assertThat(resolved.get(5L).productType()).isEqualTo("NORMAL");
+        assertThat(resolved.get(5L).price()).isEqualByComparingTo("5");
+        assertThat(resolved.get(25L).productType()).isEqualTo("WOMEN");
+        assertThat(resolved.get(25L).price()).isEqualByComparingTo("125");
+        assertThat(resolved.get(35L).productType()).isEqualTo("AGRI");
+        assertThat(resolved.get(35L).price()).isEqualByComparingTo("235");
+    }
+
+    @Test
+    void regularOnlyBasketSkipsTheOtherCatalogs() {
+        resolver.resolve(MERCHANT, List.of(1L, 2L, 3L));
+
+        verifyNoInteractions(womenProductRepository, agriProductRepository);
+    }
+
+    @Test
+    void unknownProductFailsTheWholeBasket() {
+        assertThatThrownBy(() -> resolver.resolve(MERCHANT, List.of(1L, 99L)))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+}
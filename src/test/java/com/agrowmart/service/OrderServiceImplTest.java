@@ -0,0 +1,38 @@
+package com.agrowmart.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderServiceImplTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2026, 3, 1, 10, 0);
+
+    @Test
+    void perStatusInboxListsMergeNewestFirst() {
+        List<Object[]> keys = new ArrayList<>();
+        // PENDING
+        keys.add(key("ORD-9", T.plusMinutes(9)));
+        keys.add(key("ORD-4", T.plusMinutes(4)));
+        // ACCEPTED
+        keys.add(key("ORD-7", T.plusMinutes(7)));
+        keys.add(key("ORD-6", T.plusMinutes(4)));
+        // DELIVERED
+        keys.add(key("ORD-1", T.plusMinutes(1)));
+
+        assertThat(OrderServiceImpl.newestFirst(keys, 4)).containsExactly("ORD-9", "ORD-7", "ORD-6", "ORD-4");
+    }
+
+    @Test
+    void mergeOfEmptyListsIsEmpty() {
+        assertThat(OrderServiceImpl.newestFirst(List.of(), 21)).isEmpty();
+    }
+
+    private static Object[] key(String id, LocalDateTime createdAt) {
+        return new Object[] {id, createdAt};
+    }
+}
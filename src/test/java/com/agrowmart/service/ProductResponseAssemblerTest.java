@@ -0,0 +1,132 @@
+package com.agrowmart.service;
+
+import com.agrowmart.dto.auth.product.ProductResponseDTO;
+import com.agrowmart.entity.Category;
+import com.agrowmart.entity.Product;
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.User;
+import com.agrowmart.repository.DairyDetailRepository;
+import com.agrowmart.repository.MeatDetailRepository;
+import com.agrowmart.repository.ShopRepository;
+import com.agrowmart.repository.VegetableDetailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductResponseAssemblerTest {
+
+    private static final List<String> TYPES = List.of("VEGETABLE", "DAIRY", "MEAT");
+
+    private VegetableDetailRepository vegRepo;
+    private DairyDetailRepository dairyRepo;
+    private MeatDetailRepository meatRepo;
+    private ShopRepository shopRepo;
+    private RatingAggregateService ratings;
+    private ProductResponseAssembler assembler;
+    private final List<Category> categories = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        CategoryTreeCache categoryTree = mock(CategoryTreeCache.class);
+        for (int i = 0; i < TYPES.size(); i++) {
+            Category c = new Category();
+            c.setId(i + 1L);
+            c.setName(TYPES.get(i));
+            categories.add(c);
+            when(categoryTree.productType(c)).thenReturn(TYPES.get(i));
+        }
+
+        vegRepo = mock(VegetableDetailRepository.class);
+        dairyRepo = mock(DairyDetailRepository.class);
+        meatRepo = mock(MeatDetailRepository.class);
+        shopRepo = mock(ShopRepository.class);
+        when(shopRepo.findAllByUserIdIn(anyCollection())).thenAnswer(inv -> {
+            List<Shop> shops = new ArrayList<>();
+            for (Long merchantId : inv.<Collection<Long>>getArgument(0)) shops.add(shop(merchantId));
+            return shops;
+        });
+        ratings = mock(RatingAggregateService.class);
+        when(ratings.getAll(anyString(), anyCollection())).thenAnswer(inv -> {
+            Map<Long, RatingAggregateService.Summary> all = new HashMap<>();
+            for (Long id : inv.<Collection<Long>>getArgument(1)) all.put(id, RatingAggregateService.Summary.EMPTY);
+            return all;
+        });
+
+        assembler = new ProductResponseAssembler(categoryTree, vegRepo, dairyRepo, meatRepo, shopRepo,
+                mock(ShopScheduleCache.class), ratings);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 30, 300})
+    void queryCountDoesNotGrowWithThePage(int pageSize) {
+        List<ProductResponseDTO> page = assembler.toResponseDtos(products(pageSize));
+
+        assertThat(page).hasSize(pageSize);
+        // One query per detail table present, one for shops, one for rating totals
+        verify(vegRepo, times(1)).findByProductIdIn(anyCollection());
+        verify(dairyRepo, times(1)).findByProductIdIn(anyCollection());
+        verify(meatRepo, times(1)).findByProductIdIn(anyCollection());
+        verify(shopRepo, times(1)).findAllByUserIdIn(anyCollection());
+        verify(ratings, times(1)).getAll(anyString(), anyCollection());
+        assertThat(queries()).isEqualTo(5);
+    }
+
+    @Test
+    void shopSummaryIsSharedByTheMerchantsProducts() {
+        List<ProductResponseDTO> page = assembler.toResponseDtos(products(30));
+
+        assertThat(page.get(0).shop()).isSameAs(page.get(10).shop());
+        assertThat(page.get(0).shop()).isNotSameAs(page.get(1).shop());
+    }
+
+    @Test
+    void emptyPageRunsNoQueries() {
+        assertThat(assembler.toResponseDtos(List.of())).isEmpty();
+        assertThat(queries()).isZero();
+    }
+
+    private int queries() {
+        return mockingDetails(vegRepo).getInvocations().size()
+                + mockingDetails(dairyRepo).getInvocations().size()
+                + mockingDetails(meatRepo).getInvocations().size()
+                + mockingDetails(shopRepo).getInvocations().size()
+                + mockingDetails(ratings).getInvocations().size();
+    }
+
+    // Products of 10 merchants, spread over the three detail types
+    private List<Product> products(int n) {
+        List<Product> products = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Product p = new Product();
+            p.setId(i + 1L);
+            p.setProductName("Product " + i);
+            p.setStatus(Product.ProductStatus.ACTIVE);
+            p.setCategory(categories.get(i % categories.size()));
+            p.setMerchantId(100L + i % 10);
+            p.setInStock(true);
+            products.add(p);
+        }
+        return products;
+    }
+
+    private static Shop shop(Long merchantId) {
+        User vendor = new User();
+        vendor.setId(merchantId);
+        Shop shop = new Shop();
+        shop.setId(merchantId + 1000);
+        shop.setShopName("Shop " + merchantId);
+        shop.setUser(vendor);
+        return shop;
+    }
+}
@@ -0,0 +1,113 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Rating.RatingAggregate;
+import com.agrowmart.repository.ProductRatingRepository;
+import com.agrowmart.repository.RatingAggregateRepository;
+import com.agrowmart.repository.RatingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RatingAggregateServiceTest {
+
+    private static final String VENDOR = RatingAggregateService.VENDOR;
+
+    private RatingAggregateRepository aggregateRepo;
+    private RatingRepository ratingRepo;
+    private JobRunner jobs;
+    private RatingAggregateService service;
+
+    @BeforeEach
+    void setUp() {
+        aggregateRepo = mock(RatingAggregateRepository.class);
+        ratingRepo = mock(RatingRepository.class);
+        jobs = mock(JobRunner.class);
+        service = new RatingAggregateService(aggregateRepo, ratingRepo, mock(ProductRatingRepository.class),
+                jobs, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void editMovesOneRatingBetweenStars() {
+        service.recordChange(VENDOR, 1L, 3, 5);
+
+        verify(aggregateRepo).applyDelta(VENDOR, 1L, 0, 2, 0, 0, -1, 0, 1);
+    }
+
+    @Test
+    void unchangedStarsWriteNothing() {
+        service.recordChange(VENDOR, 1L, 4, 4);
+
+        verifyNoInteractions(aggregateRepo);
+    }
+
+    @Test
+    void driftedRowIsRecountedUnderItsLockBeforeItIsOverwritten() {
+        RatingAggregate stored = aggregate(1L, 1);
+        when(ratingRepo.countStarsByVendor()).thenReturn(List.<Object[]>of(new Object[]{1L, 5, 2L}));
+        when(aggregateRepo.findBySubjectType(VENDOR)).thenReturn(List.of(stored));
+        when(aggregateRepo.lockBySubject(VENDOR, 1L)).thenReturn(Optional.of(stored));
+        // A third rating committed after the bulk count: the recount must include it
+        when(ratingRepo.countStarsForVendor(1L)).thenReturn(List.<Object[]>of(new Object[]{5, 3L}));
+
+        vendorChunk().next(null, LocalDateTime.now());
+
+        InOrder order = inOrder(aggregateRepo, ratingRepo);
+        order.verify(aggregateRepo).lockBySubject(VENDOR, 1L);
+        order.verify(ratingRepo).countStarsForVendor(1L);
+        order.verify(aggregateRepo).overwrite(VENDOR, 1L, 3, 15, 0, 0, 0, 0, 3);
+    }
+
+    @Test
+    void rowThatIsRightOnceLockedIsLeftAlone() {
+        // The bulk count ran before a delete committed; by the time the row is locked it matches
+        RatingAggregate stored = aggregate(1L, 1);
+        when(ratingRepo.countStarsByVendor()).thenReturn(List.<Object[]>of(new Object[]{1L, 5, 2L}));
+        when(aggregateRepo.findBySubjectType(VENDOR)).thenReturn(List.of(stored));
+        when(aggregateRepo.lockBySubject(VENDOR, 1L)).thenReturn(Optional.of(stored));
+        when(ratingRepo.countStarsForVendor(1L)).thenReturn(List.<Object[]>of(new Object[]{5, 1L}));
+
+        vendorChunk().next(null, LocalDateTime.now());
+
+        verify(aggregateRepo, never()).overwrite(any(), any(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void matchingRowsAreNotLocked() {
+        RatingAggregate stored = aggregate(1L, 2);
+        when(ratingRepo.countStarsByVendor()).thenReturn(List.<Object[]>of(new Object[]{1L, 5, 2L}));
+        when(aggregateRepo.findBySubjectType(VENDOR)).thenReturn(List.of(stored));
+
+        vendorChunk().next(null, LocalDateTime.now());
+
+        verify(aggregateRepo, never()).lockBySubject(any(), any());
+    }
+
+    // The first reconciliation chunk, which covers vendors
+    private JobRunner.ChunkStep vendorChunk() {
+        service.reconcile();
+        ArgumentCaptor<JobRunner.ChunkStep> step = ArgumentCaptor.forClass(JobRunner.ChunkStep.class);
+        verify(jobs).run(eq("rating-aggregate-reconcile"), any(Duration.class), step.capture());
+        return step.getValue();
+    }
+
+    private static RatingAggregate aggregate(Long vendorId, long fiveStars) {
+        RatingAggregate a = new RatingAggregate();
+        a.setSubjectType(VENDOR);
+        a.setSubjectId(vendorId);
+        a.setRatingCount(fiveStars);
+        a.setStarSum(5 * fiveStars);
+        a.setStars5(fiveStars);
+        return a;
+    }
+}
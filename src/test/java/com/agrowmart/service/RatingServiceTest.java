@@ -0,0 +1,78 @@
+package com.agrowmart.service;
+
+import com.agrowmart.dto.auth.rating.RatingCreateRequestDTO;
+import com.agrowmart.entity.Role;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.Rating.Rating;
+import com.agrowmart.entity.customer.Customer;
+import com.agrowmart.repository.CustomerRepository;
+import com.agrowmart.repository.RatingRepository;
+import com.agrowmart.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RatingServiceTest {
+
+    private RatingRepository ratingRepo;
+    private RatingAggregateService aggregates;
+    private RatingService service;
+    private final Customer customer = new Customer();
+    private final User vendor = new User();
+
+    @BeforeEach
+    void setUp() {
+        customer.setId(3L);
+        vendor.setId(9L);
+        vendor.setRole(new Role("VEGETABLE"));
+
+        ratingRepo = mock(RatingRepository.class);
+        when(ratingRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        UserRepository userRepo = mock(UserRepository.class);
+        when(userRepo.findById(9L)).thenReturn(Optional.of(vendor));
+        aggregates = mock(RatingAggregateService.class);
+        service = new RatingService(ratingRepo, userRepo, mock(CustomerRepository.class), aggregates);
+    }
+
+    @Test
+    void editReplacesTheStarsReadUnderTheRowLock() {
+        when(ratingRepo.lockByRaterIdAndRatedId(3L, 9L)).thenReturn(Optional.of(rating(3)));
+
+        service.createOrUpdateRating(customer, new RatingCreateRequestDTO(9L, 5, "Fresh"));
+
+        verify(aggregates).recordChange(RatingAggregateService.VENDOR, 9L, 3, 5);
+        verify(ratingRepo, never()).findByRaterIdAndRatedId(any(), any());
+    }
+
+    @Test
+    void firstRatingHasNoPreviousStars() {
+        when(ratingRepo.lockByRaterIdAndRatedId(3L, 9L)).thenReturn(Optional.empty());
+
+        service.createOrUpdateRating(customer, new RatingCreateRequestDTO(9L, 4, null));
+
+        verify(aggregates).recordChange(RatingAggregateService.VENDOR, 9L, null, 4);
+    }
+
+    @Test
+    void deleteSubtractsTheStarsReadUnderTheRowLock() {
+        when(ratingRepo.lockById(7L)).thenReturn(Optional.of(rating(2)));
+
+        service.deleteRating(customer, 7L);
+
+        verify(aggregates).recordChange(RatingAggregateService.VENDOR, 9L, 2, null);
+        verify(ratingRepo, never()).findById(any());
+    }
+
+    private Rating rating(int stars) {
+        Rating rating = new Rating();
+        rating.setId(7L);
+        rating.setRater(customer);
+        rating.setRated(vendor);
+        rating.setStars(stars);
+        return rating;
+    }
+}
@@ -0,0 +1,85 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.Settlement;
+import com.agrowmart.entity.order.VendorPayout;
+import com.agrowmart.repository.*;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RazorpayServiceTest {
+
+    private VendorPayoutRepository payoutRepository;
+    private SettlementRepository settlementRepository;
+    private OrderRepository orderRepository;
+    private RazorpayService service;
+
+    @BeforeEach
+    void setUp() {
+        payoutRepository = mock(VendorPayoutRepository.class);
+        settlementRepository = mock(SettlementRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        service = new RazorpayService(orderRepository, mock(PaymentRepository.class),
+                mock(VendorPaymentDetailsRepository.class), settlementRepository, mock(NotificationService.class),
+                mock(StockReservationService.class), payoutRepository);
+    }
+
+    @Test
+    void webhookThatBeatTheCreateResponseFindsThePayoutByReference() {
+        VendorPayout payout = payout(7L, "stl_1_20261018_abc");
+        when(payoutRepository.findByIdempotencyKey("stl_1_20261018_abc")).thenReturn(Optional.of(payout));
+
+        service.processWebhookEvent(event("payout.processed", "pout_1", "stl_1_20261018_abc"));
+
+        assertThat(payout.getStatus()).isEqualTo("PAID");
+        assertThat(payout.getRazorpayPayoutId()).isEqualTo("pout_1");
+        verify(payoutRepository).save(payout);
+        verify(settlementRepository).updateStatusByVendorPayoutId(eq(7L), eq("PAID"), any());
+        verify(orderRepository).updateSettlementStatusByVendorPayoutId(7L, "PAID");
+    }
+
+    @Test
+    void failedWebhookForAManualPayoutFindsTheSettlementByReference() {
+        Settlement settlement = new Settlement();
+        settlement.setOrderId("ORD-9");
+        settlement.setVendorId(1L);
+        when(settlementRepository.findByOrderId("ORD-9")).thenReturn(Optional.of(settlement));
+
+        service.processWebhookEvent(event("payout.failed", "pout_2", "settlement_ORD-9"));
+
+        assertThat(settlement.getStatus()).isEqualTo("FAILED");
+        assertThat(settlement.getRazorpayPayoutId()).isEqualTo("pout_2");
+    }
+
+    @Test
+    void unknownPayoutIsThrownSoTheEventIsRetried() {
+        assertThatThrownBy(() -> service.processWebhookEvent(event("payout.processed", "pout_3", "stl_unknown")))
+                .isInstanceOf(IllegalStateException.class);
+        verify(payoutRepository, never()).save(any());
+    }
+
+    private static VendorPayout payout(Long id, String key) {
+        VendorPayout payout = new VendorPayout();
+        payout.setId(id);
+        payout.setVendorId(1L);
+        payout.setIdempotencyKey(key);
+        payout.setAmount(new BigDecimal("90.00"));
+        payout.setStatus("SUBMITTING");
+        return payout;
+    }
+
+    private static JSONObject event(String type, String payoutId, String referenceId) {
+        JSONObject entity = new JSONObject().put("id", payoutId).put("reference_id", referenceId);
+        return new JSONObject()
+                .put("event", type)
+                .put("payload", new JSONObject().put("payout", new JSONObject().put("entity", entity)));
+    }
+}
@@ -0,0 +1,334 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.VendorPaymentDetails;
+import com.agrowmart.entity.order.Order;
+import com.agrowmart.entity.order.Settlement;
+import com.agrowmart.entity.order.VendorPayout;
+import com.agrowmart.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs whole settlement cycles against in-memory tables and a Razorpay stand-in that honours
+ * idempotency keys the way the payouts API does.
+ */
+class SettlementServiceTest {
+
+    private static final long VENDOR_A = 1L;
+    private static final long VENDOR_B = 2L;
+
+    // In-memory orders / vendor_payouts / settlements
+    private final Map<String, Order> orders = new ConcurrentSkipListMap<>();
+    private final Map<Long, VendorPayout> payouts = new ConcurrentHashMap<>();
+    private final List<Settlement> settlements = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger orderNo = new AtomicInteger();
+
+    private final TrackingTransactionManager txManager = new TrackingTransactionManager();
+    private final StubPayouts razorpay = new StubPayouts();
+    private SettlementService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.findEligibleForSettlementAfter(any(), anyString(), any())).thenAnswer(inv -> {
+            LocalDateTime cutoff = inv.getArgument(0);
+            String afterId = inv.getArgument(1);
+            Pageable page = inv.getArgument(2);
+            return orders.values().stream()
+                    .filter(o -> "PENDING".equals(o.getSettlementStatus()))
+                    .filter(o -> !o.getCreatedAt().isAfter(cutoff) && o.getId().compareTo(afterId) > 0)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        when(orderRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(orderRepository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(orders.get(inv.<String>getArgument(0))));
+        when(orderRepository.updateSettlementStatusByVendorPayoutId(anyLong(), anyString())).thenAnswer(inv -> {
+            settlementsOf(inv.getArgument(0)).forEach(s -> orders.get(s.getOrderId()).setSettlementStatus(inv.getArgument(1)));
+            return 1;
+        });
+
+        SettlementRepository settlementRepository = mock(SettlementRepository.class);
+        when(settlementRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Settlement> rows = inv.getArgument(0);
+            for (Settlement s : rows) {
+                s.setId(ids.incrementAndGet());
+                settlements.add(s);
+            }
+            return rows;
+        });
+        when(settlementRepository.findById(anyLong())).thenAnswer(inv -> settlements.stream()
+                .filter(s -> s.getId().equals(inv.getArgument(0))).findFirst());
+        when(settlementRepository.updateStatusByVendorPayoutId(anyLong(), anyString(), any())).thenAnswer(inv -> {
+            settlementsOf(inv.getArgument(0)).forEach(s -> s.setStatus(inv.getArgument(1)));
+            return 1;
+        });
+
+        VendorPayoutRepository payoutRepository = mock(VendorPayoutRepository.class);
+        when(payoutRepository.lockOpenByVendorIdIn(anyCollection())).thenAnswer(inv -> payouts.values().stream()
+                .filter(p -> inv.<Collection<Long>>getArgument(0).contains(p.getVendorId()))
+                .filter(p -> "PENDING".equals(p.getStatus()) && p.getAttempts() == 0)
+                .map(SettlementServiceTest::copy)
+                .toList());
+        when(payoutRepository.findByStatusInOrderByIdAsc(anyCollection())).thenAnswer(inv -> payouts.values().stream()
+                .filter(p -> inv.<Collection<String>>getArgument(0).contains(p.getStatus()))
+                .sorted(Comparator.comparing(VendorPayout::getId))
+                .map(SettlementServiceTest::copy)
+                .toList());
+        when(payoutRepository.findById(anyLong())).thenAnswer(inv -> Optional.ofNullable(payouts.get(inv.<Long>getArgument(0))).map(SettlementServiceTest::copy));
+        when(payoutRepository.lockById(anyLong())).thenAnswer(inv -> Optional.ofNullable(payouts.get(inv.<Long>getArgument(0))).map(SettlementServiceTest::copy));
+        when(payoutRepository.save(any())).thenAnswer(inv -> {
+            VendorPayout p = inv.getArgument(0);
+            if (p.getId() == null) p.setId(ids.incrementAndGet());
+            payouts.put(p.getId(), copy(p));
+            return p;
+        });
+        when(payoutRepository.markSubmitting(anyLong(), any())).thenAnswer(inv -> {
+            VendorPayout p = payouts.get(inv.<Long>getArgument(0));
+            synchronized (p) {
+                if (!"PENDING".equals(p.getStatus()) && !"SUBMITTING".equals(p.getStatus())) return 0;
+                p.setStatus("SUBMITTING");
+                p.setAttempts(p.getAttempts() + 1);
+                return 1;
+            }
+        });
+
+        VendorPaymentDetailsRepository detailsRepository = mock(VendorPaymentDetailsRepository.class);
+        when(detailsRepository.findByUserIdIn(anyCollection())).thenAnswer(inv -> inv.<Collection<Long>>getArgument(0)
+                .stream().map(SettlementServiceTest::fundAccount).toList());
+        when(detailsRepository.findByUserId(anyLong())).thenAnswer(inv -> Optional.of(fundAccount(inv.getArgument(0))));
+
+        RazorpayService razorpayService = mock(RazorpayService.class);
+        when(razorpayService.createVendorPayout(anyString(), any(), anyString())).thenAnswer(inv ->
+                razorpay.create(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2)));
+
+        ScheduledJobRepository jobRepo = mock(ScheduledJobRepository.class);
+        when(jobRepo.tryLock(anyString(), anyString(), any(), any())).thenReturn(1);
+        when(jobRepo.renewLease(anyString(), anyString(), any())).thenReturn(1);
+        JobRunRepository runRepo = mock(JobRunRepository.class);
+        when(runRepo.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        service = new SettlementService(orderRepository, detailsRepository, settlementRepository, payoutRepository,
+                razorpayService, txManager, new JobRunner(jobRepo, runRepo, txManager, 900, 300), 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void batchesEachVendorsOrdersIntoOnePayout() {
+        order(VENDOR_A, "100.00");
+        order(VENDOR_A, "200.00");
+        order(VENDOR_A, "300.00");
+        order(VENDOR_B, "50.00");
+        order(VENDOR_B, "50.00");
+
+        service.processDailySettlements();
+
+        assertThat(payoutsOf(VENDOR_A)).singleElement().satisfies(p -> {
+            assertThat(p.getAmount()).isEqualByComparingTo("540.00");
+            assertThat(p.getCommission()).isEqualByComparingTo("60.00");
+            assertThat(p.getOrderCount()).isEqualTo(3);
+            assertThat(p.getStatus()).isEqualTo("PROCESSING");
+        });
+        assertThat(payoutsOf(VENDOR_B)).singleElement()
+                .satisfies(p -> assertThat(p.getAmount()).isEqualByComparingTo("90.00"));
+        assertThat(razorpay.paidTo(VENDOR_A)).isEqualByComparingTo("540.00");
+        assertThat(razorpay.paidTo(VENDOR_B)).isEqualByComparingTo("90.00");
+        assertThat(orders.values()).allSatisfy(o -> assertThat(o.getSettlementStatus()).isEqualTo("PROCESSING"));
+        assertThat(razorpay.openTransactionsAtCall).containsOnly(0);
+    }
+
+    @Test
+    void failedSendIsRetriedWithTheSameKeyAndAmount() {
+        order(VENDOR_A, "100.00");
+        razorpay.script(VENDOR_A, "DOWN");
+
+        service.processDailySettlements();
+
+        VendorPayout first = payoutsOf(VENDOR_A).get(0);
+        assertThat(first.getStatus()).isEqualTo("PENDING");
+        assertThat(first.getAttempts()).isEqualTo(1);
+
+        // Arrives after the failed send: must not be joined to the payout that is being retried
+        order(VENDOR_A, "200.00");
+        service.processDailySettlements();
+
+        List<VendorPayout> all = payoutsOf(VENDOR_A);
+        assertThat(all).hasSize(2).allSatisfy(p -> assertThat(p.getStatus()).isEqualTo("PROCESSING"));
+        assertThat(all.get(0).getIdempotencyKey()).isEqualTo(first.getIdempotencyKey());
+        assertThat(all.get(0).getAmount()).isEqualByComparingTo("90.00");
+        assertThat(all.get(1).getIdempotencyKey()).isNotEqualTo(first.getIdempotencyKey());
+        assertThat(razorpay.paidTo(VENDOR_A)).isEqualByComparingTo("270.00");
+    }
+
+    @Test
+    void crashAfterRazorpayAcceptedNeverStrandsLaterOrders() {
+        order(VENDOR_A, "100.00");
+        razorpay.script(VENDOR_A, "CRASH");
+
+        service.processDailySettlements();
+
+        VendorPayout sent = payoutsOf(VENDOR_A).get(0);
+        assertThat(sent.getStatus()).isEqualTo("SUBMITTING");
+        assertThat(sent.getRazorpayPayoutId()).isNull();
+
+        order(VENDOR_A, "200.00");
+        service.processDailySettlements();
+
+        // The repeated send got the original payout back; the new order went out on its own
+        List<VendorPayout> all = payoutsOf(VENDOR_A);
+        assertThat(all).hasSize(2).allSatisfy(p -> assertThat(p.getStatus()).isEqualTo("PROCESSING"));
+        assertThat(all.get(0).getAmount()).isEqualByComparingTo(razorpay.created.get(sent.getIdempotencyKey()));
+        assertThat(razorpay.created).hasSize(2);
+        assertThat(razorpay.paidTo(VENDOR_A)).isEqualByComparingTo("270.00");
+    }
+
+    @Test
+    void rejectedPayoutFailsItsOrdersAndManualRetryUsesANewKey() {
+        order(VENDOR_A, "100.00");
+        razorpay.script(VENDOR_A, "REJECT");
+
+        service.processDailySettlements();
+
+        VendorPayout failed = payoutsOf(VENDOR_A).get(0);
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(orders.values()).allSatisfy(o -> assertThat(o.getSettlementStatus()).isEqualTo("FAILED"));
+        assertThat(settlements).allSatisfy(s -> assertThat(s.getStatus()).isEqualTo("FAILED"));
+
+        service.manualPayout(settlements.get(0).getId());
+
+        VendorPayout retried = payouts.get(failed.getId());
+        assertThat(retried.getStatus()).isEqualTo("PROCESSING");
+        assertThat(retried.getIdempotencyKey()).isNotEqualTo(failed.getIdempotencyKey());
+        assertThat(razorpay.paidTo(VENDOR_A)).isEqualByComparingTo("90.00");
+        assertThat(razorpay.openTransactionsAtCall).containsOnly(0);
+    }
+
+    private void order(long vendorId, String total) {
+        User merchant = new User();
+        merchant.setId(vendorId);
+        Order order = new Order();
+        order.setId(String.format("ORD-%04d", orderNo.incrementAndGet()));
+        order.setMerchant(merchant);
+        order.setTotalPrice(new BigDecimal(total));
+        order.setPaymentStatus("SUCCESS");
+        order.setCreatedAt(LocalDateTime.now().minusDays(8));
+        orders.put(order.getId(), order);
+    }
+
+    private List<VendorPayout> payoutsOf(long vendorId) {
+        return payouts.values().stream()
+                .filter(p -> p.getVendorId() == vendorId)
+                .sorted(Comparator.comparing(VendorPayout::getId))
+                .toList();
+    }
+
+    private List<Settlement> settlementsOf(Long payoutId) {
+        return settlements.stream().filter(s -> payoutId.equals(s.getVendorPayoutId())).toList();
+    }
+
+    private static VendorPaymentDetails fundAccount(Long vendorId) {
+        User vendor = new User();
+        vendor.setId(vendorId);
+        VendorPaymentDetails details = new VendorPaymentDetails();
+        details.setUser(vendor);
+        details.setRazorpayFundAccountId("fa_" + vendorId);
+        return details;
+    }
+
+    // What a row read back from the table looks like: changes only count once saved
+    private static VendorPayout copy(VendorPayout source) {
+        VendorPayout copy = new VendorPayout();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    /** Thrown after Razorpay accepted a payout, standing in for the process dying there. */
+    private static final class Crash extends Error {
+    }
+
+    // The payouts API as far as settlement cares: a repeated idempotency key returns the payout
+    // created the first time instead of paying again
+    private final class StubPayouts {
+
+        final Map<String, BigDecimal> created = new ConcurrentHashMap<>();
+        final Map<String, String> fundAccountOf = new ConcurrentHashMap<>();
+        final Map<String, String> payoutIds = new ConcurrentHashMap<>();
+        final List<Integer> openTransactionsAtCall = new CopyOnWriteArrayList<>();
+        // Outcome of the next calls per fund account; accepted once the script runs out
+        private final Map<String, Queue<String>> scripts = new ConcurrentHashMap<>();
+
+        void script(long vendorId, String... outcomes) {
+            scripts.computeIfAbsent("fa_" + vendorId, k -> new ConcurrentLinkedQueue<>()).addAll(List.of(outcomes));
+        }
+
+        String create(String fundAccountId, BigDecimal amount, String key) {
+            openTransactionsAtCall.add(txManager.open.get());
+            String outcome = scripts.getOrDefault(fundAccountId, new ArrayDeque<>()).poll();
+            if ("DOWN".equals(outcome)) throw new ResourceAccessException("Connect timed out");
+            if ("REJECT".equals(outcome)) throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+
+            created.putIfAbsent(key, amount);
+            fundAccountOf.putIfAbsent(key, fundAccountId);
+            String payoutId = payoutIds.computeIfAbsent(key, k -> "pout_" + k);
+            if ("CRASH".equals(outcome)) throw new Crash();
+            return payoutId;
+        }
+
+        BigDecimal paidTo(long vendorId) {
+            return created.entrySet().stream()
+                    .filter(e -> fundAccountOf.get(e.getKey()).equals("fa_" + vendorId))
+                    .map(Map.Entry::getValue)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    // Counts open transactions per thread, so the tests can check no Razorpay call runs inside one
+    private static final class TrackingTransactionManager implements PlatformTransactionManager {
+
+        final ThreadLocal<Integer> open = ThreadLocal.withInitial(() -> 0);
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            open.set(open.get() + 1);
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            open.set(open.get() - 1);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            open.set(open.get() - 1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.agrowmart.service;
+
+import com.agrowmart.util.GeoHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShopGeoIndexTest {
+
+    private final ShopGeoIndex index = new ShopGeoIndex();
+
+    @Test
+    void matchesABruteForceScan() {
+        Random random = new Random(42);
+        List<ShopGeoIndex.Point> points = new ArrayList<>();
+        for (long i = 1; i <= 5_000; i++) {
+            // Around Pune, spread over roughly 100 x 100 km
+            points.add(new ShopGeoIndex.Point(i, 1000 + i,
+                    18.0 + random.nextDouble() * 0.9, 73.4 + random.nextDouble() * 0.9));
+        }
+        index.replaceAll(points);
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 18.1 + random.nextDouble() * 0.7;
+            double lon = 73.5 + random.nextDouble() * 0.7;
+            double radius = 1 + random.nextDouble() * 20;
+
+            List<Long> expected = points.stream()
+                    .filter(p -> GeoHash.distanceKm(lat, lon, p.latitude(), p.longitude()) <= radius)
+                    .sorted(Comparator.comparingDouble((ShopGeoIndex.Point p) ->
+                            GeoHash.distanceKm(lat, lon, p.latitude(), p.longitude())).thenComparing(ShopGeoIndex.Point::shopId))
+                    .limit(20)
+                    .map(ShopGeoIndex.Point::shopId)
+                    .toList();
+
+            assertThat(index.nearest(lat, lon, radius, 20))
+                    .extracting(ShopGeoIndex.Hit::shopId)
+                    .containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void findsAShopJustAcrossACellBoundary() {
+        // Latitude cells are 180 / 2^12 degrees high at precision 5
+        double edge = -90 + 2469 * 180.0 / 4096;
+        index.upsert(new ShopGeoIndex.Point(1L, 11L, edge + 0.00001, 73.85));
+        assertThat(GeoHash.encode(edge + 0.00001, 73.85, 5)).isNotEqualTo(GeoHash.encode(edge - 0.00001, 73.85, 5));
+
+        assertThat(index.nearest(edge - 0.00001, 73.85, 1, 10)).extracting(ShopGeoIndex.Hit::shopId).containsExactly(1L);
+    }
+
+    @Test
+    void movedAndRemovedShopsLeaveTheirOldCell() {
+        index.upsert(new ShopGeoIndex.Point(1L, 11L, 18.52, 73.85));
+        index.upsert(new ShopGeoIndex.Point(1L, 11L, 19.07, 72.87));   // moved to Mumbai
+
+        assertThat(index.nearest(18.52, 73.85, 5, 10)).isEmpty();
+        assertThat(index.nearest(19.07, 72.87, 5, 10)).hasSize(1);
+
+        index.remove(1L);
+        assertThat(index.size()).isZero();
+        assertThat(index.nearest(19.07, 72.87, 5, 10)).isEmpty();
+    }
+
+    @Test
+    void changesDuringARebuildSurviveTheStaleSnapshot() {
+        index.upsert(new ShopGeoIndex.Point(1L, 11L, 18.52, 73.85));
+        index.upsert(new ShopGeoIndex.Point(2L, 12L, 18.53, 73.86));
+
+        index.rebuild(() -> {
+            List<ShopGeoIndex.Point> snapshot = List.of(
+                    new ShopGeoIndex.Point(1L, 11L, 18.52, 73.85),
+                    new ShopGeoIndex.Point(2L, 12L, 18.53, 73.86));
+            // Saved after the rows above were read
+            index.upsert(new ShopGeoIndex.Point(1L, 11L, 19.07, 72.87));   // moved to Mumbai
+            index.remove(2L);
+            index.upsert(new ShopGeoIndex.Point(3L, 13L, 18.52, 73.85));
+            return snapshot;
+        });
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.nearest(18.52, 73.85, 5, 10)).extracting(ShopGeoIndex.Hit::shopId).containsExactly(3L);
+        assertThat(index.nearest(19.07, 72.87, 5, 10)).extracting(ShopGeoIndex.Hit::shopId).containsExactly(1L);
+    }
+
+    @Test
+    void failedRebuildKeepsTheIndexAndStopsRecording() {
+        index.upsert(new ShopGeoIndex.Point(1L, 11L, 18.52, 73.85));
+
+        assertThatThrownBy(() -> index.rebuild(() -> {
+            throw new IllegalStateException("DB unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+        index.upsert(new ShopGeoIndex.Point(2L, 12L, 18.53, 73.86));
+        index.replaceAll(List.of(new ShopGeoIndex.Point(1L, 11L, 18.52, 73.85)));
+
+        // Nothing was left recording, so the later replaceAll replays nothing
+        assertThat(index.nearest(18.52, 73.85, 5, 10)).extracting(ShopGeoIndex.Hit::shopId).containsExactly(1L);
+    }
+}
@@ -0,0 +1,89 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.Shop;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShopScheduleCacheTest {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final ShopScheduleCache cache = new ShopScheduleCache();
+
+    // 2026-03-02 is a Monday
+    private static long at(int dayOfMonth, int hour, int minute) {
+        return LocalDateTime.of(2026, 3, dayOfMonth, hour, minute).atZone(IST).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void regularHoursIncludeBothEnds() {
+        Shop shop = shop(1L, """
+                [{"day":"MONDAY","open":"09:00","close":"18:00"}]""");
+
+        assertThat(cache.isOpen(shop, at(2, 8, 59))).isFalse();
+        assertThat(cache.isOpen(shop, at(2, 9, 0))).isTrue();
+        assertThat(cache.isOpen(shop, at(2, 18, 0))).isTrue();
+        assertThat(cache.isOpen(shop, at(2, 18, 1))).isFalse();
+        assertThat(cache.isOpen(shop, at(3, 10, 0))).isFalse();   // Tuesday
+    }
+
+    @Test
+    void overnightHoursRunIntoTheNextDay() {
+        Shop shop = shop(2L, """
+                [{"day":"FRIDAY","open":"22:00","close":"02:00"}]""");
+
+        assertThat(cache.isOpen(shop, at(6, 21, 59))).isFalse();  // Friday
+        assertThat(cache.isOpen(shop, at(6, 23, 30))).isTrue();
+        assertThat(cache.isOpen(shop, at(7, 0, 0))).isTrue();     // Saturday
+        assertThat(cache.isOpen(shop, at(7, 1, 59))).isTrue();
+        assertThat(cache.isOpen(shop, at(7, 2, 1))).isFalse();
+        assertThat(cache.isOpen(shop, at(5, 1, 0))).isFalse();    // Thursday night is not Friday's
+    }
+
+    @Test
+    void sundayOvernightWrapsToMonday() {
+        Shop shop = shop(3L, """
+                [{"day":"SUNDAY","open":"20:00","close":"03:00"}]""");
+
+        assertThat(cache.isOpen(shop, at(8, 19, 59))).isFalse();  // Sunday
+        assertThat(cache.isOpen(shop, at(8, 23, 59))).isTrue();
+        assertThat(cache.isOpen(shop, at(9, 0, 30))).isTrue();    // Monday
+        assertThat(cache.isOpen(shop, at(2, 2, 59))).isTrue();    // the Monday before, same week slot
+        assertThat(cache.isOpen(shop, at(9, 3, 1))).isFalse();
+    }
+
+    @Test
+    void changedHoursAreRecompiled() {
+        Shop shop = shop(4L, """
+                [{"day":"MONDAY","open":"09:00","close":"18:00"}]""");
+        assertThat(cache.isOpen(shop, at(2, 20, 0))).isFalse();
+
+        shop.setWorkingHoursJson("""
+                [{"day":"MONDAY","open":"09:00","close":"22:00"}]""");
+        assertThat(cache.isOpen(shop, at(2, 20, 0))).isTrue();
+    }
+
+    @Test
+    void badEntriesAreSkippedAndBadJsonIsClosed() {
+        Shop shop = shop(5L, """
+                [{"day":"FUNDAY","open":"09:00","close":"18:00"},
+                 {"day":"TUESDAY","open":"9am","close":"18:00"},
+                 {"day":"WEDNESDAY","open":"09:00","close":"18:00"}]""");
+
+        assertThat(cache.isOpen(shop, at(4, 10, 0))).isTrue();    // Wednesday
+        assertThat(cache.isOpen(shop, at(3, 10, 0))).isFalse();
+        assertThat(cache.isOpen(shop(6L, "{not json"), at(4, 10, 0))).isFalse();
+        assertThat(cache.isOpen(shop(7L, null), at(4, 10, 0))).isFalse();
+    }
+
+    private static Shop shop(Long id, String hoursJson) {
+        Shop shop = new Shop();
+        shop.setId(id);
+        shop.setWorkingHoursJson(hoursJson);
+        return shop;
+    }
+}
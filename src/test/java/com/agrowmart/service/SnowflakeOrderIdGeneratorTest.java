@@ -0,0 +1,111 @@
+package com.agrowmart.service;
+
+import com.agrowmart.repository.OrderIdNodeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SnowflakeOrderIdGeneratorTest {
+
+    // Stands in for order_id_nodes: node id -> holder
+    private final Map<Integer, String> leases = new ConcurrentHashMap<>();
+
+    @Test
+    void idsAreUniqueAcrossNodesAndThreads() throws Exception {
+        List<SnowflakeOrderIdGenerator> nodes = List.of(
+                new SnowflakeOrderIdGenerator(1), new SnowflakeOrderIdGenerator(2),
+                new SnowflakeOrderIdGenerator(3), new SnowflakeOrderIdGenerator(1023));
+
+        assertThat(generate(nodes, 8, 25_000)).hasSize(4 * 8 * 25_000);
+    }
+
+    @Test
+    void idsFromOneThreadSortInIssueOrder() {
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(5);
+        String prev = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.nextId();
+            assertThat(next).hasSize(SnowflakeOrderIdGenerator.PREFIX.length() + 19).isGreaterThan(prev);
+            prev = next;
+        }
+    }
+
+    @Test
+    void instancesWithoutANodeIdLeaseDistinctNodes() throws Exception {
+        List<SnowflakeOrderIdGenerator> nodes = new ArrayList<>();
+        for (int i = 0; i < 16; i++) nodes.add(leased(600));
+
+        assertThat(nodes.stream().map(SnowflakeOrderIdGenerator::node).distinct()).hasSize(16);
+        assertThat(generate(nodes, 4, 10_000)).hasSize(16 * 4 * 10_000);
+    }
+
+    @Test
+    void lapsedLeaseStopsIssuingIds() {
+        SnowflakeOrderIdGenerator generator = leased(0);
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void lostLeaseMovesToAnotherNode() {
+        OrderIdNodeRepository repo = repository();
+        SnowflakeOrderIdGenerator generator =
+                new SnowflakeOrderIdGenerator(repo, mock(PlatformTransactionManager.class), -1, 600);
+        long before = generator.node();
+        leases.put((int) before, "someone-else");
+
+        generator.renewLease();
+
+        assertThat(generator.node()).isNotEqualTo(before);
+        assertThat(leases).containsKey((int) generator.node());
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeOrderIdGenerator(1024)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private SnowflakeOrderIdGenerator leased(long leaseSeconds) {
+        return new SnowflakeOrderIdGenerator(repository(), mock(PlatformTransactionManager.class), -1, leaseSeconds);
+    }
+
+    private OrderIdNodeRepository repository() {
+        OrderIdNodeRepository repo = mock(OrderIdNodeRepository.class);
+        when(repo.tryLease(anyInt(), anyString(), any(), any())).thenAnswer(inv ->
+                leases.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null ? 1 : 0);
+        when(repo.renewLease(anyInt(), anyString(), any())).thenAnswer(inv ->
+                inv.getArgument(1).equals(leases.get(inv.<Integer>getArgument(0))) ? 1 : 0);
+        return repo;
+    }
+
+    private static Set<String> generate(List<SnowflakeOrderIdGenerator> nodes, int threadsPerNode, int idsPerThread)
+            throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(nodes.size() * threadsPerNode);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (SnowflakeOrderIdGenerator node : nodes) {
+            for (int t = 0; t < threadsPerNode; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < idsPerThread; i++) ids.add(node.nextId());
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+        return ids;
+    }
+}
@@ -0,0 +1,138 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.Order;
+import com.agrowmart.entity.order.StockReservation;
+import com.agrowmart.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StockReservationServiceTest {
+
+    private static final long PRODUCT_ID = 7L;
+
+    private StockReservationRepository reservationRepository;
+    private ProductRepository productRepository;
+    private OrderRepository orderRepository;
+    private StockReservationService service;
+
+    // Stands in for products.stock_quantity. The conditional UPDATEs themselves are run
+    // against MySQL in ProductStockUpdateTest; here they are only a compare-and-set
+    private final AtomicInteger stock = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = mock(StockReservationRepository.class);
+        productRepository = mock(ProductRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        service = new StockReservationService(reservationRepository, productRepository,
+                mock(WomenProductRepository.class), mock(AgriProductRepository.class),
+                orderRepository, mock(OrderStatusHistoryRepository.class), mock(JobRunner.class));
+
+        when(productRepository.decrementStockIfAvailable(eq(PRODUCT_ID), anyDouble())).thenAnswer(inv -> {
+            int qty = (int) (double) inv.getArgument(1, Double.class);
+            while (true) {
+                int current = stock.get();
+                if (current < qty) return 0;
+                if (stock.compareAndSet(current, current - qty)) return 1;
+            }
+        });
+        when(productRepository.incrementStock(eq(PRODUCT_ID), anyDouble())).thenAnswer(inv -> {
+            stock.addAndGet((int) (double) inv.getArgument(1, Double.class));
+            return 1;
+        });
+    }
+
+    @Test
+    void concurrentReleasesGiveStockBackOnce() throws Exception {
+        stock.set(0);
+        StockReservation r = reservation(1L, "ORD-1", "CONFIRMED", 3);
+        AtomicReference<String> status = new AtomicReference<>("CONFIRMED");
+        when(reservationRepository.findByOrderId("ORD-1")).thenReturn(List.of(r));
+        when(reservationRepository.markReleased(eq(1L), any())).thenAnswer(inv ->
+                status.compareAndSet("CONFIRMED", "RELEASED") || status.compareAndSet("HELD", "RELEASED") ? 1 : 0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                service.release("ORD-1");
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(stock.get()).isEqualTo(3);
+        verify(productRepository, times(1)).incrementStock(PRODUCT_ID, 3);
+    }
+
+    @Test
+    void latePaymentTakesStockBackAndReinstatesOrder() {
+        stock.set(5);
+        Order order = order("ORD-2", "ONLINE");
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        order.setCancelledBy("SYSTEM");
+        when(orderRepository.findById("ORD-2")).thenReturn(Optional.of(order));
+        when(reservationRepository.confirmHeld(eq("ORD-2"), any())).thenReturn(0);
+        when(reservationRepository.findByOrderId("ORD-2")).thenReturn(List.of(reservation(2L, "ORD-2", "RELEASED", 2)));
+        when(reservationRepository.markRetaken(eq(2L), any())).thenReturn(1);
+
+        service.confirm("ORD-2");
+
+        assertThat(stock.get()).isEqualTo(3);
+        assertThat(order.getStatus()).isEqualTo(Order.OrderStatus.PENDING);
+        assertThat(order.getCancelledBy()).isNull();
+    }
+
+    @Test
+    void latePaymentWithoutStockFlagsRefund() {
+        stock.set(1);
+        Order order = order("ORD-3", "ONLINE");
+        order.setStatus(Order.OrderStatus.CANCELLED);
+        order.setCancelledBy("SYSTEM");
+        when(orderRepository.findById("ORD-3")).thenReturn(Optional.of(order));
+        when(reservationRepository.findByOrderId("ORD-3")).thenReturn(List.of(reservation(3L, "ORD-3", "RELEASED", 2)));
+        when(reservationRepository.markRetaken(eq(3L), any())).thenReturn(1);
+
+        service.confirm("ORD-3");
+
+        assertThat(stock.get()).isEqualTo(1);
+        assertThat(order.getStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        verify(reservationRepository).markReleased(eq(3L), any());
+        verify(orderRepository).save(order);
+    }
+
+    private static Order order(String id, String paymentMode) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPaymentMode(paymentMode);
+        return order;
+    }
+
+    private static StockReservation reservation(Long id, String orderId, String status, int qty) {
+        StockReservation r = new StockReservation();
+        r.setId(id);
+        r.setOrderId(orderId);
+        r.setProductType("NORMAL");
+        r.setProductId(PRODUCT_ID);
+        r.setQuantity(qty);
+        r.setStatus(status);
+        r.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        return r;
+    }
+}
@@ -0,0 +1,129 @@
+package com.agrowmart.service;
+
+import com.agrowmart.entity.order.WebhookEvent;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.repository.WebhookEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WebhookEventProcessorTest {
+
+    private static final String CAPTURED = """
+            {"event":"payment.captured","payload":{"payment":{"entity":{"id":"pay_1","order_id":"order_1"}}}}
+            """;
+
+    private WebhookEventRepository eventRepository;
+    private RazorpayService razorpayService;
+    private WebhookEventProcessor processor;
+
+    // Stands in for the unique key on webhook_events.event_id
+    private final Set<String> stored = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        eventRepository = mock(WebhookEventRepository.class);
+        razorpayService = mock(RazorpayService.class);
+        when(eventRepository.existsByEventId(anyString())).thenAnswer(inv -> stored.contains(inv.<String>getArgument(0)));
+        when(eventRepository.save(any())).thenAnswer(inv -> {
+            WebhookEvent e = inv.getArgument(0);
+            if (e.getId() == null && !stored.add(e.getEventId())) {
+                throw new DataIntegrityViolationException("Duplicate entry for key 'event_id'");
+            }
+            return e;
+        });
+        when(eventRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        processor = new WebhookEventProcessor(eventRepository, razorpayService,
+                mock(PlatformTransactionManager.class), mock(JobRunner.class), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void replayedWebhookIsStoredOnce() {
+        assertThat(processor.accept("evt_1", CAPTURED)).isTrue();
+        assertThat(processor.accept("evt_1", CAPTURED)).isFalse();
+        assertThat(processor.accept(" evt_1 ", CAPTURED)).isFalse();
+
+        ArgumentCaptor<WebhookEvent> saved = ArgumentCaptor.forClass(WebhookEvent.class);
+        verify(eventRepository, times(1)).save(saved.capture());
+        assertThat(saved.getValue().getEntityKey()).isEqualTo("payment:pay_1");
+        assertThat(saved.getValue().getEventType()).isEqualTo("payment.captured");
+    }
+
+    @Test
+    void concurrentReplayLosesOnTheUniqueKey() {
+        // Both passed the exists check; the second INSERT hits the unique key
+        when(eventRepository.existsByEventId("evt_2")).thenReturn(false);
+
+        assertThat(processor.accept("evt_2", CAPTURED)).isTrue();
+        assertThat(processor.accept("evt_2", CAPTURED)).isFalse();
+    }
+
+    @Test
+    void replayWithoutEventIdIsRecognisedByItsPayload() {
+        assertThat(processor.accept(null, CAPTURED)).isTrue();
+        assertThat(processor.accept("", CAPTURED)).isFalse();
+        assertThat(stored).singleElement().asString().startsWith("sha256:");
+    }
+
+    @Test
+    void malformedPayloadIsABadRequest() {
+        assertThatThrownBy(() -> processor.accept("evt_3", "not json"))
+                .isInstanceOf(BusinessValidationException.class);
+        verify(eventRepository, never()).save(any());
+    }
+
+    @Test
+    void expiredClaimCountsAsAnAttempt() {
+        WebhookEvent abandoned = event(10L, "PROCESSING", 2);
+        when(eventRepository.lockDue(any(), anyInt())).thenReturn(List.of(abandoned), List.of());
+
+        processor.drain();
+
+        assertThat(abandoned.getAttempts()).isEqualTo(4);   // the lost claim, then this run
+        assertThat(abandoned.getStatus()).isEqualTo("PROCESSED");
+        verify(razorpayService).processWebhookEvent(any());
+    }
+
+    @Test
+    void eventThatKeepsKillingWorkersIsGivenUp() {
+        WebhookEvent poison = event(11L, "PROCESSING", 5);
+        when(eventRepository.lockDue(any(), anyInt())).thenReturn(List.of(poison), List.of());
+
+        processor.drain();
+
+        assertThat(poison.getStatus()).isEqualTo("FAILED");
+        assertThat(poison.getAttempts()).isEqualTo(6);
+        verifyNoInteractions(razorpayService);
+    }
+
+    private static WebhookEvent event(Long id, String status, int attempts) {
+        WebhookEvent e = new WebhookEvent();
+        e.setId(id);
+        e.setEventId("evt_" + id);
+        e.setEventType("payment.captured");
+        e.setEntityKey("payment:pay_" + id);
+        e.setPayload(CAPTURED);
+        e.setStatus(status);
+        e.setAttempts(attempts);
+        e.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        return e;
+    }
+}
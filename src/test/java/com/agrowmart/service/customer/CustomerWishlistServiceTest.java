@@ -0,0 +1,192 @@
+package com.agrowmart.service.customer;
+
+import com.agrowmart.dto.auth.customer.WishlistProductDTO;
+import com.agrowmart.dto.auth.product.CursorPage;
+import com.agrowmart.entity.Shop;
+import com.agrowmart.entity.User;
+import com.agrowmart.entity.customer.CustomerWishlist;
+import com.agrowmart.exception.AuthExceptions.BusinessValidationException;
+import com.agrowmart.repository.ShopRepository;
+import com.agrowmart.repository.UserRepository;
+import com.agrowmart.repository.customer.CustomerWishlistRepository;
+import com.agrowmart.service.CatalogLookupService;
+import com.agrowmart.service.CatalogLookupService.CatalogSnapshot;
+import com.agrowmart.service.CatalogLookupService.Key;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomerWishlistServiceTest {
+
+    private static final long CUSTOMER = 7L;
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 10, 12, 0);
+
+    // Newest first, as the repository returns them
+    private final List<CustomerWishlist> entries = new ArrayList<>();
+    private final Set<Long> deletedProducts = new HashSet<>();
+
+    private CustomerWishlistRepository wishlistRepo;
+    private CatalogLookupService catalogLookup;
+    private UserRepository userRepo;
+    private ShopRepository shopRepo;
+    private CustomerWishlistService service;
+
+    @BeforeEach
+    void setUp() {
+        wishlistRepo = mock(CustomerWishlistRepository.class);
+        when(wishlistRepo.findByCustomerIdOrderByAddedAtDesc(CUSTOMER)).thenAnswer(inv -> List.copyOf(entries));
+        when(wishlistRepo.findPage(eq(CUSTOMER), any())).thenAnswer(inv ->
+                limit(entries.stream().toList(), inv.getArgument(1)));
+        when(wishlistRepo.findPageAfter(eq(CUSTOMER), any(), any(), any())).thenAnswer(inv -> {
+            LocalDateTime addedAt = inv.getArgument(1);
+            Long id = inv.getArgument(2);
+            return limit(entries.stream()
+                    .filter(w -> w.getAddedAt().isBefore(addedAt)
+                            || (w.getAddedAt().equals(addedAt) && w.getId() < id))
+                    .toList(), inv.getArgument(3));
+        });
+
+        catalogLookup = mock(CatalogLookupService.class);
+        when(catalogLookup.lookup(anyCollection())).thenAnswer(inv -> {
+            Map<Key, CatalogSnapshot> found = new HashMap<>();
+            for (Key key : inv.<Collection<Key>>getArgument(0)) {
+                if (!deletedProducts.contains(key.productId())) found.put(key, snapshot(key));
+            }
+            return found;
+        });
+
+        userRepo = mock(UserRepository.class);
+        when(userRepo.findAllById(anyIterable())).thenAnswer(inv -> {
+            List<User> vendors = new ArrayList<>();
+            for (Long id : inv.<Iterable<Long>>getArgument(0)) vendors.add(vendor(id));
+            return vendors;
+        });
+        shopRepo = mock(ShopRepository.class);
+        when(shopRepo.findAllByUserIdIn(anyCollection())).thenAnswer(inv -> {
+            List<Shop> shops = new ArrayList<>();
+            for (Long id : inv.<Collection<Long>>getArgument(0)) shops.add(vendor(id).getShop());
+            return shops;
+        });
+
+        service = new CustomerWishlistService(wishlistRepo, catalogLookup, shopRepo, userRepo);
+    }
+
+    @Test
+    void hydratingTheWholeListTakesAFixedNumberOfQueries() {
+        addEntries(60);
+
+        List<WishlistProductDTO> list = service.getWishlist(CUSTOMER);
+
+        assertThat(list).hasSize(60);
+        verify(catalogLookup, times(1)).lookup(anyCollection());
+        verify(userRepo, times(1)).findAllById(anyIterable());
+        verify(shopRepo, times(1)).findAllByUserIdIn(anyCollection());
+
+        WishlistProductDTO newest = list.get(0);
+        assertThat(newest.productId()).isEqualTo(60L);
+        assertThat(newest.productName()).isEqualTo("Product 60");
+        assertThat(newest.shopName()).isEqualTo("Shop " + merchantOf(60L));
+        assertThat(newest.vendorName()).isEqualTo("Vendor " + merchantOf(60L));
+        assertThat(newest.minPrice()).isEqualByComparingTo("40.00");
+    }
+
+    @Test
+    void deletedProductsAreLeftOutInsteadOfFailingTheList() {
+        addEntries(5);
+        deletedProducts.add(3L);
+
+        assertThat(service.getWishlist(CUSTOMER))
+                .extracting(WishlistProductDTO::productId)
+                .containsExactly(5L, 4L, 2L, 1L);
+    }
+
+    @Test
+    void cursorPagesWalkTheListOnceNewestFirst() {
+        addEntries(7);
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        CursorPage<WishlistProductDTO> page;
+        do {
+            page = service.getWishlistPage(CUSTOMER, cursor, 3);
+            page.items().forEach(dto -> seen.add(dto.productId()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (page.hasMore());
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(cursor).isNull();
+        assertThat(seen).containsExactly(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+        // Each page hydrates with one batched lookup
+        verify(catalogLookup, times(3)).lookup(anyCollection());
+    }
+
+    @Test
+    void bulkCheckKeepsTheRequestOrder() {
+        when(wishlistRepo.findProductIdsIn(eq(CUSTOMER), eq("REGULAR"), anyCollection())).thenReturn(List.of(4L, 2L));
+
+        Map<Long, Boolean> flags = service.checkMany(CUSTOMER, " regular ", List.of(5L, 4L, 3L, 2L));
+
+        assertThat(flags).containsExactly(
+                Map.entry(5L, false), Map.entry(4L, true), Map.entry(3L, false), Map.entry(2L, true));
+        verify(wishlistRepo, times(1)).findProductIdsIn(anyLong(), anyString(), anyCollection());
+    }
+
+    @Test
+    void bulkCheckIsCapped() {
+        List<Long> ids = LongStream.rangeClosed(1, 201).boxed().toList();
+
+        assertThatThrownBy(() -> service.checkMany(CUSTOMER, "REGULAR", ids))
+                .isInstanceOf(BusinessValidationException.class);
+        verifyNoInteractions(wishlistRepo);
+    }
+
+    // ─────────────────────────────────────────────
+
+    // Product i was added i minutes after BASE; ids match product ids. Entries 4 and 5 share a
+    // timestamp across a page boundary, so the cursor's id tie-break is exercised.
+    private void addEntries(int count) {
+        for (long i = count; i >= 1; i--) {
+            CustomerWishlist w = new CustomerWishlist(CUSTOMER, i, "REGULAR");
+            w.setId(i);
+            w.setAddedAt(BASE.plusMinutes(i == 4 ? 5 : i));
+            entries.add(w);
+        }
+    }
+
+    private static List<CustomerWishlist> limit(List<CustomerWishlist> rows, Pageable pageable) {
+        return rows.subList(0, Math.min(rows.size(), pageable.getPageSize()));
+    }
+
+    private static long merchantOf(long productId) {
+        return 100 + productId % 10;
+    }
+
+    private static CatalogSnapshot snapshot(Key key) {
+        return new CatalogSnapshot(key.productType(), key.productId(), "Product " + key.productId(),
+                new BigDecimal("40.00"), new BigDecimal("45.00"), null, 10, true,
+                merchantOf(key.productId()), "Vegetables", "VEGETABLE", true);
+    }
+
+    private static User vendor(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setBusinessName("Vendor " + id);
+        Shop shop = new Shop();
+        shop.setShopName("Shop " + id);
+        shop.setUser(user);
+        user.setShop(shop);
+        return user;
+    }
+}
@@ -0,0 +1,26 @@
+package com.agrowmart.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikePatternTest {
+
+    @Test
+    void wildcardsInTheSearchAreMatchedLiterally() {
+        assertThat(LikePattern.contains("100%")).isEqualTo("%100\\%%");
+        assertThat(LikePattern.contains("a_b")).isEqualTo("%a\\_b%");
+        assertThat(LikePattern.contains("c:\\x")).isEqualTo("%c:\\\\x%");
+    }
+
+    @Test
+    void trimsAndLowerCases() {
+        assertThat(LikePattern.contains("  Fresh Tomato ")).isEqualTo("%fresh tomato%");
+    }
+
+    @Test
+    void blankSearchMeansNoFilter() {
+        assertThat(LikePattern.contains(null)).isNull();
+        assertThat(LikePattern.contains("   ")).isNull();
+    }
+}